@@ -0,0 +1,309 @@
+package com.mollin.lightsoutsolver.cli;
+
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.solver.SolveCostEstimator;
+import com.mollin.lightsoutsolver.core.solver.SolveEstimate;
+import com.mollin.lightsoutsolver.core.solver.SolveStrategy;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import com.mollin.lightsoutsolver.corpus.PuzzleCorpus;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Résolution en lot d'un fichier de grilles, en ligne de commande. Les
+ * grilles sont lues au fil de l'eau et résolues en parallèle sur un nombre
+ * borné de threads. Les résultats sont écrits dans l'ordre du fichier
+ * d'entrée ; le nombre de grilles en cours est borné (la lecture attend
+ * l'écriture), la mémoire utilisée est donc constante quelle que soit la
+ * taille du fichier.
+ * <p>
+ * Usage : BatchSolver [--threads N] [--mode first|min|count]
+ * [--binary|--corpus] entrée sortie ('-' pour l'entrée ou la sortie
+ * standard ; un corpus doit être un fichier).
+ * <p>
+ * Chaque ligne de résultat est de la forme "numéro résolvable
+ * nombreDeSolutions solution", la solution étant une chaîne de '0' et de '1'
+ * ('-' si elle n'est pas demandée ou n'existe pas). Une grille invalide ou
+ * dont la résolution ne tient pas dans sa part du tas (le tas divisé par le
+ * nombre de threads, cf : SolveCostEstimator) produit une ligne "numéro
+ * error message" sans interrompre le traitement.
+ *
+ * @author MOLLIN Florian
+ */
+public class BatchSolver {
+    /**
+     * Dimension maximale du noyau pour la recherche exhaustive de la solution
+     * minimale (au delà, la solution est approchée)
+     */
+    private static final int MAX_EXHAUSTIVE_NULLITY = 20;
+    /**
+     * Nombre de grilles en cours par thread de résolution
+     */
+    private static final int PENDING_PER_THREAD = 4;
+
+    /**
+     * Résultat à calculer pour chaque grille
+     */
+    public enum Mode {
+        /**
+         * Nombre de solutions et première solution
+         */
+        FIRST,
+        /**
+         * Nombre de solutions et solution utilisant le moins de cases
+         */
+        MIN,
+        /**
+         * Nombre de solutions uniquement
+         */
+        COUNT
+    }
+
+    /**
+     * Patterns disponibles, par identifiant
+     */
+    private final Map<String, PatternInterface> patterns;
+    /**
+     * Résultat à calculer
+     */
+    private final Mode mode;
+    /**
+     * Nombre de threads de résolution
+     */
+    private final int threads;
+    /**
+     * Mémoire maximale (estimée) de la résolution d'une grille (en octets)
+     */
+    private final long heapBudget;
+
+    /**
+     * Constructeur du traitement en lot.
+     *
+     * @param patterns Les patterns disponibles, par identifiant
+     * @param mode     Le résultat à calculer
+     * @param threads  Le nombre de threads de résolution
+     */
+    public BatchSolver(Map<String, PatternInterface> patterns, Mode mode, int threads) {
+        this.patterns = patterns;
+        this.mode = mode;
+        this.threads = threads;
+        this.heapBudget = Runtime.getRuntime().maxMemory() / threads;
+    }
+
+    /**
+     * Résout toutes les grilles lues et écrit les résultats dans l'ordre de
+     * lecture.
+     *
+     * @param reader Le lecteur de grilles
+     * @param out    La sortie des résultats
+     * @return Le nombre de grilles traitées
+     * @throws IOException          En cas d'erreur de lecture ou d'écriture
+     * @throws InterruptedException Si le traitement est interrompu
+     */
+    public long run(PuzzleReader reader, Writer out) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+        BlockingQueue<Future<String>> pending = new ArrayBlockingQueue<>(this.threads * PENDING_PER_THREAD);
+        // résultat vide marquant la fin du fichier
+        Future<String> endMarker = CompletableFuture.completedFuture(null);
+        ExecutorService writerExecutor = Executors.newSingleThreadExecutor();
+        Future<Long> writer = writerExecutor.submit(() -> write(pending, endMarker, out));
+        try {
+            Puzzle puzzle;
+            while ((puzzle = reader.next()) != null) {
+                Puzzle acPuzzle = puzzle;
+                enqueue(pending, pool.submit(() -> solve(acPuzzle)), writer);
+            }
+            enqueue(pending, endMarker, writer);
+            return writer.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw (cause instanceof IOException) ? (IOException) cause : new IOException(cause);
+        } finally {
+            pool.shutdownNow();
+            writerExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ajoute un résultat en cours à la file d'écriture. L'ajout est bloquant
+     * tant que la file est pleine (la lecture attend l'écriture), sauf si
+     * l'écriture s'est arrêtée en erreur.
+     *
+     * @param pending La file des résultats en cours
+     * @param result  Le résultat à ajouter
+     * @param writer  La tâche d'écriture
+     * @throws InterruptedException Si l'attente est interrompue
+     * @throws ExecutionException   Si l'écriture s'est arrêtée en erreur
+     */
+    private static void enqueue(BlockingQueue<Future<String>> pending, Future<String> result, Future<Long> writer)
+            throws InterruptedException, ExecutionException {
+        while (!pending.offer(result, 100, TimeUnit.MILLISECONDS)) {
+            if (writer.isDone()) {
+                writer.get();
+            }
+        }
+    }
+
+    /**
+     * Ecrit les résultats dans l'ordre de la file.
+     *
+     * @param pending   La file des résultats en cours
+     * @param endMarker Le résultat marquant la fin du fichier
+     * @param out       La sortie des résultats
+     * @return Le nombre de résultats écrits
+     * @throws Exception En cas d'erreur d'écriture ou d'interruption
+     */
+    private static long write(BlockingQueue<Future<String>> pending, Future<String> endMarker, Writer out) throws Exception {
+        long count = 0;
+        Future<String> result;
+        while ((result = pending.take()) != endMarker) {
+            out.write(result.get());
+            out.write('\n');
+            count++;
+        }
+        out.flush();
+        return count;
+    }
+
+    /**
+     * Résout une grille et formate le résultat. Une grille invalide (pattern
+     * inconnu, grilles de tailles différentes, grille trop grande pour le
+     * tas...) produit une ligne d'erreur "numéro error message" plutôt que
+     * d'interrompre le traitement.
+     *
+     * @param puzzle La grille
+     * @return La ligne de résultat
+     */
+    private String solve(Puzzle puzzle) {
+        PatternInterface pattern = this.patterns.get(puzzle.getPatternId());
+        if (pattern == null) {
+            return puzzle.getIndex() + " error unknown pattern '" + puzzle.getPatternId() + "'";
+        }
+        try {
+            return solve(puzzle, pattern);
+        } catch (RuntimeException e) {
+            String message = (e.getMessage() != null) ? e.getMessage() : e.getClass().getSimpleName();
+            return puzzle.getIndex() + " error " + message.replace('\n', ' ');
+        } catch (OutOfMemoryError e) {
+            // l'estimation a pu être dépassée : seule cette grille échoue,
+            // sa mémoire est libérée avec elle
+            return puzzle.getIndex() + " error out of memory";
+        }
+    }
+
+    /**
+     * Résout une grille valide et formate le résultat.
+     *
+     * @param puzzle  La grille
+     * @param pattern Le pattern de la grille
+     * @return La ligne de résultat
+     * @throws IllegalArgumentException Si la résolution estimée ne tient pas
+     *                                  dans la part du tas d'un thread
+     */
+    private String solve(Puzzle puzzle, PatternInterface pattern) {
+        SolveEstimate estimate = SolveCostEstimator.estimate(SolveStrategy.DENSE, puzzle.getRows(),
+                puzzle.getColumns(), SolveCostEstimator.stencilSize(pattern), (this.mode == Mode.COUNT) ? 0 : 1);
+        if (estimate.getHeapBytes() > this.heapBudget) {
+            throw new IllegalArgumentException("board too large (estimated " + estimate.getHeapBytes()
+                    + " heap bytes, budget " + this.heapBudget + ")");
+        }
+        Solver solver = new Solver(puzzle.getStartGrid(), puzzle.getEndGrid(), pattern);
+        Optional<Solution> solution;
+        switch (this.mode) {
+            case MIN:
+                Optional<SolutionSpace> space = solver.getSolutionSpace();
+                solution = space.map(s -> s.getMinimalSolution(MAX_EXHAUSTIVE_NULLITY));
+                break;
+            case COUNT:
+                solution = Optional.empty();
+                break;
+            default:
+                solution = solver.findFirstSolution();
+        }
+        BigInteger nbSolutions = solver.solve(0).getExactNbSolutions();
+        return puzzle.getIndex() + " " + (nbSolutions.signum() > 0 ? 1 : 0) + " " + nbSolutions + " "
+                + solution.map(s -> toBits(s, puzzle)).orElse("-");
+    }
+
+    /**
+     * Convertit une solution en chaîne de '0' et de '1'.
+     *
+     * @param solution La solution
+     * @param puzzle   La grille (pour ses dimensions)
+     * @return La solution sous forme de chaîne
+     */
+    private static String toBits(Solution solution, Puzzle puzzle) {
+        char[] bits = new char[puzzle.getRows() * puzzle.getColumns()];
+        Arrays.fill(bits, '0');
+        for (Coord coord : solution) {
+            bits[coord.getRow() * puzzle.getColumns() + coord.getColumn()] = '1';
+        }
+        return new String(bits);
+    }
+
+    /**
+     * Ouvre le lecteur de grilles correspondant au format d'entrée.
+     *
+     * @param format Le format (text, binary ou corpus)
+     * @param input  Le fichier d'entrée ('-' pour l'entrée standard)
+     * @return Le lecteur de grilles
+     * @throws IOException Si l'entrée ne peut pas être ouverte
+     */
+    private static PuzzleReader openReader(String format, String input) throws IOException {
+        if (format.equals("corpus")) {
+            return new CorpusPuzzleReader(new PuzzleCorpus(Paths.get(input)));
+        }
+        InputStream in = input.equals("-") ? System.in : new FileInputStream(input);
+        return format.equals("binary") ? new BinaryPuzzleReader(in)
+                : new TextPuzzleReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Point d'entrée de la ligne de commande.
+     *
+     * @param args Les arguments (cf : documentation de la classe)
+     * @throws Exception En cas d'erreur de traitement
+     */
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Mode mode = Mode.FIRST;
+        String format = "text";
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("--"); i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--mode":
+                    mode = Mode.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--binary":
+                case "--corpus":
+                    format = args[i].substring(2);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        if (args.length - i != 2) {
+            System.err.println("Usage : BatchSolver [--threads N] [--mode first|min|count] [--binary|--corpus] input output");
+            System.exit(2);
+        }
+        OutputStream os = args[i + 1].equals("-") ? System.out : new FileOutputStream(args[i + 1]);
+        try (PuzzleReader reader = openReader(format, args[i]);
+             Writer out = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8))) {
+            new BatchSolver(PatternUtils.getPatterns(), mode, threads).run(reader, out);
+        }
+    }
+}
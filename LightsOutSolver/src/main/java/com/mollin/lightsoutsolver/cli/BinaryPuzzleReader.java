@@ -0,0 +1,75 @@
+package com.mollin.lightsoutsolver.cli;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.BitSet;
+
+/**
+ * Lecteur de grilles au format binaire. Le fichier commence par l'entier
+ * MAGIC, suivi des grilles. Chaque grille est écrite par Puzzle.writeTo :
+ * lignes (int), colonnes (int), identifiant du pattern (UTF), puis les
+ * grilles de départ et d'arrivée en bits compactés (ceil(n / 8) octets
+ * chacune, la case i étant le bit i % 8 de l'octet i / 8). Les dimensions
+ * lues sont vérifiées (cf : Puzzle.checkSize) avant toute allocation.
+ *
+ * @author MOLLIN Florian
+ */
+public class BinaryPuzzleReader implements PuzzleReader {
+    /**
+     * Entier d'en-tête du format binaire ("LOP1")
+     */
+    public static final int MAGIC = 0x4C4F5031;
+    /**
+     * Entrée binaire
+     */
+    private final DataInputStream in;
+    /**
+     * Numéro de la prochaine grille
+     */
+    private long index;
+
+    /**
+     * Constructeur du lecteur. L'en-tête est lu et vérifié immédiatement.
+     *
+     * @param in L'entrée binaire
+     * @throws IOException Si l'en-tête est absent ou invalide
+     */
+    public BinaryPuzzleReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+        if (this.in.readInt() != MAGIC) {
+            throw new IOException("Not a binary puzzle file");
+        }
+    }
+
+    @Override
+    public Puzzle next() throws IOException {
+        int rows;
+        try {
+            rows = this.in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        int columns = this.in.readInt();
+        int size;
+        try {
+            size = Puzzle.checkSize(rows, columns);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Puzzle " + this.index + " : " + e.getMessage(), e);
+        }
+        String patternId = this.in.readUTF();
+        byte[] bytes = new byte[(size + Byte.SIZE - 1) / Byte.SIZE];
+        this.in.readFully(bytes);
+        BitSet start = BitSet.valueOf(bytes);
+        this.in.readFully(bytes);
+        BitSet end = BitSet.valueOf(bytes);
+        return new Puzzle(this.index++, rows, columns, patternId, start, end);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
@@ -0,0 +1,46 @@
+package com.mollin.lightsoutsolver.cli;
+
+import com.mollin.lightsoutsolver.corpus.PuzzleCorpus;
+
+import java.io.IOException;
+
+/**
+ * Lecteur de grilles depuis un corpus projeté en mémoire (cf :
+ * PuzzleCorpus). Les grilles lues sont des vues sur le fichier, sans copie.
+ *
+ * @author MOLLIN Florian
+ */
+public class CorpusPuzzleReader implements PuzzleReader {
+    /**
+     * Corpus de grilles
+     */
+    private final PuzzleCorpus corpus;
+    /**
+     * Numéro de la prochaine grille
+     */
+    private long index;
+
+    /**
+     * Constructeur du lecteur.
+     *
+     * @param corpus Le corpus de grilles
+     */
+    public CorpusPuzzleReader(PuzzleCorpus corpus) {
+        this.corpus = corpus;
+    }
+
+    @Override
+    public Puzzle next() {
+        if (this.index >= this.corpus.size()) {
+            return null;
+        }
+        long acIndex = this.index++;
+        return new Puzzle(acIndex, this.corpus.getRows(acIndex), this.corpus.getColumns(acIndex),
+                this.corpus.getPatternId(acIndex), this.corpus.getStartGrid(acIndex), this.corpus.getEndGrid(acIndex));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.corpus.close();
+    }
+}
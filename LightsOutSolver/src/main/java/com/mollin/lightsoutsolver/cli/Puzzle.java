@@ -0,0 +1,187 @@
+package com.mollin.lightsoutsolver.cli;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Grille à résoudre lue depuis un fichier de grilles : dimensions,
+ * identifiant du pattern, grille de départ et grille d'arrivée.
+ *
+ * @author MOLLIN Florian
+ */
+public class Puzzle {
+    /**
+     * Nombre maximum de cases d'une grille lue depuis un fichier
+     */
+    public static final int MAX_CELLS = 1 << 24;
+    /**
+     * Numéro de la grille dans le fichier (à partir de 0)
+     */
+    private final long index;
+    /**
+     * Nombre de lignes de la grille
+     */
+    private final int rows;
+    /**
+     * Nombre de colonnes de la grille
+     */
+    private final int columns;
+    /**
+     * Identifiant du pattern
+     */
+    private final String patternId;
+    /**
+     * Grille de départ
+     */
+    private final GridInterface startGrid;
+    /**
+     * Grille d'arrivée
+     */
+    private final GridInterface endGrid;
+
+    /**
+     * Constructeur d'une grille à résoudre.
+     *
+     * @param index     Le numéro de la grille dans le fichier
+     * @param rows      Le nombre de lignes
+     * @param columns   Le nombre de colonnes
+     * @param patternId L'identifiant du pattern
+     * @param startGrid La grille de départ
+     * @param endGrid   La grille d'arrivée
+     */
+    public Puzzle(long index, int rows, int columns, String patternId, GridInterface startGrid, GridInterface endGrid) {
+        this.index = index;
+        this.rows = rows;
+        this.columns = columns;
+        this.patternId = patternId;
+        this.startGrid = startGrid;
+        this.endGrid = endGrid;
+    }
+
+    /**
+     * Constructeur d'une grille à résoudre à partir d'ensembles de bits (la
+     * case (r, c) correspond au bit r * columns + c).
+     *
+     * @param index     Le numéro de la grille dans le fichier
+     * @param rows      Le nombre de lignes
+     * @param columns   Le nombre de colonnes
+     * @param patternId L'identifiant du pattern
+     * @param start     Les cases actives de la grille de départ
+     * @param end       Les cases actives de la grille d'arrivée
+     */
+    public Puzzle(long index, int rows, int columns, String patternId, BitSet start, BitSet end) {
+        this(index, rows, columns, patternId,
+                GridUtils.getGridWithActivatedBits(rows, columns, start),
+                GridUtils.getGridWithActivatedBits(rows, columns, end));
+    }
+
+    /**
+     * Vérifie les dimensions d'une grille lue depuis un fichier (le nombre
+     * de cases est calculé sans dépassement).
+     *
+     * @param rows    Le nombre de lignes
+     * @param columns Le nombre de colonnes
+     * @return Le nombre de cases
+     * @throws IllegalArgumentException Si les dimensions ne sont pas
+     *                                  positives ou si la grille a plus de
+     *                                  MAX_CELLS cases
+     */
+    public static int checkSize(int rows, int columns) {
+        if (rows <= 0 || columns <= 0 || (long) rows * columns > MAX_CELLS) {
+            throw new IllegalArgumentException("invalid grid size " + rows + "x" + columns
+                    + " (at most " + MAX_CELLS + " cells)");
+        }
+        return rows * columns;
+    }
+
+    /**
+     * Renvoie le numéro de la grille dans le fichier.
+     *
+     * @return Le numéro de la grille
+     */
+    public long getIndex() {
+        return this.index;
+    }
+
+    /**
+     * Renvoie le nombre de lignes de la grille.
+     *
+     * @return Le nombre de lignes
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Renvoie le nombre de colonnes de la grille.
+     *
+     * @return Le nombre de colonnes
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Renvoie l'identifiant du pattern.
+     *
+     * @return L'identifiant du pattern
+     */
+    public String getPatternId() {
+        return this.patternId;
+    }
+
+    /**
+     * Renvoie la grille de départ.
+     *
+     * @return La grille de départ
+     */
+    public GridInterface getStartGrid() {
+        return this.startGrid;
+    }
+
+    /**
+     * Renvoie la grille d'arrivée.
+     *
+     * @return La grille d'arrivée
+     */
+    public GridInterface getEndGrid() {
+        return this.endGrid;
+    }
+
+    /**
+     * Ecrit la grille au format binaire (cf : BinaryPuzzleReader).
+     *
+     * @param out La sortie
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        int nbBytes = (this.rows * this.columns + Byte.SIZE - 1) / Byte.SIZE;
+        out.writeInt(this.rows);
+        out.writeInt(this.columns);
+        out.writeUTF(this.patternId);
+        out.write(Arrays.copyOf(toBits(this.startGrid).toByteArray(), nbBytes));
+        out.write(Arrays.copyOf(toBits(this.endGrid).toByteArray(), nbBytes));
+    }
+
+    /**
+     * Renvoie les cases actives d'une grille sous forme d'ensemble de bits.
+     *
+     * @param grid La grille
+     * @return Les bits des cases actives
+     */
+    private BitSet toBits(GridInterface grid) {
+        BitSet bits = new BitSet(this.rows * this.columns);
+        for (int r = 0; r < this.rows; r++) {
+            for (int c = 0; c < this.columns; c++) {
+                bits.set(r * this.columns + c, grid.isActivated(Coord.of(r, c)));
+            }
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,20 @@
+package com.mollin.lightsoutsolver.cli;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Lecteur séquentiel de grilles à résoudre. Les grilles sont lues une par
+ * une, sans charger le fichier complet en mémoire.
+ *
+ * @author MOLLIN Florian
+ */
+public interface PuzzleReader extends Closeable {
+    /**
+     * Lit la grille suivante.
+     *
+     * @return La grille suivante (null si le fichier est terminé)
+     * @throws IOException En cas d'erreur de lecture ou de format
+     */
+    Puzzle next() throws IOException;
+}
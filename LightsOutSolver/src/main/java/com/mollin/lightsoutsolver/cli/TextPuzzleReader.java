@@ -0,0 +1,99 @@
+package com.mollin.lightsoutsolver.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.BitSet;
+
+/**
+ * Lecteur de grilles au format texte : une grille par ligne, sous la forme
+ * "lignes colonnes pattern départ arrivée". Les grilles de départ et
+ * d'arrivée sont des chaînes de '0' et de '1' (une par case, ligne après
+ * ligne) ; '-' désigne la grille vide (départ) ou pleine (arrivée). Les
+ * lignes vides et celles commençant par '#' sont ignorées.
+ *
+ * @author MOLLIN Florian
+ */
+public class TextPuzzleReader implements PuzzleReader {
+    /**
+     * Entrée texte
+     */
+    private final BufferedReader reader;
+    /**
+     * Numéro de la prochaine grille
+     */
+    private long index;
+    /**
+     * Numéro de la ligne courante (pour les messages d'erreur)
+     */
+    private long lineNumber;
+
+    /**
+     * Constructeur du lecteur.
+     *
+     * @param reader L'entrée texte
+     */
+    public TextPuzzleReader(Reader reader) {
+        this.reader = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public Puzzle next() throws IOException {
+        String line;
+        do {
+            line = this.reader.readLine();
+            this.lineNumber++;
+            if (line == null) {
+                return null;
+            }
+            line = line.trim();
+        } while (line.isEmpty() || line.startsWith("#"));
+
+        String[] fields = line.split("\\s+");
+        if (fields.length != 5) {
+            throw new IOException("Line " + this.lineNumber + " : expected 'rows columns pattern start end'");
+        }
+        try {
+            int rows = Integer.parseInt(fields[0]);
+            int columns = Integer.parseInt(fields[1]);
+            int size = Puzzle.checkSize(rows, columns);
+            BitSet start = parseGrid(fields[3], size, false);
+            BitSet end = parseGrid(fields[4], size, true);
+            return new Puzzle(this.index++, rows, columns, fields[2], start, end);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Line " + this.lineNumber + " : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lit une grille sous forme de chaîne de '0' et de '1'.
+     *
+     * @param grid          La grille ('-' pour une grille uniforme)
+     * @param size          Le nombre de cases de la grille
+     * @param defaultActive L'état des cases d'une grille uniforme
+     * @return Les cases actives de la grille
+     */
+    private static BitSet parseGrid(String grid, int size, boolean defaultActive) {
+        BitSet bits = new BitSet(size);
+        if (grid.equals("-")) {
+            bits.set(0, size, defaultActive);
+            return bits;
+        }
+        if (grid.length() != size) {
+            throw new IllegalArgumentException("grid '" + grid + "' must contain " + size + " cells");
+        }
+        for (int i = 0; i < size; i++) {
+            char ch = grid.charAt(i);
+            if (ch != '0' && ch != '1') {
+                throw new IllegalArgumentException("invalid cell '" + ch + "'");
+            }
+            bits.set(i, ch == '1');
+        }
+        return bits;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
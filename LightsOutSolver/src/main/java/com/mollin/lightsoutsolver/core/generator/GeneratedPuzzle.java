@@ -0,0 +1,75 @@
+package com.mollin.lightsoutsolver.core.generator;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+
+/**
+ * Grille générée : grille de départ, grille d'arrivée et une solution
+ * (la solution utilisant le moins de cases trouvée par le générateur si des
+ * contraintes de difficulté sont demandées).
+ *
+ * @author MOLLIN Florian
+ */
+public class GeneratedPuzzle {
+    /**
+     * Grille de départ
+     */
+    private final GridInterface startGrid;
+    /**
+     * Grille d'arrivée
+     */
+    private final GridInterface endGrid;
+    /**
+     * Solution de la grille
+     */
+    private final Solution solution;
+
+    /**
+     * Constructeur d'une grille générée.
+     *
+     * @param startGrid La grille de départ
+     * @param endGrid   La grille d'arrivée
+     * @param solution  Une solution de la grille
+     */
+    public GeneratedPuzzle(GridInterface startGrid, GridInterface endGrid, Solution solution) {
+        this.startGrid = startGrid;
+        this.endGrid = endGrid;
+        this.solution = solution;
+    }
+
+    /**
+     * Renvoie la grille de départ.
+     *
+     * @return La grille de départ
+     */
+    public GridInterface getStartGrid() {
+        return this.startGrid;
+    }
+
+    /**
+     * Renvoie la grille d'arrivée.
+     *
+     * @return La grille d'arrivée
+     */
+    public GridInterface getEndGrid() {
+        return this.endGrid;
+    }
+
+    /**
+     * Renvoie une solution de la grille.
+     *
+     * @return La solution
+     */
+    public Solution getSolution() {
+        return this.solution;
+    }
+
+    /**
+     * Renvoie le nombre de cases de la solution.
+     *
+     * @return Le nombre de cases sur lesquelles cliquer
+     */
+    public int getNbPresses() {
+        return this.solution.size();
+    }
+}
@@ -0,0 +1,297 @@
+package com.mollin.lightsoutsolver.core.generator;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.simulator.PressSimulator;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Générateur de grilles résolubles. Une grille est obtenue en tirant au
+ * hasard les cases sur lesquelles cliquer puis en appliquant le pattern
+ * (opérations sur des mots de 64 bits) à partir de la grille d'arrivée :
+ * chaque grille atteignable est tirée avec la même probabilité, sans
+ * résolution ni rejet de grilles impossibles.
+ * <p>
+ * La difficulté peut être contrainte par le nombre minimal de cases de la
+ * solution et par le nombre de solutions optimales (tirages rejetés tant que
+ * les contraintes ne sont pas respectées). Le nombre total de solutions est
+ * le même pour toutes les grilles atteignables d'une même taille (cf :
+ * getNbSolutions).
+ * <p>
+ * La grille d'indice i d'une graine donnée ne dépend que de la graine et de
+ * i : des millions de grilles peuvent être générées en parallèle (cf :
+ * stream) avec un résultat reproductible. Le générateur doit être configuré
+ * avant la génération, il peut ensuite être partagé entre plusieurs threads.
+ *
+ * @author MOLLIN Florian
+ */
+public class PuzzleGenerator {
+    /**
+     * Dimension maximale du noyau pour le calcul exact de la solution
+     * minimale (2^dimension combinaisons)
+     */
+    private static final int MAX_EXHAUSTIVE_NULLITY = 16;
+    /**
+     * Nombre maximal de tirages pour une grille avant abandon
+     */
+    private static final int MAX_ATTEMPTS = 100_000;
+    /**
+     * Grille d'arrivée
+     */
+    private final GridInterface endGrid;
+    /**
+     * Cases allumées de la grille d'arrivée (bits compactés)
+     */
+    private final long[] endWords;
+    /**
+     * Simulateur des clics
+     */
+    private final PressSimulator simulator;
+    /**
+     * Base du noyau du système (solutions de la grille vide vers la grille
+     * vide)
+     */
+    private final long[][] kernel;
+    /**
+     * Nombre minimal de cases de la solution minimale
+     */
+    private int minPresses = 0;
+    /**
+     * Nombre maximal de cases de la solution minimale
+     */
+    private int maxPresses = Integer.MAX_VALUE;
+    /**
+     * Nombre maximal de solutions de taille minimale (0 si non contraint)
+     */
+    private long maxOptimalSolutions = 0;
+
+    /**
+     * Constructeur du générateur. La base du noyau du système est calculée
+     * une seule fois (Solver).
+     *
+     * @param endGrid La grille d'arrivée des grilles générées
+     * @param pattern Le pattern
+     */
+    public PuzzleGenerator(GridInterface endGrid, PatternInterface pattern) {
+        int rows = endGrid.rows();
+        int columns = endGrid.columns();
+        this.endGrid = endGrid;
+        this.simulator = new PressSimulator(rows, columns, pattern);
+        this.endWords = this.simulator.toWords(endGrid);
+        GridInterface emptyGrid = GridUtils.getEmptyGrid(rows, columns);
+        SolutionSpace space = new Solver(emptyGrid, emptyGrid, pattern).getSolutionSpace()
+                .orElseThrow(IllegalStateException::new);
+        this.kernel = new long[space.getNullity()][];
+        for (int i = 0; i < this.kernel.length; i++) {
+            this.kernel[i] = space.getKernelVector(i);
+        }
+    }
+
+    /**
+     * Constructeur du générateur. La grille d'arrivée est la grille par défaut
+     * (toutes les cases allumées).
+     *
+     * @param rows    Le nombre de lignes des grilles
+     * @param columns Le nombre de colonnes des grilles
+     * @param pattern Le pattern
+     */
+    public PuzzleGenerator(int rows, int columns, PatternInterface pattern) {
+        this(GridUtils.getFullGrid(rows, columns), pattern);
+    }
+
+    /**
+     * Contraint le nombre de cases de la solution minimale des grilles
+     * générées.
+     *
+     * @param minPresses Le nombre minimal de cases
+     * @param maxPresses Le nombre maximal de cases
+     */
+    public void setPressRange(int minPresses, int maxPresses) {
+        if (minPresses < 0 || maxPresses < minPresses) {
+            throw new IllegalArgumentException("Invalid press range [" + minPresses + ", " + maxPresses + "]");
+        }
+        this.minPresses = minPresses;
+        this.maxPresses = maxPresses;
+    }
+
+    /**
+     * Contraint le nombre de solutions de taille minimale des grilles
+     * générées (1 pour une solution optimale unique). Nécessite un calcul
+     * exhaustif : la dimension du noyau doit être au plus 16.
+     *
+     * @param maxOptimalSolutions Le nombre maximal de solutions optimales
+     *                            (0 pour ne pas contraindre)
+     */
+    public void setMaxOptimalSolutions(long maxOptimalSolutions) {
+        if (maxOptimalSolutions < 0) {
+            throw new IllegalArgumentException("Invalid number of optimal solutions " + maxOptimalSolutions);
+        }
+        if (maxOptimalSolutions > 0 && this.kernel.length > MAX_EXHAUSTIVE_NULLITY) {
+            throw new IllegalStateException("Nullity " + this.kernel.length + " is too large to count optimal solutions");
+        }
+        this.maxOptimalSolutions = maxOptimalSolutions;
+    }
+
+    /**
+     * Renvoie le nombre de solutions de chaque grille générée.
+     *
+     * @return Le nombre de solutions (2^dimension du noyau)
+     */
+    public BigInteger getNbSolutions() {
+        return BigInteger.ONE.shiftLeft(this.kernel.length);
+    }
+
+    /**
+     * Génère la grille d'indice donné pour une graine : le résultat ne
+     * dépend que de la graine et de l'indice.
+     *
+     * @param seed  La graine
+     * @param index L'indice de la grille
+     * @return La grille générée
+     */
+    public GeneratedPuzzle generate(long seed, long index) {
+        return generate(new SplittableRandom(mix(seed + index * 0x9E3779B97F4A7C15L)));
+    }
+
+    /**
+     * Renvoie le stream des grilles d'indice compris dans [fromIndex,
+     * toIndex[ pour une graine. Le stream est séquentiel, il peut être rendu
+     * parallèle avec 'parallel()' sans changer les grilles générées.
+     *
+     * @param seed      La graine
+     * @param fromIndex L'indice de la première grille (inclusif)
+     * @param toIndex   L'indice de la dernière grille (exclusif)
+     * @return Le stream des grilles générées
+     */
+    public Stream<GeneratedPuzzle> stream(long seed, long fromIndex, long toIndex) {
+        return LongStream.range(fromIndex, toIndex).mapToObj(index -> generate(seed, index));
+    }
+
+    /**
+     * Génère une grille à partir d'un générateur aléatoire.
+     *
+     * @param random Le générateur aléatoire
+     * @return La grille générée
+     * @throws IllegalStateException Si aucune grille respectant les
+     *                               contraintes n'a été trouvée
+     */
+    public GeneratedPuzzle generate(SplittableRandom random) {
+        int rows = this.endGrid.rows();
+        int columns = this.endGrid.columns();
+        int size = rows * columns;
+        int words = this.simulator.words();
+        long[] presses = new long[words];
+        long[] switched = new long[words];
+        boolean constrained = this.minPresses > 0 || this.maxPresses < Integer.MAX_VALUE || this.maxOptimalSolutions > 0;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            for (int w = 0; w < words; w++) {
+                presses[w] = random.nextLong();
+            }
+            if (size % Long.SIZE != 0) {
+                presses[words - 1] &= (1L << size) - 1;
+            }
+            if (constrained && !minimize(presses)) {
+                continue;
+            }
+            System.arraycopy(this.endWords, 0, switched, 0, words);
+            this.simulator.apply(presses, switched);
+            BitSet start = BitSet.valueOf(switched);
+            return new GeneratedPuzzle(GridUtils.getGridWithActivatedBits(rows, columns, start), this.endGrid,
+                    new Solution(presses, rows, columns));
+        }
+        throw new IllegalStateException("No puzzle matching the constraints after " + MAX_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Remplace les cases cliquées par la solution minimale équivalente (même
+     * grille obtenue) et vérifie les contraintes de difficulté. La solution
+     * minimale est exacte si la dimension du noyau est au plus 16, approchée
+     * sinon.
+     *
+     * @param presses Les cases cliquées (remplacées par la solution minimale)
+     * @return Vrai si les contraintes sont respectées
+     */
+    private boolean minimize(long[] presses) {
+        int bestWeight;
+        long nbBest = 1;
+        if (this.kernel.length <= MAX_EXHAUSTIVE_NULLITY) {
+            long[] current = presses.clone();
+            bestWeight = weight(current);
+            long count = 1L << this.kernel.length;
+            for (long step = 1; step < count; step++) {
+                xor(current, this.kernel[Long.numberOfTrailingZeros(step)]);
+                int currentWeight = weight(current);
+                if (currentWeight < bestWeight) {
+                    bestWeight = currentWeight;
+                    nbBest = 1;
+                    System.arraycopy(current, 0, presses, 0, current.length);
+                } else if (currentWeight == bestWeight) {
+                    nbBest++;
+                }
+            }
+        } else {
+            int rows = this.endGrid.rows();
+            int columns = this.endGrid.columns();
+            SolutionSpace space = new SolutionSpace(rows, columns, presses.clone(), this.kernel);
+            Solution minimal = space.getMinimalSolution(MAX_EXHAUSTIVE_NULLITY);
+            Arrays.fill(presses, 0L);
+            for (Coord coord : minimal) {
+                int i = coord.getRow() * columns + coord.getColumn();
+                presses[i >>> 6] |= 1L << i;
+            }
+            bestWeight = minimal.size();
+        }
+        return bestWeight >= this.minPresses && bestWeight <= this.maxPresses
+                && (this.maxOptimalSolutions == 0 || nbBest <= this.maxOptimalSolutions);
+    }
+
+    /**
+     * Renvoie le nombre de bits à 1 d'un vecteur.
+     *
+     * @param words Le vecteur de bits
+     * @return Le nombre de bits à 1
+     */
+    private static int weight(long[] words) {
+        int weight = 0;
+        for (long word : words) {
+            weight += Long.bitCount(word);
+        }
+        return weight;
+    }
+
+    /**
+     * Effectue un xor mot à mot du vecteur 'source' dans le vecteur 'target'.
+     *
+     * @param target Le vecteur modifié
+     * @param source Le vecteur à combiner
+     */
+    private static void xor(long[] target, long[] source) {
+        for (int w = 0; w < target.length; w++) {
+            target[w] ^= source[w];
+        }
+    }
+
+    /**
+     * Mélange les bits d'une graine (finaliseur de MurmurHash3), pour que
+     * des indices consécutifs donnent des générateurs indépendants.
+     *
+     * @param z La valeur à mélanger
+     * @return La valeur mélangée
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB93FE1A85E53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,211 @@
+package com.mollin.lightsoutsolver.core.graph;
+
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.utils.CellMask;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+
+import java.util.Arrays;
+
+/**
+ * Définition d'un Lights Out sur un graphe quelconque : cliquer sur un nœud
+ * change l'état des nœuds de son voisinage de clic (le nœud lui-même
+ * n'en fait partie que s'il y est listé). Les voisinages sont stockés au
+ * format CSR (tableaux d'entiers primitifs), sans objet par nœud : un
+ * graphe de 10^5 nœuds ne coûte que quelques tableaux.
+ * <p>
+ * La disposition (CellMask) associe à chaque nœud une case pour exprimer les
+ * solutions sous forme de coordonnées : le nœud i est la case vivante
+ * d'indice compact i. Une grille rectangulaire et son pattern ne sont qu'un
+ * cas particulier (cf : of(CellMask, PatternInterface)).
+ *
+ * @author MOLLIN Florian
+ */
+public final class PressGraph {
+    /**
+     * Disposition des nœuds (nœud i : case vivante d'indice compact i)
+     */
+    private final CellMask layout;
+    /**
+     * Début du voisinage de chaque nœud dans 'neighbours' (taille nombre de
+     * nœuds + 1)
+     */
+    private final int[] offsets;
+    /**
+     * Voisinages de clic de chaque nœud, les uns à la suite des autres
+     */
+    private final int[] neighbours;
+
+    /**
+     * Constructeur du graphe. Les tableaux ne sont pas copiés.
+     *
+     * @param layout     La disposition des nœuds
+     * @param offsets    Le début du voisinage de chaque nœud (taille nombre
+     *                   de nœuds + 1, croissant, de 0 à neighbours.length)
+     * @param neighbours Les voisinages de clic (nœuds distincts pour un même
+     *                   voisinage)
+     * @throws IllegalArgumentException Si les tableaux ne décrivent pas un
+     *                                  graphe valide
+     */
+    public PressGraph(CellMask layout, int[] offsets, int[] neighbours) {
+        int size = layout.size();
+        if (offsets.length != size + 1 || offsets[0] != 0 || offsets[size] != neighbours.length) {
+            throw new IllegalArgumentException("Offsets must have " + (size + 1) + " entries, from 0 to "
+                    + neighbours.length);
+        }
+        // date de dernière apparition de chaque nœud (doublons)
+        int[] seen = new int[size];
+        for (int node = 0; node < size; node++) {
+            if (offsets[node + 1] < offsets[node]) {
+                throw new IllegalArgumentException("Offsets must be increasing (node " + node + ")");
+            }
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                int neighbour = neighbours[k];
+                if (neighbour < 0 || neighbour >= size) {
+                    throw new IllegalArgumentException("Invalid neighbour " + neighbour + " of node " + node);
+                }
+                if (seen[neighbour] == node + 1) {
+                    throw new IllegalArgumentException("Duplicate neighbour " + neighbour + " of node " + node);
+                }
+                seen[neighbour] = node + 1;
+            }
+        }
+        this.layout = layout;
+        this.offsets = offsets;
+        this.neighbours = neighbours;
+    }
+
+    /**
+     * Constructeur d'un graphe sans disposition particulière : le nœud i est
+     * la case (0, i).
+     *
+     * @param offsets    Le début du voisinage de chaque nœud
+     * @param neighbours Les voisinages de clic
+     * @throws IllegalArgumentException Si les tableaux ne décrivent pas un
+     *                                  graphe valide
+     */
+    public PressGraph(int[] offsets, int[] neighbours) {
+        this(CellMask.full(1, offsets.length - 1), offsets, neighbours);
+    }
+
+    /**
+     * Construit le graphe d'une grille et de son pattern : un nœud par case
+     * vivante, le voisinage d'une case étant les cases vivantes dont le
+     * pattern change l'état (le pattern est sondé une fois par case).
+     *
+     * @param mask    La forme de la grille
+     * @param pattern Le pattern
+     * @return Le graphe de la grille
+     */
+    public static PressGraph of(CellMask mask, PatternInterface pattern) {
+        int size = mask.size();
+        int[] offsets = new int[size + 1];
+        int[] neighbours = new int[Math.max(16, size * 5)];
+        int nnz = 0;
+        for (int p = 0; p < size; p++) {
+            for (Coord coord : pattern.getSwitchedCoords(mask.coordOf(p))) {
+                int index = mask.indexOf(coord);
+                if (index >= 0) {
+                    if (nnz == neighbours.length) {
+                        neighbours = Arrays.copyOf(neighbours, nnz + (nnz >>> 1));
+                    }
+                    neighbours[nnz++] = index;
+                }
+            }
+            offsets[p + 1] = nnz;
+        }
+        return new PressGraph(mask, offsets, Arrays.copyOf(neighbours, nnz));
+    }
+
+    /**
+     * Construit le graphe d'un plateau hexagonal de 'rows' lignes de
+     * 'columns' cases (lignes impaires décalées d'une demi-case vers la
+     * droite) : cliquer sur une case change son état et celui de ses six
+     * voisines. Le nœud de la case (r, c) est r * columns + c.
+     *
+     * @param rows    Le nombre de lignes
+     * @param columns Le nombre de cases par ligne
+     * @return Le graphe du plateau
+     */
+    public static PressGraph hexagonal(int rows, int columns) {
+        // décalages (ligne, colonne) des voisines, les colonnes dépendant de
+        // la parité de la ligne
+        int[] rowDeltas = {0, 0, 0, -1, -1, 1, 1};
+        int[][] colDeltas = {{0, -1, 1, -1, 0, -1, 0}, {0, -1, 1, 0, 1, 0, 1}};
+        int size = rows * columns;
+        int[] offsets = new int[size + 1];
+        int[] neighbours = new int[7 * size];
+        int nnz = 0;
+        for (int r = 0; r < rows; r++) {
+            int parity = r & 1;
+            for (int c = 0; c < columns; c++) {
+                for (int k = 0; k < 7; k++) {
+                    int row = r + rowDeltas[k];
+                    int col = c + colDeltas[parity][k];
+                    if (row >= 0 && row < rows && col >= 0 && col < columns) {
+                        neighbours[nnz++] = row * columns + col;
+                    }
+                }
+                offsets[r * columns + c + 1] = nnz;
+            }
+        }
+        return new PressGraph(CellMask.full(rows, columns), offsets, Arrays.copyOf(neighbours, nnz));
+    }
+
+    /**
+     * Renvoie la disposition des nœuds.
+     *
+     * @return La disposition (nœud i : case vivante d'indice compact i)
+     */
+    public CellMask layout() {
+        return this.layout;
+    }
+
+    /**
+     * Renvoie le nombre de nœuds.
+     *
+     * @return Le nombre de nœuds
+     */
+    public int size() {
+        return this.layout.size();
+    }
+
+    /**
+     * Renvoie le nombre total d'entrées des voisinages.
+     *
+     * @return Le nombre d'entrées
+     */
+    public int nonZeros() {
+        return this.neighbours.length;
+    }
+
+    /**
+     * Renvoie le début du voisinage d'un nœud (le voisinage du nœud i va de
+     * neighbourStart(i) inclus à neighbourStart(i + 1) exclus).
+     *
+     * @param node Le nœud (de 0 à size() inclus)
+     * @return L'indice de la première entrée du voisinage
+     */
+    public int neighbourStart(int node) {
+        return this.offsets[node];
+    }
+
+    /**
+     * Renvoie une entrée des voisinages.
+     *
+     * @param k L'indice de l'entrée
+     * @return Le nœud voisin
+     */
+    public int neighbourAt(int k) {
+        return this.neighbours[k];
+    }
+
+    /**
+     * Renvoie le nœud d'une case de la disposition.
+     *
+     * @param coord La case
+     * @return Le nœud (-1 si la case n'est pas un nœud)
+     */
+    public int nodeOf(Coord coord) {
+        return this.layout.indexOf(coord);
+    }
+}
@@ -0,0 +1,223 @@
+package com.mollin.lightsoutsolver.core.graph;
+
+import com.mollin.lightsoutsolver.core.utils.CellMask;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Lecture et écriture des graphes (cf : PressGraph) au format texte. La
+ * première ligne donne la disposition des nœuds : "lignes colonnes" (le
+ * nœud r * colonnes + c est la case (r, c)) ou "nœuds" seul (le nœud i est
+ * la case (0, i)). Chaque ligne suivante donne un nœud puis son voisinage
+ * de clic : "nœud: voisin voisin ...". Un nœud absent a un voisinage vide.
+ * Les lignes vides et celles commençant par '#' sont ignorées.
+ * <p>
+ * Les entiers sont lus directement dans les lignes, sans découpage, et les
+ * voisinages sont accumulés dans des tableaux primitifs avant d'être triés
+ * par nœud.
+ *
+ * @author MOLLIN Florian
+ */
+public final class PressGraphLoader {
+    /**
+     * Constructeur privé (classe utilitaire).
+     */
+    private PressGraphLoader() {
+    }
+
+    /**
+     * Lit un graphe depuis un fichier (UTF-8).
+     *
+     * @param path Le fichier
+     * @return Le graphe
+     * @throws IOException En cas d'erreur de lecture ou de format
+     */
+    public static PressGraph load(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return load(reader);
+        }
+    }
+
+    /**
+     * Lit un graphe depuis une entrée texte (l'entrée n'est pas fermée).
+     *
+     * @param reader L'entrée texte
+     * @return Le graphe
+     * @throws IOException En cas d'erreur de lecture ou de format
+     */
+    public static PressGraph load(Reader reader) throws IOException {
+        BufferedReader input = (reader instanceof BufferedReader) ? (BufferedReader) reader : new BufferedReader(reader);
+        CellMask layout = null;
+        int size = 0;
+        // couples (nœud, voisin) dans l'ordre de lecture
+        int[] nodes = new int[64];
+        int[] neighbours = new int[64];
+        int nnz = 0;
+        boolean[] listed = null;
+        int[] position = new int[1];
+        long lineNumber = 0;
+        String line;
+        while ((line = input.readLine()) != null) {
+            lineNumber++;
+            position[0] = 0;
+            skipSpaces(line, position);
+            if (position[0] == line.length() || line.charAt(position[0]) == '#') {
+                continue;
+            }
+            try {
+                if (layout == null) {
+                    int first = nextInt(line, position);
+                    skipSpaces(line, position);
+                    if (position[0] == line.length()) {
+                        layout = CellMask.full(1, first);
+                    } else {
+                        layout = CellMask.full(first, nextInt(line, position));
+                    }
+                    checkEnd(line, position);
+                    size = layout.size();
+                    listed = new boolean[size];
+                    continue;
+                }
+                int node = nextNode(line, position, size);
+                if (position[0] == line.length() || line.charAt(position[0]) != ':') {
+                    throw new IllegalArgumentException("expected ':' after node " + node);
+                }
+                position[0]++;
+                if (listed[node]) {
+                    throw new IllegalArgumentException("node " + node + " is listed twice");
+                }
+                listed[node] = true;
+                skipSpaces(line, position);
+                while (position[0] < line.length()) {
+                    if (nnz == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, 2 * nnz);
+                        neighbours = Arrays.copyOf(neighbours, 2 * nnz);
+                    }
+                    nodes[nnz] = node;
+                    neighbours[nnz++] = nextNode(line, position, size);
+                    skipSpaces(line, position);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Line " + lineNumber + " : " + e.getMessage(), e);
+            }
+        }
+        if (layout == null) {
+            throw new IOException("Missing graph layout");
+        }
+        // tri par nœud (ordre de lecture conservé dans chaque voisinage)
+        int[] offsets = new int[size + 1];
+        for (int k = 0; k < nnz; k++) {
+            offsets[nodes[k] + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] next = Arrays.copyOf(offsets, size);
+        int[] sorted = new int[nnz];
+        for (int k = 0; k < nnz; k++) {
+            sorted[next[nodes[k]]++] = neighbours[k];
+        }
+        try {
+            return new PressGraph(layout, offsets, sorted);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Écrit un graphe au format texte (relu à l'identique par 'load').
+     *
+     * @param graph  Le graphe
+     * @param writer La sortie texte (non fermée)
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public static void write(PressGraph graph, Writer writer) throws IOException {
+        CellMask layout = graph.layout();
+        if (!layout.isFull()) {
+            throw new IllegalArgumentException("Only rectangular layouts can be written");
+        }
+        writer.write(layout.rows() + " " + layout.columns() + "\n");
+        StringBuilder builder = new StringBuilder();
+        for (int node = 0; node < graph.size(); node++) {
+            builder.setLength(0);
+            builder.append(node).append(':');
+            for (int k = graph.neighbourStart(node); k < graph.neighbourStart(node + 1); k++) {
+                builder.append(' ').append(graph.neighbourAt(k));
+            }
+            writer.write(builder.append('\n').toString());
+        }
+        writer.flush();
+    }
+
+    /**
+     * Avance la position après les espaces.
+     *
+     * @param line     La ligne
+     * @param position La position courante (modifiée)
+     */
+    private static void skipSpaces(String line, int[] position) {
+        while (position[0] < line.length() && Character.isWhitespace(line.charAt(position[0]))) {
+            position[0]++;
+        }
+    }
+
+    /**
+     * Vérifie qu'il ne reste que des espaces sur la ligne.
+     *
+     * @param line     La ligne
+     * @param position La position courante
+     */
+    private static void checkEnd(String line, int[] position) {
+        skipSpaces(line, position);
+        if (position[0] != line.length()) {
+            throw new IllegalArgumentException("unexpected '" + line.substring(position[0]) + "'");
+        }
+    }
+
+    /**
+     * Lit un entier positif à partir de la position courante (espaces
+     * initiaux ignorés).
+     *
+     * @param line     La ligne
+     * @param position La position courante (placée après l'entier)
+     * @return L'entier
+     */
+    private static int nextInt(String line, int[] position) {
+        skipSpaces(line, position);
+        int start = position[0];
+        long value = 0;
+        while (position[0] < line.length() && Character.isDigit(line.charAt(position[0]))) {
+            value = 10 * value + (line.charAt(position[0]++) - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("number too large");
+            }
+        }
+        if (position[0] == start) {
+            throw new IllegalArgumentException("expected a number at column " + (start + 1));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Lit un nœud à partir de la position courante.
+     *
+     * @param line     La ligne
+     * @param position La position courante (placée après le nœud)
+     * @param size     Le nombre de nœuds
+     * @return Le nœud
+     */
+    private static int nextNode(String line, int[] position, int size) {
+        int node = nextInt(line, position);
+        if (node >= size) {
+            throw new IllegalArgumentException("node " + node + " out of range (" + size + " nodes)");
+        }
+        return node;
+    }
+}
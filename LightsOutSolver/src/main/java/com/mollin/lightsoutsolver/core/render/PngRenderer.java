@@ -0,0 +1,299 @@
+package com.mollin.lightsoutsolver.core.render;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Rendu PNG des grilles et des solutions (même apparence que les images du
+ * README) : chaque case est un carré de 'cellSize - 1' pixels, bleu si elle
+ * est active (ou cliquée) et gris sinon, suivi d'un pixel transparent à
+ * droite et en dessous.
+ * <p>
+ * L'image est en couleurs indexées (2 bits par pixel) et écrite ligne de
+ * pixels par ligne de pixels : les données compressées sont découpées en
+ * blocs IDAT de taille bornée au fur et à mesure, seule une ligne de pixels
+ * est conservée en mémoire.
+ *
+ * @author MOLLIN Florian
+ */
+public class PngRenderer {
+    /**
+     * Taille par défaut d'une case (en pixels, séparateur compris)
+     */
+    public static final int DEFAULT_CELL_SIZE = 25;
+    /**
+     * Signature d'un fichier PNG
+     */
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    /**
+     * Palette : séparateur (transparent), case inactive, case active
+     */
+    private static final byte[] PALETTE = {
+            0, 0, 0,
+            (byte) 0xD0, (byte) 0xD3, (byte) 0xD4,
+            (byte) 0x29, (byte) 0x80, (byte) 0xB9
+    };
+    /**
+     * Transparence des couleurs de la palette
+     */
+    private static final byte[] TRANSPARENCY = {0, (byte) 0xFF, (byte) 0xFF};
+    /**
+     * Taille maximale des données d'un bloc IDAT (en octets)
+     */
+    private static final int MAX_CHUNK_SIZE = 1 << 15;
+    /**
+     * Indice de la couleur du séparateur
+     */
+    private static final int SEPARATOR = 0;
+    /**
+     * Indice de la couleur d'une case inactive
+     */
+    private static final int INACTIVE = 1;
+    /**
+     * Indice de la couleur d'une case active
+     */
+    private static final int ACTIVE = 2;
+
+    /**
+     * Taille d'une case (en pixels, séparateur compris)
+     */
+    private final int cellSize;
+
+    /**
+     * Constructeur du rendu.
+     *
+     * @param cellSize La taille d'une case (en pixels, séparateur compris)
+     * @throws IllegalArgumentException Si la taille est inférieure à 2
+     */
+    public PngRenderer(int cellSize) {
+        if (cellSize < 2) {
+            throw new IllegalArgumentException("Invalid cell size : " + cellSize);
+        }
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Constructeur du rendu (taille de case par défaut, cf :
+     * DEFAULT_CELL_SIZE).
+     */
+    public PngRenderer() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Écrit l'image d'une grille.
+     *
+     * @param grid La grille
+     * @param out  La sortie (non fermée)
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public void write(GridInterface grid, OutputStream out) throws IOException {
+        int rows = grid.rows();
+        int columns = grid.columns();
+        long[] words = new long[(rows * columns + Long.SIZE - 1) / Long.SIZE];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (grid.isActivated(Coord.of(r, c))) {
+                    int cell = r * columns + c;
+                    words[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+        write(words, rows, columns, out);
+    }
+
+    /**
+     * Écrit l'image d'une solution (les cases cliquées sont actives).
+     *
+     * @param solution La solution
+     * @param rows     Le nombre de lignes de la grille
+     * @param columns  Le nombre de colonnes de la grille
+     * @param out      La sortie (non fermée)
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public void write(Collection<Coord> solution, int rows, int columns, OutputStream out) throws IOException {
+        write(TextRenderer.toWords(solution, rows, columns), rows, columns, out);
+    }
+
+    /**
+     * Écrit l'image d'une grille donnée par bits compactés (la case (r, c)
+     * correspond au bit r * columns + c).
+     *
+     * @param words   Les bits des cases actives
+     * @param rows    Le nombre de lignes de la grille
+     * @param columns Le nombre de colonnes de la grille
+     * @param out     La sortie (non fermée)
+     * @throws IOException              En cas d'erreur d'écriture
+     * @throws IllegalArgumentException Si l'image est trop grande
+     */
+    public void write(long[] words, int rows, int columns, OutputStream out) throws IOException {
+        long width = (long) columns * this.cellSize;
+        long height = (long) rows * this.cellSize;
+        if (rows <= 0 || columns <= 0 || (width + 3) / 4 + 1 > Integer.MAX_VALUE || height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid image size : " + rows + "x" + columns + " cells of "
+                    + this.cellSize + " pixels");
+        }
+        out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(header);
+        data.writeInt((int) width);
+        data.writeInt((int) height);
+        // profondeur 2 bits, couleurs indexées, compression, filtre et
+        // entrelacement par défaut
+        data.write(new byte[]{2, 3, 0, 0, 0});
+        writeChunk(out, "IHDR", header.toByteArray(), header.size());
+        writeChunk(out, "PLTE", PALETTE, PALETTE.length);
+        writeChunk(out, "tRNS", TRANSPARENCY, TRANSPARENCY.length);
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try (OutputStream idat = new DeflaterOutputStream(new ChunkOutputStream(out), deflater, MAX_CHUNK_SIZE)) {
+            // chaque ligne de pixels : l'octet de filtre (aucun) puis 4 pixels
+            // par octet
+            byte[] line = new byte[(int) ((width + 3) / 4) + 1];
+            byte[] separatorLine = new byte[line.length];
+            for (int r = 0; r < rows; r++) {
+                fillLine(line, words, r, columns);
+                for (int y = 0; y < this.cellSize - 1; y++) {
+                    idat.write(line);
+                }
+                idat.write(separatorLine);
+            }
+        } finally {
+            deflater.end();
+        }
+        writeChunk(out, "IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    /**
+     * Remplit une ligne de pixels traversant une ligne de cases (hors
+     * séparateur horizontal).
+     *
+     * @param line    La ligne de pixels (octet de filtre compris)
+     * @param words   Les bits des cases actives
+     * @param row     La ligne de cases
+     * @param columns Le nombre de colonnes de la grille
+     */
+    private void fillLine(byte[] line, long[] words, int row, int columns) {
+        Arrays.fill(line, (byte) 0);
+        int x = 0;
+        for (int c = 0; c < columns; c++) {
+            int cell = row * columns + c;
+            boolean active = (cell >>> 6) < words.length && (words[cell >>> 6] >>> cell & 1L) == 1L;
+            int color = active ? ACTIVE : INACTIVE;
+            for (int i = 0; i < this.cellSize - 1; i++, x++) {
+                setPixel(line, x, color);
+            }
+            setPixel(line, x++, SEPARATOR);
+        }
+    }
+
+    /**
+     * Place un pixel dans une ligne de pixels (2 bits par pixel, poids forts
+     * en premier).
+     *
+     * @param line  La ligne de pixels (octet de filtre compris)
+     * @param x     L'abscisse du pixel
+     * @param color L'indice de la couleur
+     */
+    private static void setPixel(byte[] line, int x, int color) {
+        line[1 + (x >>> 2)] |= color << (6 - 2 * (x & 3));
+    }
+
+    /**
+     * Écrit un bloc PNG (longueur, type, données et CRC).
+     *
+     * @param out    La sortie
+     * @param type   Le type du bloc
+     * @param data   Les données
+     * @param length La longueur des données
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    private static void writeChunk(OutputStream out, String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        DataOutputStream chunk = new DataOutputStream(out);
+        chunk.writeInt(length);
+        chunk.write(typeBytes);
+        chunk.write(data, 0, length);
+        chunk.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Flux découpant les données écrites en blocs IDAT de taille bornée. La
+     * fermeture écrit le dernier bloc sans fermer la sortie.
+     */
+    private static class ChunkOutputStream extends FilterOutputStream {
+        /**
+         * Données du bloc en cours
+         */
+        private final byte[] buffer = new byte[MAX_CHUNK_SIZE];
+        /**
+         * Nombre d'octets du bloc en cours
+         */
+        private int count;
+
+        /**
+         * Constructeur du flux.
+         *
+         * @param out La sortie
+         */
+        ChunkOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (this.count == this.buffer.length) {
+                flushChunk();
+            }
+            this.buffer[this.count++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (this.count == this.buffer.length) {
+                    flushChunk();
+                }
+                int n = Math.min(len, this.buffer.length - this.count);
+                System.arraycopy(b, off, this.buffer, this.count, n);
+                this.count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (this.count > 0) {
+                flushChunk();
+            }
+            this.out.flush();
+        }
+
+        /**
+         * Écrit le bloc en cours.
+         *
+         * @throws IOException En cas d'erreur d'écriture
+         */
+        private void flushChunk() throws IOException {
+            writeChunk(this.out, "IDAT", this.buffer, this.count);
+            this.count = 0;
+        }
+    }
+}
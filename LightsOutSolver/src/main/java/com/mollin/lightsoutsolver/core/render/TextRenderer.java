@@ -0,0 +1,171 @@
+package com.mollin.lightsoutsolver.core.render;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.util.Collection;
+
+/**
+ * Rendu texte des grilles et des solutions, écrit au fil de l'eau dans un
+ * 'Appendable' (Writer, PrintStream, StringBuilder...) : une ligne de texte
+ * par ligne de la grille, "X " pour une case active (ou cliquée) et "_ "
+ * sinon, les lignes étant séparées par '\n' (même format que
+ * Solution.toString). Seule une ligne de la grille est construite à la fois.
+ *
+ * @author MOLLIN Florian
+ */
+public final class TextRenderer {
+    /**
+     * Constructeur privé (classe utilitaire).
+     */
+    private TextRenderer() {
+    }
+
+    /**
+     * Écrit une grille.
+     *
+     * @param grid La grille
+     * @param out  La sortie
+     * @throws UncheckedIOException En cas d'erreur d'écriture
+     */
+    public static void render(GridInterface grid, Appendable out) {
+        int rows = grid.rows();
+        int columns = grid.columns();
+        char[] line = new char[2 * columns];
+        try {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    setCell(line, c, grid.isActivated(Coord.of(r, c)));
+                }
+                writeLine(out, line, r, rows);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Écrit une grille donnée par bits compactés (la case (r, c) correspond
+     * au bit r * columns + c).
+     *
+     * @param words   Les bits des cases actives
+     * @param rows    Le nombre de lignes de la grille
+     * @param columns Le nombre de colonnes de la grille
+     * @param out     La sortie
+     * @throws UncheckedIOException En cas d'erreur d'écriture
+     */
+    public static void render(long[] words, int rows, int columns, Appendable out) {
+        char[] line = new char[2 * columns];
+        try {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    int cell = r * columns + c;
+                    setCell(line, c, (cell >>> 6) < words.length && (words[cell >>> 6] >>> cell & 1L) == 1L);
+                }
+                writeLine(out, line, r, rows);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Écrit une solution sur une grille de dimensions données (les cases
+     * hors de la grille sont ignorées).
+     *
+     * @param solution La solution
+     * @param rows     Le nombre de lignes de la grille
+     * @param columns  Le nombre de colonnes de la grille
+     * @param out      La sortie
+     * @throws UncheckedIOException En cas d'erreur d'écriture
+     */
+    public static void render(Collection<Coord> solution, int rows, int columns, Appendable out) {
+        render(toWords(solution, rows, columns), rows, columns, out);
+    }
+
+    /**
+     * Écrit un ensemble de solutions, solution par solution : même en-tête
+     * que Solutions.toString, mais chaque solution est écrite sur toute la
+     * grille (et non sur le plus petit rectangle contenant ses cases).
+     *
+     * @param solutions Les solutions
+     * @param rows      Le nombre de lignes de la grille
+     * @param columns   Le nombre de colonnes de la grille
+     * @param out       La sortie
+     * @throws UncheckedIOException En cas d'erreur d'écriture
+     */
+    public static void render(Solutions solutions, int rows, int columns, Appendable out) {
+        try {
+            int solutionsSize = solutions.getComputedSolutions().size();
+            out.append("===== Solutions =====\n");
+            out.append("Nb solutions : ").append(String.valueOf(solutions.getExactNbSolutions())).append('\n');
+            out.append("Nb computed solutions : ").append(String.valueOf(solutionsSize)).append('\n');
+            out.append("Computed solutions :\n");
+            int n = 1;
+            for (Solution solution : solutions.getComputedSolutions()) {
+                out.append('(').append(String.valueOf(n++)).append('/').append(String.valueOf(solutionsSize))
+                        .append(")\n");
+                render(solution, rows, columns, out);
+                out.append('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Convertit un ensemble de cases en bits compactés (la case (r, c)
+     * correspond au bit r * columns + c). Les cases hors de la grille sont
+     * ignorées.
+     *
+     * @param coords  Les cases
+     * @param rows    Le nombre de lignes de la grille
+     * @param columns Le nombre de colonnes de la grille
+     * @return Les bits des cases
+     */
+    static long[] toWords(Collection<Coord> coords, int rows, int columns) {
+        long[] words = new long[(rows * columns + Long.SIZE - 1) / Long.SIZE];
+        for (Coord coord : coords) {
+            int r = coord.getRow();
+            int c = coord.getColumn();
+            if (r >= 0 && r < rows && c >= 0 && c < columns) {
+                int cell = r * columns + c;
+                words[cell >>> 6] |= 1L << cell;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Écrit le symbole d'une case dans une ligne.
+     *
+     * @param line   La ligne
+     * @param column La colonne de la case
+     * @param active Vrai si la case est active
+     */
+    private static void setCell(char[] line, int column, boolean active) {
+        line[2 * column] = active ? 'X' : '_';
+        line[2 * column + 1] = ' ';
+    }
+
+    /**
+     * Écrit une ligne, suivie d'un saut de ligne sauf pour la dernière.
+     *
+     * @param out  La sortie
+     * @param line La ligne
+     * @param row  L'indice de la ligne
+     * @param rows Le nombre de lignes
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    private static void writeLine(Appendable out, char[] line, int row, int rows) throws IOException {
+        out.append(CharBuffer.wrap(line));
+        if (row != rows - 1) {
+            out.append('\n');
+        }
+    }
+}
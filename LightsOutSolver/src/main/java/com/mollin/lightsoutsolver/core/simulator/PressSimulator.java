@@ -0,0 +1,429 @@
+package com.mollin.lightsoutsolver.core.simulator;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.utils.CellMask;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Simulateur de 'clics' sur une grille représentée sous forme de bits
+ * compactés (la case (r, c) correspondant au bit r * columns + c) : cliquer
+ * sur la case p change l'état des cases de pattern(p). Les cases mortes de la
+ * grille (cf : CellMask) ne changent jamais d'état et cliquer dessus est sans
+ * effet.
+ * <p>
+ * Si le pattern est invariant par translation (mêmes décalages sur toutes les
+ * cases), un ensemble de clics est appliqué mot à mot par décalages de bits,
+ * un décalage par case du pattern : appliquer (ou vérifier) une solution
+ * coûte O(n / 64) opérations par case du pattern, quel que soit le nombre de
+ * clics. Sinon, les cases impactées par chaque clic sont parcourues une à
+ * une.
+ *
+ * @author MOLLIN Florian
+ */
+public class PressSimulator {
+    /**
+     * Forme de la grille
+     */
+    private final CellMask mask;
+    /**
+     * Nombre de mots (long) d'une grille
+     */
+    private final int words;
+    /**
+     * Cases vivantes (bits compactés)
+     */
+    private final long[] live;
+    /**
+     * Décalage de chaque case du pattern (dr * columns + dc), null si le
+     * pattern n'est pas invariant par translation
+     */
+    private final int[] offsets;
+    /**
+     * Décalage de chaque case du pattern (en coordonnées)
+     */
+    private final Coord[] deltas;
+    /**
+     * Masque des cases vivantes t telles que t - delta soit une case vivante
+     * (un par case du pattern)
+     */
+    private final long[][] masks;
+    /**
+     * Début des cases impactées par chaque case dans 'cells' (pattern non
+     * invariant)
+     */
+    private final int[] cellStart;
+    /**
+     * Cases impactées par chaque case (pattern non invariant)
+     */
+    private final int[] cells;
+
+    /**
+     * Constructeur du simulateur pour une grille rectangulaire.
+     *
+     * @param rows    Le nombre de lignes de la grille
+     * @param columns Le nombre de colonnes de la grille
+     * @param pattern Le pattern
+     */
+    public PressSimulator(int rows, int columns, PatternInterface pattern) {
+        this(CellMask.full(rows, columns), pattern);
+    }
+
+    /**
+     * Constructeur du simulateur. Le pattern est sondé sur chaque case
+     * vivante de la grille pour détecter s'il est invariant par translation.
+     *
+     * @param mask    La forme de la grille
+     * @param pattern Le pattern
+     */
+    public PressSimulator(CellMask mask, PatternInterface pattern) {
+        this.mask = mask;
+        int columns = mask.columns();
+        int size = mask.rows() * columns;
+        this.words = (size + Long.SIZE - 1) / Long.SIZE;
+        this.live = new long[this.words];
+        for (int i = 0; i < mask.size(); i++) {
+            Coord coord = mask.coordOf(i);
+            int t = coord.getRow() * columns + coord.getColumn();
+            this.live[t >>> 6] |= 1L << t;
+        }
+        Set<Coord> shape = mask.size() == 0 ? new HashSet<>() : relative(pattern, mask.coordOf(0));
+        boolean invariant = true;
+        for (int i = 1; i < mask.size() && invariant; i++) {
+            invariant = shape.equals(relative(pattern, mask.coordOf(i)));
+        }
+        if (invariant) {
+            this.deltas = shape.toArray(new Coord[0]);
+            this.offsets = new int[this.deltas.length];
+            this.masks = new long[this.deltas.length][];
+            for (int k = 0; k < this.deltas.length; k++) {
+                this.offsets[k] = this.deltas[k].getRow() * columns + this.deltas[k].getColumn();
+                this.masks[k] = mask(this.deltas[k]);
+            }
+            this.cellStart = null;
+            this.cells = null;
+        } else {
+            this.deltas = null;
+            this.offsets = null;
+            this.masks = null;
+            this.cellStart = new int[size + 1];
+            int[] list = new int[Math.max(16, size * shape.size())];
+            int nnz = 0;
+            for (int p = 0; p < size; p++) {
+                Coord coord = Coord.of(p / columns, p % columns);
+                if (mask.isLive(coord)) {
+                    for (Coord switched : pattern.getSwitchedCoords(coord)) {
+                        if (mask.isLive(switched)) {
+                            if (nnz == list.length) {
+                                list = Arrays.copyOf(list, list.length * 2);
+                            }
+                            list[nnz++] = switched.getRow() * columns + switched.getColumn();
+                        }
+                    }
+                }
+                this.cellStart[p + 1] = nnz;
+            }
+            this.cells = Arrays.copyOf(list, nnz);
+        }
+    }
+
+    /**
+     * Renvoie le nombre de mots (long) d'une grille.
+     *
+     * @return Le nombre de mots
+     */
+    public int words() {
+        return this.words;
+    }
+
+    /**
+     * Renvoie vrai si le pattern est appliqué par décalages de bits.
+     *
+     * @return Vrai si le pattern est invariant par translation
+     */
+    public boolean isShiftBased() {
+        return this.offsets != null;
+    }
+
+    /**
+     * Convertit une grille en bits compactés.
+     *
+     * @param grid La grille (de même dimension que le simulateur)
+     * @return Les cases allumées de la grille
+     * @throws IllegalArgumentException Si la grille n'a pas la dimension du
+     *                                  simulateur
+     */
+    public long[] toWords(GridInterface grid) {
+        checkDimension(grid);
+        int columns = this.mask.columns();
+        long[] board = new long[this.words];
+        for (int i = 0; i < this.mask.rows() * columns; i++) {
+            if (grid.isActivated(Coord.of(i / columns, i % columns))) {
+                board[i >>> 6] |= 1L << i;
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Convertit un ensemble de cases (une solution par exemple) en bits
+     * compactés. Les cases en dehors de la grille sont ignorées.
+     *
+     * @param coords Les cases
+     * @return Les bits des cases
+     */
+    public long[] toWords(Collection<Coord> coords) {
+        long[] presses = new long[this.words];
+        Coord maxCoord = Coord.of(this.mask.rows() - 1, this.mask.columns() - 1);
+        for (Coord coord : coords) {
+            if (coord.isBetween(Coord.of(0, 0), maxCoord)) {
+                int i = coord.getRow() * this.mask.columns() + coord.getColumn();
+                presses[i >>> 6] |= 1L << i;
+            }
+        }
+        return presses;
+    }
+
+    /**
+     * Convertit des bits compactés en grille.
+     *
+     * @param board Les cases allumées
+     * @return La grille
+     */
+    public GridInterface toGrid(long[] board) {
+        return GridUtils.getGridWithActivatedBits(this.mask.rows(), this.mask.columns(), BitSet.valueOf(board));
+    }
+
+    /**
+     * Clique sur une case de la grille (l'état des cases de pattern(coord)
+     * change). Le coût est proportionnel au nombre de cases du pattern.
+     *
+     * @param board La grille (modifiée)
+     * @param coord La case cliquée
+     */
+    public void press(long[] board, Coord coord) {
+        if (!this.mask.isLive(coord)) {
+            return;
+        }
+        int columns = this.mask.columns();
+        int p = coord.getRow() * columns + coord.getColumn();
+        if (this.offsets != null) {
+            for (int k = 0; k < this.offsets.length; k++) {
+                if (this.mask.isLive(coord.add(this.deltas[k]))) {
+                    int t = p + this.offsets[k];
+                    board[t >>> 6] ^= 1L << t;
+                }
+            }
+        } else {
+            for (int k = this.cellStart[p]; k < this.cellStart[p + 1]; k++) {
+                int t = this.cells[k];
+                board[t >>> 6] ^= 1L << t;
+            }
+        }
+    }
+
+    /**
+     * Clique sur un ensemble de cases de la grille en une seule passe (l'ordre
+     * des clics n'a pas d'importance).
+     *
+     * @param presses Les cases cliquées (bits compactés, tableau distinct de
+     *                la grille)
+     * @param board   La grille (modifiée)
+     */
+    public void apply(long[] presses, long[] board) {
+        if (this.offsets != null) {
+            for (int i = 0; i < this.words; i++) {
+                board[i] ^= switchedWord(presses, i);
+            }
+        } else {
+            int size = this.cellStart.length - 1;
+            for (int w = 0; w < presses.length && w * Long.SIZE < size; w++) {
+                long word = presses[w];
+                while (word != 0) {
+                    int p = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                    if (p >= size) {
+                        break;
+                    }
+                    for (int k = this.cellStart[p]; k < this.cellStart[p + 1]; k++) {
+                        int t = this.cells[k];
+                        board[t >>> 6] ^= 1L << t;
+                    }
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Clique sur un ensemble de cases d'une grille.
+     *
+     * @param grid    La grille
+     * @param presses Les cases cliquées (une solution par exemple)
+     * @return La grille obtenue
+     * @throws IllegalArgumentException Si la grille n'a pas la dimension du
+     *                                  simulateur
+     */
+    public GridInterface press(GridInterface grid, Collection<Coord> presses) {
+        long[] board = toWords(grid);
+        apply(toWords(presses), board);
+        return toGrid(board);
+    }
+
+    /**
+     * Vérifie qu'un ensemble de clics transforme la grille de départ en la
+     * grille d'arrivée. Seules les cases vivantes sont comparées (les cases
+     * mortes ne changent jamais d'état). Pour un pattern invariant par
+     * translation, la grille obtenue n'est pas construite : chaque mot est
+     * comparé dès qu'il est calculé.
+     *
+     * @param start   La grille de départ (bits compactés)
+     * @param end     La grille d'arrivée (bits compactés)
+     * @param presses Les cases cliquées (bits compactés)
+     * @return Vrai si les clics résolvent la grille
+     */
+    public boolean verify(long[] start, long[] end, long[] presses) {
+        if (this.offsets != null) {
+            for (int i = 0; i < this.words; i++) {
+                if (((start[i] ^ switchedWord(presses, i) ^ end[i]) & this.live[i]) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        long[] board = Arrays.copyOf(start, this.words);
+        apply(presses, board);
+        for (int i = 0; i < this.words; i++) {
+            if (((board[i] ^ end[i]) & this.live[i]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Vérifie qu'une solution transforme la grille de départ en la grille
+     * d'arrivée (sur les cases vivantes).
+     *
+     * @param start    La grille de départ
+     * @param end      La grille d'arrivée
+     * @param solution Les cases cliquées
+     * @return Vrai si la solution résout la grille
+     * @throws IllegalArgumentException Si une grille n'a pas la dimension du
+     *                                  simulateur
+     */
+    public boolean verify(GridInterface start, GridInterface end, Collection<Coord> solution) {
+        return verify(toWords(start), toWords(end), toWords(solution));
+    }
+
+    /**
+     * Calcule un mot des cases changeant d'état (pattern invariant) : pour
+     * chaque case du pattern, les clics décalés de 'offset' et restreints au
+     * masque.
+     *
+     * @param presses Les cases cliquées
+     * @param i       L'indice du mot
+     * @return Le mot des cases changeant d'état
+     */
+    private long switchedWord(long[] presses, int i) {
+        long value = 0;
+        for (int k = 0; k < this.offsets.length; k++) {
+            value ^= shiftedWord(presses, i, this.offsets[k]) & this.masks[k][i];
+        }
+        return value;
+    }
+
+    /**
+     * Renvoie un mot du vecteur décalé (le bit t du vecteur décalé est le bit
+     * t - shift du vecteur).
+     *
+     * @param vector Le vecteur
+     * @param i      L'indice du mot
+     * @param shift  Le décalage (en bits)
+     * @return Le mot du vecteur décalé
+     */
+    private static long shiftedWord(long[] vector, int i, int shift) {
+        int wordShift = Math.abs(shift) >>> 6;
+        int bitShift = Math.abs(shift) & 63;
+        long value;
+        if (shift >= 0) {
+            value = word(vector, i - wordShift) << bitShift;
+            if (bitShift != 0) {
+                value |= word(vector, i - wordShift - 1) >>> (Long.SIZE - bitShift);
+            }
+        } else {
+            value = word(vector, i + wordShift) >>> bitShift;
+            if (bitShift != 0) {
+                value |= word(vector, i + wordShift + 1) << (Long.SIZE - bitShift);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Renvoie un mot d'un vecteur (0 en dehors du vecteur).
+     *
+     * @param vector Le vecteur
+     * @param i      L'indice du mot
+     * @return Le mot
+     */
+    private static long word(long[] vector, int i) {
+        return (i >= 0 && i < vector.length) ? vector[i] : 0L;
+    }
+
+    /**
+     * Calcule le masque des cases vivantes t telles que t - delta soit une
+     * case vivante (case cliquée).
+     *
+     * @param delta Le décalage
+     * @return Le masque (bits compactés)
+     */
+    private long[] mask(Coord delta) {
+        long[] mask = new long[this.words];
+        for (int i = 0; i < this.mask.size(); i++) {
+            Coord coord = this.mask.coordOf(i);
+            Coord pressed = Coord.of(coord.getRow() - delta.getRow(), coord.getColumn() - delta.getColumn());
+            if (this.mask.isLive(pressed)) {
+                int t = coord.getRow() * this.mask.columns() + coord.getColumn();
+                mask[t >>> 6] |= 1L << t;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Renvoie les cases du pattern relativement à la case sur laquelle il est
+     * appliqué.
+     *
+     * @param pattern Le pattern
+     * @param origin  La case sur laquelle appliquer le pattern
+     * @return Les décalages des cases du pattern
+     */
+    private static Set<Coord> relative(PatternInterface pattern, Coord origin) {
+        Set<Coord> shape = new HashSet<>();
+        for (Coord coord : pattern.getSwitchedCoords(origin)) {
+            shape.add(Coord.of(coord.getRow() - origin.getRow(), coord.getColumn() - origin.getColumn()));
+        }
+        return shape;
+    }
+
+    /**
+     * Vérifie qu'une grille a la dimension du simulateur.
+     *
+     * @param grid La grille
+     * @throws IllegalArgumentException Si la grille n'a pas la dimension du
+     *                                  simulateur
+     */
+    private void checkDimension(GridInterface grid) {
+        if (grid.rows() != this.mask.rows() || grid.columns() != this.mask.columns()) {
+            throw new IllegalArgumentException("Grid is " + grid.rows() + "x" + grid.columns() + ", expected "
+                    + this.mask.rows() + "x" + this.mask.columns());
+        }
+    }
+}
@@ -0,0 +1,521 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Algorithme de Lanczos par blocs de Montgomery (P. L. Montgomery, "A Block
+ * Lanczos Algorithm for Finding Dependencies over GF(2)", 1995) appliqué à
+ * l'opérateur symétrique d'une matrice creuse. Seuls des produits
+ * matrice-vecteur sont effectués (64 vecteurs à la fois) : la mémoire
+ * utilisée est celle de la matrice et d'une dizaine de vecteurs blocs.
+ * <p>
+ * Une exécution résout M X = V0 où la colonne 0 de V0 est le second membre
+ * et les 63 autres colonnes M Y pour un bloc aléatoire Y. Les colonnes de
+ * X - Y et du dernier bloc de Lanczos sont ensuite combinées (pivot de Gauss
+ * sur 128 colonnes) pour obtenir exactement une solution particulière et des
+ * vecteurs du noyau de M.
+ *
+ * @author MOLLIN Florian
+ */
+class BlockLanczos {
+    /**
+     * Taille des tables indexées par octet (8 tables de 256 entrées)
+     */
+    private static final int TABLE_SIZE = Long.BYTES << 8;
+    /**
+     * Matrice du système
+     */
+    private final SparseMatrix matrix;
+    /**
+     * Dimension de l'opérateur symétrique
+     */
+    private final int dimension;
+
+    /**
+     * Résultat d'une exécution : les vecteurs sont des bits compactés de
+     * taille dimension().
+     */
+    static class Result {
+        /**
+         * Solution particulière de M x = b (null si non trouvée)
+         */
+        final long[] particular;
+        /**
+         * Vecteurs du noyau de M trouvés (pas forcément indépendants)
+         */
+        final List<long[]> kernel;
+
+        /**
+         * Constructeur du résultat.
+         *
+         * @param particular La solution particulière (ou null)
+         * @param kernel     Les vecteurs du noyau
+         */
+        Result(long[] particular, List<long[]> kernel) {
+            this.particular = particular;
+            this.kernel = kernel;
+        }
+    }
+
+    /**
+     * Constructeur de l'algorithme.
+     *
+     * @param matrix La matrice du système
+     */
+    BlockLanczos(SparseMatrix matrix) {
+        this.matrix = matrix;
+        this.dimension = matrix.dimension();
+    }
+
+    /**
+     * Renvoie la dimension de l'opérateur symétrique.
+     *
+     * @return La dimension
+     */
+    int dimension() {
+        return this.dimension;
+    }
+
+    /**
+     * Exécute l'algorithme pour un second membre.
+     *
+     * @param rhs    Le second membre (bits compactés, taille dimension())
+     * @param random Le générateur aléatoire (bloc Y)
+     * @return Le résultat, ou null si l'algorithme a échoué (à relancer avec
+     * un autre bloc aléatoire)
+     */
+    Result run(long[] rhs, SplittableRandom random) {
+        int n = this.dimension;
+        long[] y = new long[n];
+        for (int r = 0; r < n; r++) {
+            y[r] = random.nextLong() & ~1L;
+        }
+        long[] v0 = new long[n];
+        this.matrix.applySymmetric(y, v0);
+        for (int r = 0; r < n; r++) {
+            v0[r] = (v0[r] & ~1L) | (rhs[r >>> 6] >>> r & 1L);
+        }
+
+        long[] x = new long[n];
+        long[] v = v0.clone();
+        long[] v1 = new long[n];
+        long[] v2 = new long[n];
+        long[] av = new long[n];
+        long[] winv1 = new long[Long.SIZE];
+        long[] winv2 = new long[Long.SIZE];
+        long[] vtav1 = new long[Long.SIZE];
+        long[] vta2v1 = new long[Long.SIZE];
+        long mask1 = -1L;
+        long[] d = new long[Long.SIZE];
+        long[] e = new long[Long.SIZE];
+        long[] f = new long[Long.SIZE];
+        int maxIterations = n / 60 + 100;
+        for (int iteration = 0; ; iteration++) {
+            if (iteration > maxIterations) {
+                return null;
+            }
+            this.matrix.applySymmetric(v, av);
+            // tV A V, t(A V) A V et tV V0 en un seul parcours
+            long[][] products = innerProducts(v, av, v0);
+            long[] vtav = products[0];
+            if (isZero(vtav)) {
+                break;
+            }
+            long[] vta2v = products[1];
+            long[] winv = new long[Long.SIZE];
+            long mask0 = selectColumns(vtav, mask1, winv);
+            if (mask0 == 0 || (~mask1 & ~mask0) != 0) {
+                return null;
+            }
+            // X += V Winv tV V0
+            long[] t = multiply(winv, products[2]);
+            multiplyAdd(v, t, x);
+
+            // D = I - Winv (tV A² V S tS + tV A V)
+            for (int i = 0; i < Long.SIZE; i++) {
+                d[i] = (vta2v[i] & mask0) ^ vtav[i];
+            }
+            d = multiply(winv, d);
+            // E = - Winv(i-1) tV A V S tS
+            for (int i = 0; i < Long.SIZE; i++) {
+                d[i] ^= 1L << i;
+                e[i] = vtav[i] & mask0;
+            }
+            e = multiply(winv1, e);
+            // F = - Winv(i-2) (I - tV A V(i-1) Winv(i-1))
+            //     (tV A² V(i-1) S(i-1) tS(i-1) + tV A V(i-1)) S tS
+            long[] f1 = multiply(vtav1, winv1);
+            for (int i = 0; i < Long.SIZE; i++) {
+                f1[i] ^= 1L << i;
+            }
+            f1 = multiply(winv2, f1);
+            for (int i = 0; i < Long.SIZE; i++) {
+                f[i] = (vta2v1[i] & mask1) ^ vtav1[i];
+            }
+            f = multiply(f1, f);
+            for (int i = 0; i < Long.SIZE; i++) {
+                f[i] &= mask0;
+            }
+
+            // V(i+1) = A V S tS + V D + V(i-1) E + V(i-2) F (dans v2)
+            long[] dTable = table(d);
+            long[] eTable = table(e);
+            long[] fTable = table(f);
+            for (int r = 0; r < n; r++) {
+                v2[r] = (av[r] & mask0) ^ lookup(dTable, v[r]) ^ lookup(eTable, v1[r]) ^ lookup(fTable, v2[r]);
+            }
+            long[] next = v2;
+            v2 = v1;
+            v1 = v;
+            v = next;
+            winv2 = winv1;
+            winv1 = winv;
+            vtav1 = vtav;
+            vta2v1 = vta2v;
+            mask1 = mask0;
+        }
+        // v contient le dernier bloc (tV A V = 0)
+        for (int r = 0; r < n; r++) {
+            x[r] ^= y[r];
+        }
+        return combine(rhs, x, v);
+    }
+
+    /**
+     * Cherche les combinaisons c des 128 colonnes de Z = [X - Y | Vm] telles
+     * que M Z c = c0 b, puis construit les vecteurs Z c correspondants (c0 = 1
+     * donne une solution particulière, c0 = 0 un vecteur du noyau).
+     *
+     * @param rhs Le second membre (bits compactés)
+     * @param zLo Les 64 premières colonnes de Z
+     * @param zHi Les 64 dernières colonnes de Z
+     * @return Le résultat de l'exécution
+     */
+    private Result combine(long[] rhs, long[] zLo, long[] zHi) {
+        int n = this.dimension;
+        long[] wLo = new long[n];
+        long[] wHi = new long[n];
+        this.matrix.applySymmetric(zLo, wLo);
+        this.matrix.applySymmetric(zHi, wHi);
+        for (int r = 0; r < n; r++) {
+            wLo[r] ^= rhs[r >>> 6] >>> r & 1L;
+        }
+        // pivot de Gauss sur les colonnes : les colonnes actives sont nulles
+        // sur toutes les lignes déjà traitées
+        int width = 2 * Long.SIZE;
+        long[] combLo = new long[width];
+        long[] combHi = new long[width];
+        boolean[] active = new boolean[width];
+        for (int j = 0; j < Long.SIZE; j++) {
+            combLo[j] = 1L << j;
+            combHi[j + Long.SIZE] = 1L << j;
+        }
+        Arrays.fill(active, true);
+        int nbActive = width;
+        for (int r = 0; r < n && nbActive > 0; r++) {
+            long lo = wLo[r];
+            long hi = wHi[r];
+            if ((lo | hi) == 0) {
+                continue;
+            }
+            int pivot = -1;
+            for (int j = 0; j < width; j++) {
+                if (active[j] && (Long.bitCount((lo & combLo[j]) ^ (hi & combHi[j])) & 1) == 1) {
+                    if (pivot < 0) {
+                        pivot = j;
+                    } else {
+                        combLo[j] ^= combLo[pivot];
+                        combHi[j] ^= combHi[pivot];
+                    }
+                }
+            }
+            if (pivot >= 0) {
+                active[pivot] = false;
+                nbActive--;
+            }
+        }
+        // la première dépendance utilisant la colonne 0 sert de solution
+        // particulière, elle est retirée des autres
+        int particularIndex = -1;
+        for (int j = 0; j < width && particularIndex < 0; j++) {
+            if (active[j] && (combLo[j] & 1L) != 0) {
+                particularIndex = j;
+            }
+        }
+        List<long[]> kernel = new ArrayList<>();
+        long[] particular = null;
+        for (int j = 0; j < width; j++) {
+            if (!active[j]) {
+                continue;
+            }
+            long cLo = combLo[j];
+            long cHi = combHi[j];
+            if (j != particularIndex && (cLo & 1L) != 0) {
+                cLo ^= combLo[particularIndex];
+                cHi ^= combHi[particularIndex];
+            }
+            long[] vector = new long[ReducedSystem.words(n)];
+            boolean zero = true;
+            for (int r = 0; r < n; r++) {
+                if ((Long.bitCount((zLo[r] & cLo) ^ (zHi[r] & cHi)) & 1) == 1) {
+                    vector[r >>> 6] |= 1L << r;
+                    zero = false;
+                }
+            }
+            if (j == particularIndex) {
+                particular = vector;
+            } else if (!zero) {
+                kernel.add(vector);
+            }
+        }
+        return new Result(particular, kernel);
+    }
+
+    /**
+     * Choisit les colonnes S de la matrice T = tV A V telles que tS T S soit
+     * inversible, en conservant toutes les colonnes non choisies à l'étape
+     * précédente, et calcule Winv = S (tS T S)^-1 tS (pivot de Gauss sur
+     * [T | I]).
+     *
+     * @param vtav     La matrice T (symétrique)
+     * @param previous Les colonnes choisies à l'étape précédente
+     * @param winv     La matrice Winv à remplir
+     * @return Les colonnes choisies (masque de bits)
+     */
+    private static long selectColumns(long[] vtav, long previous, long[] winv) {
+        long[] m0 = vtav.clone();
+        long[] m1 = new long[Long.SIZE];
+        for (int i = 0; i < Long.SIZE; i++) {
+            m1[i] = 1L << i;
+        }
+        // les colonnes non choisies à l'étape précédente en premier
+        int[] order = new int[Long.SIZE];
+        int k = 0;
+        for (int i = 0; i < Long.SIZE; i++) {
+            if ((previous >>> i & 1L) == 0) {
+                order[k++] = i;
+            }
+        }
+        for (int i = 0; i < Long.SIZE; i++) {
+            if ((previous >>> i & 1L) != 0) {
+                order[k++] = i;
+            }
+        }
+        long selected = 0;
+        for (int i = 0; i < Long.SIZE; i++) {
+            int ci = order[i];
+            for (int j = i; j < Long.SIZE; j++) {
+                if ((m0[order[j]] >>> ci & 1L) != 0) {
+                    swap(m0, m1, ci, order[j]);
+                    break;
+                }
+            }
+            if ((m0[ci] >>> ci & 1L) != 0) {
+                selected |= 1L << ci;
+                eliminate(m0, m1, order, i, m0);
+            } else {
+                for (int j = i; j < Long.SIZE; j++) {
+                    if ((m1[order[j]] >>> ci & 1L) != 0) {
+                        swap(m0, m1, ci, order[j]);
+                        break;
+                    }
+                }
+                if ((m1[ci] >>> ci & 1L) == 0) {
+                    return 0;
+                }
+                eliminate(m0, m1, order, i, m1);
+                m0[ci] = 0;
+                m1[ci] = 0;
+            }
+        }
+        System.arraycopy(m1, 0, winv, 0, Long.SIZE);
+        return selected;
+    }
+
+    /**
+     * Echange deux lignes de la matrice [m0 | m1].
+     *
+     * @param m0 La partie gauche
+     * @param m1 La partie droite
+     * @param a  La première ligne
+     * @param b  La seconde ligne
+     */
+    private static void swap(long[] m0, long[] m1, int a, int b) {
+        long tmp = m0[a];
+        m0[a] = m0[b];
+        m0[b] = tmp;
+        tmp = m1[a];
+        m1[a] = m1[b];
+        m1[b] = tmp;
+    }
+
+    /**
+     * Ajoute la ligne order[i] de [m0 | m1] à toutes les autres lignes ayant
+     * un 1 dans la colonne order[i] de 'pivotPart'.
+     *
+     * @param m0        La partie gauche
+     * @param m1        La partie droite
+     * @param order     L'ordre des colonnes
+     * @param i         La position de la ligne pivot dans 'order'
+     * @param pivotPart La partie (m0 ou m1) contenant la colonne pivot
+     */
+    private static void eliminate(long[] m0, long[] m1, int[] order, int i, long[] pivotPart) {
+        int ci = order[i];
+        for (int j = 0; j < Long.SIZE; j++) {
+            int cj = order[j];
+            if (j != i && (pivotPart[cj] >>> ci & 1L) != 0) {
+                m0[cj] ^= m0[ci];
+                m1[cj] ^= m1[ci];
+            }
+        }
+    }
+
+    /**
+     * Calcule en un seul parcours les produits tV AV, t(AV) AV et tV V0
+     * (matrices 64 x 64). Pour chaque ligne, le mot de AV (ou de V0) est
+     * accumulé dans une table indexée par chaque octet du mot de V (ou de
+     * AV) ; les tables sont ensuite réduites en matrices.
+     *
+     * @param v  Le bloc V
+     * @param av Le bloc A V
+     * @param v0 Le bloc initial V0
+     * @return Les trois matrices tV AV, t(AV) AV et tV V0
+     */
+    private static long[][] innerProducts(long[] v, long[] av, long[] v0) {
+        long[] accVtAv = new long[TABLE_SIZE];
+        long[] accAvtAv = new long[TABLE_SIZE];
+        long[] accVtV0 = new long[TABLE_SIZE];
+        for (int r = 0; r < v.length; r++) {
+            long vWord = v[r];
+            long avWord = av[r];
+            long v0Word = v0[r];
+            for (int k = 0; k < Long.BYTES; k++) {
+                int shift = k << 3;
+                int vIndex = (k << 8) | ((int) (vWord >>> shift) & 0xFF);
+                int avIndex = (k << 8) | ((int) (avWord >>> shift) & 0xFF);
+                accVtAv[vIndex] ^= avWord;
+                accVtV0[vIndex] ^= v0Word;
+                accAvtAv[avIndex] ^= avWord;
+            }
+        }
+        return new long[][]{reduceTable(accVtAv), reduceTable(accAvtAv), reduceTable(accVtV0)};
+    }
+
+    /**
+     * Réduit une table d'accumulation par octet en matrice 64 x 64 : la
+     * ligne 8 k + t est la somme des entrées de la k-ième table dont l'octet
+     * a le bit t à 1.
+     *
+     * @param acc La table d'accumulation
+     * @return La matrice
+     */
+    private static long[] reduceTable(long[] acc) {
+        long[] res = new long[Long.SIZE];
+        for (int k = 0; k < Long.BYTES; k++) {
+            for (int byteValue = 1; byteValue < 256; byteValue++) {
+                long value = acc[(k << 8) | byteValue];
+                if (value != 0) {
+                    for (int t = 0; t < Byte.SIZE; t++) {
+                        if ((byteValue >>> t & 1) != 0) {
+                            res[(k << 3) + t] ^= value;
+                        }
+                    }
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Calcule le produit de deux matrices 64 x 64.
+     *
+     * @param a La première matrice
+     * @param b La seconde matrice
+     * @return Le produit a b
+     */
+    static long[] multiply(long[] a, long[] b) {
+        long[] res = new long[Long.SIZE];
+        for (int i = 0; i < Long.SIZE; i++) {
+            long word = a[i];
+            long sum = 0;
+            while (word != 0) {
+                sum ^= b[Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+            }
+            res[i] = sum;
+        }
+        return res;
+    }
+
+    /**
+     * Ajoute le produit V M (vecteur bloc par matrice 64 x 64) au vecteur
+     * bloc 'target'.
+     *
+     * @param v      Le vecteur bloc
+     * @param m      La matrice
+     * @param target Le vecteur bloc modifié
+     */
+    private static void multiplyAdd(long[] v, long[] m, long[] target) {
+        long[] table = table(m);
+        for (int r = 0; r < v.length; r++) {
+            target[r] ^= lookup(table, v[r]);
+        }
+    }
+
+    /**
+     * Précalcule les combinaisons des lignes d'une matrice 64 x 64 par
+     * octet (8 tables de 256 entrées mises bout à bout), pour multiplier un
+     * mot par la matrice en 8 accès.
+     *
+     * @param m La matrice
+     * @return Les tables de combinaisons
+     */
+    private static long[] table(long[] m) {
+        long[] table = new long[TABLE_SIZE];
+        for (int k = 0; k < Long.BYTES; k++) {
+            int base = k << 8;
+            for (int byteValue = 1; byteValue < 256; byteValue++) {
+                int low = Integer.numberOfTrailingZeros(byteValue);
+                table[base | byteValue] = table[base | (byteValue & (byteValue - 1))] ^ m[(k << 3) + low];
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Multiplie un mot (ligne d'un vecteur bloc) par une matrice 64 x 64 à
+     * l'aide de ses tables de combinaisons.
+     *
+     * @param table Les tables de combinaisons de la matrice
+     * @param word  Le mot
+     * @return Le produit
+     */
+    private static long lookup(long[] table, long word) {
+        return table[(int) word & 0xFF]
+                ^ table[0x100 | ((int) (word >>> 8) & 0xFF)]
+                ^ table[0x200 | ((int) (word >>> 16) & 0xFF)]
+                ^ table[0x300 | ((int) (word >>> 24) & 0xFF)]
+                ^ table[0x400 | ((int) (word >>> 32) & 0xFF)]
+                ^ table[0x500 | ((int) (word >>> 40) & 0xFF)]
+                ^ table[0x600 | ((int) (word >>> 48) & 0xFF)]
+                ^ table[0x700 | ((int) (word >>> 56) & 0xFF)];
+    }
+
+    /**
+     * Renvoie vrai si la matrice est nulle.
+     *
+     * @param m La matrice
+     * @return Vrai si tous ses coefficients sont nuls
+     */
+    private static boolean isZero(long[] m) {
+        for (long word : m) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
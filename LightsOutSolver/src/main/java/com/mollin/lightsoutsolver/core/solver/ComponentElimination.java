@@ -0,0 +1,274 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Triangularisation par composantes indépendantes : une équation et les
+ * inconnues qu'elle contient sont reliées, les composantes connexes de ce
+ * graphe forment des systèmes indépendants (certains patterns, comme les
+ * déplacements du cavalier ou les diagonales, séparent la grille en
+ * plusieurs composantes). Chaque composante est triangularisée seule, en
+ * parallèle, avec ses inconnues en indices locaux : le coût est la somme des
+ * coûts des composantes au lieu du coût du système complet.
+ * <p>
+ * Le système obtenu porte sur les inconnues rangées composante par
+ * composante (cf : unknownCells et SolutionMapping.ordered). Ses inconnues
+ * non fixées sont celles des composantes, rangées par case croissante : ce
+ * sont les mêmes cases, dans le même ordre, que pour la triangularisation
+ * du système complet (les colonnes pivots ne dépendent pas de l'ordre des
+ * équations). L'indice d'une solution désigne donc la même solution quel
+ * que soit le mode de triangularisation.
+ *
+ * @author MOLLIN Florian
+ */
+final class ComponentElimination {
+    /**
+     * Nombre minimal d'inconnues traitées par une tâche (les petites
+     * composantes sont regroupées)
+     */
+    private static final int MIN_TASK_SIZE = 1 << 12;
+
+    /**
+     * Constructeur privé (classe utilitaire).
+     */
+    private ComponentElimination() {
+    }
+
+    /**
+     * Calcule les composantes connexes du graphe reliant chaque équation aux
+     * inconnues qu'elle contient (l'équation i et l'inconnue i
+     * correspondent à la même case).
+     *
+     * @param matrix La matrice du système
+     * @return Les cases de chaque composante (croissantes), les composantes
+     * étant rangées par plus petite case
+     */
+    static int[][] components(SparseMatrix matrix) {
+        int n = matrix.size();
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j : matrix.row(i)) {
+                int a = find(parent, i);
+                int b = find(parent, j);
+                if (a != b) {
+                    // la plus petite case est la racine
+                    parent[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+        int[] componentOf = new int[n];
+        int[] sizes = new int[n];
+        int nbComponents = 0;
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            componentOf[i] = (root == i) ? nbComponents++ : componentOf[root];
+            sizes[componentOf[i]]++;
+        }
+        int[][] components = new int[nbComponents][];
+        for (int c = 0; c < nbComponents; c++) {
+            components[c] = new int[sizes[c]];
+            sizes[c] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            int c = componentOf[i];
+            components[c][sizes[c]++] = i;
+        }
+        return components;
+    }
+
+    /**
+     * Renvoie la case de chaque inconnue : les cases des composantes mises
+     * bout à bout.
+     *
+     * @param components Les cases de chaque composante
+     * @return La case de chaque inconnue
+     */
+    static int[] unknownCells(int[][] components) {
+        int size = 0;
+        for (int[] component : components) {
+            size += component.length;
+        }
+        int[] cells = new int[size];
+        int offset = 0;
+        for (int[] component : components) {
+            System.arraycopy(component, 0, cells, offset, component.length);
+            offset += component.length;
+        }
+        return cells;
+    }
+
+    /**
+     * Triangularise le système A x = goal composante par composante. Les
+     * inconnues du système obtenu sont rangées comme unknownCells, ses
+     * inconnues non fixées par case croissante.
+     *
+     * @param matrix     La matrice du système
+     * @param components Les cases de chaque composante (cf : components)
+     * @param goal       Le résultat de chaque équation (bits compactés,
+     *                   indices des cases)
+     * @return Le système triangularisé
+     */
+    static ReducedSystem reduce(SparseMatrix matrix, int[][] components, long[] goal) {
+        int n = matrix.size();
+        int nbComponents = components.length;
+        int[] localIndex = new int[n];
+        int[] offsets = new int[nbComponents + 1];
+        for (int c = 0; c < nbComponents; c++) {
+            for (int e = 0; e < components[c].length; e++) {
+                localIndex[components[c][e]] = e;
+            }
+            offsets[c + 1] = offsets[c] + components[c].length;
+        }
+        long[][][] rows = new long[nbComponents][][];
+        ReducedSystem[] systems = new ReducedSystem[nbComponents];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int first = 0; first < nbComponents; ) {
+            int from = first;
+            int last = first;
+            while (last < nbComponents && offsets[last] - offsets[from] < MIN_TASK_SIZE) {
+                last++;
+            }
+            int to = last;
+            tasks.add(ForkJoinTask.adapt(() -> {
+                for (int c = from; c < to; c++) {
+                    rows[c] = equations(matrix, components[c], localIndex, goal);
+                    systems[c] = new ReducedSystem(rows[c], components[c].length);
+                }
+            }));
+            first = to;
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        // les lignes pivots d'une composante sont les premières lignes de
+        // ses équations triangularisées, dans l'ordre des pivots
+        int rank = 0;
+        int nullity = 0;
+        boolean impossible = false;
+        for (ReducedSystem system : systems) {
+            rank += system.getNbUnknowns() - system.getNullity();
+            nullity += system.getNullity();
+            impossible |= system.isImpossible();
+        }
+        int[] pivotColumns = new int[rank];
+        int[] pivotComponents = new int[rank];
+        int[] pivotRows = new int[rank];
+        // inconnue non fixée de chaque case (-1 pour une case pivot)
+        int[] freeUnknowns = new int[n];
+        Arrays.fill(freeUnknowns, -1);
+        int nbPivots = 0;
+        for (int c = 0; c < nbComponents; c++) {
+            ReducedSystem system = systems[c];
+            int k = 0;
+            int f = 0;
+            for (int col = 0; col < system.getNbUnknowns(); col++) {
+                if (f < system.getNullity() && system.freeColumn(f) == col) {
+                    freeUnknowns[components[c][col]] = offsets[c] + col;
+                    f++;
+                } else {
+                    pivotColumns[nbPivots] = offsets[c] + col;
+                    pivotComponents[nbPivots] = c;
+                    pivotRows[nbPivots++] = k++;
+                }
+            }
+        }
+        // les inconnues non fixées sont rangées par case croissante, comme
+        // pour le système complet : l'indice d'une solution est le même
+        int[] freeColumns = new int[nullity];
+        int nbFree = 0;
+        for (int cell = 0; cell < n; cell++) {
+            if (freeUnknowns[cell] >= 0) {
+                freeColumns[nbFree++] = freeUnknowns[cell];
+            }
+        }
+        ReducedSystem.PivotRows access = (k, fromWord, values) -> {
+            int c = pivotComponents[k];
+            return dot(rows[c][pivotRows[k]], pivotColumns[k] - offsets[c], offsets[c], components[c].length,
+                    n, values);
+        };
+        return new ReducedSystem(n, access, pivotColumns, freeColumns, impossible);
+    }
+
+    /**
+     * Construit les équations d'une composante, en indices locaux (le
+     * résultat au bit 'taille de la composante').
+     *
+     * @param matrix     La matrice du système
+     * @param component  Les cases de la composante
+     * @param localIndex L'indice local de chaque case
+     * @param goal       Le résultat de chaque équation
+     * @return Les équations de la composante
+     */
+    private static long[][] equations(SparseMatrix matrix, int[] component, int[] localIndex, long[] goal) {
+        int size = component.length;
+        long[][] rows = new long[size][ReducedSystem.words(size + 1)];
+        for (int e = 0; e < size; e++) {
+            int cell = component[e];
+            for (int j : matrix.row(cell)) {
+                int local = localIndex[j];
+                rows[e][local >>> 6] |= 1L << local;
+            }
+            if ((goal[cell >>> 6] >>> cell & 1L) == 1L) {
+                rows[e][size >>> 6] |= 1L << size;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Calcule le produit scalaire (xor des mots) d'une ligne pivot locale et
+     * des valeurs du système complet : les valeurs de la composante sont lues
+     * à partir du bit 'offset', le résultat local (bit 'size') correspond au
+     * résultat du système (bit 'nbUnknowns').
+     *
+     * @param row        La ligne pivot locale
+     * @param column     L'inconnue pivot locale
+     * @param offset     La première inconnue de la composante
+     * @param size       Le nombre d'inconnues de la composante
+     * @param nbUnknowns Le nombre d'inconnues du système
+     * @param values     Les valeurs du système
+     * @return Le xor des mots (dont la parité donne le produit scalaire)
+     */
+    private static long dot(long[] row, int column, int offset, int size, int nbUnknowns, long[] values) {
+        long parity = 0;
+        int localWords = ReducedSystem.words(size);
+        for (int i = column >>> 6; i < localWords; i++) {
+            int bit = offset + i * Long.SIZE;
+            int w = bit >>> 6;
+            int shift = bit & 63;
+            long window = values[w] >>> shift;
+            if (shift != 0 && w + 1 < values.length) {
+                window |= values[w + 1] << (Long.SIZE - shift);
+            }
+            int remaining = size - i * Long.SIZE;
+            if (remaining < Long.SIZE) {
+                window &= (1L << remaining) - 1;
+            }
+            parity ^= row[i] & window;
+        }
+        if ((row[size >>> 6] >>> size & 1L) == 1L && (values[nbUnknowns >>> 6] >>> nbUnknowns & 1L) == 1L) {
+            parity ^= 1L;
+        }
+        return parity;
+    }
+
+    /**
+     * Renvoie la racine d'une case (avec compression des chemins).
+     *
+     * @param parent Le parent de chaque case
+     * @param i      La case
+     * @return La racine de sa composante
+     */
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+}
@@ -0,0 +1,635 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Solveur par dissection emboîtée pour les grandes grilles. Pour un pattern
+ * local (comme le pattern classique), une bande de quelques lignes (ou
+ * colonnes) de cases, le séparateur, coupe la grille en deux moitiés
+ * indépendantes : aucune équation d'une moitié ne contient d'inconnue de
+ * l'autre. La grille est découpée récursivement le long de tels séparateurs
+ * et les inconnues intérieures de chaque sous-domaine sont éliminées en
+ * parallèle (ForkJoinPool), avec les seules équations du sous-domaine. Les
+ * équations restantes et celles du séparateur, réduites par les deux
+ * moitiés, forment le système du séparateur (complément de Schur), bien plus
+ * petit, résolu au niveau supérieur. Les inconnues d'un sous-domaine qui
+ * n'ont pas pu être éliminées sont remontées au niveau supérieur.
+ * <p>
+ * Pour une grille de n x n cases, les systèmes des séparateurs sont de
+ * taille O(n), soit O(n^3) opérations au total au lieu de O(n^6) pour la
+ * triangularisation dense. Les équations sont des listes triées
+ * d'inconnues (le résultat étant l'inconnue 'nombre de cases'). Comme pour
+ * le SparseSolver, la base du noyau obtenue n'est pas celle du Solver :
+ * l'indice des solutions de l'espace des solutions est donc différent.
+ *
+ * @author MOLLIN Florian
+ */
+public class DissectionSolver {
+    /**
+     * Nombre maximal de cases d'un sous-domaine non découpé
+     */
+    private static final int LEAF_SIZE = 256;
+
+    /**
+     * Sous-domaine triangularisé : lignes pivots du sous-domaine et
+     * sous-domaines fils.
+     */
+    private static final class Domain {
+        /**
+         * Inconnue pivot de chaque ligne pivot (ordre d'élimination)
+         */
+        private final int[] pivotColumns;
+        /**
+         * Lignes pivots (ordre d'élimination)
+         */
+        private final int[][] pivotRows;
+        /**
+         * Sous-domaines fils (vide pour un sous-domaine non découpé)
+         */
+        private final Domain[] children;
+
+        /**
+         * Constructeur du sous-domaine.
+         *
+         * @param pivotColumns L'inconnue pivot de chaque ligne pivot
+         * @param pivotRows    Les lignes pivots
+         * @param children     Les sous-domaines fils
+         */
+        private Domain(int[] pivotColumns, int[][] pivotRows, Domain[] children) {
+            this.pivotColumns = pivotColumns;
+            this.pivotRows = pivotRows;
+            this.children = children;
+        }
+    }
+
+    /**
+     * Résultat de l'élimination d'un sous-domaine.
+     */
+    private static final class Reduction {
+        /**
+         * Le sous-domaine triangularisé
+         */
+        private final Domain domain;
+        /**
+         * Equations restantes (sans inconnue pivot du sous-domaine)
+         */
+        private final List<int[]> residual;
+        /**
+         * Inconnues du sous-domaine non éliminées (triées)
+         */
+        private final int[] promoted;
+        /**
+         * Equations externes réduites (même ordre qu'à l'appel)
+         */
+        private final int[][] external;
+
+        /**
+         * Constructeur du résultat.
+         *
+         * @param domain   Le sous-domaine triangularisé
+         * @param residual Les équations restantes
+         * @param promoted Les inconnues non éliminées
+         * @param external Les équations externes réduites
+         */
+        private Reduction(Domain domain, List<int[]> residual, int[] promoted, int[][] external) {
+            this.domain = domain;
+            this.residual = residual;
+            this.promoted = promoted;
+            this.external = external;
+        }
+    }
+
+    /**
+     * Grille de départ (à résoudre)
+     */
+    private final GridInterface startGrid;
+    /**
+     * Grille de fin (objectif)
+     */
+    private final GridInterface endGrid;
+    /**
+     * Matrice creuse du système
+     */
+    private final SparseMatrix matrix;
+    /**
+     * Pool de threads de la résolution
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Ecart maximal de ligne entre une case et les inconnues de son équation
+     */
+    private final int rowReach;
+    /**
+     * Ecart maximal de colonne entre une case et les inconnues de son
+     * équation
+     */
+    private final int columnReach;
+    /**
+     * Vrai si la résolution a déjà été effectuée
+     */
+    private boolean solved;
+    /**
+     * Espace des solutions (null si le système est impossible)
+     */
+    private SolutionSpace solutionSpace;
+
+    /**
+     * Constructeur du solveur.
+     *
+     * @param startGrid Grille de départ à partir de laquelle trouver la
+     *                  solution
+     * @param endGrid   Grille à atteindre
+     * @param pattern   Pattern utilisé dans la grille
+     * @param pool      Pool de threads de la résolution
+     */
+    public DissectionSolver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern,
+                            ForkJoinPool pool) {
+        this.startGrid = startGrid;
+        this.endGrid = endGrid;
+        this.matrix = SparseMatrix.of(startGrid.rows(), startGrid.columns(), pattern);
+        this.pool = pool;
+        int cols = startGrid.columns();
+        int maxRow = 0;
+        int maxColumn = 0;
+        for (int i = 0; i < this.matrix.size(); i++) {
+            for (int j : this.matrix.row(i)) {
+                maxRow = Math.max(maxRow, Math.abs(i / cols - j / cols));
+                maxColumn = Math.max(maxColumn, Math.abs(i % cols - j % cols));
+            }
+        }
+        this.rowReach = maxRow;
+        this.columnReach = maxColumn;
+    }
+
+    /**
+     * Constructeur du solveur (pool de threads commun).
+     *
+     * @param startGrid Grille de départ à partir de laquelle trouver la
+     *                  solution
+     * @param endGrid   Grille à atteindre
+     * @param pattern   Pattern utilisé dans la grille
+     */
+    public DissectionSolver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        this(startGrid, endGrid, pattern, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructeur du solveur. La grille à atteindre est la grille par défaut
+     * (toutes les cases allumées).
+     *
+     * @param startGrid Grille de départ à partir de laquelle trouver la
+     *                  solution
+     * @param pattern   Pattern utilisé dans la grille
+     */
+    public DissectionSolver(GridInterface startGrid, PatternInterface pattern) {
+        this(startGrid, GridUtils.getFullGrid(startGrid.rows(), startGrid.columns()), pattern);
+    }
+
+    /**
+     * Renvoie l'espace des solutions (solution particulière et base du
+     * noyau).
+     *
+     * @return L'espace des solutions (l'optionnel sera vide si il n'y a pas de
+     * solution au système)
+     */
+    public synchronized Optional<SolutionSpace> getSolutionSpace() {
+        if (!this.solved) {
+            this.solutionSpace = computeSolutionSpace();
+            this.solved = true;
+        }
+        return Optional.ofNullable(this.solutionSpace);
+    }
+
+    /**
+     * Cherche une solution permettant de résoudre le système.
+     *
+     * @return Une solution permettant de résoudre le système (l'optionnel sera
+     * vide si il n'y a pas de solution au système)
+     */
+    public Optional<Solution> findFirstSolution() {
+        return getSolutionSpace().map(space -> space.solutionAt(0));
+    }
+
+    /**
+     * Triangularise le système par dissection emboîtée puis calcule la
+     * solution particulière et la base du noyau par remontée, 64 vecteurs à
+     * la fois (le bit j de la valeur d'une inconnue est sa valeur dans le
+     * j-ème vecteur).
+     *
+     * @return L'espace des solutions, ou null si le système est impossible
+     */
+    private SolutionSpace computeSolutionSpace() {
+        int size = this.matrix.size();
+        Reduction root = this.pool.invoke(new ReduceTask(0, this.startGrid.rows(), 0, this.startGrid.columns(),
+                new int[0][]));
+        // les équations restantes ne contiennent plus que le résultat : 0 = 1
+        if (!root.residual.isEmpty()) {
+            return null;
+        }
+        int[] free = root.promoted;
+        int words = SolutionSpace.words(size);
+        long[] particular = new long[words];
+        long[][] kernel = new long[free.length][words];
+        long[] values = new long[size + 1];
+        // le premier lot contient la solution particulière (bit 0)
+        for (int first = -1; first < free.length; first += Long.SIZE) {
+            Arrays.fill(values, 0L);
+            if (first < 0) {
+                values[size] = 1L;
+            }
+            for (int lane = 0; lane < Long.SIZE && first + lane < free.length; lane++) {
+                if (first + lane >= 0) {
+                    values[free[first + lane]] |= 1L << lane;
+                }
+            }
+            this.pool.invoke(new SubstituteTask(root.domain, values));
+            for (int i = 0; i < size; i++) {
+                long value = values[i];
+                if (first < 0 && (value & 1L) != 0) {
+                    particular[i >>> 6] |= 1L << i;
+                }
+                for (int lane = 0; lane < Long.SIZE && first + lane < free.length; lane++) {
+                    if (first + lane >= 0 && (value >>> lane & 1L) != 0) {
+                        kernel[first + lane][i >>> 6] |= 1L << i;
+                    }
+                }
+            }
+        }
+        return new SolutionSpace(this.startGrid.rows(), this.startGrid.columns(), particular, kernel);
+    }
+
+    /**
+     * Renvoie l'équation d'une case (résultat compris).
+     *
+     * @param cell La case (r * colonnes + c)
+     * @return L'équation
+     */
+    private int[] equation(int cell) {
+        int[] row = this.matrix.row(cell);
+        int cols = this.startGrid.columns();
+        Coord coord = Coord.of(cell / cols, cell % cols);
+        if (this.startGrid.isActivated(coord) ^ this.endGrid.isActivated(coord)) {
+            row = Arrays.copyOf(row, row.length + 1);
+            row[row.length - 1] = this.matrix.size();
+        }
+        return row;
+    }
+
+    /**
+     * Elimination d'un sous-domaine rectangulaire de la grille.
+     */
+    private final class ReduceTask extends RecursiveTask<Reduction> {
+        private static final long serialVersionUID = 1L;
+        /**
+         * Première ligne du sous-domaine (inclusive)
+         */
+        private final int rowFrom;
+        /**
+         * Dernière ligne du sous-domaine (exclusive)
+         */
+        private final int rowTo;
+        /**
+         * Première colonne du sous-domaine (inclusive)
+         */
+        private final int columnFrom;
+        /**
+         * Dernière colonne du sous-domaine (exclusive)
+         */
+        private final int columnTo;
+        /**
+         * Equations des séparateurs englobants à réduire (modifiées)
+         */
+        private final int[][] external;
+
+        /**
+         * Constructeur de la tâche.
+         *
+         * @param rowFrom    La première ligne (inclusive)
+         * @param rowTo      La dernière ligne (exclusive)
+         * @param columnFrom La première colonne (inclusive)
+         * @param columnTo   La dernière colonne (exclusive)
+         * @param external   Les équations à réduire par le sous-domaine
+         */
+        private ReduceTask(int rowFrom, int rowTo, int columnFrom, int columnTo, int[][] external) {
+            this.rowFrom = rowFrom;
+            this.rowTo = rowTo;
+            this.columnFrom = columnFrom;
+            this.columnTo = columnTo;
+            this.external = external;
+        }
+
+        @Override
+        protected Reduction compute() {
+            int height = this.rowTo - this.rowFrom;
+            int width = this.columnTo - this.columnFrom;
+            if (height * width > LEAF_SIZE) {
+                if (height >= width && height > 2 * rowReach + 1) {
+                    int middle = this.rowFrom + (height - rowReach) / 2;
+                    return split(new ReduceTask(this.rowFrom, middle, this.columnFrom, this.columnTo, null),
+                            new ReduceTask(middle + rowReach, this.rowTo, this.columnFrom, this.columnTo, null),
+                            middle, middle + rowReach, this.columnFrom, this.columnTo);
+                }
+                if (width > 2 * columnReach + 1) {
+                    int middle = this.columnFrom + (width - columnReach) / 2;
+                    return split(new ReduceTask(this.rowFrom, this.rowTo, this.columnFrom, middle, null),
+                            new ReduceTask(this.rowFrom, this.rowTo, middle + columnReach, this.columnTo, null),
+                            this.rowFrom, this.rowTo, middle, middle + columnReach);
+                }
+            }
+            List<int[]> rows = new ArrayList<>();
+            int[] interior = cells(this.rowFrom, this.rowTo, this.columnFrom, this.columnTo);
+            for (int cell : interior) {
+                rows.add(equation(cell));
+            }
+            return eliminate(interior, rows, this.external, new Domain[0]);
+        }
+
+        /**
+         * Découpe le sous-domaine : les deux moitiés sont éliminées en
+         * parallèle, chacune réduisant sa propre copie des équations externes
+         * et des équations du séparateur qui la concernent, puis les
+         * inconnues du séparateur et celles remontées par les moitiés sont
+         * éliminées.
+         *
+         * @param first      La tâche de la première moitié (sans équations)
+         * @param second     La tâche de la seconde moitié (sans équations)
+         * @param rowFrom    La première ligne du séparateur (inclusive)
+         * @param rowTo      La dernière ligne du séparateur (exclusive)
+         * @param columnFrom La première colonne du séparateur (inclusive)
+         * @param columnTo   La dernière colonne du séparateur (exclusive)
+         * @return Le résultat de l'élimination
+         */
+        private Reduction split(ReduceTask first, ReduceTask second, int rowFrom, int rowTo, int columnFrom,
+                                int columnTo) {
+            int[] separator = cells(rowFrom, rowTo, columnFrom, columnTo);
+            int[][] pending = Arrays.copyOf(this.external, this.external.length + separator.length);
+            for (int k = 0; k < separator.length; k++) {
+                pending[this.external.length + k] = equation(separator[k]);
+            }
+            int[] firstRows = touching(pending, first);
+            int[] secondRows = touching(pending, second);
+            ReduceTask firstTask = first.with(select(pending, firstRows));
+            ReduceTask secondTask = second.with(select(pending, secondRows));
+            firstTask.fork();
+            Reduction secondResult = secondTask.compute();
+            Reduction firstResult = firstTask.join();
+            // e + (e1 - e) + (e2 - e) : les deux moitiés n'ajoutent que des
+            // équations disjointes (linéarité)
+            int[][] reduced = pending.clone();
+            for (int k = 0; k < firstRows.length; k++) {
+                reduced[firstRows[k]] = firstResult.external[k];
+            }
+            for (int k = 0; k < secondRows.length; k++) {
+                int i = secondRows[k];
+                reduced[i] = (reduced[i] == pending[i]) ? secondResult.external[k]
+                        : xor(xor(reduced[i], secondResult.external[k]), pending[i]);
+            }
+            List<int[]> rows = new ArrayList<>(firstResult.residual);
+            rows.addAll(secondResult.residual);
+            rows.addAll(Arrays.asList(reduced).subList(this.external.length, reduced.length));
+            int[] interior = new int[separator.length + firstResult.promoted.length + secondResult.promoted.length];
+            System.arraycopy(separator, 0, interior, 0, separator.length);
+            System.arraycopy(firstResult.promoted, 0, interior, separator.length, firstResult.promoted.length);
+            System.arraycopy(secondResult.promoted, 0, interior, separator.length + firstResult.promoted.length,
+                    secondResult.promoted.length);
+            Arrays.sort(interior);
+            return eliminate(interior, rows, Arrays.copyOf(reduced, this.external.length),
+                    new Domain[]{firstResult.domain, secondResult.domain});
+        }
+
+        /**
+         * Renvoie une copie de la tâche avec les équations externes données.
+         *
+         * @param equations Les équations externes
+         * @return La tâche
+         */
+        private ReduceTask with(int[][] equations) {
+            return new ReduceTask(this.rowFrom, this.rowTo, this.columnFrom, this.columnTo, equations);
+        }
+
+        /**
+         * Test si une inconnue appartient au sous-domaine.
+         *
+         * @param cell L'inconnue (r * colonnes + c)
+         * @return Vrai si la case est dans le sous-domaine
+         */
+        private boolean contains(int cell) {
+            int cols = startGrid.columns();
+            int row = cell / cols;
+            int col = cell % cols;
+            return cell < matrix.size() && row >= this.rowFrom && row < this.rowTo
+                    && col >= this.columnFrom && col < this.columnTo;
+        }
+
+        /**
+         * Renvoie les indices des équations contenant une inconnue d'un
+         * sous-domaine.
+         *
+         * @param equations Les équations
+         * @param task      La tâche du sous-domaine
+         * @return Les indices des équations concernées
+         */
+        private int[] touching(int[][] equations, ReduceTask task) {
+            int[] indices = new int[equations.length];
+            int count = 0;
+            for (int i = 0; i < equations.length; i++) {
+                for (int cell : equations[i]) {
+                    if (task.contains(cell)) {
+                        indices[count++] = i;
+                        break;
+                    }
+                }
+            }
+            return Arrays.copyOf(indices, count);
+        }
+    }
+
+    /**
+     * Remontée d'un sous-domaine : ses lignes pivots dans l'ordre inverse
+     * d'élimination, puis ses sous-domaines fils en parallèle (leurs
+     * équations ne contiennent que leurs propres inconnues et celles des
+     * séparateurs englobants, déjà calculées).
+     */
+    private static final class SubstituteTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        /**
+         * Le sous-domaine
+         */
+        private final Domain domain;
+        /**
+         * Valeur de chaque inconnue (64 vecteurs à la fois, résultat compris)
+         */
+        private final long[] values;
+
+        /**
+         * Constructeur de la tâche.
+         *
+         * @param domain Le sous-domaine
+         * @param values Les valeurs des inconnues
+         */
+        private SubstituteTask(Domain domain, long[] values) {
+            this.domain = domain;
+            this.values = values;
+        }
+
+        @Override
+        protected void compute() {
+            for (int k = this.domain.pivotColumns.length - 1; k >= 0; k--) {
+                int col = this.domain.pivotColumns[k];
+                long value = 0;
+                for (int c : this.domain.pivotRows[k]) {
+                    if (c != col) {
+                        value ^= this.values[c];
+                    }
+                }
+                this.values[col] = value;
+            }
+            List<SubstituteTask> tasks = new ArrayList<>();
+            for (Domain child : this.domain.children) {
+                tasks.add(new SubstituteTask(child, this.values));
+            }
+            ForkJoinTask.invokeAll(tasks);
+        }
+    }
+
+    /**
+     * Elimine les inconnues intérieures d'un sous-domaine (dans l'ordre
+     * croissant) avec ses équations : pour chaque inconnue, l'équation la
+     * contenant ayant le moins d'inconnues devient la ligne pivot
+     * (Markowitz) et l'inconnue est supprimée des autres équations et des
+     * équations externes.
+     *
+     * @param interior Les inconnues intérieures (triées)
+     * @param rows     Les équations du sous-domaine
+     * @param external Les équations externes (modifiées)
+     * @param children Les sous-domaines fils
+     * @return Le résultat de l'élimination
+     */
+    private static Reduction eliminate(int[] interior, List<int[]> rows, int[][] external, Domain[] children) {
+        int[][] equations = rows.toArray(new int[0][]);
+        boolean[] locked = new boolean[equations.length];
+        int[] pivotColumns = new int[interior.length];
+        int[][] pivotRows = new int[interior.length][];
+        int[] promoted = new int[interior.length];
+        int nbPivots = 0;
+        int nbPromoted = 0;
+        for (int col : interior) {
+            int pivot = -1;
+            for (int r = 0; r < equations.length; r++) {
+                if (!locked[r] && Arrays.binarySearch(equations[r], col) >= 0
+                        && (pivot < 0 || equations[r].length < equations[pivot].length)) {
+                    pivot = r;
+                }
+            }
+            if (pivot < 0) {
+                promoted[nbPromoted++] = col;
+                continue;
+            }
+            int[] pivotRow = equations[pivot];
+            for (int r = 0; r < equations.length; r++) {
+                if (!locked[r] && r != pivot && Arrays.binarySearch(equations[r], col) >= 0) {
+                    equations[r] = xor(equations[r], pivotRow);
+                }
+            }
+            for (int e = 0; e < external.length; e++) {
+                if (Arrays.binarySearch(external[e], col) >= 0) {
+                    external[e] = xor(external[e], pivotRow);
+                }
+            }
+            locked[pivot] = true;
+            pivotColumns[nbPivots] = col;
+            pivotRows[nbPivots++] = pivotRow;
+        }
+        List<int[]> residual = new ArrayList<>();
+        for (int r = 0; r < equations.length; r++) {
+            if (!locked[r] && equations[r].length > 0) {
+                residual.add(equations[r]);
+            }
+        }
+        Domain domain = new Domain(Arrays.copyOf(pivotColumns, nbPivots), Arrays.copyOf(pivotRows, nbPivots),
+                children);
+        return new Reduction(domain, residual, Arrays.copyOf(promoted, nbPromoted), external);
+    }
+
+    /**
+     * Renvoie les cases d'un rectangle de la grille (triées).
+     *
+     * @param rowFrom    La première ligne (inclusive)
+     * @param rowTo      La dernière ligne (exclusive)
+     * @param columnFrom La première colonne (inclusive)
+     * @param columnTo   La dernière colonne (exclusive)
+     * @return Les cases (r * colonnes + c)
+     */
+    private int[] cells(int rowFrom, int rowTo, int columnFrom, int columnTo) {
+        int cols = this.startGrid.columns();
+        int[] cells = new int[Math.max(0, (rowTo - rowFrom) * (columnTo - columnFrom))];
+        int count = 0;
+        for (int r = rowFrom; r < rowTo; r++) {
+            for (int c = columnFrom; c < columnTo; c++) {
+                cells[count++] = r * cols + c;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Renvoie les équations d'indices donnés (copie du tableau, les
+     * équations sont partagées).
+     *
+     * @param equations Les équations
+     * @param indices   Les indices
+     * @return Les équations sélectionnées
+     */
+    private static int[][] select(int[][] equations, int[] indices) {
+        int[][] selected = new int[indices.length][];
+        for (int k = 0; k < indices.length; k++) {
+            selected[k] = equations[indices[k]];
+        }
+        return selected;
+    }
+
+    /**
+     * Calcule la somme (différence symétrique) de deux équations triées.
+     *
+     * @param a La première équation
+     * @param b La seconde équation
+     * @return La somme des équations (triée)
+     */
+    private static int[] xor(int[] a, int[] b) {
+        int[] sum = new int[a.length + b.length];
+        int i = 0;
+        int j = 0;
+        int size = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                sum[size++] = a[i++];
+            } else if (b[j] < a[i]) {
+                sum[size++] = b[j++];
+            } else {
+                i++;
+                j++;
+            }
+        }
+        while (i < a.length) {
+            sum[size++] = a[i++];
+        }
+        while (j < b.length) {
+            sum[size++] = b[j++];
+        }
+        return Arrays.copyOf(sum, size);
+    }
+}
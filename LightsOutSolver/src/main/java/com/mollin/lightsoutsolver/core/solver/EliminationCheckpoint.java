@@ -0,0 +1,478 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Sauvegarde périodique de l'état d'une triangularisation (prochaine
+ * inconnue à traiter, inconnues pivots et non fixées, équations partiellement
+ * réduites) dans un fichier, afin qu'un autre processus puisse la reprendre
+ * après un arrêt. La reprise donne exactement le même système triangularisé
+ * (et donc les mêmes solutions) qu'une triangularisation sans interruption.
+ * <p>
+ * Le fichier contient une empreinte des équations initiales : une sauvegarde
+ * d'un autre système est ignorée. L'écriture se fait dans un fichier
+ * temporaire renommé une fois complet, une sauvegarde interrompue ne remplace
+ * donc jamais la précédente. Le fichier se termine par une somme de contrôle
+ * de l'état : une sauvegarde tronquée ou altérée est ignorée sans modifier
+ * les équations. L'intervalle entre deux sauvegardes est d'au
+ * moins 'intervalMillis', et suffisamment long pour que les écritures
+ * n'occupent pas plus d'une part donnée du temps (10% par défaut).
+ *
+ * @author MOLLIN Florian
+ */
+public class EliminationCheckpoint {
+    /**
+     * Nombre magique du fichier ("LOCK")
+     */
+    private static final int MAGIC = 0x4C4F434B;
+    /**
+     * Version du format
+     */
+    private static final int VERSION = 2;
+    /**
+     * Taille de l'en-tête (en octets)
+     */
+    private static final int HEADER_BYTES = 40;
+    /**
+     * Taille du tampon d'écriture et de lecture (en octets)
+     */
+    private static final int BUFFER_BYTES = 1 << 20;
+    /**
+     * Part maximale du temps occupée par les écritures (par défaut)
+     */
+    private static final double DEFAULT_MAX_IO_RATIO = 0.1;
+    /**
+     * Fichier de sauvegarde
+     */
+    private final Path file;
+    /**
+     * Intervalle minimal entre deux sauvegardes (en millisecondes)
+     */
+    private final long intervalMillis;
+    /**
+     * Part maximale du temps occupée par les écritures
+     */
+    private final double maxIoRatio;
+    /**
+     * Date de fin de la dernière sauvegarde (en nanosecondes)
+     */
+    private long lastSave;
+    /**
+     * Durée de la dernière écriture (en nanosecondes)
+     */
+    private long lastDuration;
+    /**
+     * Nombre de sauvegardes effectuées
+     */
+    private int nbSaves;
+
+    /**
+     * Accès aux équations d'une triangularisation.
+     */
+    interface Rows {
+        /**
+         * Lit une équation.
+         *
+         * @param r   L'indice de l'équation
+         * @param row Le tableau à remplir
+         */
+        void read(int r, long[] row);
+
+        /**
+         * Ecrit une équation.
+         *
+         * @param r   L'indice de l'équation
+         * @param row Les mots de l'équation
+         */
+        void write(int r, long[] row);
+    }
+
+    /**
+     * Etat d'une triangularisation entre deux inconnues.
+     */
+    static class State {
+        /**
+         * Prochaine inconnue à traiter
+         */
+        final int column;
+        /**
+         * Inconnues pivots (dans l'ordre des pivots)
+         */
+        final int[] pivots;
+        /**
+         * Inconnues non fixées (ordre croissant)
+         */
+        final int[] free;
+
+        /**
+         * Constructeur de l'état.
+         *
+         * @param column La prochaine inconnue à traiter
+         * @param pivots Les inconnues pivots
+         * @param free   Les inconnues non fixées
+         */
+        State(int column, int[] pivots, int[] free) {
+            this.column = column;
+            this.pivots = pivots;
+            this.free = free;
+        }
+    }
+
+    /**
+     * Constructeur de la sauvegarde.
+     *
+     * @param file           Le fichier de sauvegarde (lu à la reprise)
+     * @param intervalMillis L'intervalle minimal entre deux sauvegardes (en
+     *                       millisecondes)
+     */
+    public EliminationCheckpoint(Path file, long intervalMillis) {
+        this(file, intervalMillis, DEFAULT_MAX_IO_RATIO);
+    }
+
+    /**
+     * Constructeur de la sauvegarde.
+     *
+     * @param file           Le fichier de sauvegarde (lu à la reprise)
+     * @param intervalMillis L'intervalle minimal entre deux sauvegardes (en
+     *                       millisecondes)
+     * @param maxIoRatio     La part maximale du temps occupée par les
+     *                       écritures (entre 0 exclu et 1)
+     */
+    public EliminationCheckpoint(Path file, long intervalMillis, double maxIoRatio) {
+        if (maxIoRatio <= 0 || maxIoRatio > 1) {
+            throw new IllegalArgumentException("Invalid I/O ratio " + maxIoRatio);
+        }
+        this.file = file;
+        this.intervalMillis = intervalMillis;
+        this.maxIoRatio = maxIoRatio;
+    }
+
+    /**
+     * Renvoie le fichier de sauvegarde.
+     *
+     * @return Le fichier de sauvegarde
+     */
+    public Path getFile() {
+        return this.file;
+    }
+
+    /**
+     * Renvoie le nombre de sauvegardes effectuées par cette instance.
+     *
+     * @return Le nombre de sauvegardes
+     */
+    public synchronized int getNbSaves() {
+        return this.nbSaves;
+    }
+
+    /**
+     * Calcule l'empreinte d'un ensemble d'équations.
+     *
+     * @param rows   Les équations
+     * @param nbRows Le nombre d'équations
+     * @param words  Le nombre de mots d'une équation
+     * @return L'empreinte
+     */
+    static long fingerprint(Rows rows, int nbRows, int words) {
+        long[] row = new long[words];
+        long hash = nbRows * 31L + words;
+        for (int r = 0; r < nbRows; r++) {
+            rows.read(r, row);
+            hash = fingerprint(hash, row);
+        }
+        return hash;
+    }
+
+    /**
+     * Calcule la somme de contrôle d'un état (sans les équations, ajoutées
+     * ensuite cf : fingerprint(long, long[])).
+     *
+     * @param column La prochaine inconnue à traiter
+     * @param pivots Les inconnues pivots
+     * @param free   Les inconnues non fixées
+     * @return La somme de contrôle
+     */
+    private static long checksum(int column, int[] pivots, int[] free) {
+        long hash = mix(column * 31L + pivots.length, free.length);
+        for (int pivot : pivots) {
+            hash = mix(hash, pivot);
+        }
+        for (int f : free) {
+            hash = mix(hash, f);
+        }
+        return hash;
+    }
+
+    /**
+     * Ajoute une équation à une empreinte.
+     *
+     * @param hash L'empreinte courante
+     * @param row  L'équation
+     * @return La nouvelle empreinte
+     */
+    static long fingerprint(long hash, long[] row) {
+        for (long word : row) {
+            hash = mix(hash, word);
+        }
+        return hash;
+    }
+
+    /**
+     * Ajoute un mot à une empreinte.
+     *
+     * @param hash L'empreinte courante
+     * @param word Le mot
+     * @return La nouvelle empreinte
+     */
+    private static long mix(long hash, long word) {
+        return Long.rotateLeft((hash ^ word) * 0x9E3779B97F4A7C15L, 31);
+    }
+
+    /**
+     * Démarre la mesure de l'intervalle entre deux sauvegardes.
+     */
+    synchronized void start() {
+        this.lastSave = System.nanoTime();
+    }
+
+    /**
+     * Indique si une sauvegarde doit être effectuée.
+     *
+     * @return Vrai si l'intervalle depuis la dernière sauvegarde est écoulé
+     */
+    synchronized boolean isDue() {
+        long elapsed = System.nanoTime() - this.lastSave;
+        long minElapsed = (long) (this.lastDuration * (1 - this.maxIoRatio) / this.maxIoRatio);
+        return elapsed >= Math.max(this.intervalMillis * 1_000_000L, minElapsed);
+    }
+
+    /**
+     * Sauvegarde l'état d'une triangularisation.
+     *
+     * @param fingerprint L'empreinte des équations initiales
+     * @param state       L'état de la triangularisation
+     * @param nbUnknowns  Le nombre d'inconnues
+     * @param nbRows      Le nombre d'équations
+     * @param words       Le nombre de mots d'une équation
+     * @param rows        Les équations partiellement réduites
+     * @throws UncheckedIOException En cas d'erreur d'écriture
+     */
+    synchronized void save(long fingerprint, State state, int nbUnknowns, int nbRows, int words, Rows rows) {
+        long begin = System.nanoTime();
+        Path tmp = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(BUFFER_BYTES, HEADER_BYTES + words * Long.BYTES))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(fingerprint)
+                    .putInt(nbUnknowns).putInt(nbRows).putInt(words)
+                    .putInt(state.column).putInt(state.pivots.length).putInt(state.free.length);
+            writeInts(channel, buffer, state.pivots);
+            writeInts(channel, buffer, state.free);
+            long checksum = checksum(state.column, state.pivots, state.free);
+            long[] row = new long[words];
+            for (int r = 0; r < nbRows; r++) {
+                if (buffer.remaining() < words * Long.BYTES) {
+                    flush(channel, buffer);
+                }
+                rows.read(r, row);
+                checksum = fingerprint(checksum, row);
+                buffer.asLongBuffer().put(row);
+                buffer.position(buffer.position() + words * Long.BYTES);
+            }
+            if (buffer.remaining() < Long.BYTES) {
+                flush(channel, buffer);
+            }
+            buffer.putLong(checksum);
+            flush(channel, buffer);
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            try {
+                Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, this.file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.lastSave = System.nanoTime();
+        this.lastDuration = this.lastSave - begin;
+        this.nbSaves++;
+    }
+
+    /**
+     * Charge la dernière sauvegarde si elle correspond au système donné. Les
+     * équations sauvegardées remplacent alors les équations initiales. Le
+     * fichier est d'abord lu en entier pour vérifier sa taille et sa somme de
+     * contrôle : les équations ne sont modifiées que si la sauvegarde est
+     * complète et intacte (elles sont relues ensuite, pour ne pas conserver
+     * en mémoire une copie d'équations hors du tas).
+     *
+     * @param fingerprint L'empreinte des équations initiales
+     * @param nbUnknowns  Le nombre d'inconnues
+     * @param nbRows      Le nombre d'équations
+     * @param words       Le nombre de mots d'une équation
+     * @param rows        Les équations à remplacer
+     * @return L'état sauvegardé, ou null si il n'y a pas de sauvegarde
+     * utilisable
+     * @throws UncheckedIOException En cas d'erreur de lecture
+     */
+    synchronized State load(long fingerprint, int nbUnknowns, int nbRows, int words, Rows rows) {
+        if (!Files.isRegularFile(this.file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(BUFFER_BYTES, words * Long.BYTES))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.limit(HEADER_BYTES);
+            if (!fill(channel, buffer)) {
+                return null;
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != fingerprint
+                    || buffer.getInt() != nbUnknowns || buffer.getInt() != nbRows || buffer.getInt() != words) {
+                return null;
+            }
+            int column = buffer.getInt();
+            int nbPivots = buffer.getInt();
+            int nbFree = buffer.getInt();
+            if (column < 0 || column > nbUnknowns || nbPivots < 0 || nbFree < 0 || nbPivots + nbFree != column) {
+                return null;
+            }
+            long rowBytes = (long) words * Long.BYTES;
+            long rowsPosition = HEADER_BYTES + (long) column * Integer.BYTES;
+            if (channel.size() != rowsPosition + nbRows * rowBytes + Long.BYTES) {
+                return null;
+            }
+            int[] pivots = new int[nbPivots];
+            int[] free = new int[nbFree];
+            if (!readInts(channel, buffer, pivots) || !readInts(channel, buffer, free)) {
+                return null;
+            }
+            // vérification de la somme de contrôle avant toute écriture
+            long checksum = checksum(column, pivots, free);
+            long[] row = new long[words];
+            for (int r = 0; r < nbRows; r++) {
+                if (!readRow(channel, buffer, row)) {
+                    return null;
+                }
+                checksum = fingerprint(checksum, row);
+            }
+            buffer.clear().limit(Long.BYTES);
+            if (!fill(channel, buffer) || buffer.getLong() != checksum) {
+                return null;
+            }
+            channel.position(rowsPosition);
+            for (int r = 0; r < nbRows; r++) {
+                if (!readRow(channel, buffer, row)) {
+                    throw new IOException("Checkpoint " + this.file + " changed while loading");
+                }
+                rows.write(r, row);
+            }
+            return new State(column, pivots, free);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ecrit des entiers dans le tampon (vidé dans le fichier si besoin).
+     *
+     * @param channel Le fichier
+     * @param buffer  Le tampon
+     * @param values  Les entiers
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        for (int value : values) {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush(channel, buffer);
+            }
+            buffer.putInt(value);
+        }
+    }
+
+    /**
+     * Lit des entiers depuis le fichier.
+     *
+     * @param channel Le fichier
+     * @param buffer  Le tampon
+     * @param values  Le tableau à remplir
+     * @return Faux si le fichier est tronqué
+     * @throws IOException En cas d'erreur de lecture
+     */
+    private static boolean readInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+        int chunk = buffer.capacity() / Integer.BYTES;
+        for (int from = 0; from < values.length; from += chunk) {
+            int length = Math.min(chunk, values.length - from);
+            buffer.clear().limit(length * Integer.BYTES);
+            if (!fill(channel, buffer)) {
+                return false;
+            }
+            buffer.asIntBuffer().get(values, from, length);
+        }
+        return true;
+    }
+
+    /**
+     * Lit une équation depuis le fichier.
+     *
+     * @param channel Le fichier
+     * @param buffer  Le tampon
+     * @param row     Le tableau à remplir
+     * @return Faux si le fichier est tronqué
+     * @throws IOException En cas d'erreur de lecture
+     */
+    private static boolean readRow(FileChannel channel, ByteBuffer buffer, long[] row) throws IOException {
+        buffer.clear().limit(row.length * Long.BYTES);
+        if (!fill(channel, buffer)) {
+            return false;
+        }
+        buffer.asLongBuffer().get(row);
+        return true;
+    }
+
+    /**
+     * Vide le tampon dans le fichier.
+     *
+     * @param channel Le fichier
+     * @param buffer  Le tampon
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Remplit le tampon jusqu'à sa limite puis le prépare pour la lecture.
+     *
+     * @param channel Le fichier
+     * @param buffer  Le tampon
+     * @return Faux si le fichier est tronqué
+     * @throws IOException En cas d'erreur de lecture
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+}
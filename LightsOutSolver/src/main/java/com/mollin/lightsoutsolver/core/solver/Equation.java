@@ -10,7 +10,11 @@ import java.util.Set;
  * à 0.
  *
  * @author MOLLIN Florian
+ * @deprecated Le solveur n'utilise plus cette classe : les équations sont
+ * désormais des lignes de bits compactés (cf : ReducedSystem). Cette classe
+ * sera supprimée dans la prochaine version.
  */
+@Deprecated
 public class Equation {
     /**
      * Ensemble des inconnues de l'équation
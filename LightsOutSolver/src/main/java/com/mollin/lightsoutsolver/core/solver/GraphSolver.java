@@ -0,0 +1,161 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.graph.PressGraph;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Solveur d'un Lights Out sur un graphe (cf : PressGraph). Le système est
+ * construit directement à partir des voisinages (transposés, cf :
+ * SparseMatrix.of(PressGraph)) et triangularisé sous forme creuse (cf :
+ * SparseElimination) : aucun objet n'est alloué par nœud avant la
+ * construction des solutions. Les solutions sont les mêmes objets que ceux
+ * du Solver, chaque nœud étant exprimé par sa case dans la disposition du
+ * graphe, et leur indice suit la même convention.
+ *
+ * @author MOLLIN Florian
+ */
+public class GraphSolver {
+    /**
+     * Le graphe
+     */
+    private final PressGraph graph;
+    /**
+     * Résultat de chaque équation : nœuds dont l'état diffère entre le
+     * départ et l'arrivée (bit i : nœud i)
+     */
+    private final long[] goal;
+    /**
+     * Système triangularisé (calculé à la demande)
+     */
+    private ReducedSystem system;
+
+    /**
+     * Constructeur du solveur.
+     *
+     * @param graph Le graphe
+     * @param start L'état de départ des nœuds (bit i : nœud i allumé)
+     * @param end   L'état à atteindre (bit i : nœud i allumé)
+     * @throws IllegalArgumentException Si un état contient moins de bits que
+     *                                  de nœuds
+     */
+    public GraphSolver(PressGraph graph, long[] start, long[] end) {
+        int words = ReducedSystem.words(graph.size());
+        if (start.length < words || end.length < words) {
+            throw new IllegalArgumentException("States must have " + words + " words for " + graph.size()
+                    + " nodes");
+        }
+        this.graph = graph;
+        this.goal = new long[words];
+        for (int w = 0; w < words; w++) {
+            this.goal[w] = start[w] ^ end[w];
+        }
+        if (graph.size() % Long.SIZE != 0) {
+            this.goal[words - 1] &= (1L << graph.size()) - 1;
+        }
+    }
+
+    /**
+     * Constructeur du solveur. L'état à atteindre est l'état par défaut (tous
+     * les nœuds allumés).
+     *
+     * @param graph Le graphe
+     * @param start L'état de départ des nœuds (bit i : nœud i allumé)
+     */
+    public GraphSolver(PressGraph graph, long[] start) {
+        this(graph, start, allLit(graph.size()));
+    }
+
+    /**
+     * Renvoie l'état où tous les nœuds sont allumés.
+     *
+     * @param size Le nombre de nœuds
+     * @return L'état (bit i : nœud i allumé)
+     */
+    private static long[] allLit(int size) {
+        long[] words = new long[ReducedSystem.words(size)];
+        Arrays.fill(words, -1L);
+        return words;
+    }
+
+    /**
+     * Triangularise le système (une seule fois).
+     *
+     * @return Le système triangularisé
+     */
+    private synchronized ReducedSystem reduce() {
+        if (this.system == null) {
+            this.system = SparseElimination.reduce(SparseMatrix.of(this.graph), this.goal);
+        }
+        return this.system;
+    }
+
+    /**
+     * Cherche toutes les solutions.
+     *
+     * @return L'ensemble des solutions (nœuds à cliquer, exprimés par leur
+     * case dans la disposition du graphe)
+     */
+    public Solutions solve() {
+        return solve(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Cherche les solutions.
+     *
+     * @param maxSolutions Le nombre maximum de solutions à trouver (si
+     *                     négatif, renvoit toutes les solutions)
+     * @return L'ensemble des solutions
+     */
+    public Solutions solve(int maxSolutions) {
+        maxSolutions = (maxSolutions < 0) ? Integer.MAX_VALUE : maxSolutions;
+        return solve(0, maxSolutions);
+    }
+
+    /**
+     * Calcule les solutions dont l'indice est compris dans l'intervalle
+     * [fromIndex, toIndex[ (le bit i de l'indice donne la valeur de la i-ème
+     * inconnue non fixée, cf : Solver.solve(long, long)).
+     *
+     * @param fromIndex L'indice de la première solution (inclusif)
+     * @param toIndex   L'indice de la dernière solution (exclusif), ramené au
+     *                  nombre total de solutions si besoin
+     * @return L'ensemble des solutions de l'intervalle
+     */
+    public Solutions solve(long fromIndex, long toIndex) {
+        if (fromIndex < 0 || toIndex < fromIndex) {
+            throw new IllegalArgumentException("Invalid solution range [" + fromIndex + ", " + toIndex + "[");
+        }
+        ReducedSystem reducedSystem = reduce();
+        if (reducedSystem.isImpossible()) {
+            return new Solutions(0);
+        }
+        SolutionMapping mapping = SolutionMapping.of(this.graph.layout(), null);
+        Solutions solutions = new Solutions(mapping.nbSolutions(reducedSystem));
+        long end = (reducedSystem.getNullity() < Long.SIZE - 1)
+                ? Math.min(toIndex, 1L << reducedSystem.getNullity()) : toIndex;
+        long[] values = new long[reducedSystem.getWords()];
+        for (long index = fromIndex; index < end; index++) {
+            reducedSystem.solutionAt(index, true, values);
+            solutions.addSolution(mapping.solution(values));
+        }
+        return solutions;
+    }
+
+    /**
+     * Cherche la première solution.
+     *
+     * @return Une solution (l'optionnel sera vide si il n'y a pas de
+     * solution)
+     */
+    public Optional<Solution> findFirstSolution() {
+        Solutions solutions = solve(1);
+        if (solutions.getComputedSolutions().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(solutions.getComputedSolutions().iterator().next());
+    }
+}
@@ -0,0 +1,431 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
+import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Solveur d'une grille grandissant ligne par ligne (balayage des tailles de
+ * grille, mode sans fin) : la triangularisation d'une grille de 'rows'
+ * lignes est étendue à 'rows + 1' lignes sans être recommencée.
+ * <p>
+ * Comme pour ReducedMatrix, la triangularisation ne dépend pas des grilles
+ * de départ et d'arrivée : chaque ligne conserve la combinaison des
+ * équations initiales dont elle est issue. Les cases étant numérotées ligne
+ * après ligne, une nouvelle ligne de la grille ajoute des inconnues et des
+ * équations à la fin du système :
+ * <ul>
+ * <li>les nouvelles inconnues apparaissent dans les équations existantes
+ * (cases proches du bas de la grille) : leurs coefficients dans chaque
+ * ligne triangularisée sont obtenus à partir de sa combinaison
+ * d'équations</li>
+ * <li>les nouvelles équations sont réduites par les lignes pivots
+ * existantes, puis deviennent lignes pivots ou restent nulles (de même que
+ * les lignes sans pivot qui contiennent maintenant de nouvelles
+ * inconnues)</li>
+ * </ul>
+ * Les inconnues pivots d'une forme échelonnée ne dépendent que du système :
+ * les inconnues non fixées, et donc l'indice des solutions, sont les mêmes
+ * qu'avec Solver. Balayer les tailles de 1 à N lignes coûte de l'ordre d'une
+ * seule triangularisation de la grille de N lignes.
+ *
+ * @author MOLLIN Florian
+ */
+public class IncrementalSolver {
+    /**
+     * Nombre de colonnes de la grille
+     */
+    private final int columns;
+    /**
+     * Pattern de la grille
+     */
+    private final PatternInterface pattern;
+    /**
+     * Nombre de lignes actuel de la grille
+     */
+    private int rows = 0;
+    /**
+     * Nombre de mots (long) alloués pour chaque partie d'une ligne
+     */
+    private int capacity = 1;
+    /**
+     * Inconnues de la ligne pivot de chaque inconnue (null si l'inconnue
+     * n'est pas fixée)
+     */
+    private long[][] pivotUnknowns = new long[0][];
+    /**
+     * Combinaison d'équations initiales de la ligne pivot de chaque inconnue
+     */
+    private long[][] pivotCombinations = new long[0][];
+    /**
+     * Inconnues des lignes sans pivot (nulles)
+     */
+    private final List<long[]> residualUnknowns = new ArrayList<>();
+    /**
+     * Combinaisons d'équations initiales des lignes sans pivot
+     */
+    private final List<long[]> residualCombinations = new ArrayList<>();
+
+    /**
+     * Constructeur du solveur, pour une grille sans ligne.
+     *
+     * @param columns Le nombre de colonnes de la grille
+     * @param pattern Le pattern
+     * @throws IllegalArgumentException Si le nombre de colonnes n'est pas
+     *                                  positif
+     */
+    public IncrementalSolver(int columns, PatternInterface pattern) {
+        if (columns <= 0) {
+            throw new IllegalArgumentException("Invalid number of columns " + columns);
+        }
+        this.columns = columns;
+        this.pattern = pattern;
+    }
+
+    /**
+     * Renvoie le nombre de lignes actuel de la grille.
+     *
+     * @return Le nombre de lignes
+     */
+    public synchronized int rows() {
+        return this.rows;
+    }
+
+    /**
+     * Renvoie le nombre de colonnes de la grille.
+     *
+     * @return Le nombre de colonnes
+     */
+    public int columns() {
+        return this.columns;
+    }
+
+    /**
+     * Renvoie la dimension du noyau du système de la grille actuelle (le
+     * nombre de solutions d'une grille possible est 2^nullité).
+     *
+     * @return La dimension du noyau
+     */
+    public synchronized int getNullity() {
+        int nullity = 0;
+        for (int col = 0; col < this.rows * this.columns; col++) {
+            if (this.pivotUnknowns[col] == null) {
+                nullity++;
+            }
+        }
+        return nullity;
+    }
+
+    /**
+     * Ajoute des lignes en bas de la grille, une par une, en étendant la
+     * triangularisation.
+     *
+     * @param count Le nombre de lignes à ajouter
+     * @throws IllegalArgumentException Si le nombre de lignes est négatif
+     */
+    public synchronized void addRows(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid number of rows " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            addRow();
+        }
+    }
+
+    /**
+     * Ajoute une ligne en bas de la grille.
+     */
+    private void addRow() {
+        int oldSize = this.rows * this.columns;
+        int size = oldSize + this.columns;
+        SparseMatrix matrix = SparseMatrix.of(this.rows + 1, this.columns, this.pattern);
+        ensureCapacity(ReducedSystem.words(size + 1));
+
+        // équations existantes contenant chaque nouvelle inconnue
+        List<List<Integer>> newColumns = new ArrayList<>();
+        for (int u = oldSize; u < size; u++) {
+            newColumns.add(new ArrayList<>());
+        }
+        for (int j = 0; j < oldSize; j++) {
+            for (int u : matrix.row(j)) {
+                if (u >= oldSize) {
+                    newColumns.get(u - oldSize).add(j);
+                }
+            }
+        }
+        // coefficients des nouvelles inconnues dans les lignes existantes
+        for (int col = 0; col < oldSize; col++) {
+            if (this.pivotUnknowns[col] != null) {
+                extend(this.pivotUnknowns[col], this.pivotCombinations[col], newColumns, oldSize);
+            }
+        }
+        List<long[]> pendingUnknowns = new ArrayList<>();
+        List<long[]> pendingCombinations = new ArrayList<>();
+        for (int r = 0; r < this.residualUnknowns.size(); r++) {
+            extend(this.residualUnknowns.get(r), this.residualCombinations.get(r), newColumns, oldSize);
+            pendingUnknowns.add(this.residualUnknowns.get(r));
+            pendingCombinations.add(this.residualCombinations.get(r));
+        }
+        this.residualUnknowns.clear();
+        this.residualCombinations.clear();
+        // nouvelles équations
+        for (int j = oldSize; j < size; j++) {
+            long[] unknowns = new long[this.capacity];
+            matrix.addRow(j, unknowns);
+            long[] combination = new long[this.capacity];
+            combination[j >>> 6] |= 1L << j;
+            pendingUnknowns.add(unknowns);
+            pendingCombinations.add(combination);
+        }
+
+        this.pivotUnknowns = Arrays.copyOf(this.pivotUnknowns, size);
+        this.pivotCombinations = Arrays.copyOf(this.pivotCombinations, size);
+        this.rows++;
+        for (int r = 0; r < pendingUnknowns.size(); r++) {
+            insert(pendingUnknowns.get(r), pendingCombinations.get(r), size);
+        }
+    }
+
+    /**
+     * Agrandit les lignes si besoin pour contenir 'words' mots par partie
+     * (la capacité est doublée).
+     *
+     * @param words Le nombre de mots nécessaires
+     */
+    private void ensureCapacity(int words) {
+        if (words <= this.capacity) {
+            return;
+        }
+        this.capacity = Math.max(words, 2 * this.capacity);
+        for (int col = 0; col < this.pivotUnknowns.length; col++) {
+            if (this.pivotUnknowns[col] != null) {
+                this.pivotUnknowns[col] = Arrays.copyOf(this.pivotUnknowns[col], this.capacity);
+                this.pivotCombinations[col] = Arrays.copyOf(this.pivotCombinations[col], this.capacity);
+            }
+        }
+        for (int r = 0; r < this.residualUnknowns.size(); r++) {
+            this.residualUnknowns.set(r, Arrays.copyOf(this.residualUnknowns.get(r), this.capacity));
+            this.residualCombinations.set(r, Arrays.copyOf(this.residualCombinations.get(r), this.capacity));
+        }
+    }
+
+    /**
+     * Calcule les coefficients des nouvelles inconnues d'une ligne : la
+     * parité des équations de sa combinaison qui contiennent l'inconnue.
+     *
+     * @param unknowns    Les inconnues de la ligne (modifiées)
+     * @param combination La combinaison d'équations de la ligne
+     * @param newColumns  Les équations existantes contenant chaque nouvelle
+     *                    inconnue
+     * @param oldSize     La première nouvelle inconnue
+     */
+    private static void extend(long[] unknowns, long[] combination, List<List<Integer>> newColumns, int oldSize) {
+        for (int k = 0; k < newColumns.size(); k++) {
+            int parity = 0;
+            for (int j : newColumns.get(k)) {
+                parity ^= (int) (combination[j >>> 6] >>> j) & 1;
+            }
+            if (parity == 1) {
+                int u = oldSize + k;
+                unknowns[u >>> 6] |= 1L << u;
+            }
+        }
+    }
+
+    /**
+     * Insère une ligne dans la forme échelonnée : tant que son inconnue de
+     * plus petit indice a une ligne pivot, celle-ci lui est ajoutée ; sinon
+     * la ligne devient la ligne pivot de cette inconnue. Une ligne réduite à
+     * zéro est conservée comme ligne sans pivot.
+     *
+     * @param unknowns    Les inconnues de la ligne
+     * @param combination La combinaison d'équations de la ligne
+     * @param size        Le nombre d'inconnues
+     */
+    private void insert(long[] unknowns, long[] combination, int size) {
+        int words = ReducedSystem.words(size);
+        int w = 0;
+        while (w < words) {
+            if (unknowns[w] == 0) {
+                w++;
+                continue;
+            }
+            int col = w * Long.SIZE + Long.numberOfTrailingZeros(unknowns[w]);
+            long[] pivot = this.pivotUnknowns[col];
+            if (pivot == null) {
+                this.pivotUnknowns[col] = unknowns;
+                this.pivotCombinations[col] = combination;
+                return;
+            }
+            // la ligne pivot n'a pas d'inconnue avant 'col'
+            RowOperations.INSTANCE.xor(unknowns, pivot, w, words);
+            RowOperations.INSTANCE.xor(combination, this.pivotCombinations[col], 0, words);
+        }
+        this.residualUnknowns.add(unknowns);
+        this.residualCombinations.add(combination);
+    }
+
+    /**
+     * Renvoie le système triangularisé de la grille actuelle pour des
+     * grilles de départ et d'arrivée données (cf : ReducedMatrix.withGoal).
+     * Le système n'est valable que jusqu'à l'ajout de la ligne suivante.
+     *
+     * @param startGrid La grille de départ
+     * @param endGrid   La grille à atteindre
+     * @return Le système triangularisé
+     */
+    private ReducedSystem withGoal(GridInterface startGrid, GridInterface endGrid) {
+        checkGrid(startGrid);
+        checkGrid(endGrid);
+        int size = this.rows * this.columns;
+        long[] goal = new long[ReducedSystem.words(Math.max(1, size))];
+        for (int i = 0; i < size; i++) {
+            Coord coord = Coord.of(i / this.columns, i % this.columns);
+            if (startGrid.isActivated(coord) ^ endGrid.isActivated(coord)) {
+                goal[i >>> 6] |= 1L << i;
+            }
+        }
+        boolean impossible = false;
+        for (long[] combination : this.residualCombinations) {
+            impossible |= parity(combination, goal);
+        }
+        int nbPivots = size - getNullity();
+        int[] pivotColumns = new int[nbPivots];
+        int[] freeColumns = new int[size - nbPivots];
+        long[][] lockedRows = new long[nbPivots][];
+        boolean[] goalBits = new boolean[nbPivots];
+        int k = 0;
+        int f = 0;
+        for (int col = 0; col < size; col++) {
+            if (this.pivotUnknowns[col] == null) {
+                freeColumns[f++] = col;
+            } else {
+                pivotColumns[k] = col;
+                lockedRows[k] = this.pivotUnknowns[col];
+                goalBits[k++] = parity(this.pivotCombinations[col], goal);
+            }
+        }
+        int nbWords = ReducedSystem.words(size + 1);
+        int goalWord = size >>> 6;
+        long goalMask = 1L << size;
+        ReducedSystem.PivotRows pivotRows = (row, fromWord, values) -> {
+            long parity = RowOperations.INSTANCE.dot(lockedRows[row], values, fromWord, nbWords);
+            if (goalBits[row]) {
+                parity ^= values[goalWord] & goalMask;
+            }
+            return parity;
+        };
+        return new ReducedSystem(size, pivotRows, pivotColumns, freeColumns, impossible);
+    }
+
+    /**
+     * Cherche les solutions de la grille actuelle (cf : Solver.solve).
+     *
+     * @param startGrid    La grille de départ
+     * @param endGrid      La grille à atteindre
+     * @param maxSolutions Le nombre maximum de solutions à trouver (si
+     *                     négatif, renvoit toutes les solutions)
+     * @return L'ensemble des solutions
+     * @throws IllegalArgumentException Si les grilles n'ont pas la taille
+     *                                  actuelle
+     */
+    public synchronized Solutions solve(GridInterface startGrid, GridInterface endGrid, int maxSolutions) {
+        ReducedSystem system = withGoal(startGrid, endGrid);
+        if (system.isImpossible()) {
+            return new Solutions(0);
+        }
+        BigInteger nbSolutions = BigInteger.ONE.shiftLeft(system.getNullity());
+        Solutions solutions = new Solutions(nbSolutions);
+        long end = nbSolutions.min(BigInteger.valueOf((maxSolutions < 0) ? Integer.MAX_VALUE : maxSolutions))
+                .longValue();
+        long[] values = new long[system.getWords()];
+        for (long index = 0; index < end; index++) {
+            system.solutionAt(index, true, values);
+            solutions.addSolution(new Solution(values, this.rows, this.columns));
+        }
+        return solutions;
+    }
+
+    /**
+     * Renvoie l'espace des solutions de la grille actuelle (cf :
+     * Solver.getSolutionSpace).
+     *
+     * @param startGrid La grille de départ
+     * @param endGrid   La grille à atteindre
+     * @return L'espace des solutions (l'optionnel sera vide si il n'y a pas
+     * de solution)
+     * @throws IllegalArgumentException Si les grilles n'ont pas la taille
+     *                                  actuelle
+     */
+    public synchronized Optional<SolutionSpace> getSolutionSpace(GridInterface startGrid, GridInterface endGrid) {
+        ReducedSystem system = withGoal(startGrid, endGrid);
+        if (system.isImpossible()) {
+            return Optional.empty();
+        }
+        int size = this.rows * this.columns;
+        long[] values = new long[system.getWords()];
+        system.solutionAt(0, true, values);
+        long[] particular = toWords(values, size);
+        long[][] kernel = new long[system.getNullity()][];
+        for (int i = 0; i < kernel.length; i++) {
+            system.kernelVector(i, values);
+            kernel[i] = toWords(values, size);
+        }
+        return Optional.of(new SolutionSpace(this.rows, this.columns, particular, kernel));
+    }
+
+    /**
+     * Copie les bits des inconnues d'un vecteur de valeurs (sans le
+     * résultat).
+     *
+     * @param values Le vecteur de valeurs
+     * @param size   Le nombre d'inconnues
+     * @return Les bits des inconnues
+     */
+    private static long[] toWords(long[] values, int size) {
+        long[] words = Arrays.copyOf(values, SolutionSpace.words(size));
+        if (size % Long.SIZE != 0) {
+            words[words.length - 1] &= (1L << size) - 1;
+        }
+        return words;
+    }
+
+    /**
+     * Calcule la parité d'une combinaison d'équations appliquée aux
+     * résultats des équations.
+     *
+     * @param combination La combinaison
+     * @param goal        Le résultat de chaque équation
+     * @return Vrai si la parité est impaire
+     */
+    private static boolean parity(long[] combination, long[] goal) {
+        long parity = 0;
+        for (int w = 0; w < goal.length; w++) {
+            parity ^= combination[w] & goal[w];
+        }
+        return (Long.bitCount(parity) & 1) == 1;
+    }
+
+    /**
+     * Vérifie qu'une grille a la taille actuelle.
+     *
+     * @param grid La grille
+     * @throws IllegalArgumentException Si la grille n'a pas la taille
+     *                                  actuelle
+     */
+    private void checkGrid(GridInterface grid) {
+        if (grid.rows() != this.rows || grid.columns() != this.columns) {
+            throw new IllegalArgumentException("Grid is " + grid.rows() + "x" + grid.columns()
+                    + ", solver is " + this.rows + "x" + this.columns);
+        }
+    }
+}
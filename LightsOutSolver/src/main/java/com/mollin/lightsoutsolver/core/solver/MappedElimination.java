@@ -0,0 +1,276 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Triangularisation d'un système trop grand pour le tas : les équations sont
+ * stockées dans un fichier temporaire projeté en mémoire (segments d'au plus
+ * 1 Go, une équation n'étant jamais à cheval sur deux segments). Le fichier
+ * est supprimé dès sa projection, la place disque est libérée lorsque les
+ * projections sont récupérées par le ramasse-miettes.
+ * <p>
+ * Les inconnues sont traitées par panneaux de 64 (un mot) : les pivots d'un
+ * panneau sont choisis à l'aide d'une copie dans le tas du mot courant de
+ * chaque équation, puis le panneau est appliqué aux équations restantes en un
+ * seul parcours séquentiel du fichier (au lieu d'un parcours par pivot).
+ *
+ * @author MOLLIN Florian
+ */
+class MappedElimination implements ReducedSystem.PivotRows {
+    /**
+     * Taille maximale d'un segment projeté (en octets)
+     */
+    private static final long SEGMENT_BYTES = 1L << 30;
+    /**
+     * Nombre de mots (long) d'une équation (inconnues + résultat)
+     */
+    private final int words;
+    /**
+     * Nombre d'équations par segment
+     */
+    private final int rowsPerSegment;
+    /**
+     * Segments projetés du fichier
+     */
+    private final LongBuffer[] segments;
+
+    /**
+     * Crée le fichier temporaire et projette ses segments.
+     *
+     * @param directory Le répertoire du fichier temporaire
+     * @param nbRows    Le nombre d'équations
+     * @param words     Le nombre de mots d'une équation
+     * @throws IOException En cas d'erreur d'entrée/sortie
+     */
+    private MappedElimination(Path directory, int nbRows, int words) throws IOException {
+        this.words = words;
+        long rowBytes = (long) words * Long.BYTES;
+        this.rowsPerSegment = (int) Math.max(1, Math.min(nbRows, SEGMENT_BYTES / rowBytes));
+        int nbSegments = Math.max(1, (nbRows + this.rowsPerSegment - 1) / this.rowsPerSegment);
+        this.segments = new LongBuffer[nbSegments];
+        Path file = Files.createTempFile(directory, "lights-out-", ".matrix");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE)) {
+            for (int s = 0; s < nbSegments; s++) {
+                int rows = Math.min(this.rowsPerSegment, nbRows - s * this.rowsPerSegment);
+                this.segments[s] = channel.map(FileChannel.MapMode.READ_WRITE, s * this.rowsPerSegment * rowBytes,
+                        Math.max(1, rows) * rowBytes).order(ByteOrder.nativeOrder()).asLongBuffer();
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Construit et triangularise un système hors du tas.
+     *
+     * @param directory  Le répertoire du fichier temporaire
+     * @param nbRows     Le nombre d'équations
+     * @param nbUnknowns Le nombre d'inconnues
+     * @param equations  Remplit l'équation d'indice donné (bits compactés,
+     *                   résultat au bit 'nbUnknowns', tableau initialement
+     *                   nul)
+     * @param checkpoint La sauvegarde de l'état (null pour ne pas
+     *                   sauvegarder)
+     * @return Le système triangularisé
+     * @throws UncheckedIOException En cas d'erreur d'entrée/sortie
+     */
+    static ReducedSystem reduce(Path directory, int nbRows, int nbUnknowns, ObjIntConsumer<long[]> equations,
+                                EliminationCheckpoint checkpoint) {
+        int words = ReducedSystem.words(nbUnknowns + 1);
+        MappedElimination matrix;
+        try {
+            matrix = new MappedElimination(directory, nbRows, words);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long[] row = new long[words];
+        long fingerprint = nbRows * 31L + words;
+        for (int r = 0; r < nbRows; r++) {
+            Arrays.fill(row, 0L);
+            equations.accept(row, r);
+            fingerprint = EliminationCheckpoint.fingerprint(fingerprint, row);
+            matrix.write(r, 0, row);
+        }
+        return matrix.eliminate(nbRows, nbUnknowns, checkpoint, fingerprint);
+    }
+
+    /**
+     * Triangularise le système par panneaux de 64 inconnues (même résultat
+     * que la triangularisation dans le tas). L'état est sauvegardé entre deux
+     * panneaux, lorsque toutes les équations du fichier sont à jour.
+     *
+     * @param nbRows      Le nombre d'équations
+     * @param nbUnknowns  Le nombre d'inconnues
+     * @param checkpoint  La sauvegarde de l'état (ou null)
+     * @param fingerprint L'empreinte des équations initiales
+     * @return Le système triangularisé
+     */
+    private ReducedSystem eliminate(int nbRows, int nbUnknowns, EliminationCheckpoint checkpoint, long fingerprint) {
+        int[] pivots = new int[Math.min(nbRows, nbUnknowns)];
+        int[] free = new int[nbUnknowns];
+        int nbPivots = 0;
+        int nbFree = 0;
+        int startColumn = 0;
+        EliminationCheckpoint.Rows access = new EliminationCheckpoint.Rows() {
+            @Override
+            public void read(int r, long[] row) {
+                MappedElimination.this.read(r, 0, row);
+            }
+
+            @Override
+            public void write(int r, long[] row) {
+                MappedElimination.this.write(r, 0, row);
+            }
+        };
+        if (checkpoint != null) {
+            EliminationCheckpoint.State state = checkpoint.load(fingerprint, nbUnknowns, nbRows, this.words, access);
+            if (state != null) {
+                startColumn = state.column;
+                nbPivots = state.pivots.length;
+                nbFree = state.free.length;
+                System.arraycopy(state.pivots, 0, pivots, 0, nbPivots);
+                System.arraycopy(state.free, 0, free, 0, nbFree);
+            }
+            checkpoint.start();
+        }
+        // mot courant de chaque équation non vérouillée, réduit par les
+        // pivots du panneau
+        long[] column = new long[nbRows];
+        long[][] panel = new long[Long.SIZE][this.words];
+        int[] panelColumns = new int[Long.SIZE];
+        long[] row = new long[this.words];
+        for (int w = startColumn >>> 6; w < ReducedSystem.words(nbUnknowns); w++) {
+            int firstColumn = Math.max(startColumn, w * Long.SIZE);
+            if (checkpoint != null && checkpoint.isDue()) {
+                checkpoint.save(fingerprint, new EliminationCheckpoint.State(firstColumn,
+                                Arrays.copyOf(pivots, nbPivots), Arrays.copyOf(free, nbFree)),
+                        nbUnknowns, nbRows, this.words, access);
+            }
+            for (int r = nbPivots; r < nbRows; r++) {
+                column[r] = get(r, w);
+            }
+            int panelSize = 0;
+            for (int col = firstColumn; col < Math.min(nbUnknowns, (w + 1) * Long.SIZE); col++) {
+                long mask = 1L << col;
+                int found = RowOperations.INSTANCE.find(column, nbPivots, nbRows, mask);
+                if (found < 0) {
+                    free[nbFree++] = col;
+                    continue;
+                }
+                // l'équation pivot est réduite par les pivots précédents du
+                // panneau puis vérouillée
+                long[] pivot = panel[panelSize];
+                read(found, w, pivot);
+                reducePanel(pivot, w, panel, panelColumns, panelSize);
+                if (found != nbPivots) {
+                    read(nbPivots, w, row);
+                    write(found, w, row);
+                    column[found] = column[nbPivots];
+                }
+                write(nbPivots, w, pivot);
+                panelColumns[panelSize++] = col;
+                pivots[nbPivots++] = col;
+                RowOperations.INSTANCE.xorIf(column, nbPivots, nbRows, mask, pivot[w]);
+            }
+            // application du panneau aux équations non vérouillées
+            if (panelSize > 0) {
+                for (int r = nbPivots; r < nbRows; r++) {
+                    if (get(r, w) != column[r]) {
+                        read(r, w, row);
+                        reducePanel(row, w, panel, panelColumns, panelSize);
+                        write(r, w, row);
+                    }
+                }
+            }
+        }
+        // une équation restante contenant le résultat est de la forme 0 = 1
+        boolean noSolution = false;
+        int goalWord = nbUnknowns >>> 6;
+        long goalMask = 1L << nbUnknowns;
+        for (int r = nbPivots; r < nbRows && !noSolution; r++) {
+            noSolution = (get(r, goalWord) & goalMask) != 0;
+        }
+        return new ReducedSystem(nbUnknowns, this, Arrays.copyOf(pivots, nbPivots), Arrays.copyOf(free, nbFree),
+                noSolution);
+    }
+
+    /**
+     * Réduit une équation par les pivots d'un panneau, dans l'ordre des
+     * pivots (mots à partir de 'fromWord').
+     *
+     * @param row          L'équation (modifiée)
+     * @param fromWord     Le mot du panneau
+     * @param panel        Les équations pivots du panneau
+     * @param panelColumns Les inconnues pivots du panneau
+     * @param panelSize    Le nombre de pivots du panneau
+     */
+    private void reducePanel(long[] row, int fromWord, long[][] panel, int[] panelColumns, int panelSize) {
+        for (int k = 0; k < panelSize; k++) {
+            if ((row[fromWord] >>> panelColumns[k] & 1L) != 0) {
+                RowOperations.INSTANCE.xor(row, panel[k], fromWord, this.words);
+            }
+        }
+    }
+
+    @Override
+    public long dot(int k, int fromWord, long[] values) {
+        LongBuffer segment = this.segments[k / this.rowsPerSegment];
+        int base = (k % this.rowsPerSegment) * this.words;
+        long parity = 0;
+        for (int i = fromWord; i < this.words; i++) {
+            parity ^= segment.get(base + i) & values[i];
+        }
+        return parity;
+    }
+
+    /**
+     * Lit un mot d'une équation.
+     *
+     * @param r    L'indice de l'équation
+     * @param word L'indice du mot
+     * @return Le mot
+     */
+    private long get(int r, int word) {
+        return this.segments[r / this.rowsPerSegment].get((r % this.rowsPerSegment) * this.words + word);
+    }
+
+    /**
+     * Lit les mots d'une équation à partir du mot 'fromWord'.
+     *
+     * @param r        L'indice de l'équation
+     * @param fromWord Le premier mot lu
+     * @param row      Le tableau à remplir (mêmes indices que l'équation)
+     */
+    private void read(int r, int fromWord, long[] row) {
+        LongBuffer segment = this.segments[r / this.rowsPerSegment];
+        int base = (r % this.rowsPerSegment) * this.words;
+        for (int i = fromWord; i < this.words; i++) {
+            row[i] = segment.get(base + i);
+        }
+    }
+
+    /**
+     * Ecrit les mots d'une équation à partir du mot 'fromWord'.
+     *
+     * @param r        L'indice de l'équation
+     * @param fromWord Le premier mot écrit
+     * @param row      Les mots à écrire (mêmes indices que l'équation)
+     */
+    private void write(int r, int fromWord, long[] row) {
+        LongBuffer segment = this.segments[r / this.rowsPerSegment];
+        int base = (r % this.rowsPerSegment) * this.words;
+        for (int i = fromWord; i < this.words; i++) {
+            segment.put(base + i, row[i]);
+        }
+    }
+}
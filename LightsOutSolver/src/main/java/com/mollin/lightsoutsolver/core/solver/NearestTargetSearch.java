@@ -0,0 +1,289 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Recherche du plus petit ensemble d'équations dont il faut inverser le
+ * résultat pour rendre un système possible, c'est-à-dire de la grille
+ * atteignable la plus proche de la grille demandée (en nombre de cases
+ * différentes).
+ * <p>
+ * Le syndrome du résultat (cf : ReducedMatrix.syndrome) est nul si et
+ * seulement si le système est possible, et inverser le résultat d'une
+ * équation ajoute son syndrome. Il s'agit donc de trouver le moins
+ * d'équations dont les syndromes ont pour somme le syndrome du résultat :
+ * <ul>
+ * <li>si l'orthogonal est de petite dimension, par un parcours en largeur
+ * de l'ensemble des syndromes (2^dimension états) : le résultat est
+ * optimal</li>
+ * <li>sinon, par un nombre borné de tirages aléatoires d'un ensemble
+ * d'équations dont les syndromes forment une base (le résultat en est
+ * exprimé sur cette base, au plus 'dimension' équations) : le meilleur
+ * tirage est conservé, sans garantie d'optimalité</li>
+ * </ul>
+ *
+ * @author MOLLIN Florian
+ */
+class NearestTargetSearch {
+    /**
+     * Dimension maximale de l'orthogonal pour le parcours exhaustif
+     */
+    private static final int MAX_EXHAUSTIVE_CORANK = 20;
+    /**
+     * Nombre maximal d'opérations du parcours exhaustif (états * syndromes
+     * distincts)
+     */
+    private static final long MAX_EXHAUSTIVE_WORK = 1L << 27;
+    /**
+     * Nombre de tirages par défaut de la recherche heuristique
+     */
+    static final int DEFAULT_ITERATIONS = 256;
+
+    /**
+     * Système triangularisé (syndromes des équations)
+     */
+    private final ReducedMatrix matrix;
+    /**
+     * Nombre d'équations
+     */
+    private final int size;
+    /**
+     * Nombre de tirages de la recherche heuristique
+     */
+    private final int iterations;
+    /**
+     * Vrai si la dernière recherche a donné un résultat optimal
+     */
+    private boolean optimal;
+
+    /**
+     * Constructeur de la recherche.
+     *
+     * @param matrix     Le système triangularisé
+     * @param size       Le nombre d'équations
+     * @param iterations Le nombre de tirages de la recherche heuristique
+     */
+    NearestTargetSearch(ReducedMatrix matrix, int size, int iterations) {
+        this.matrix = matrix;
+        this.size = size;
+        this.iterations = iterations;
+    }
+
+    /**
+     * Renvoie vrai si la dernière recherche a donné un résultat optimal
+     * (parcours exhaustif ou système déjà possible).
+     *
+     * @return Vrai si le résultat est optimal
+     */
+    boolean isOptimal() {
+        return this.optimal;
+    }
+
+    /**
+     * Cherche les équations dont il faut inverser le résultat.
+     *
+     * @param goal Le résultat de chaque équation (bits compactés)
+     * @return Les équations à inverser (bits compactés)
+     */
+    long[] search(long[] goal) {
+        long[] syndrome = this.matrix.syndrome(goal);
+        long[] flips = new long[ReducedSystem.words(this.size)];
+        this.optimal = true;
+        if (isZero(syndrome)) {
+            return flips;
+        }
+        int corank = this.matrix.getCorank();
+        if (corank <= MAX_EXHAUSTIVE_CORANK) {
+            Map<Long, Integer> generators = distinctSyndromes();
+            if ((1L << corank) * generators.size() <= MAX_EXHAUSTIVE_WORK) {
+                breadthFirst(corank, syndrome[0], generators, flips);
+                return flips;
+            }
+        }
+        this.optimal = false;
+        randomBases(syndrome, flips);
+        return flips;
+    }
+
+    /**
+     * Renvoie les syndromes non nuls distincts des équations (dimension de
+     * l'orthogonal au plus 64), avec pour chacun une équation qui le donne.
+     *
+     * @return La table syndrome vers équation
+     */
+    private Map<Long, Integer> distinctSyndromes() {
+        Map<Long, Integer> generators = new HashMap<>();
+        long[] syndrome = new long[1];
+        for (int i = 0; i < this.size; i++) {
+            syndrome[0] = 0;
+            this.matrix.xorSyndrome(i, syndrome);
+            if (syndrome[0] != 0) {
+                generators.putIfAbsent(syndrome[0], i);
+            }
+        }
+        return generators;
+    }
+
+    /**
+     * Parcours en largeur des syndromes à partir du syndrome nul, chaque
+     * arête ajoutant le syndrome d'une équation, jusqu'à atteindre le
+     * syndrome du résultat : le chemin donne le plus petit ensemble
+     * d'équations.
+     *
+     * @param corank     La dimension de l'orthogonal
+     * @param target     Le syndrome du résultat
+     * @param generators Les syndromes distincts et leur équation
+     * @param flips      Les équations à inverser (à remplir)
+     */
+    private static void breadthFirst(int corank, long target, Map<Long, Integer> generators, long[] flips) {
+        int nbGenerators = generators.size();
+        int[] steps = new int[nbGenerators];
+        int[] equations = new int[nbGenerators];
+        int g = 0;
+        for (Map.Entry<Long, Integer> generator : generators.entrySet()) {
+            steps[g] = (int) (long) generator.getKey();
+            equations[g++] = generator.getValue();
+        }
+        // syndrome atteint -> indice de l'arête d'arrivée + 1 (0 : non atteint)
+        int[] via = new int[1 << corank];
+        int[] queue = new int[1 << corank];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        via[0] = -1;
+        int goal = (int) target;
+        while (via[goal] == 0 && head < tail) {
+            int state = queue[head++];
+            for (int k = 0; k < nbGenerators && via[goal] == 0; k++) {
+                int next = state ^ steps[k];
+                if (via[next] == 0) {
+                    via[next] = k + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        // les syndromes engendrent l'orthogonal : le syndrome est atteint
+        for (int state = goal; state != 0; ) {
+            int k = via[state] - 1;
+            flips[equations[k] >>> 6] ^= 1L << equations[k];
+            state ^= steps[k];
+        }
+    }
+
+    /**
+     * Recherche heuristique : à chaque tirage, les équations sont parcourues
+     * dans un ordre aléatoire et conservées tant que leurs syndromes sont
+     * indépendants, jusqu'à former une base de l'orthogonal. Le syndrome du
+     * résultat est exprimé sur cette base, le tirage donnant le moins
+     * d'équations est conservé.
+     *
+     * @param syndrome Le syndrome du résultat
+     * @param flips    Les équations à inverser (à remplir)
+     */
+    private void randomBases(long[] syndrome, long[] flips) {
+        int corank = this.matrix.getCorank();
+        int words = this.matrix.getSyndromeWords();
+        Random random = new Random(0);
+        int[] order = new int[this.size];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // base indexée par le bit de poids faible de chaque syndrome, avec
+        // la combinaison des équations choisies qui le donne
+        long[][] basis = new long[corank][];
+        long[][] combinations = new long[corank][];
+        int[] chosen = new int[corank];
+        long[] vector = new long[words];
+        long[] combination = new long[words];
+        List<Integer> best = null;
+        for (int iteration = 0; iteration < Math.max(1, this.iterations); iteration++) {
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            Arrays.fill(basis, null);
+            int nbChosen = 0;
+            for (int i = 0; i < order.length && nbChosen < corank; i++) {
+                Arrays.fill(vector, 0L);
+                this.matrix.xorSyndrome(order[i], vector);
+                Arrays.fill(combination, 0L);
+                combination[nbChosen >>> 6] = 1L << nbChosen;
+                int bit = reduce(basis, combinations, vector, combination);
+                if (bit >= 0) {
+                    basis[bit] = vector.clone();
+                    combinations[bit] = combination.clone();
+                    chosen[nbChosen++] = order[i];
+                }
+            }
+            System.arraycopy(syndrome, 0, vector, 0, words);
+            Arrays.fill(combination, 0L);
+            reduce(basis, combinations, vector, combination);
+            List<Integer> equations = new ArrayList<>();
+            for (int w = 0; w < words; w++) {
+                for (long word = combination[w]; word != 0; word &= word - 1) {
+                    equations.add(chosen[w * Long.SIZE + Long.numberOfTrailingZeros(word)]);
+                }
+            }
+            if (best == null || equations.size() < best.size()) {
+                best = equations;
+            }
+        }
+        for (int equation : best) {
+            flips[equation >>> 6] |= 1L << equation;
+        }
+    }
+
+    /**
+     * Réduit un vecteur par la base : tant que le bit de poids faible du
+     * vecteur correspond à un vecteur de la base, celui-ci est ajouté au
+     * vecteur (et sa combinaison à la combinaison).
+     *
+     * @param basis        La base (indexée par bit de poids faible)
+     * @param combinations Les combinaisons des vecteurs de la base
+     * @param vector       Le vecteur à réduire
+     * @param combination  La combinaison du vecteur
+     * @return Le bit de poids faible du vecteur réduit (-1 s'il est nul)
+     */
+    private static int reduce(long[][] basis, long[][] combinations, long[] vector, long[] combination) {
+        int w = 0;
+        while (w < vector.length) {
+            if (vector[w] == 0) {
+                w++;
+                continue;
+            }
+            int bit = w * Long.SIZE + Long.numberOfTrailingZeros(vector[w]);
+            if (basis[bit] == null) {
+                return bit;
+            }
+            for (int i = w; i < vector.length; i++) {
+                vector[i] ^= basis[bit][i];
+            }
+            for (int i = 0; i < combination.length; i++) {
+                combination[i] ^= combinations[bit][i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Renvoie vrai si un vecteur est nul.
+     *
+     * @param vector Le vecteur
+     * @return Vrai si tous ses mots sont nuls
+     */
+    private static boolean isZero(long[] vector) {
+        for (long word : vector) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
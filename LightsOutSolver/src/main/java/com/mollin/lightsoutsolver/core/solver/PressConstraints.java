@@ -0,0 +1,131 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.utils.Coord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Contraintes sur les cases cliquées des solutions (cf :
+ * Solver.setConstraints) : cases toujours cliquées, cases jamais cliquées
+ * (cases verrouillées) et nombre maximal de clics dans une région. Les cases
+ * toujours ou jamais cliquées sont substituées dans le système avant la
+ * triangularisation (elles ne sont plus des inconnues), les limites par
+ * région filtrent les combinaisons des inconnues des régions.
+ *
+ * @author MOLLIN Florian
+ */
+public class PressConstraints {
+    /**
+     * Cases toujours cliquées
+     */
+    private final Set<Coord> forced = new HashSet<>();
+    /**
+     * Cases jamais cliquées
+     */
+    private final Set<Coord> forbidden = new HashSet<>();
+    /**
+     * Régions dont le nombre de clics est limité
+     */
+    private final List<Set<Coord>> regions = new ArrayList<>();
+    /**
+     * Nombre maximal de clics de chaque région
+     */
+    private final List<Integer> maxPresses = new ArrayList<>();
+
+    /**
+     * Impose de cliquer sur des cases.
+     *
+     * @param coords Les cases toujours cliquées
+     * @throws IllegalArgumentException Si une case est déjà interdite
+     */
+    public void force(Coord... coords) {
+        for (Coord coord : coords) {
+            if (this.forbidden.contains(coord)) {
+                throw new IllegalArgumentException("Cell " + coord + " is already forbidden");
+            }
+        }
+        this.forced.addAll(Arrays.asList(coords));
+    }
+
+    /**
+     * Interdit de cliquer sur des cases.
+     *
+     * @param coords Les cases jamais cliquées
+     * @throws IllegalArgumentException Si une case est déjà imposée
+     */
+    public void forbid(Coord... coords) {
+        for (Coord coord : coords) {
+            if (this.forced.contains(coord)) {
+                throw new IllegalArgumentException("Cell " + coord + " is already forced");
+            }
+        }
+        this.forbidden.addAll(Arrays.asList(coords));
+    }
+
+    /**
+     * Limite le nombre de clics dans une région (les cases imposées de la
+     * région sont comptées).
+     *
+     * @param region     Les cases de la région
+     * @param maxPresses Le nombre maximal de clics dans la région
+     * @throws IllegalArgumentException Si le nombre maximal est négatif
+     */
+    public void limit(Collection<Coord> region, int maxPresses) {
+        if (maxPresses < 0) {
+            throw new IllegalArgumentException("Invalid press limit " + maxPresses);
+        }
+        this.regions.add(new HashSet<>(region));
+        this.maxPresses.add(maxPresses);
+    }
+
+    /**
+     * Renvoie vrai s'il n'y a aucune contrainte.
+     *
+     * @return Vrai si les contraintes sont vides
+     */
+    public boolean isEmpty() {
+        return this.forced.isEmpty() && this.forbidden.isEmpty() && this.regions.isEmpty();
+    }
+
+    /**
+     * Renvoie les cases toujours cliquées.
+     *
+     * @return Les cases imposées
+     */
+    Set<Coord> getForced() {
+        return Collections.unmodifiableSet(this.forced);
+    }
+
+    /**
+     * Renvoie les cases jamais cliquées.
+     *
+     * @return Les cases interdites
+     */
+    Set<Coord> getForbidden() {
+        return Collections.unmodifiableSet(this.forbidden);
+    }
+
+    /**
+     * Renvoie les régions dont le nombre de clics est limité.
+     *
+     * @return Les régions
+     */
+    List<Set<Coord>> getRegions() {
+        return Collections.unmodifiableList(this.regions);
+    }
+
+    /**
+     * Renvoie le nombre maximal de clics de chaque région.
+     *
+     * @return Les nombres maximaux de clics (même ordre que les régions)
+     */
+    List<Integer> getMaxPresses() {
+        return Collections.unmodifiableList(this.maxPresses);
+    }
+}
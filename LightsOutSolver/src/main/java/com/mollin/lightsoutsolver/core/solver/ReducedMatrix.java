@@ -0,0 +1,227 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import java.util.Arrays;
+
+/**
+ * Matrice du système triangularisée indépendamment du résultat des
+ * équations, réutilisable pour toutes les grilles de même taille et de même
+ * pattern. Chaque ligne conserve, à la suite des inconnues, la combinaison
+ * des équations initiales dont elle est issue : le résultat de la ligne pour
+ * une grille donnée est la parité de cette combinaison appliquée aux
+ * résultats des équations initiales.
+ * <p>
+ * Les combinaisons des lignes non pivots (nulles sur les inconnues) forment
+ * une base de l'orthogonal de l'image de la matrice : un résultat est
+ * atteignable si et seulement si son syndrome (produit par chacune de ces
+ * combinaisons) est nul. Le syndrome de chaque équation initiale est
+ * conservé pour la recherche de la grille atteignable la plus proche (cf :
+ * NearestTargetSearch).
+ *
+ * @author MOLLIN Florian
+ */
+class ReducedMatrix {
+    /**
+     * Nombre d'inconnues du système
+     */
+    private final int nbUnknowns;
+    /**
+     * Nombre de mots (long) de la partie inconnues d'une ligne (inconnues +
+     * résultat, le bit du résultat restant nul)
+     */
+    private final int words;
+    /**
+     * Lignes triangularisées (inconnues puis combinaison des équations
+     * initiales), les lignes pivots en premier dans l'ordre des pivots
+     */
+    private final long[][] rows;
+    /**
+     * Inconnue pivot de chaque ligne pivot
+     */
+    private final int[] pivotColumns;
+    /**
+     * Inconnues non fixées (sans pivot), dans l'ordre croissant
+     */
+    private final int[] freeColumns;
+    /**
+     * Nombre de mots (long) d'un syndrome
+     */
+    private final int syndromeWords;
+    /**
+     * Syndrome de chaque équation initiale (bit j : coefficient de
+     * l'équation dans la j-ème combinaison de l'orthogonal), 'syndromeWords'
+     * mots par équation
+     */
+    private final long[] syndromes;
+
+    /**
+     * Triangularise la matrice d'un système (même ordre des pivots que
+     * ReducedSystem).
+     *
+     * @param matrix La matrice du système
+     */
+    ReducedMatrix(SparseMatrix matrix) {
+        int size = matrix.size();
+        this.nbUnknowns = size;
+        this.words = ReducedSystem.words(size + 1);
+        int width = this.words + ReducedSystem.words(size);
+        this.rows = new long[size][];
+        for (int i = 0; i < size; i++) {
+            this.rows[i] = new long[width];
+            matrix.addRow(i, this.rows[i]);
+            this.rows[i][this.words + (i >>> 6)] |= 1L << i;
+        }
+        int[] pivots = new int[size];
+        int[] free = new int[size];
+        int nbPivots = 0;
+        int nbFree = 0;
+        // mot courant de chaque équation non vérouillée (copie contiguë pour
+        // la recherche du pivot, cf : RowOperations.find)
+        long[] column = new long[size];
+        // les lignes [0, nbPivots[ sont vérouillées, les suivantes non
+        for (int col = 0; col < size; col++) {
+            int w = col >>> 6;
+            long mask = 1L << col;
+            if ((col & 63) == 0) {
+                for (int r = nbPivots; r < size; r++) {
+                    column[r] = this.rows[r][w];
+                }
+            }
+            int found = RowOperations.INSTANCE.find(column, nbPivots, size, mask);
+            if (found < 0) {
+                free[nbFree++] = col;
+                continue;
+            }
+            long[] pivot = this.rows[found];
+            this.rows[found] = this.rows[nbPivots];
+            this.rows[nbPivots] = pivot;
+            column[found] = column[nbPivots];
+            for (int r = found + 1; r < size; r++) {
+                if ((column[r] & mask) != 0) {
+                    RowOperations.INSTANCE.xor(this.rows[r], pivot, w, width);
+                }
+            }
+            RowOperations.INSTANCE.xorIf(column, found + 1, size, mask, pivot[w]);
+            pivots[nbPivots++] = col;
+        }
+        this.pivotColumns = Arrays.copyOf(pivots, nbPivots);
+        this.freeColumns = Arrays.copyOf(free, nbFree);
+        // transposition des combinaisons des lignes non pivots
+        int corank = size - nbPivots;
+        this.syndromeWords = ReducedSystem.words(corank);
+        this.syndromes = new long[size * this.syndromeWords];
+        for (int j = 0; j < corank; j++) {
+            long[] row = this.rows[nbPivots + j];
+            for (int w = this.words; w < width; w++) {
+                long word = row[w];
+                while (word != 0) {
+                    int equation = (w - this.words) * Long.SIZE + Long.numberOfTrailingZeros(word);
+                    this.syndromes[equation * this.syndromeWords + (j >>> 6)] |= 1L << j;
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Renvoie la dimension de l'orthogonal de l'image de la matrice (nombre
+     * de lignes non pivots).
+     *
+     * @return La dimension de l'orthogonal
+     */
+    int getCorank() {
+        return this.rows.length - this.pivotColumns.length;
+    }
+
+    /**
+     * Renvoie le nombre de mots (long) d'un syndrome.
+     *
+     * @return Le nombre de mots
+     */
+    int getSyndromeWords() {
+        return this.syndromeWords;
+    }
+
+    /**
+     * Calcule le syndrome de résultats d'équations donnés (nul si et
+     * seulement si le système est possible).
+     *
+     * @param goal Le résultat de chaque équation initiale (bits compactés)
+     * @return Le syndrome (getSyndromeWords() mots)
+     */
+    long[] syndrome(long[] goal) {
+        long[] syndrome = new long[this.syndromeWords];
+        for (int i = 0; i < this.nbUnknowns; i++) {
+            if ((goal[i >>> 6] >>> i & 1L) == 1L) {
+                xorSyndrome(i, syndrome);
+            }
+        }
+        return syndrome;
+    }
+
+    /**
+     * Ajoute (xor) le syndrome d'une équation initiale à un syndrome.
+     *
+     * @param equation L'indice de l'équation initiale
+     * @param syndrome Le syndrome à modifier
+     */
+    void xorSyndrome(int equation, long[] syndrome) {
+        int offset = equation * this.syndromeWords;
+        for (int w = 0; w < this.syndromeWords; w++) {
+            syndrome[w] ^= this.syndromes[offset + w];
+        }
+    }
+
+    /**
+     * Renvoie le nombre d'octets utilisés (estimation).
+     *
+     * @return La taille estimée en octets
+     */
+    long bytes() {
+        long rowBytes = 16L + (long) (this.words + ReducedSystem.words(this.nbUnknowns)) * Long.BYTES;
+        return this.rows.length * (rowBytes + 8L) + 4L * (this.pivotColumns.length + this.freeColumns.length)
+                + 8L * this.syndromes.length + 80L;
+    }
+
+    /**
+     * Renvoie le système triangularisé pour des résultats d'équations donnés.
+     * Les lignes sont partagées : seul le résultat de chaque ligne est
+     * calculé.
+     *
+     * @param goal Le résultat de chaque équation initiale (bits compactés, le
+     *             bit i correspond à l'équation i)
+     * @return Le système triangularisé
+     */
+    ReducedSystem withGoal(long[] goal) {
+        int nbPivots = this.pivotColumns.length;
+        long[] goalBits = new long[ReducedSystem.words(Math.max(1, nbPivots))];
+        boolean impossible = false;
+        for (int r = 0; r < this.rows.length; r++) {
+            long[] row = this.rows[r];
+            long parity = 0;
+            for (int i = 0; i < row.length - this.words; i++) {
+                parity ^= row[this.words + i] & goal[i];
+            }
+            if ((Long.bitCount(parity) & 1) == 1) {
+                if (r < nbPivots) {
+                    goalBits[r >>> 6] |= 1L << r;
+                } else {
+                    // équation de la forme 0 = 1
+                    impossible = true;
+                    break;
+                }
+            }
+        }
+        long[][] lockedRows = this.rows;
+        int nbWords = this.words;
+        int goalWord = this.nbUnknowns >>> 6;
+        long goalMask = 1L << this.nbUnknowns;
+        ReducedSystem.PivotRows pivotRows = (k, fromWord, values) -> {
+            long parity = RowOperations.INSTANCE.dot(lockedRows[k], values, fromWord, nbWords);
+            if ((goalBits[k >>> 6] >>> k & 1L) != 0) {
+                parity ^= values[goalWord] & goalMask;
+            }
+            return parity;
+        };
+        return new ReducedSystem(this.nbUnknowns, pivotRows, this.pivotColumns, this.freeColumns, impossible);
+    }
+}
@@ -0,0 +1,304 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import java.util.Arrays;
+
+/**
+ * Système d'équations modulo 2 triangularisé par la méthode du pivot de
+ * Gauss. Chaque équation est une ligne de bits compactés : le bit i
+ * correspond à l'inconnue i et le bit 'nbUnknowns' au résultat de
+ * l'équation. Les lignes pivots sont conservées dans l'ordre des pivots, ce
+ * qui permet de résoudre le système en une seule remontée.
+ *
+ * @author MOLLIN Florian
+ */
+class ReducedSystem {
+    /**
+     * Accès aux lignes pivots du système triangularisé.
+     */
+    interface PivotRows {
+        /**
+         * Calcule le produit scalaire (xor des mots, sans réduction de
+         * parité) de la k-ième ligne pivot et d'un vecteur de valeurs, à
+         * partir du mot 'fromWord'.
+         *
+         * @param k        L'indice de la ligne pivot
+         * @param fromWord Le premier mot pris en compte
+         * @param values   Le vecteur de valeurs
+         * @return Le xor des mots (dont la parité donne le produit scalaire)
+         */
+        long dot(int k, int fromWord, long[] values);
+    }
+
+    /**
+     * Nombre d'inconnues du système
+     */
+    private final int nbUnknowns;
+    /**
+     * Nombre de mots (long) d'une ligne (inconnues + résultat)
+     */
+    private final int words;
+    /**
+     * Lignes pivots, dans l'ordre des pivots
+     */
+    private final PivotRows pivotRows;
+    /**
+     * Inconnue pivot de chaque ligne pivot
+     */
+    private final int[] pivotColumns;
+    /**
+     * Inconnues non fixées (sans pivot), dans l'ordre des bits de l'indice
+     * d'une solution (croissant, sauf cf : ComponentElimination)
+     */
+    private final int[] freeColumns;
+    /**
+     * Vrai si le système n'admet aucune solution
+     */
+    private final boolean impossible;
+
+    /**
+     * Triangularise un système d'équations. Les inconnues sont traitées dans
+     * l'ordre croissant : pour chacune, une équation non vérouillée la
+     * contenant devient la ligne pivot et l'inconnue est supprimée des autres
+     * équations non vérouillées. Les lignes données sont modifiées.
+     *
+     * @param rows       Les équations (bits compactés, résultat au bit
+     *                   'nbUnknowns')
+     * @param nbUnknowns Le nombre d'inconnues
+     */
+    ReducedSystem(long[][] rows, int nbUnknowns) {
+        this(rows, nbUnknowns, null);
+    }
+
+    /**
+     * Triangularise un système d'équations en sauvegardant périodiquement
+     * son état. Si la sauvegarde contient un état de ce même système, la
+     * triangularisation reprend à partir de cet état.
+     *
+     * @param rows       Les équations (bits compactés, résultat au bit
+     *                   'nbUnknowns')
+     * @param nbUnknowns Le nombre d'inconnues
+     * @param checkpoint La sauvegarde (null pour ne pas sauvegarder)
+     */
+    ReducedSystem(long[][] rows, int nbUnknowns, EliminationCheckpoint checkpoint) {
+        this.nbUnknowns = nbUnknowns;
+        this.words = words(nbUnknowns + 1);
+        int[] pivots = new int[Math.min(rows.length, nbUnknowns)];
+        int[] free = new int[nbUnknowns];
+        int nbPivots = 0;
+        int nbFree = 0;
+        int startColumn = 0;
+        long fingerprint = 0;
+        EliminationCheckpoint.Rows access = new EliminationCheckpoint.Rows() {
+            @Override
+            public void read(int r, long[] row) {
+                System.arraycopy(rows[r], 0, row, 0, row.length);
+            }
+
+            @Override
+            public void write(int r, long[] row) {
+                System.arraycopy(row, 0, rows[r], 0, row.length);
+            }
+        };
+        if (checkpoint != null) {
+            fingerprint = EliminationCheckpoint.fingerprint(access, rows.length, this.words);
+            EliminationCheckpoint.State state = checkpoint.load(fingerprint, nbUnknowns, rows.length, this.words, access);
+            if (state != null) {
+                startColumn = state.column;
+                nbPivots = state.pivots.length;
+                nbFree = state.free.length;
+                System.arraycopy(state.pivots, 0, pivots, 0, nbPivots);
+                System.arraycopy(state.free, 0, free, 0, nbFree);
+            }
+            checkpoint.start();
+        }
+        // mot courant de chaque équation non vérouillée (copie contiguë pour
+        // la recherche du pivot, cf : RowOperations.find)
+        long[] column = new long[rows.length];
+        int columnWord = -1;
+        // les lignes [0, nbPivots[ sont vérouillées, les suivantes non
+        for (int col = startColumn; col < nbUnknowns; col++) {
+            if (checkpoint != null && checkpoint.isDue()) {
+                checkpoint.save(fingerprint, new EliminationCheckpoint.State(col,
+                                Arrays.copyOf(pivots, nbPivots), Arrays.copyOf(free, nbFree)),
+                        nbUnknowns, rows.length, this.words, access);
+            }
+            int w = col >>> 6;
+            long mask = 1L << col;
+            if (w != columnWord) {
+                for (int r = nbPivots; r < rows.length; r++) {
+                    column[r] = rows[r][w];
+                }
+                columnWord = w;
+            }
+            int found = RowOperations.INSTANCE.find(column, nbPivots, rows.length, mask);
+            if (found < 0) {
+                free[nbFree++] = col;
+                continue;
+            }
+            long[] pivot = rows[found];
+            rows[found] = rows[nbPivots];
+            rows[nbPivots] = pivot;
+            column[found] = column[nbPivots];
+            // les lignes non vérouillées n'ont plus de bits avant 'col'
+            for (int r = found + 1; r < rows.length; r++) {
+                if ((column[r] & mask) != 0) {
+                    RowOperations.INSTANCE.xor(rows[r], pivot, w, this.words);
+                }
+            }
+            RowOperations.INSTANCE.xorIf(column, found + 1, rows.length, mask, pivot[w]);
+            pivots[nbPivots++] = col;
+        }
+        // une équation restante contenant le résultat est de la forme 0 = 1
+        boolean noSolution = false;
+        int goalWord = nbUnknowns >>> 6;
+        long goalMask = 1L << nbUnknowns;
+        for (int r = nbPivots; r < rows.length && !noSolution; r++) {
+            noSolution = (rows[r][goalWord] & goalMask) != 0;
+        }
+        long[][] lockedRows = Arrays.copyOf(rows, nbPivots);
+        int nbWords = this.words;
+        this.pivotRows = (k, fromWord, values) -> RowOperations.INSTANCE.dot(lockedRows[k], values, fromWord, nbWords);
+        this.pivotColumns = Arrays.copyOf(pivots, nbPivots);
+        this.freeColumns = Arrays.copyOf(free, nbFree);
+        this.impossible = noSolution;
+    }
+
+    /**
+     * Constructeur d'un système déjà triangularisé.
+     *
+     * @param nbUnknowns   Le nombre d'inconnues
+     * @param pivotRows    Les lignes pivots (dans l'ordre des pivots)
+     * @param pivotColumns L'inconnue pivot de chaque ligne pivot
+     * @param freeColumns  Les inconnues non fixées (la i-ème correspond au
+     *                     bit i de l'indice d'une solution)
+     * @param impossible   Vrai si le système n'admet aucune solution
+     */
+    ReducedSystem(int nbUnknowns, PivotRows pivotRows, int[] pivotColumns, int[] freeColumns, boolean impossible) {
+        this.nbUnknowns = nbUnknowns;
+        this.words = words(nbUnknowns + 1);
+        this.pivotRows = pivotRows;
+        this.pivotColumns = pivotColumns;
+        this.freeColumns = freeColumns;
+        this.impossible = impossible;
+    }
+
+    /**
+     * Renvoie le nombre de mots (long) nécessaires pour 'size' bits.
+     *
+     * @param size Le nombre de bits
+     * @return Le nombre de mots
+     */
+    static int words(int size) {
+        return (size + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Renvoie le nombre d'inconnues du système.
+     *
+     * @return Le nombre d'inconnues
+     */
+    int getNbUnknowns() {
+        return this.nbUnknowns;
+    }
+
+    /**
+     * Renvoie la taille (en mots) des vecteurs de valeurs utilisés par la
+     * remontée.
+     *
+     * @return La taille des vecteurs
+     */
+    int getWords() {
+        return this.words;
+    }
+
+    /**
+     * Renvoie le nombre d'inconnues non fixées (dimension du noyau).
+     *
+     * @return Le nombre d'inconnues non fixées
+     */
+    int getNullity() {
+        return this.freeColumns.length;
+    }
+
+    /**
+     * Renvoie la i-ème inconnue non fixée.
+     *
+     * @param i L'indice de l'inconnue non fixée
+     * @return L'inconnue
+     */
+    int freeColumn(int i) {
+        return this.freeColumns[i];
+    }
+
+    /**
+     * Renvoie vrai si le système n'admet aucune solution.
+     *
+     * @return Vrai si le système est impossible
+     */
+    boolean isImpossible() {
+        return this.impossible;
+    }
+
+    /**
+     * Calcule la solution d'indice donné dans le vecteur 'values' (réutilisé
+     * d'un appel à l'autre, aucune allocation). Le bit i de l'indice donne la
+     * valeur de la i-ème inconnue non fixée.
+     *
+     * @param index  L'indice de la solution
+     * @param goal   La valeur du résultat des équations (faux pour résoudre
+     *               le système homogène)
+     * @param values Le vecteur de valeurs à remplir (taille getWords())
+     */
+    void solutionAt(long index, boolean goal, long[] values) {
+        Arrays.fill(values, 0L);
+        for (int i = 0; i < this.freeColumns.length && i < Long.SIZE; i++) {
+            if ((index >>> i & 1L) == 1L) {
+                setBit(values, this.freeColumns[i]);
+            }
+        }
+        if (goal) {
+            setBit(values, this.nbUnknowns);
+        }
+        backSubstitute(values);
+    }
+
+    /**
+     * Calcule le i-ème vecteur de la base du noyau (la i-ème inconnue non
+     * fixée vaut 1, les autres 0, système homogène).
+     *
+     * @param i      L'indice de l'inconnue non fixée
+     * @param values Le vecteur de valeurs à remplir (taille getWords())
+     */
+    void kernelVector(int i, long[] values) {
+        Arrays.fill(values, 0L);
+        setBit(values, this.freeColumns[i]);
+        backSubstitute(values);
+    }
+
+    /**
+     * Résout le système triangulaire en une remontée dans l'ordre inverse
+     * des pivots. Les valeurs des inconnues non fixées et du résultat doivent
+     * être renseignées, celles des inconnues pivots valoir 0.
+     *
+     * @param values Le vecteur de valeurs
+     */
+    private void backSubstitute(long[] values) {
+        for (int k = this.pivotColumns.length - 1; k >= 0; k--) {
+            int col = this.pivotColumns[k];
+            long parity = this.pivotRows.dot(k, col >>> 6, values);
+            if ((Long.bitCount(parity) & 1) == 1) {
+                setBit(values, col);
+            }
+        }
+    }
+
+    /**
+     * Met à 1 un bit d'un vecteur.
+     *
+     * @param values Le vecteur
+     * @param bit    L'indice du bit
+     */
+    private static void setBit(long[] values, int bit) {
+        values[bit >>> 6] |= 1L << bit;
+    }
+}
@@ -0,0 +1,293 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.utils.CellMask;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache des systèmes triangularisés, partageable entre plusieurs solveurs et
+ * plusieurs threads (cf : Solver.setReductionCache). Un système est identifié
+ * par les dimensions de la grille et par la matrice du système, obtenue en
+ * sondant le pattern sur chaque case vivante (cf : CellMask) : deux instances
+ * différentes d'un même pattern partagent donc la même entrée. Une empreinte
+ * de la matrice sert à la recherche, les matrices étant ensuite comparées
+ * coefficient par coefficient. Les inconnues d'une grille avec trous étant
+ * ses cases vivantes (indice compact), deux formes dont les matrices
+ * compactes sont égales partagent la même triangularisation : le placement
+ * des solutions sur les cases est fait par le solveur, selon sa forme. La
+ * triangularisation ne dépendant pas des grilles de départ et d'arrivée, elle
+ * est réutilisée pour toutes les grilles de même forme et de même pattern.
+ * <p>
+ * La taille du cache est bornée en octets (estimation), les entrées les
+ * moins récemment utilisées étant supprimées en premier. Si plusieurs threads
+ * demandent en même temps un système absent du cache, il n'est calculé
+ * qu'une seule fois.
+ *
+ * @author MOLLIN Florian
+ */
+public class ReductionCache {
+    /**
+     * Taille maximale par défaut du cache (en octets)
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    /**
+     * Identifiant d'un système : dimensions de la grille et matrice du
+     * système. L'empreinte de la matrice sert de hashCode, deux identifiants
+     * ne sont égaux que si leurs matrices ont les mêmes coefficients (une
+     * collision d'empreintes ne peut donc pas partager une entrée).
+     */
+    private static final class Key {
+        /**
+         * Nombre de lignes de la grille
+         */
+        private final int rows;
+        /**
+         * Nombre de colonnes de la grille
+         */
+        private final int columns;
+        /**
+         * Matrice du système (sur les cases vivantes de la grille)
+         */
+        private final SparseMatrix matrix;
+        /**
+         * Empreinte de la matrice
+         */
+        private final long fingerprint;
+
+        /**
+         * Constructeur de l'identifiant.
+         *
+         * @param rows    Le nombre de lignes de la grille
+         * @param columns Le nombre de colonnes de la grille
+         * @param matrix  La matrice du système
+         */
+        private Key(int rows, int columns, SparseMatrix matrix) {
+            this.rows = rows;
+            this.columns = columns;
+            this.matrix = matrix;
+            this.fingerprint = matrix.fingerprint();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return this.rows == key.rows && this.columns == key.columns && this.fingerprint == key.fingerprint
+                    && this.matrix.sameStructure(key.matrix);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * this.rows + this.columns) + Long.hashCode(this.fingerprint);
+        }
+    }
+
+    /**
+     * Taille maximale du cache (en octets)
+     */
+    private final long maxBytes;
+    /**
+     * Systèmes en cache, du moins récemment utilisé au plus récemment utilisé
+     */
+    private final LinkedHashMap<Key, ReducedMatrix> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /**
+     * Taille estimée des systèmes en cache (en octets)
+     */
+    private long bytes = 0;
+    /**
+     * Triangularisations en cours, par identifiant
+     */
+    private final ConcurrentMap<Key, CompletableFuture<ReducedMatrix>> loading = new ConcurrentHashMap<>();
+    /**
+     * Nombre de systèmes trouvés dans le cache
+     */
+    private final LongAdder hits = new LongAdder();
+    /**
+     * Nombre de systèmes absents du cache
+     */
+    private final LongAdder misses = new LongAdder();
+    /**
+     * Nombre de triangularisations effectuées
+     */
+    private final LongAdder loads = new LongAdder();
+    /**
+     * Nombre de systèmes supprimés du cache
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructeur du cache.
+     *
+     * @param maxBytes La taille maximale du cache (en octets)
+     */
+    public ReductionCache(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Invalid cache size " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Constructeur du cache avec la taille maximale par défaut.
+     */
+    public ReductionCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Renvoie le système triangularisé d'une grille, en le calculant s'il est
+     * absent du cache.
+     *
+     * @param mask    La forme de la grille
+     * @param pattern Le pattern
+     * @return Le système triangularisé
+     */
+    ReducedMatrix get(CellMask mask, PatternInterface pattern) {
+        SparseMatrix matrix = SparseMatrix.of(mask, pattern);
+        Key key = new Key(mask.rows(), mask.columns(), matrix);
+        ReducedMatrix reduced = lookup(key);
+        if (reduced != null) {
+            this.hits.increment();
+            return reduced;
+        }
+        this.misses.increment();
+        CompletableFuture<ReducedMatrix> future = new CompletableFuture<>();
+        CompletableFuture<ReducedMatrix> existing = this.loading.putIfAbsent(key, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw (cause instanceof RuntimeException) ? (RuntimeException) cause : new IllegalStateException(cause);
+            }
+        }
+        try {
+            // le système a pu être ajouté entre la recherche et l'inscription
+            reduced = lookup(key);
+            if (reduced == null) {
+                this.loads.increment();
+                reduced = new ReducedMatrix(matrix);
+                store(key, reduced);
+            }
+            future.complete(reduced);
+            return reduced;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.loading.remove(key, future);
+        }
+    }
+
+    /**
+     * Recherche un système dans le cache (et le marque comme le plus
+     * récemment utilisé).
+     *
+     * @param key L'identifiant du système
+     * @return Le système (ou null s'il est absent)
+     */
+    private synchronized ReducedMatrix lookup(Key key) {
+        return this.entries.get(key);
+    }
+
+    /**
+     * Ajoute un système au cache puis supprime les systèmes les moins
+     * récemment utilisés jusqu'à respecter la taille maximale. Un système
+     * plus grand que le cache n'est pas conservé.
+     *
+     * @param key     L'identifiant du système
+     * @param reduced Le système
+     */
+    private synchronized void store(Key key, ReducedMatrix reduced) {
+        long size = reduced.bytes();
+        if (size > this.maxBytes) {
+            return;
+        }
+        this.entries.put(key, reduced);
+        this.bytes += size;
+        Iterator<Map.Entry<Key, ReducedMatrix>> it = this.entries.entrySet().iterator();
+        while (this.bytes > this.maxBytes && it.hasNext()) {
+            this.bytes -= it.next().getValue().bytes();
+            it.remove();
+            this.evictions.increment();
+        }
+    }
+
+    /**
+     * Vide le cache (les statistiques sont conservées).
+     */
+    public synchronized void clear() {
+        this.entries.clear();
+        this.bytes = 0;
+    }
+
+    /**
+     * Renvoie le nombre de systèmes trouvés dans le cache.
+     *
+     * @return Le nombre de succès
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Renvoie le nombre de systèmes absents du cache (y compris ceux dont le
+     * calcul était déjà en cours dans un autre thread).
+     *
+     * @return Le nombre d'échecs
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Renvoie le nombre de triangularisations effectuées par le cache.
+     *
+     * @return Le nombre de triangularisations
+     */
+    public long getLoads() {
+        return this.loads.sum();
+    }
+
+    /**
+     * Renvoie le nombre de systèmes supprimés pour respecter la taille
+     * maximale.
+     *
+     * @return Le nombre de suppressions
+     */
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Renvoie le nombre de systèmes en cache.
+     *
+     * @return Le nombre de systèmes
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Renvoie la taille estimée des systèmes en cache.
+     *
+     * @return La taille (en octets)
+     */
+    public synchronized long getBytes() {
+        return this.bytes;
+    }
+}
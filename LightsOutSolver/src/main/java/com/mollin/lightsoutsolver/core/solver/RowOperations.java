@@ -0,0 +1,118 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+/**
+ * Opérations sur les lignes de bits compactés utilisées par la
+ * triangularisation et la remontée (xor de lignes, produit scalaire,
+ * recherche du pivot). Cette implémentation est scalaire ; si le JDK fournit
+ * le module 'jdk.incubator.vector' (Java 16+, option
+ * '--add-modules jdk.incubator.vector'), une implémentation vectorielle
+ * (AVX2, AVX-512...) est utilisée à la place (cf : VectorRowOperations).
+ * Elle peut être désactivée avec la propriété système
+ * 'lightsoutsolver.vector=false'.
+ *
+ * @author MOLLIN Florian
+ */
+class RowOperations {
+    /**
+     * Implémentation utilisée (vectorielle si disponible)
+     */
+    static final RowOperations INSTANCE = load();
+
+    /**
+     * Charge l'implémentation vectorielle si le JDK le permet, sinon
+     * l'implémentation scalaire.
+     *
+     * @return L'implémentation des opérations
+     */
+    private static RowOperations load() {
+        if (Boolean.parseBoolean(System.getProperty("lightsoutsolver.vector", "true"))) {
+            try {
+                Class<?> type = Class.forName(RowOperations.class.getPackage().getName() + ".VectorRowOperations");
+                return (RowOperations) type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                // classe absente, compilée pour un JDK plus récent ou module
+                // 'jdk.incubator.vector' non chargé
+            }
+        }
+        return new RowOperations();
+    }
+
+    /**
+     * Renvoie vrai si les opérations sont vectorielles.
+     *
+     * @return Vrai si l'implémentation est vectorielle
+     */
+    boolean isVectorized() {
+        return false;
+    }
+
+    /**
+     * Effectue un xor mot à mot de 'source' dans 'target' sur les mots
+     * [from, to[.
+     *
+     * @param target La ligne modifiée
+     * @param source La ligne à combiner
+     * @param from   Le premier mot (inclusif)
+     * @param to     Le dernier mot (exclusif)
+     */
+    void xor(long[] target, long[] source, int from, int to) {
+        for (int i = from; i < to; i++) {
+            target[i] ^= source[i];
+        }
+    }
+
+    /**
+     * Calcule le xor des mots de 'a' et 'b' combinés par un 'et' sur les mots
+     * [from, to[ (la parité du résultat donne le produit scalaire).
+     *
+     * @param a    La première ligne
+     * @param b    La seconde ligne
+     * @param from Le premier mot (inclusif)
+     * @param to   Le dernier mot (exclusif)
+     * @return Le xor des mots
+     */
+    long dot(long[] a, long[] b, int from, int to) {
+        long parity = 0;
+        for (int i = from; i < to; i++) {
+            parity ^= a[i] & b[i];
+        }
+        return parity;
+    }
+
+    /**
+     * Cherche le premier mot de [from, to[ ayant un bit commun avec un
+     * masque.
+     *
+     * @param words Les mots
+     * @param from  Le premier mot (inclusif)
+     * @param to    Le dernier mot (exclusif)
+     * @param mask  Le masque
+     * @return L'indice du mot (-1 si aucun)
+     */
+    int find(long[] words, int from, int to, long mask) {
+        for (int i = from; i < to; i++) {
+            if ((words[i] & mask) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Effectue un xor de 'value' dans les mots de [from, to[ ayant un bit
+     * commun avec un masque.
+     *
+     * @param words Les mots (modifiés)
+     * @param from  Le premier mot (inclusif)
+     * @param to    Le dernier mot (exclusif)
+     * @param mask  Le masque
+     * @param value La valeur à combiner
+     */
+    void xorIf(long[] words, int from, int to, long mask, long value) {
+        for (int i = from; i < to; i++) {
+            if ((words[i] & mask) != 0) {
+                words[i] ^= value;
+            }
+        }
+    }
+}
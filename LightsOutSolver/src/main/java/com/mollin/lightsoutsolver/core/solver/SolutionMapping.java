@@ -0,0 +1,381 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.utils.CellMask;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Correspondance entre le système et les solutions lorsque des contraintes
+ * de clics sont données (cf : PressConstraints).
+ * <p>
+ * Les cases imposées ou interdites ne sont pas des inconnues : une case
+ * imposée change le résultat des équations qui la contiennent, une case
+ * interdite est simplement retirée. Les autres cases vivantes sont les
+ * inconnues, les cases des régions limitées en dernier : leurs inconnues
+ * non fixées sont alors les bits de poids fort de l'indice du système, et
+ * leurs valeurs ne dépendent que de ces bits (les lignes pivots des régions
+ * ne contiennent que des inconnues des régions). Les combinaisons de ces
+ * bits respectant les limites sont énumérées une seule fois ; l'indice
+ * d'une solution est alors (rang de la combinaison, bits de poids faible).
+ * <p>
+ * Sans contrainte, les inconnues peuvent aussi être rangées dans un ordre
+ * différent de celui des cases (cf : ordered).
+ *
+ * @author MOLLIN Florian
+ */
+final class SolutionMapping {
+    /**
+     * Nombre maximal d'inconnues non fixées dans les régions limitées
+     * (chaque combinaison est vérifiée)
+     */
+    private static final int MAX_REGION_BITS = 24;
+
+    /**
+     * Forme de la grille
+     */
+    private final CellMask mask;
+    /**
+     * Nombre d'inconnues du système
+     */
+    private final int nbUnknowns;
+    /**
+     * Case (indice compact) de chaque inconnue (null si chaque case vivante
+     * est une inconnue)
+     */
+    private final int[] unknownCells;
+    /**
+     * Inconnue de chaque case (-1 pour une case imposée ou interdite)
+     */
+    private final int[] cellUnknowns;
+    /**
+     * Cases imposées (bits compactés, indices compacts)
+     */
+    private final long[] forcedCells;
+    /**
+     * Première inconnue des régions limitées
+     */
+    private final int firstRegionUnknown;
+    /**
+     * Inconnues de chaque région limitée
+     */
+    private final int[][] regionUnknowns;
+    /**
+     * Nombre maximal de clics sur les inconnues de chaque région (cases
+     * imposées déduites)
+     */
+    private final int[] regionMax;
+    /**
+     * Combinaisons autorisées des inconnues non fixées des régions, dans
+     * l'ordre croissant (null tant que le système n'est pas connu ou s'il n'y
+     * a pas de région)
+     */
+    private final long[] allowed;
+    /**
+     * Nombre d'inconnues non fixées hors des régions (bits de poids faible
+     * de l'indice)
+     */
+    private final int innerBits;
+
+    /**
+     * Constructeur de la correspondance.
+     *
+     * @param mask               La forme de la grille
+     * @param nbUnknowns         Le nombre d'inconnues
+     * @param unknownCells       La case de chaque inconnue
+     * @param cellUnknowns       L'inconnue de chaque case
+     * @param forcedCells        Les cases imposées
+     * @param firstRegionUnknown La première inconnue des régions
+     * @param regionUnknowns     Les inconnues de chaque région
+     * @param regionMax          Le nombre maximal de clics de chaque région
+     * @param allowed            Les combinaisons autorisées
+     * @param innerBits          Le nombre d'inconnues non fixées hors des
+     *                           régions
+     */
+    private SolutionMapping(CellMask mask, int nbUnknowns, int[] unknownCells, int[] cellUnknowns,
+                            long[] forcedCells, int firstRegionUnknown, int[][] regionUnknowns, int[] regionMax,
+                            long[] allowed, int innerBits) {
+        this.mask = mask;
+        this.nbUnknowns = nbUnknowns;
+        this.unknownCells = unknownCells;
+        this.cellUnknowns = cellUnknowns;
+        this.forcedCells = forcedCells;
+        this.firstRegionUnknown = firstRegionUnknown;
+        this.regionUnknowns = regionUnknowns;
+        this.regionMax = regionMax;
+        this.allowed = allowed;
+        this.innerBits = innerBits;
+    }
+
+    /**
+     * Construit la correspondance d'une grille et de ses contraintes (sans
+     * contrainte, chaque case vivante est une inconnue).
+     *
+     * @param mask        La forme de la grille
+     * @param constraints Les contraintes (null si aucune)
+     * @return La correspondance
+     * @throws IllegalArgumentException Si une case imposée n'est pas une
+     *                                  case vivante
+     */
+    static SolutionMapping of(CellMask mask, PressConstraints constraints) {
+        int size = mask.size();
+        if (constraints == null || constraints.isEmpty()) {
+            return new SolutionMapping(mask, size, null, null, null, size, new int[0][], new int[0], null, 0);
+        }
+        // état de chaque case : 0 inconnue, 1 imposée, 2 interdite, 3 région
+        byte[] state = new byte[size];
+        long[] forcedCells = new long[ReducedSystem.words(size)];
+        for (Coord coord : constraints.getForced()) {
+            int cell = mask.indexOf(coord);
+            if (cell < 0) {
+                throw new IllegalArgumentException("Forced cell " + coord + " is not a live cell");
+            }
+            state[cell] = 1;
+            forcedCells[cell >>> 6] |= 1L << cell;
+        }
+        for (Coord coord : constraints.getForbidden()) {
+            int cell = mask.indexOf(coord);
+            if (cell >= 0) {
+                state[cell] = 2;
+            }
+        }
+        List<Set<Coord>> regions = constraints.getRegions();
+        int[] regionMax = new int[regions.size()];
+        for (int k = 0; k < regions.size(); k++) {
+            regionMax[k] = constraints.getMaxPresses().get(k);
+            for (Coord coord : regions.get(k)) {
+                int cell = mask.indexOf(coord);
+                if (cell >= 0 && state[cell] == 1) {
+                    regionMax[k]--;
+                } else if (cell >= 0 && state[cell] == 0) {
+                    state[cell] = 3;
+                }
+            }
+        }
+        int[] unknownCells = new int[size];
+        int[] cellUnknowns = new int[size];
+        Arrays.fill(cellUnknowns, -1);
+        int nbUnknowns = 0;
+        for (int pass = 0; pass <= 3; pass += 3) {
+            for (int cell = 0; cell < size; cell++) {
+                if (state[cell] == pass) {
+                    cellUnknowns[cell] = nbUnknowns;
+                    unknownCells[nbUnknowns++] = cell;
+                }
+            }
+        }
+        int firstRegionUnknown = 0;
+        while (firstRegionUnknown < nbUnknowns && state[unknownCells[firstRegionUnknown]] == 0) {
+            firstRegionUnknown++;
+        }
+        int[][] regionUnknowns = new int[regions.size()][];
+        for (int k = 0; k < regions.size(); k++) {
+            regionUnknowns[k] = regions.get(k).stream()
+                    .mapToInt(mask::indexOf)
+                    .filter(cell -> cell >= 0 && state[cell] == 3)
+                    .map(cell -> cellUnknowns[cell])
+                    .sorted()
+                    .toArray();
+        }
+        return new SolutionMapping(mask, nbUnknowns, Arrays.copyOf(unknownCells, nbUnknowns), cellUnknowns,
+                forcedCells, firstRegionUnknown, regionUnknowns, regionMax, null, 0);
+    }
+
+    /**
+     * Construit la correspondance d'une grille sans contrainte dont les
+     * inconnues sont rangées dans un ordre donné (cf : ComponentElimination).
+     *
+     * @param mask         La forme de la grille
+     * @param unknownCells La case (indice compact) de chaque inconnue (une
+     *                     permutation des cases vivantes)
+     * @return La correspondance
+     */
+    static SolutionMapping ordered(CellMask mask, int[] unknownCells) {
+        int size = mask.size();
+        int[] cellUnknowns = new int[size];
+        for (int u = 0; u < size; u++) {
+            cellUnknowns[unknownCells[u]] = u;
+        }
+        return new SolutionMapping(mask, size, unknownCells, cellUnknowns, new long[ReducedSystem.words(size)], size,
+                new int[0][], new int[0], null, 0);
+    }
+
+    /**
+     * Renvoie la correspondance pour un système triangularisé : les
+     * combinaisons des inconnues non fixées des régions respectant les
+     * limites sont énumérées.
+     *
+     * @param system Le système triangularisé (avec les inconnues de cette
+     *               correspondance)
+     * @return La correspondance (elle-même s'il n'y a pas de région)
+     * @throws IllegalStateException Si les régions contiennent trop
+     *                               d'inconnues non fixées
+     */
+    SolutionMapping limitedTo(ReducedSystem system) {
+        if (this.regionUnknowns.length == 0 || system.isImpossible()) {
+            return this;
+        }
+        int nullity = system.getNullity();
+        int inner = 0;
+        while (inner < nullity && system.freeColumn(inner) < this.firstRegionUnknown) {
+            inner++;
+        }
+        int outer = nullity - inner;
+        if (outer > MAX_REGION_BITS || nullity >= Long.SIZE - 1) {
+            throw new IllegalStateException("Too many free presses for press limits (" + nullity + " free, "
+                    + outer + " in regions)");
+        }
+        long[] values = new long[system.getWords()];
+        long[] combinations = new long[16];
+        int count = 0;
+        for (long c = 0; c < 1L << outer; c++) {
+            system.solutionAt(c << inner, true, values);
+            if (withinLimits(values)) {
+                if (count == combinations.length) {
+                    combinations = Arrays.copyOf(combinations, 2 * count);
+                }
+                combinations[count++] = c;
+            }
+        }
+        return new SolutionMapping(this.mask, this.nbUnknowns, this.unknownCells, this.cellUnknowns,
+                this.forcedCells, this.firstRegionUnknown, this.regionUnknowns, this.regionMax,
+                Arrays.copyOf(combinations, count), inner);
+    }
+
+    /**
+     * Test si des valeurs respectent les limites de clics des régions.
+     *
+     * @param values Les valeurs du système
+     * @return Vrai si chaque région respecte sa limite
+     */
+    private boolean withinLimits(long[] values) {
+        for (int k = 0; k < this.regionUnknowns.length; k++) {
+            int presses = 0;
+            for (int u : this.regionUnknowns[k]) {
+                presses += (int) (values[u >>> 6] >>> u & 1L);
+            }
+            if (presses > this.regionMax[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renvoie vrai si chaque case vivante est une inconnue (aucune
+     * contrainte).
+     *
+     * @return Vrai sans contrainte
+     */
+    boolean isIdentity() {
+        return this.unknownCells == null;
+    }
+
+    /**
+     * Renvoie vrai si les solutions forment un espace affine (aucune limite
+     * de clics par région).
+     *
+     * @return Vrai sans limite de clics
+     */
+    boolean isAffine() {
+        return this.regionUnknowns.length == 0;
+    }
+
+    /**
+     * Renvoie le nombre d'inconnues du système.
+     *
+     * @return Le nombre d'inconnues
+     */
+    int getNbUnknowns() {
+        return this.nbUnknowns;
+    }
+
+    /**
+     * Renvoie l'inconnue d'une case.
+     *
+     * @param cell L'indice compact de la case
+     * @return L'inconnue (-1 pour une case imposée ou interdite)
+     */
+    int unknownOf(int cell) {
+        return (this.cellUnknowns == null) ? cell : this.cellUnknowns[cell];
+    }
+
+    /**
+     * Test si une case est imposée.
+     *
+     * @param cell L'indice compact de la case
+     * @return Vrai si la case est toujours cliquée
+     */
+    boolean isForced(int cell) {
+        return this.forcedCells != null && (this.forcedCells[cell >>> 6] >>> cell & 1L) == 1L;
+    }
+
+    /**
+     * Renvoie le nombre exact de solutions.
+     *
+     * @param system Le système triangularisé
+     * @return Le nombre de solutions (0 si le système est impossible)
+     */
+    BigInteger nbSolutions(ReducedSystem system) {
+        if (system.isImpossible()) {
+            return BigInteger.ZERO;
+        }
+        if (this.allowed == null) {
+            return BigInteger.ONE.shiftLeft(system.getNullity());
+        }
+        return BigInteger.valueOf(this.allowed.length).shiftLeft(this.innerBits);
+    }
+
+    /**
+     * Convertit l'indice d'une solution en indice du système.
+     *
+     * @param index L'indice de la solution
+     * @return L'indice du système (bit i : i-ème inconnue non fixée)
+     */
+    long systemIndex(long index) {
+        if (this.allowed == null) {
+            return index;
+        }
+        long inner = index & ((1L << this.innerBits) - 1);
+        return this.allowed[(int) (index >>> this.innerBits)] << this.innerBits | inner;
+    }
+
+    /**
+     * Convertit un vecteur de valeurs du système en vecteur de bits compactés
+     * des cases vivantes (bit d'indice compact). Sans contrainte, le vecteur
+     * est renvoyé tel quel.
+     *
+     * @param values     Les valeurs du système
+     * @param particular Vrai pour ajouter les cases imposées (faux pour un
+     *                   vecteur du noyau)
+     * @return Le vecteur des cases vivantes
+     */
+    long[] toCells(long[] values, boolean particular) {
+        if (this.unknownCells == null) {
+            return values;
+        }
+        long[] cells = particular ? this.forcedCells.clone() : new long[ReducedSystem.words(this.mask.size())];
+        for (int u = 0; u < this.nbUnknowns; u++) {
+            if ((values[u >>> 6] >>> u & 1L) == 1L) {
+                int cell = this.unknownCells[u];
+                cells[cell >>> 6] |= 1L << cell;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Construit la solution correspondant à un vecteur de valeurs du
+     * système.
+     *
+     * @param values Les valeurs du système
+     * @return La solution
+     */
+    Solution solution(long[] values) {
+        return new Solution(this.mask.toGridWords(toCells(values, true)), this.mask.rows(), this.mask.columns());
+    }
+}
@@ -0,0 +1,106 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 'Spliterator' parcourant un intervalle [fromIndex, toIndex[ de l'espace des
+ * solutions. Le découpage coupe l'intervalle en deux moitiés, chacune
+ * calculant ses solutions à partir de leur indice dans son propre vecteur de
+ * valeurs (le système triangularisé n'est que lu).
+ *
+ * @author MOLLIN Florian
+ */
+class SolutionSpliterator implements Spliterator<Solution> {
+    /**
+     * Système triangularisé
+     */
+    private final ReducedSystem system;
+    /**
+     * Correspondance entre le système et les solutions
+     */
+    private final SolutionMapping mapping;
+    /**
+     * Vecteur de valeurs réutilisé pour chaque solution (alloué à la
+     * première utilisation)
+     */
+    private long[] values;
+    /**
+     * Indice de la prochaine solution à calculer (inclusif)
+     */
+    private long index;
+    /**
+     * Indice de fin de l'intervalle (exclusif)
+     */
+    private final long toIndex;
+
+    /**
+     * Constructeur du 'Spliterator'.
+     *
+     * @param system    Le système triangularisé
+     * @param mapping   La correspondance entre le système et les solutions
+     * @param fromIndex L'indice de la première solution (inclusif)
+     * @param toIndex   L'indice de la dernière solution (exclusif)
+     */
+    SolutionSpliterator(ReducedSystem system, SolutionMapping mapping, long fromIndex, long toIndex) {
+        this.system = system;
+        this.mapping = mapping;
+        this.index = fromIndex;
+        this.toIndex = toIndex;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Solution> action) {
+        if (this.index >= this.toIndex) {
+            return false;
+        }
+        action.accept(solutionAt(this.index++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super Solution> action) {
+        long end = this.toIndex;
+        for (long i = this.index; i < end; i++) {
+            action.accept(solutionAt(i));
+        }
+        this.index = end;
+    }
+
+    @Override
+    public Spliterator<Solution> trySplit() {
+        long mid = this.index + (this.toIndex - this.index) / 2;
+        if (mid <= this.index) {
+            return null;
+        }
+        Spliterator<Solution> prefix = new SolutionSpliterator(this.system, this.mapping, this.index, mid);
+        this.index = mid;
+        return prefix;
+    }
+
+    /**
+     * Calcule la solution d'indice donné.
+     *
+     * @param index L'indice de la solution
+     * @return La solution
+     */
+    private Solution solutionAt(long index) {
+        if (this.values == null) {
+            this.values = new long[this.system.getWords()];
+        }
+        this.system.solutionAt(this.mapping.systemIndex(index), true, this.values);
+        return this.mapping.solution(this.values);
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.toIndex - this.index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+}
@@ -0,0 +1,186 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estimation a priori du coût d'une résolution, à partir des seules
+ * dimensions de la grille, de la taille du pattern et du nombre de
+ * solutions demandées : aucun système n'est construit, l'estimation est
+ * immédiate.
+ * <p>
+ * Le pattern est supposé compact et centré : sa portée (écart maximal entre
+ * une case et les cases qu'elle change) est déduite de sa taille. Les
+ * équations étant numérotées ligne après ligne, la largeur de bande du
+ * système est 'portée * colonnes'. Les coûts sont exprimés en opérations
+ * élémentaires (mots de 64 bits, entrées de listes) converties en
+ * nanosecondes par des constantes calibrées sur les solveurs (un thread) :
+ * <ul>
+ * <li>dense : n^2 * bande / 128 xor de mots, n * mots(n) * 8 octets</li>
+ * <li>hors du tas : même calcul par panneaux, plus la création du fichier
+ * et une lecture de la matrice ; le tas ne contient que quelques
+ * lignes</li>
+ * <li>creux : n * bande^2 opérations (remplissage dans la bande), 8 * n *
+ * bande octets</li>
+ * <li>dissection : n * séparateur opérations, le séparateur étant 'portée *
+ * min(lignes, colonnes)'</li>
+ * <li>Lanczos : n / 63 itérations d'un produit matrice-vecteur par bloc</li>
+ * </ul>
+ * Le nombre de solutions n'est connu qu'après la triangularisation : il est
+ * borné par le nombre demandé et par 2^(portée * min(lignes, colonnes)) (la
+ * dimension du noyau d'un pattern local ne dépasse pas la taille d'un bord).
+ * Chaque solution conservée coûte sa construction et sa mémoire (une
+ * coordonnée par case cliquée, environ une case sur deux).
+ *
+ * @author MOLLIN Florian
+ */
+public final class SolveCostEstimator {
+    /**
+     * Durée d'un xor de mots de la triangularisation dense (ns)
+     */
+    private static final double DENSE_NANOS = 3.0;
+    /**
+     * Durée d'un xor de mots de la triangularisation hors du tas (ns)
+     */
+    private static final double OFF_HEAP_NANOS = 1.2;
+    /**
+     * Durée de création et de projection du fichier temporaire (ns)
+     */
+    private static final double OFF_HEAP_SETUP_NANOS = 5e6;
+    /**
+     * Durée de lecture d'un octet du fichier temporaire (ns)
+     */
+    private static final double DISK_BYTE_NANOS = 2.0;
+    /**
+     * Durée d'une opération de la triangularisation creuse (ns)
+     */
+    private static final double SPARSE_NANOS = 2.3;
+    /**
+     * Durée d'une opération de la dissection emboîtée (ns)
+     */
+    private static final double DISSECTION_NANOS = 170.0;
+    /**
+     * Durée d'une opération de l'algorithme de Lanczos (ns)
+     */
+    private static final double LANCZOS_NANOS = 5.0;
+    /**
+     * Durée de construction d'une coordonnée d'une solution (ns)
+     */
+    private static final double COORD_NANOS = 30.0;
+    /**
+     * Mémoire d'une coordonnée d'une solution (octets)
+     */
+    private static final long COORD_BYTES = 64;
+
+    /**
+     * Constructeur privé (classe utilitaire).
+     */
+    private SolveCostEstimator() {
+    }
+
+    /**
+     * Renvoie la taille d'un pattern : le nombre de cases changées par un
+     * clic loin des bords.
+     *
+     * @param pattern Le pattern
+     * @return La taille du pattern
+     */
+    public static int stencilSize(PatternInterface pattern) {
+        return pattern.getSwitchedCoords(Coord.of(1 << 10, 1 << 10)).size();
+    }
+
+    /**
+     * Estime le coût de chaque méthode de résolution.
+     *
+     * @param rows         Le nombre de lignes de la grille
+     * @param columns      Le nombre de colonnes de la grille
+     * @param stencilSize  La taille du pattern (cf : stencilSize)
+     * @param maxSolutions Le nombre maximum de solutions demandées
+     * @return Les estimations, dans l'ordre des méthodes
+     */
+    public static List<SolveEstimate> estimateAll(int rows, int columns, int stencilSize, long maxSolutions) {
+        List<SolveEstimate> estimates = new ArrayList<>();
+        for (SolveStrategy strategy : SolveStrategy.values()) {
+            estimates.add(estimate(strategy, rows, columns, stencilSize, maxSolutions));
+        }
+        return estimates;
+    }
+
+    /**
+     * Estime le coût d'une méthode de résolution.
+     *
+     * @param strategy     La méthode de résolution
+     * @param rows         Le nombre de lignes de la grille
+     * @param columns      Le nombre de colonnes de la grille
+     * @param stencilSize  La taille du pattern (cf : stencilSize)
+     * @param maxSolutions Le nombre maximum de solutions demandées
+     * @return L'estimation
+     * @throws IllegalArgumentException Si un paramètre est négatif
+     */
+    public static SolveEstimate estimate(SolveStrategy strategy, int rows, int columns, int stencilSize,
+                                         long maxSolutions) {
+        if (rows < 0 || columns < 0 || stencilSize < 0 || maxSolutions < 0) {
+            throw new IllegalArgumentException("Invalid estimate parameters " + rows + "x" + columns
+                    + ", stencil " + stencilSize + ", " + maxSolutions + " solutions");
+        }
+        double n = (double) rows * columns;
+        double words = Math.ceil((n + 1) / Long.SIZE);
+        int reach = (int) Math.ceil((Math.sqrt(stencilSize) - 1) / 2);
+        double band = reach * (double) columns + reach + 1;
+        double separator = reach * (double) Math.min(rows, columns) + 1;
+        // nombre de solutions calculées : borné par la dimension du noyau
+        double nullityBound = reach * (double) Math.min(rows, columns);
+        double nbSolutions = (nullityBound < Long.SIZE - 1)
+                ? Math.min(maxSolutions, Math.pow(2, nullityBound)) : maxSolutions;
+        double solutionNanos = COORD_NANOS * n / 2;
+        double solutionsBytes = nbSolutions * COORD_BYTES * n / 2;
+
+        double heap;
+        double disk = 0;
+        double elimination;
+        double substitution;
+        switch (strategy) {
+            case DENSE:
+                heap = n * words * Long.BYTES;
+                elimination = DENSE_NANOS * n * n * band / 128;
+                substitution = n * n / 128;
+                break;
+            case OFF_HEAP:
+                heap = 2 * Long.SIZE * words * Long.BYTES + n * Long.BYTES;
+                disk = n * words * Long.BYTES;
+                elimination = OFF_HEAP_SETUP_NANOS + OFF_HEAP_NANOS * n * n * band / 128 + DISK_BYTE_NANOS * disk;
+                substitution = n * n / 128;
+                break;
+            case SPARSE:
+                heap = 8 * n * band;
+                elimination = SPARSE_NANOS * n * band * band;
+                substitution = n * band / 2;
+                break;
+            case DISSECTION:
+                heap = 4 * n * separator;
+                elimination = DISSECTION_NANOS * n * separator;
+                substitution = nullityBound * words;
+                break;
+            default:
+                heap = 4 * n * stencilSize + 16 * n * Long.BYTES;
+                elimination = LANCZOS_NANOS * (n / 63) * n * (2 * stencilSize + 10);
+                substitution = nullityBound * words;
+                break;
+        }
+        return new SolveEstimate(strategy, saturate(heap + solutionsBytes), saturate(disk), saturate(elimination),
+                saturate(nbSolutions * (substitution + solutionNanos)));
+    }
+
+    /**
+     * Convertit une estimation en entier, saturée à Long.MAX_VALUE.
+     *
+     * @param value L'estimation
+     * @return L'estimation entière
+     */
+    private static long saturate(double value) {
+        return (value >= Long.MAX_VALUE) ? Long.MAX_VALUE : (long) Math.ceil(value);
+    }
+}
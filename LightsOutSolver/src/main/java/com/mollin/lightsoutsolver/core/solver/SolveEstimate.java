@@ -0,0 +1,115 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estimation du coût d'une résolution avec une méthode donnée (cf :
+ * SolveCostEstimator). Les valeurs sont des ordres de grandeur, utilisables
+ * pour comparer les méthodes et refuser ou mettre en attente les requêtes
+ * coûteuses, pas des mesures.
+ *
+ * @author MOLLIN Florian
+ */
+public class SolveEstimate {
+    /**
+     * Méthode de résolution
+     */
+    private final SolveStrategy strategy;
+    /**
+     * Mémoire du tas utilisée (en octets)
+     */
+    private final long heapBytes;
+    /**
+     * Espace disque utilisé (en octets)
+     */
+    private final long diskBytes;
+    /**
+     * Durée de la triangularisation (en nanosecondes)
+     */
+    private final long eliminationNanos;
+    /**
+     * Durée du calcul des solutions demandées (en nanosecondes)
+     */
+    private final long enumerationNanos;
+
+    /**
+     * Constructeur de l'estimation.
+     *
+     * @param strategy         La méthode de résolution
+     * @param heapBytes        La mémoire du tas utilisée (en octets)
+     * @param diskBytes        L'espace disque utilisé (en octets)
+     * @param eliminationNanos La durée de la triangularisation (en
+     *                         nanosecondes)
+     * @param enumerationNanos La durée du calcul des solutions (en
+     *                         nanosecondes)
+     */
+    SolveEstimate(SolveStrategy strategy, long heapBytes, long diskBytes, long eliminationNanos,
+                  long enumerationNanos) {
+        this.strategy = strategy;
+        this.heapBytes = heapBytes;
+        this.diskBytes = diskBytes;
+        this.eliminationNanos = eliminationNanos;
+        this.enumerationNanos = enumerationNanos;
+    }
+
+    /**
+     * Renvoie la méthode de résolution.
+     *
+     * @return La méthode
+     */
+    public SolveStrategy getStrategy() {
+        return this.strategy;
+    }
+
+    /**
+     * Renvoie la mémoire du tas utilisée (système et solutions conservées).
+     *
+     * @return La mémoire en octets
+     */
+    public long getHeapBytes() {
+        return this.heapBytes;
+    }
+
+    /**
+     * Renvoie l'espace disque utilisé.
+     *
+     * @return L'espace disque en octets
+     */
+    public long getDiskBytes() {
+        return this.diskBytes;
+    }
+
+    /**
+     * Renvoie la durée de la triangularisation.
+     *
+     * @return La durée en nanosecondes
+     */
+    public long getEliminationNanos() {
+        return this.eliminationNanos;
+    }
+
+    /**
+     * Renvoie la durée du calcul des solutions demandées.
+     *
+     * @return La durée en nanosecondes
+     */
+    public long getEnumerationNanos() {
+        return this.enumerationNanos;
+    }
+
+    /**
+     * Renvoie la durée totale de la résolution (saturée à Long.MAX_VALUE).
+     *
+     * @return La durée en nanosecondes
+     */
+    public long getTotalNanos() {
+        long total = this.eliminationNanos + this.enumerationNanos;
+        return (total < 0) ? Long.MAX_VALUE : total;
+    }
+
+    @Override
+    public String toString() {
+        return this.strategy + " (" + TimeUnit.NANOSECONDS.toMillis(getTotalNanos()) + " ms, "
+                + (this.heapBytes >> 20) + " MiB heap, " + (this.diskBytes >> 20) + " MiB disk)";
+    }
+}
@@ -0,0 +1,31 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+/**
+ * Méthodes de résolution disponibles (cf : SolveCostEstimator et
+ * StrategySelector).
+ *
+ * @author MOLLIN Florian
+ */
+public enum SolveStrategy {
+    /**
+     * Triangularisation dense dans le tas (Solver)
+     */
+    DENSE,
+    /**
+     * Triangularisation dense hors du tas, dans un fichier temporaire
+     * (Solver avec répertoire des fichiers temporaires)
+     */
+    OFF_HEAP,
+    /**
+     * Triangularisation creuse (Solver.setSparseElimination)
+     */
+    SPARSE,
+    /**
+     * Dissection emboîtée parallèle (DissectionSolver)
+     */
+    DISSECTION,
+    /**
+     * Lanczos par blocs (SparseSolver), probabiliste pour la base du noyau
+     */
+    LANCZOS
+}
@@ -2,13 +2,26 @@ package com.mollin.lightsoutsolver.core.solver;
 
 import com.mollin.lightsoutsolver.core.base.GridInterface;
 import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.solver.solution.NearestTarget;
 import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
 import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+import com.mollin.lightsoutsolver.core.utils.CellMask;
 import com.mollin.lightsoutsolver.core.utils.Coord;
 import com.mollin.lightsoutsolver.core.utils.GridUtils;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Classe permettant de fournir les solutions (ensemble de coordonnées)
@@ -32,20 +45,53 @@ public class Solver {
      */
     private final PatternInterface pattern;
     /**
-     * Coordonnée spéciale (représente le résultat d'une équation)
+     * Forme de la grille (une inconnue et une équation par case vivante)
      */
-    private Coord goalCoord;
+    private final CellMask mask;
     /**
-     * Ensemble des equations à résoudre
+     * Répertoire des fichiers temporaires pour la triangularisation hors du
+     * tas (null pour triangulariser dans le tas)
      */
-    private Set<Equation> equations;
+    private final Path offHeapDirectory;
     /**
-     * Liste des inconnues pouvant prendre les deux valeurs (valeurs non fixées)
+     * Sauvegarde périodique de la triangularisation (null si désactivée)
      */
-    private List<Coord> nonFixedCoords;
+    private EliminationCheckpoint checkpoint;
+    /**
+     * Cache des systèmes triangularisés (null si désactivé)
+     */
+    private ReductionCache reductionCache;
+    /**
+     * Vrai pour triangulariser le système sous forme creuse
+     */
+    private boolean sparseElimination;
+    /**
+     * Contraintes sur les cases cliquées (null si aucune)
+     */
+    private PressConstraints constraints;
+    /**
+     * Cases dont l'état final est indifférent (null si aucune)
+     */
+    private Set<Coord> dontCareCells;
+    /**
+     * Correspondance entre le système et les solutions (calculée avec le
+     * système)
+     */
+    private SolutionMapping mapping;
+    /**
+     * Système triangularisé (calculé à la demande)
+     */
+    private ReducedSystem system;
+    /**
+     * Représentation compacte de l'espace des solutions (calculée à la
+     * demande)
+     */
+    private SolutionSpace solutionSpace;
 
     /**
-     * Constructeur du solveur.
+     * Constructeur du solveur. Le système est triangularisé dans le tas ; pour
+     * les très grandes grilles, la triangularisation hors du tas doit être
+     * demandée explicitement (cf : defaultOffHeapDirectory).
      *
      * @param startGrid Grille de départ à partir de laquelle trouver la
      *                  solution
@@ -53,10 +99,55 @@ public class Solver {
      * @param pattern   Pattern utilisé dans la grille
      */
     public Solver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        this(startGrid, endGrid, pattern, (Path) null);
+    }
+
+    /**
+     * Constructeur du solveur. Le système est triangularisé hors du tas, dans
+     * un fichier temporaire du répertoire donné : la taille des grilles n'est
+     * alors limitée que par l'espace disque.
+     *
+     * @param startGrid        Grille de départ à partir de laquelle trouver
+     *                         la solution
+     * @param endGrid          Grille à atteindre
+     * @param pattern          Pattern utilisé dans la grille
+     * @param offHeapDirectory Répertoire des fichiers temporaires (null pour
+     *                         triangulariser dans le tas)
+     */
+    public Solver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern, Path offHeapDirectory) {
+        this(startGrid, endGrid, pattern, CellMask.full(startGrid.rows(), startGrid.columns()), offHeapDirectory);
+    }
+
+    /**
+     * Constructeur du solveur pour une grille non rectangulaire ou trouée.
+     * Seules les cases vivantes de la forme sont des inconnues (et des
+     * équations) du système : les cases mortes impactées par le pattern sont
+     * ignorées, ainsi que l'état des cases mortes dans les grilles de départ
+     * et d'arrivée. Les solutions ne contiennent que des cases vivantes.
+     *
+     * @param startGrid        Grille de départ à partir de laquelle trouver
+     *                         la solution
+     * @param endGrid          Grille à atteindre
+     * @param pattern          Pattern utilisé dans la grille
+     * @param mask             Forme de la grille (mêmes dimensions que les
+     *                         grilles)
+     * @param offHeapDirectory Répertoire des fichiers temporaires pour la
+     *                         triangularisation hors du tas (null pour
+     *                         triangulariser dans le tas)
+     * @throws IllegalArgumentException Si les dimensions de la forme ne sont
+     *                                  pas celles des grilles
+     */
+    public Solver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern, CellMask mask,
+                  Path offHeapDirectory) {
+        if (mask.rows() != startGrid.rows() || mask.columns() != startGrid.columns()) {
+            throw new IllegalArgumentException("Mask is " + mask.rows() + "x" + mask.columns()
+                    + ", grid is " + startGrid.rows() + "x" + startGrid.columns());
+        }
         this.startGrid = startGrid;
         this.endGrid = endGrid;
         this.pattern = pattern;
-        init();
+        this.mask = mask;
+        this.offHeapDirectory = offHeapDirectory;
     }
 
     /**
@@ -72,40 +163,156 @@ public class Solver {
     }
 
     /**
-     * Initialise les equations et les ensembles des valeurs des inconnues de la
-     * solution. Il y a autant d'équations que de coordonnées sur la grille. Une
-     * équation correspond aux cases impactées lors d'un 'clic' sur la
-     * coordonnée correspondante; le résultat d'une équation est fonction de la
-     * grille de départ et d'arrivée. Il y a plusieurs ensembles de valeurs
-     * d'inconnues (les cases devant être cliquées) car il y a potentiellement
-     * plusieurs solutions.
-     */
-    private void init() {
-        int rows = this.startGrid.rows();
-        int cols = this.startGrid.columns();
-        Coord minCoord = Coord.of(0, 0);
-        Coord maxCoord = Coord.of(rows - 1, cols - 1);
-        // représente le resultat d'une équation (vaut toujours 1)
-        this.goalCoord = Coord.of(rows, cols);
-        // initialisation des equations
-        this.equations = new HashSet<>();
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                Coord acCoord = Coord.of(r, c);
-                Set<Coord> switchedCoords = this.pattern.getSwitchedCoords(acCoord);
-                // filtre des coordonnées impactées par le pattern : on ne
-                // conserve que les coordonnées dans la grille
-                Set<Coord> filteredSwitchedCoords = switchedCoords.stream()
-                        .filter(coord -> coord.isBetween(minCoord, maxCoord))
-                        .collect(Collectors.toSet());
-                if (this.startGrid.isActivated(acCoord) ^ this.endGrid.isActivated(acCoord)) {
-                    filteredSwitchedCoords.add(this.goalCoord);
+     * Active la sauvegarde périodique de la triangularisation. Si le fichier
+     * de sauvegarde contient l'état d'une triangularisation de ce même
+     * système (interrompue par exemple par un arrêt du processus), celle-ci
+     * reprend à partir de cet état et produit les mêmes solutions. Doit être
+     * appelée avant la première résolution.
+     *
+     * @param checkpoint La sauvegarde (null pour la désactiver)
+     */
+    public synchronized void setCheckpoint(EliminationCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Active la réutilisation des triangularisations : le système est
+     * recherché dans le cache (dimensions de la grille et pattern) et n'est
+     * triangularisé que s'il en est absent. Le cache n'est pas utilisé pour
+     * la triangularisation hors du tas ni avec une sauvegarde périodique.
+     * Doit être appelée avant la première résolution.
+     *
+     * @param reductionCache Le cache (null pour le désactiver)
+     */
+    public synchronized void setReductionCache(ReductionCache reductionCache) {
+        this.reductionCache = reductionCache;
+    }
+
+    /**
+     * Active la triangularisation creuse (cf : SparseElimination) : les
+     * équations sont des listes d'inconnues et non des lignes de bits, ce qui
+     * réduit la mémoire et le temps de calcul tant que le système reste
+     * creux. Elle remplace la triangularisation hors du tas mais n'est pas
+     * utilisée avec le cache ni avec une sauvegarde périodique. Les
+     * solutions sont les mêmes, dans le même ordre. Doit être appelée avant
+     * la première résolution.
+     *
+     * @param sparseElimination Vrai pour activer la triangularisation creuse
+     */
+    public synchronized void setSparseElimination(boolean sparseElimination) {
+        this.sparseElimination = sparseElimination;
+    }
+
+    /**
+     * Contraint les solutions : cases toujours cliquées, jamais cliquées et
+     * nombre maximal de clics par région (cf : PressConstraints). Les cases
+     * toujours ou jamais cliquées sont substituées dans le système avant la
+     * triangularisation : le nombre d'inconnues diminue et le nombre de
+     * solutions, leur indice et leur énumération ne portent que sur les
+     * solutions contraintes. Le cache et la triangularisation creuse ne sont
+     * pas utilisés avec des contraintes. Avec des limites par région, les
+     * solutions ne forment plus un espace affine (cf : getSolutionSpace).
+     * Doit être appelée avant la première résolution.
+     *
+     * @param constraints Les contraintes (null pour les supprimer)
+     */
+    public synchronized void setConstraints(PressConstraints constraints) {
+        this.constraints = constraints;
+    }
+
+    /**
+     * Rend l'état final de cases indifférent : la grille d'arrivée n'est
+     * qu'un objectif partiel et ces cases ne produisent aucune équation. Le
+     * système est plus petit et admet plus de solutions (le nombre de
+     * solutions et leur indice en tiennent compte). Le cache et la
+     * triangularisation creuse ne sont pas utilisés avec des cases
+     * indifférentes. Doit être appelée avant la première résolution.
+     *
+     * @param dontCareCells Les cases indifférentes (null ou vide pour un
+     *                      objectif complet)
+     */
+    public synchronized void setDontCareCells(Collection<Coord> dontCareCells) {
+        this.dontCareCells = (dontCareCells == null || dontCareCells.isEmpty()) ? null : new HashSet<>(dontCareCells);
+    }
+
+    /**
+     * Renvoie le répertoire à utiliser par défaut pour la triangularisation
+     * hors du tas : le répertoire temporaire du système si la matrice dense
+     * dépasse la moitié de la taille maximale du tas, null sinon. Le résultat
+     * peut être donné au constructeur pour choisir automatiquement entre les
+     * deux triangularisations (des fichiers temporaires sont alors créés
+     * pour les grandes grilles).
+     *
+     * @param rows    Le nombre de lignes de la grille
+     * @param columns Le nombre de colonnes de la grille
+     * @return Le répertoire des fichiers temporaires (ou null)
+     */
+    public static Path defaultOffHeapDirectory(int rows, int columns) {
+        long size = (long) rows * columns;
+        long words = (size + Long.SIZE) / Long.SIZE;
+        // taille * mots * 8 > moitié du tas, sans dépassement
+        long maxWords = Runtime.getRuntime().maxMemory() / 2 / Long.BYTES;
+        if (size > 0 && words > maxWords / size) {
+            return Paths.get(System.getProperty("java.io.tmpdir"));
+        }
+        return null;
+    }
+
+    /**
+     * Renvoie les cases (indices compacts) produisant une équation : les
+     * cases vivantes dont l'état final n'est pas indifférent.
+     *
+     * @return Les indices compacts des cases, dans l'ordre croissant
+     */
+    private int[] equationCells() {
+        int size = this.mask.size();
+        int[] cells = new int[size];
+        int nbEquations = 0;
+        for (int i = 0; i < size; i++) {
+            if (this.dontCareCells == null || !this.dontCareCells.contains(this.mask.coordOf(i))) {
+                cells[nbEquations++] = i;
+            }
+        }
+        return Arrays.copyOf(cells, nbEquations);
+    }
+
+    /**
+     * Remplit l'équation d'une case. Il y a autant d'équations que de
+     * cases vivantes sur la grille (hors cases indifférentes). Une équation correspond aux cases dont le
+     * pattern change l'état de la case correspondante (cf : SparseMatrix) ;
+     * le résultat d'une équation est fonction de la grille de départ et
+     * d'arrivée. L'équation est sous forme de bits compactés (le bit i
+     * correspond à l'inconnue de la case vivante d'indice compact i, le bit
+     * 'nombre de cases vivantes' au résultat de l'équation ; pour une grille
+     * rectangulaire, l'indice compact de (r, c) est r * colonnes + c). Avec
+     * des contraintes, les inconnues sont celles de la correspondance (cf :
+     * SolutionMapping) : une case imposée change le résultat de l'équation,
+     * une case interdite est ignorée.
+     *
+     * @param matrix   La matrice du système
+     * @param equation L'équation à remplir (initialement nulle)
+     * @param index    L'indice compact de la case
+     */
+    private void fillEquation(SparseMatrix matrix, long[] equation, int index) {
+        int size = this.mapping.getNbUnknowns();
+        Coord acCoord = this.mask.coordOf(index);
+        boolean goal = this.startGrid.isActivated(acCoord) ^ this.endGrid.isActivated(acCoord);
+        if (this.mapping.isIdentity()) {
+            matrix.addRow(index, equation);
+        } else {
+            for (int cell : matrix.row(index)) {
+                int unknown = this.mapping.unknownOf(cell);
+                if (unknown >= 0) {
+                    equation[unknown >>> 6] |= 1L << unknown;
+                } else {
+                    goal ^= this.mapping.isForced(cell);
                 }
-                this.equations.add(new Equation(filteredSwitchedCoords));
             }
         }
-        // initialisation des ensembles de valeurs des inconnues
-        this.nonFixedCoords = new ArrayList<>();
+        // le bit 'size' représente le resultat de l'équation
+        if (goal) {
+            equation[size >>> 6] |= 1L << size;
+        }
     }
 
     /**
@@ -130,97 +337,303 @@ public class Solver {
      * @return L'ensemble des solutions pour résoudre le système.
      */
     public Solutions solve(int maxSolutions) {
-        int rows = this.startGrid.rows();
-        int cols = this.startGrid.columns();
-        // === etape 1 : triangularisation ===
-        Set<Equation> notLockedEquations = new HashSet<>(this.equations);
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                Coord acCoord = Coord.of(r, c);
-                // recherche des equations 'matchantes', celles contenant (r,c)
-                // et non vérouillées
-                Set<Equation> matchedEquations = notLockedEquations.stream()
-                        .filter(e -> e.match(acCoord))
-                        .collect(Collectors.toSet());
-                if (!matchedEquations.isEmpty()) {
-                    // si une équation est trouvée, on la vérouille, et on supprime
-                    // (r,c) des autres équations
-                    Equation acEquation = matchedEquations.iterator().next();
-                    matchedEquations.remove(acEquation);
-                    notLockedEquations.remove(acEquation);
-                    matchedEquations.forEach(eq -> eq.xor(acEquation));
-                } else {
-                    // si aucune équation n'est trouvée, (r,c) peut avoir les deux
-                    // valeurs (0 et 1), on ajoute donc (r, c) aux inconnues n'ayant
-                    // pas de valeur fixée
-                    this.nonFixedCoords.add(acCoord);
-                }
+        maxSolutions = (maxSolutions < 0) ? Integer.MAX_VALUE : maxSolutions;
+        return this.solve(0, maxSolutions);
+    }
+
+    /**
+     * Calcule les solutions dont l'indice est compris dans l'intervalle
+     * [fromIndex, toIndex[ de l'espace des solutions. L'indice d'une solution
+     * est déterministe : le bit i de l'indice donne la valeur de la i-ème
+     * inconnue non fixée (avec des limites de clics par région, les bits de
+     * poids fort donnent le rang de la combinaison autorisée des inconnues
+     * des régions, cf : SolutionMapping). Plusieurs processus (ou machines) peuvent donc se
+     * répartir l'espace des solutions sans coordination.
+     *
+     * @param fromIndex L'indice de la première solution à calculer (inclusif)
+     * @param toIndex   L'indice de la dernière solution à calculer (exclusif).
+     *                  Il est ramené au nombre total de solutions si besoin.
+     * @return L'ensemble des solutions de l'intervalle (le nombre total de
+     * solutions reste celui du système complet)
+     */
+    public Solutions solve(long fromIndex, long toIndex) {
+        checkRange(fromIndex, toIndex);
+        ReducedSystem reducedSystem = reduce();
+        if (reducedSystem.isImpossible()) {
+            return new Solutions(0);
+        }
+        long end = clampIndex(toIndex);
+
+        Solutions solutions = new Solutions(getNbSolutions());
+        // un seul vecteur de valeurs pour toutes les solutions
+        long[] values = new long[reducedSystem.getWords()];
+        for (long index = fromIndex; index < end; index++) {
+            reducedSystem.solutionAt(this.mapping.systemIndex(index), true, values);
+            solutions.addSolution(this.mapping.solution(values));
+        }
+        return solutions;
+    }
+
+    /**
+     * Renvoie un 'Spliterator' parcourant les solutions dont l'indice est
+     * compris dans l'intervalle [fromIndex, toIndex[. Le découpage se fait par
+     * sous-intervalles d'indices, chaque partie calculant ses solutions de
+     * manière indépendante (utilisable avec les streams parallèles).
+     *
+     * @param fromIndex L'indice de la première solution (inclusif)
+     * @param toIndex   L'indice de la dernière solution (exclusif). Il est
+     *                  ramené au nombre total de solutions si besoin.
+     * @return Le 'Spliterator' des solutions de l'intervalle
+     */
+    public Spliterator<Solution> spliterator(long fromIndex, long toIndex) {
+        checkRange(fromIndex, toIndex);
+        ReducedSystem reducedSystem = reduce();
+        long end = reducedSystem.isImpossible() ? fromIndex : clampIndex(toIndex);
+        return new SolutionSpliterator(reducedSystem, this.mapping, fromIndex, Math.max(fromIndex, end));
+    }
+
+    /**
+     * Renvoie le stream des solutions dont l'indice est compris dans
+     * l'intervalle [fromIndex, toIndex[. Le stream est séquentiel, il peut
+     * être rendu parallèle avec 'parallel()'.
+     *
+     * @param fromIndex L'indice de la première solution (inclusif)
+     * @param toIndex   L'indice de la dernière solution (exclusif)
+     * @return Le stream des solutions de l'intervalle
+     */
+    public Stream<Solution> stream(long fromIndex, long toIndex) {
+        return StreamSupport.stream(spliterator(fromIndex, toIndex), false);
+    }
+
+    /**
+     * Renvoie le stream de toutes les solutions du système.
+     *
+     * @return Le stream des solutions
+     */
+    public Stream<Solution> stream() {
+        return stream(0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Vérifie la validité d'un intervalle d'indices de solutions.
+     *
+     * @param fromIndex L'indice de début (inclusif)
+     * @param toIndex   L'indice de fin (exclusif)
+     */
+    private static void checkRange(long fromIndex, long toIndex) {
+        if (fromIndex < 0 || toIndex < fromIndex) {
+            throw new IllegalArgumentException("Invalid solution range [" + fromIndex + ", " + toIndex + "[");
+        }
+    }
+
+    /**
+     * Renvoie le nombre exact de solutions du système triangularisé (hors cas
+     * impossible).
+     *
+     * @return Le nombre total de solutions
+     */
+    private BigInteger getNbSolutions() {
+        ReducedSystem reducedSystem = reduce();
+        return this.mapping.nbSolutions(reducedSystem);
+    }
+
+    /**
+     * Ramène un indice de fin d'intervalle au nombre total de solutions.
+     *
+     * @param toIndex L'indice de fin (exclusif)
+     * @return L'indice de fin borné par le nombre de solutions
+     */
+    private long clampIndex(long toIndex) {
+        BigInteger nbSolutions = getNbSolutions();
+        return (nbSolutions.bitLength() < Long.SIZE) ? Math.min(toIndex, nbSolutions.longValue()) : toIndex;
+    }
+
+    /**
+     * Renvoie la représentation compacte de l'espace des solutions (solution
+     * particulière et base du noyau). Elle permet d'obtenir le nombre exact de
+     * solutions et n'importe quelle solution à partir de son indice, et peut
+     * être sérialisée pour être transmise à un client.
+     *
+     * Avec des cases imposées ou interdites, la solution particulière
+     * contient les cases imposées et le noyau ne porte que sur les autres
+     * cases.
+     *
+     * @return L'espace des solutions (l'optionnel sera vide si il n'y a pas de
+     * solution au système)
+     * @throws IllegalStateException Si des limites de clics par région sont
+     *                               données (les solutions ne forment pas un
+     *                               espace affine)
+     */
+    public synchronized Optional<SolutionSpace> getSolutionSpace() {
+        ReducedSystem reducedSystem = reduce();
+        if (!this.mapping.isAffine()) {
+            throw new IllegalStateException("Solutions with press limits are not an affine space");
+        }
+        if (reducedSystem.isImpossible()) {
+            return Optional.empty();
+        }
+        if (this.solutionSpace == null) {
+            int rows = this.startGrid.rows();
+            int cols = this.startGrid.columns();
+            int nullity = reducedSystem.getNullity();
+            long[] values = new long[reducedSystem.getWords()];
+            reducedSystem.solutionAt(0, true, values);
+            long[] particular = toWords(this.mapping.toCells(values, true));
+            long[][] kernel = new long[nullity][];
+            for (int i = 0; i < nullity; i++) {
+                reducedSystem.kernelVector(i, values);
+                kernel[i] = toWords(this.mapping.toCells(values, false));
             }
+            this.solutionSpace = new SolutionSpace(rows, cols, particular, kernel);
         }
+        return Optional.of(this.solutionSpace);
+    }
 
-        // === etape 2 : vérification de la possibilité de résoudre le système ===
-        // si une équation ne contient qu'une inconnue qui est la coordonnée
-        // spéciale 'goalCoord' (qui vaut 1), alors le système est impossible
-        // à résoudre (car on aurait une équation 0 = 1)
-        boolean impossible = this.equations.stream()
-                .anyMatch(eq -> eq.getUnknowns().size() == 1 && eq.getUnknowns().contains(this.goalCoord));
-        if (impossible) {
-            return new Solutions(0);
+    /**
+     * Convertit un vecteur de bits compactés des cases vivantes (cf :
+     * SolutionMapping.toCells) en vecteur de bits compactés des cases de la
+     * grille (bit r * colonnes + c).
+     *
+     * @param values Le vecteur des cases vivantes
+     * @return Le vecteur de bits des cases (sans le résultat)
+     */
+    private long[] toWords(long[] values) {
+        int size = this.startGrid.rows() * this.startGrid.columns();
+        long[] words = Arrays.copyOf(this.mask.toGridWords(values), SolutionSpace.words(size));
+        if (size % Long.SIZE != 0) {
+            words[words.length - 1] &= (1L << size) - 1;
         }
+        return words;
+    }
 
-        // === etape 3 : calcul du nombre de solutions totales et du nombre de solutions à calculer ===
-        long nbSolutions = (long) Math.pow(2, this.nonFixedCoords.size());
-        maxSolutions = (maxSolutions < 0) ? Integer.MAX_VALUE : maxSolutions;
-        long nbSolutionsToCompute = Math.min(maxSolutions, nbSolutions);
-
-        // === étape 4 : resolution du système avec les différentes solutions ===
-        Set<Map<Coord, Boolean>> computedSolutions = new HashSet<>();
-        for (int step = 0; step < nbSolutionsToCompute; step++) {
-            Map<Coord, Boolean> solution = new HashMap<>();
-            // ajout de l'inconnue représentant le résultat de l'équation
-            solution.put(this.goalCoord, true);
-            // génération de valeurs fixes pour les inconnues non fixées grâce
-            // aux bits de la valeur de l'étape ('step')
-            for (int i = 0; i < this.nonFixedCoords.size(); i++) {
-                solution.put(this.nonFixedCoords.get(i), (step >> i & 1) == 1);
+    /**
+     * Calcule le résultat de chaque équation : les cases vivantes dont l'état
+     * diffère entre la grille de départ et la grille d'arrivée.
+     *
+     * @return Le résultat des équations (bits compactés, indices compacts)
+     */
+    private long[] goalWords() {
+        int size = this.mask.size();
+        long[] goal = new long[ReducedSystem.words(size)];
+        for (int i = 0; i < size; i++) {
+            Coord coord = this.mask.coordOf(i);
+            if (this.startGrid.isActivated(coord) ^ this.endGrid.isActivated(coord)) {
+                goal[i >>> 6] |= 1L << i;
             }
+        }
+        return goal;
+    }
 
-            // on retire les equations 'vides'
-            List<Equation> equationsSet = this.equations.stream()
-                    .filter(eq -> !eq.getUnknowns().isEmpty())
-                    .sorted((eq1, eq2) -> Integer.compare(eq1.getUnknowns().size(), eq2.getUnknowns().size()))
-                    .collect(Collectors.toCollection(LinkedList::new));
-            // tant que toutes les equations n'ont pas été traitées
-            while (!equationsSet.isEmpty()) {
-                Equation eqToRemove = null;
-                // recherche de la première équation ne contenant qu'une inconnue
-                // indeterminée
-                for (Equation eq : equationsSet) {
-                    Coord unknownWithoutValue = eq.hasOneUnknownWithoutValue(solution);
-                    if (unknownWithoutValue != null) {
-                        // si une inconnue n'a pas encore de valeur, on complete
-                        // celle-ci dans la solution
-                        eq.fillValue(unknownWithoutValue, solution);
-                        eqToRemove = eq;
-                        break;
+    /**
+     * Triangularise le système (méthode du pivot de Gauss), dans le tas, hors
+     * du tas ou sous forme creuse suivant la configuration du solveur, ou
+     * récupère la triangularisation dans le cache. Les contraintes sont
+     * substituées dans les équations (cf : SolutionMapping) et les cases
+     * indifférentes n'ont pas d'équation. Dans le tas et sans contrainte,
+     * si le pattern sépare la grille en composantes indépendantes, chacune
+     * est triangularisée séparément (cf : ComponentElimination). La
+     * triangularisation n'est effectuée qu'une seule fois, les appels
+     * suivants réutilisent le système réduit.
+     *
+     * @return Le système triangularisé
+     */
+    private synchronized ReducedSystem reduce() {
+        if (this.system == null) {
+            int size = this.mask.size();
+            this.mapping = SolutionMapping.of(this.mask, this.constraints);
+            int nbUnknowns = this.mapping.getNbUnknowns();
+            int[] equationCells = equationCells();
+            boolean identity = this.mapping.isIdentity() && equationCells.length == size;
+            if (identity && this.reductionCache != null && this.offHeapDirectory == null && this.checkpoint == null) {
+                this.system = this.reductionCache.get(this.mask, this.pattern).withGoal(goalWords());
+            } else if (identity && this.sparseElimination && this.checkpoint == null) {
+                this.system = SparseElimination.reduce(SparseMatrix.of(this.mask, this.pattern), goalWords());
+            } else if (this.offHeapDirectory != null) {
+                SparseMatrix matrix = SparseMatrix.of(this.mask, this.pattern);
+                this.system = MappedElimination.reduce(this.offHeapDirectory, equationCells.length, nbUnknowns,
+                        (equation, i) -> fillEquation(matrix, equation, equationCells[i]), this.checkpoint);
+            } else {
+                SparseMatrix matrix = SparseMatrix.of(this.mask, this.pattern);
+                int[][] components = (identity && this.checkpoint == null)
+                        ? ComponentElimination.components(matrix) : null;
+                if (components != null && components.length > 1) {
+                    this.mapping = SolutionMapping.ordered(this.mask, ComponentElimination.unknownCells(components));
+                    this.system = ComponentElimination.reduce(matrix, components, goalWords());
+                } else {
+                    long[][] equations = new long[equationCells.length][];
+                    for (int i = 0; i < equationCells.length; i++) {
+                        equations[i] = new long[ReducedSystem.words(nbUnknowns + 1)];
+                        fillEquation(matrix, equations[i], equationCells[i]);
                     }
+                    this.system = new ReducedSystem(equations, nbUnknowns, this.checkpoint);
                 }
-                // on supprime l'equation de l'ensemble à parcourir
-                equationsSet.remove(eqToRemove);
             }
-            computedSolutions.add(solution);
-        }
-
-        // étape 5 : formattage du résultat
-        Solutions solutions = new Solutions(nbSolutions);
-        computedSolutions.stream()
-                .map(uvMap -> {
-                    Solution sol = new Solution(uvMap);
-                    sol.remove(this.goalCoord);
-                    return sol;
-                })
-                .forEach(solutions::addSolution);
-        return solutions;
+            this.mapping = this.mapping.limitedTo(this.system);
+        }
+        return this.system;
+    }
+
+    /**
+     * Cherche la grille atteignable la plus proche de la grille à atteindre
+     * (en nombre de cases différentes), avec une solution permettant de
+     * l'atteindre (cf : findNearestReachableTarget(int)).
+     *
+     * @return La grille atteignable la plus proche
+     * @throws IllegalStateException Si des contraintes ou des cases
+     *                               indifférentes sont données
+     */
+    public NearestTarget findNearestReachableTarget() {
+        return findNearestReachableTarget(NearestTargetSearch.DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Cherche la grille atteignable la plus proche de la grille à atteindre
+     * (en nombre de cases différentes), avec une solution permettant de
+     * l'atteindre. La recherche utilise la matrice triangularisée du cache
+     * (ou la calcule si le cache est désactivé) : les grilles atteignables
+     * sont celles dont le syndrome est nul (cf : NearestTargetSearch). Elle
+     * est exhaustive si l'orthogonal de l'image de la matrice est de petite
+     * dimension, heuristique sinon (le résultat l'indique).
+     *
+     * @param iterations Le nombre de tirages de la recherche heuristique
+     * @return La grille atteignable la plus proche
+     * @throws IllegalStateException Si des contraintes ou des cases
+     *                               indifférentes sont données
+     */
+    public synchronized NearestTarget findNearestReachableTarget(int iterations) {
+        if ((this.constraints != null && !this.constraints.isEmpty()) || this.dontCareCells != null) {
+            throw new IllegalStateException("Nearest target is not supported with press constraints"
+                    + " or don't care cells");
+        }
+        ReducedMatrix matrix = (this.reductionCache != null)
+                ? this.reductionCache.get(this.mask, this.pattern)
+                : new ReducedMatrix(SparseMatrix.of(this.mask, this.pattern));
+        int size = this.mask.size();
+        NearestTargetSearch search = new NearestTargetSearch(matrix, size, iterations);
+        long[] goal = goalWords();
+        long[] flips = search.search(goal);
+        Set<Coord> changedCells = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            if ((flips[i >>> 6] >>> i & 1L) == 1L) {
+                goal[i >>> 6] ^= 1L << i;
+                changedCells.add(this.mask.coordOf(i));
+            }
+        }
+        int rows = this.endGrid.rows();
+        int cols = this.endGrid.columns();
+        BitSet endBits = new BitSet(rows * cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                Coord coord = Coord.of(r, c);
+                endBits.set(r * cols + c, this.endGrid.isActivated(coord) ^ changedCells.contains(coord));
+            }
+        }
+        ReducedSystem reachable = matrix.withGoal(goal);
+        long[] values = new long[reachable.getWords()];
+        reachable.solutionAt(0, true, values);
+        Solution solution = SolutionMapping.of(this.mask, null).solution(values);
+        return new NearestTarget(GridUtils.getGridWithActivatedBits(rows, cols, endBits), changedCells, solution,
+                BigInteger.ONE.shiftLeft(reachable.getNullity()), search.isOptimal());
     }
 
     /**
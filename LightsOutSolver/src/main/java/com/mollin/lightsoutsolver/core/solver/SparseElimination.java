@@ -0,0 +1,149 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import java.util.Arrays;
+
+/**
+ * Triangularisation creuse du système : chaque équation est la liste triée
+ * de ses inconnues (le résultat étant l'inconnue 'nbUnknowns'), et un index
+ * inversé donne pour chaque inconnue les équations susceptibles de la
+ * contenir. Le coût d'une étape est donc proportionnel au nombre de
+ * coefficients non nuls des équations concernées et non au nombre
+ * d'équations.
+ * <p>
+ * Les inconnues sont traitées dans l'ordre croissant, comme pour la
+ * triangularisation dense : les inconnues non fixées (et donc l'indice des
+ * solutions) sont les mêmes. Le choix de la ligne pivot suit le critère de
+ * Markowitz : parmi les c équations contenant l'inconnue, celle ayant le
+ * moins d'inconnues (r) minimise le remplissage (r - 1) * (c - 1).
+ *
+ * @author MOLLIN Florian
+ */
+final class SparseElimination {
+    /**
+     * Constructeur privé (classe utilitaire).
+     */
+    private SparseElimination() {
+    }
+
+    /**
+     * Triangularise le système A x = goal.
+     *
+     * @param matrix La matrice du système
+     * @param goal   Le résultat de chaque équation (bits compactés)
+     * @return Le système triangularisé
+     */
+    static ReducedSystem reduce(SparseMatrix matrix, long[] goal) {
+        int n = matrix.size();
+        int[][] rows = new int[n][];
+        // index inversé : les entrées ne sont pas supprimées lorsqu'une
+        // équation perd une inconnue, elles sont vérifiées à l'utilisation
+        int[][] colRows = new int[n][];
+        int[] colCount = new int[n];
+        for (int i = 0; i < n; i++) {
+            int[] row = matrix.row(i);
+            if ((goal[i >>> 6] >>> i & 1L) == 1L) {
+                row = Arrays.copyOf(row, row.length + 1);
+                row[row.length - 1] = n;
+            }
+            rows[i] = row;
+            for (int c : row) {
+                if (c < n) {
+                    colCount[c]++;
+                }
+            }
+        }
+        for (int c = 0; c < n; c++) {
+            colRows[c] = new int[Math.max(4, colCount[c])];
+            colCount[c] = 0;
+        }
+        for (int i = 0; i < n; i++) {
+            for (int c : rows[i]) {
+                if (c < n) {
+                    colRows[c][colCount[c]++] = i;
+                }
+            }
+        }
+
+        boolean[] locked = new boolean[n];
+        int[] seen = new int[n];
+        int[] candidates = new int[n];
+        int[] buffer = new int[16];
+        int[] pivots = new int[n];
+        int[][] pivotRows = new int[n][];
+        int[] free = new int[n];
+        int nbPivots = 0;
+        int nbFree = 0;
+        for (int col = 0; col < n; col++) {
+            // les équations non vérouillées n'ont plus d'inconnues avant
+            // 'col' : celles qui la contiennent commencent par 'col'
+            int nbCandidates = 0;
+            int pivot = -1;
+            for (int k = 0; k < colCount[col]; k++) {
+                int r = colRows[col][k];
+                if (!locked[r] && seen[r] != col + 1 && rows[r].length > 0 && rows[r][0] == col) {
+                    seen[r] = col + 1;
+                    candidates[nbCandidates++] = r;
+                    if (pivot < 0 || rows[r].length < rows[pivot].length
+                            || (rows[r].length == rows[pivot].length && r < pivot)) {
+                        pivot = r;
+                    }
+                }
+            }
+            colRows[col] = null;
+            if (pivot < 0) {
+                free[nbFree++] = col;
+                continue;
+            }
+            int[] pivotRow = rows[pivot];
+            for (int k = 0; k < nbCandidates; k++) {
+                int r = candidates[k];
+                if (r == pivot) {
+                    continue;
+                }
+                int[] row = rows[r];
+                if (buffer.length < row.length + pivotRow.length) {
+                    buffer = new int[row.length + pivotRow.length];
+                }
+                // différence symétrique des deux équations (triées) ; les
+                // inconnues ajoutées à l'équation sont ajoutées à l'index
+                int a = 0;
+                int b = 0;
+                int size = 0;
+                while (a < row.length || b < pivotRow.length) {
+                    if (b == pivotRow.length || (a < row.length && row[a] < pivotRow[b])) {
+                        buffer[size++] = row[a++];
+                    } else if (a == row.length || pivotRow[b] < row[a]) {
+                        int c = pivotRow[b++];
+                        buffer[size++] = c;
+                        if (c < n) {
+                            if (colCount[c] == colRows[c].length) {
+                                colRows[c] = Arrays.copyOf(colRows[c], 2 * colCount[c]);
+                            }
+                            colRows[c][colCount[c]++] = r;
+                        }
+                    } else {
+                        a++;
+                        b++;
+                    }
+                }
+                rows[r] = Arrays.copyOf(buffer, size);
+            }
+            locked[pivot] = true;
+            pivots[nbPivots] = col;
+            pivotRows[nbPivots++] = pivotRow;
+        }
+        // une équation restante non vide ne contient que le résultat : 0 = 1
+        boolean noSolution = false;
+        for (int r = 0; r < n && !noSolution; r++) {
+            noSolution = !locked[r] && rows[r].length > 0;
+        }
+        int[][] lockedRows = Arrays.copyOf(pivotRows, nbPivots);
+        return new ReducedSystem(n, (k, fromWord, values) -> {
+            long parity = 0;
+            for (int c : lockedRows[k]) {
+                parity ^= values[c >>> 6] >>> c;
+            }
+            return parity & 1L;
+        }, Arrays.copyOf(pivots, nbPivots), Arrays.copyOf(free, nbFree), noSolution);
+    }
+}
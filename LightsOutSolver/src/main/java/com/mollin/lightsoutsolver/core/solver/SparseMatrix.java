@@ -0,0 +1,273 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.graph.PressGraph;
+import com.mollin.lightsoutsolver.core.utils.CellMask;
+
+import java.util.Arrays;
+
+/**
+ * Matrice creuse modulo 2 du système (format CSR : pour chaque équation, la
+ * liste triée des inconnues qu'elle contient). La mémoire utilisée est
+ * proportionnelle au nombre de coefficients non nuls.
+ * <p>
+ * Les produits matrice-vecteur se font par blocs de 64 vecteurs : un vecteur
+ * bloc est un tableau de 'long' (un par inconnue), le bit j du mot i étant la
+ * i-ème composante du j-ème vecteur.
+ *
+ * @author MOLLIN Florian
+ */
+class SparseMatrix {
+    /**
+     * Nombre d'équations (et d'inconnues)
+     */
+    private final int size;
+    /**
+     * Début de chaque équation dans 'columns' (taille 'size' + 1)
+     */
+    private final int[] rowStart;
+    /**
+     * Inconnues de chaque équation (triées)
+     */
+    private final int[] columns;
+    /**
+     * Vrai si la matrice est symétrique
+     */
+    private final boolean symmetric;
+
+    /**
+     * Constructeur de la matrice.
+     *
+     * @param size     Le nombre d'équations (et d'inconnues)
+     * @param rowStart Le début de chaque équation dans 'columns'
+     * @param columns  Les inconnues de chaque équation (triées)
+     */
+    SparseMatrix(int size, int[] rowStart, int[] columns) {
+        this.size = size;
+        this.rowStart = rowStart;
+        this.columns = columns;
+        this.symmetric = checkSymmetric();
+    }
+
+    /**
+     * Construit la matrice d'une grille : l'équation de la case x contient les
+     * cases dont le pattern change l'état de x (même système que le Solver).
+     *
+     * @param rows    Le nombre de lignes de la grille
+     * @param cols    Le nombre de colonnes de la grille
+     * @param pattern Le pattern
+     * @return La matrice du système
+     */
+    static SparseMatrix of(int rows, int cols, PatternInterface pattern) {
+        return of(CellMask.full(rows, cols), pattern);
+    }
+
+    /**
+     * Construit la matrice d'une grille non rectangulaire : une équation et
+     * une inconnue par case vivante (indice compact), les cases mortes
+     * impactées par le pattern étant ignorées (cf : PressGraph.of).
+     *
+     * @param mask    La forme de la grille
+     * @param pattern Le pattern
+     * @return La matrice du système
+     */
+    static SparseMatrix of(CellMask mask, PatternInterface pattern) {
+        return of(PressGraph.of(mask, pattern));
+    }
+
+    /**
+     * Construit la matrice d'un graphe : une équation et une inconnue par
+     * nœud, l'équation du nœud x contenant les nœuds dont le voisinage de
+     * clic contient x (transposée des voisinages, par tri par dénombrement).
+     *
+     * @param graph Le graphe
+     * @return La matrice du système
+     */
+    static SparseMatrix of(PressGraph graph) {
+        int size = graph.size();
+        int nnz = graph.nonZeros();
+        int[] rowStart = new int[size + 1];
+        for (int k = 0; k < nnz; k++) {
+            rowStart[graph.neighbourAt(k) + 1]++;
+        }
+        for (int i = 0; i < size; i++) {
+            rowStart[i + 1] += rowStart[i];
+        }
+        // les nœuds cliqués sont parcourus dans l'ordre : les inconnues de
+        // chaque équation restent triées
+        int[] next = Arrays.copyOf(rowStart, size);
+        int[] columns = new int[nnz];
+        for (int p = 0; p < size; p++) {
+            for (int k = graph.neighbourStart(p); k < graph.neighbourStart(p + 1); k++) {
+                columns[next[graph.neighbourAt(k)]++] = p;
+            }
+        }
+        return new SparseMatrix(size, rowStart, columns);
+    }
+
+    /**
+     * Renvoie le nombre d'équations (et d'inconnues).
+     *
+     * @return Le nombre d'équations
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Renvoie le nombre de coefficients non nuls.
+     *
+     * @return Le nombre de coefficients non nuls
+     */
+    int nonZeros() {
+        return this.columns.length;
+    }
+
+    /**
+     * Renvoie vrai si la matrice est symétrique (pattern symétrique).
+     *
+     * @return Vrai si la matrice est symétrique
+     */
+    boolean isSymmetric() {
+        return this.symmetric;
+    }
+
+    /**
+     * Renvoie la dimension de l'opérateur symétrique associé à la matrice
+     * (cf : applySymmetric).
+     *
+     * @return La dimension de l'opérateur
+     */
+    int dimension() {
+        return this.symmetric ? this.size : 2 * this.size;
+    }
+
+    /**
+     * Ajoute (xor) les inconnues d'une équation à une ligne de bits
+     * compactés.
+     *
+     * @param i   L'indice de l'équation
+     * @param row La ligne (le bit j correspond à l'inconnue j)
+     */
+    void addRow(int i, long[] row) {
+        for (int k = this.rowStart[i]; k < this.rowStart[i + 1]; k++) {
+            int j = this.columns[k];
+            row[j >>> 6] ^= 1L << j;
+        }
+    }
+
+    /**
+     * Renvoie les inconnues d'une équation.
+     *
+     * @param i L'indice de l'équation
+     * @return Les inconnues de l'équation (triées, copie)
+     */
+    int[] row(int i) {
+        return Arrays.copyOfRange(this.columns, this.rowStart[i], this.rowStart[i + 1]);
+    }
+
+    /**
+     * Calcule une empreinte de la matrice, indépendante de la JVM (calculée
+     * sur les inconnues triées de chaque équation).
+     *
+     * @return L'empreinte de la matrice
+     */
+    long fingerprint() {
+        // graine non nulle : une matrice vide ou nulle ne donne pas 0
+        long hash = 0x6A09E667F3BCC908L ^ this.size;
+        for (int i = 0; i < this.size; i++) {
+            hash = Long.rotateLeft((hash ^ (this.rowStart[i + 1] - this.rowStart[i])) * 0x9E3779B97F4A7C15L, 31);
+            for (int k = this.rowStart[i]; k < this.rowStart[i + 1]; k++) {
+                hash = Long.rotateLeft((hash ^ this.columns[k]) * 0x9E3779B97F4A7C15L, 31);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Renvoie vrai si deux matrices ont exactement les mêmes coefficients
+     * (l'empreinte ne fait que les distinguer rapidement).
+     *
+     * @param other L'autre matrice
+     * @return Vrai si les matrices sont égales
+     */
+    boolean sameStructure(SparseMatrix other) {
+        return this.size == other.size
+                && Arrays.equals(this.rowStart, other.rowStart)
+                && Arrays.equals(this.columns, other.columns);
+    }
+
+    /**
+     * Calcule y = A x sur des vecteurs blocs.
+     *
+     * @param x    Le vecteur bloc multiplié
+     * @param xOff La position du vecteur dans 'x'
+     * @param y    Le vecteur bloc résultat
+     * @param yOff La position du résultat dans 'y'
+     */
+    void multiply(long[] x, int xOff, long[] y, int yOff) {
+        for (int i = 0; i < this.size; i++) {
+            long sum = 0;
+            for (int k = this.rowStart[i]; k < this.rowStart[i + 1]; k++) {
+                sum ^= x[xOff + this.columns[k]];
+            }
+            y[yOff + i] = sum;
+        }
+    }
+
+    /**
+     * Calcule y = transposée(A) x sur des vecteurs blocs.
+     *
+     * @param x    Le vecteur bloc multiplié
+     * @param xOff La position du vecteur dans 'x'
+     * @param y    Le vecteur bloc résultat
+     * @param yOff La position du résultat dans 'y'
+     */
+    void multiplyTranspose(long[] x, int xOff, long[] y, int yOff) {
+        Arrays.fill(y, yOff, yOff + this.size, 0L);
+        for (int i = 0; i < this.size; i++) {
+            long value = x[xOff + i];
+            if (value != 0) {
+                for (int k = this.rowStart[i]; k < this.rowStart[i + 1]; k++) {
+                    y[yOff + this.columns[k]] ^= value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applique l'opérateur symétrique associé à la matrice A : A elle-même si
+     * elle est symétrique, sinon la matrice [[0, tA], [A, 0]] de dimension
+     * double (le vecteur (x, u) donne (tA u, A x)). Résoudre ce système avec
+     * le second membre (0, b) donne en x une solution de A x = b.
+     *
+     * @param in  Le vecteur bloc multiplié (taille dimension())
+     * @param out Le vecteur bloc résultat (taille dimension())
+     */
+    void applySymmetric(long[] in, long[] out) {
+        if (this.symmetric) {
+            multiply(in, 0, out, 0);
+        } else {
+            multiplyTranspose(in, this.size, out, 0);
+            multiply(in, 0, out, this.size);
+        }
+    }
+
+    /**
+     * Vérifie la symétrie de la matrice (chaque coefficient (i, j) a son
+     * symétrique (j, i), recherché par dichotomie).
+     *
+     * @return Vrai si la matrice est symétrique
+     */
+    private boolean checkSymmetric() {
+        for (int i = 0; i < this.size; i++) {
+            for (int k = this.rowStart[i]; k < this.rowStart[i + 1]; k++) {
+                int j = this.columns[k];
+                if (Arrays.binarySearch(this.columns, this.rowStart[j], this.rowStart[j + 1], i) < 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
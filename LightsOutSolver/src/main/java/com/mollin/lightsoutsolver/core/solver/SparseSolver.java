@@ -0,0 +1,254 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+/**
+ * Solveur itératif pour les très grandes grilles. Contrairement au Solver,
+ * le système n'est jamais stocké sous forme dense : la matrice creuse
+ * (environ 5 coefficients par équation pour le pattern classique) et
+ * quelques vecteurs suffisent, ce qui permet de résoudre des grilles de
+ * 1000 x 1000 avec un tas de taille ordinaire. La résolution utilise
+ * l'algorithme de Lanczos par blocs (cf : BlockLanczos), relancé avec
+ * d'autres blocs aléatoires tant que de nouveaux vecteurs du noyau sont
+ * trouvés.
+ * <p>
+ * L'algorithme est probabiliste : une solution trouvée est toujours exacte,
+ * l'absence de solution est prouvée par un vecteur du noyau, seule la
+ * complétude de la base du noyau n'est garantie qu'avec une grande
+ * probabilité.
+ *
+ * @author MOLLIN Florian
+ */
+public class SparseSolver {
+    /**
+     * Graine par défaut du générateur aléatoire (résultats reproductibles)
+     */
+    private static final long DEFAULT_SEED = 0x4C4F5353L;
+    /**
+     * Nombre maximum d'exécutions de l'algorithme
+     */
+    private static final int MAX_RUNS = 32;
+    /**
+     * Grille de départ (à résoudre)
+     */
+    private final GridInterface startGrid;
+    /**
+     * Grille de fin (objectif)
+     */
+    private final GridInterface endGrid;
+    /**
+     * Matrice creuse du système
+     */
+    private final SparseMatrix matrix;
+    /**
+     * Graine du générateur aléatoire
+     */
+    private final long seed;
+    /**
+     * Vrai si la résolution a déjà été effectuée
+     */
+    private boolean solved;
+    /**
+     * Espace des solutions (null si le système est impossible)
+     */
+    private SolutionSpace solutionSpace;
+
+    /**
+     * Constructeur du solveur.
+     *
+     * @param startGrid Grille de départ à partir de laquelle trouver la
+     *                  solution
+     * @param endGrid   Grille à atteindre
+     * @param pattern   Pattern utilisé dans la grille
+     * @param seed      Graine du générateur aléatoire
+     */
+    public SparseSolver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern, long seed) {
+        this.startGrid = startGrid;
+        this.endGrid = endGrid;
+        this.matrix = SparseMatrix.of(startGrid.rows(), startGrid.columns(), pattern);
+        this.seed = seed;
+    }
+
+    /**
+     * Constructeur du solveur.
+     *
+     * @param startGrid Grille de départ à partir de laquelle trouver la
+     *                  solution
+     * @param endGrid   Grille à atteindre
+     * @param pattern   Pattern utilisé dans la grille
+     */
+    public SparseSolver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        this(startGrid, endGrid, pattern, DEFAULT_SEED);
+    }
+
+    /**
+     * Constructeur du solveur. La grille à atteindre est la grille par défaut
+     * (toutes les cases allumées).
+     *
+     * @param startGrid Grille de départ à partir de laquelle trouver la
+     *                  solution
+     * @param pattern   Pattern utilisé dans la grille
+     */
+    public SparseSolver(GridInterface startGrid, PatternInterface pattern) {
+        this(startGrid, GridUtils.getFullGrid(startGrid.rows(), startGrid.columns()), pattern);
+    }
+
+    /**
+     * Renvoie l'espace des solutions (solution particulière et base du
+     * noyau).
+     *
+     * @return L'espace des solutions (l'optionnel sera vide si il n'y a pas de
+     * solution au système)
+     * @throws IllegalStateException Si l'algorithme n'a pas abouti après
+     *                               plusieurs exécutions
+     */
+    public synchronized Optional<SolutionSpace> getSolutionSpace() {
+        if (!this.solved) {
+            this.solutionSpace = computeSolutionSpace();
+            this.solved = true;
+        }
+        return Optional.ofNullable(this.solutionSpace);
+    }
+
+    /**
+     * Cherche une solution permettant de résoudre le système.
+     *
+     * @return Une solution permettant de résoudre le système (l'optionnel sera
+     * vide si il n'y a pas de solution au système)
+     */
+    public Optional<Solution> findFirstSolution() {
+        return getSolutionSpace().map(space -> space.solutionAt(0));
+    }
+
+    /**
+     * Exécute l'algorithme de Lanczos jusqu'à obtenir une solution
+     * particulière (ou la preuve qu'il n'y en a pas) et une base du noyau
+     * stable d'une exécution à l'autre.
+     *
+     * @return L'espace des solutions, ou null si le système est impossible
+     */
+    private SolutionSpace computeSolutionSpace() {
+        int size = this.matrix.size();
+        BlockLanczos lanczos = new BlockLanczos(this.matrix);
+        int dimension = lanczos.dimension();
+        // second membre (0, b) si l'opérateur est de dimension double
+        long[] rhs = new long[ReducedSystem.words(dimension)];
+        int offset = dimension - size;
+        int cols = this.startGrid.columns();
+        for (int i = 0; i < size; i++) {
+            Coord coord = Coord.of(i / cols, i % cols);
+            if (this.startGrid.isActivated(coord) ^ this.endGrid.isActivated(coord)) {
+                rhs[(offset + i) >>> 6] |= 1L << (offset + i);
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(this.seed);
+        List<long[]> basis = new ArrayList<>();
+        List<Integer> pivots = new ArrayList<>();
+        long[] particular = null;
+        boolean stable = false;
+        for (int run = 0; run < MAX_RUNS && !(stable && particular != null); run++) {
+            BlockLanczos.Result result = lanczos.run(rhs, random);
+            if (result == null) {
+                continue;
+            }
+            stable = true;
+            for (long[] vector : result.kernel) {
+                if (insert(basis, pivots, vector)) {
+                    stable = false;
+                    if (dot(vector, rhs)) {
+                        // M symétrique : b orthogonal au noyau si b est dans l'image
+                        return null;
+                    }
+                }
+            }
+            if (particular == null) {
+                particular = result.particular;
+            }
+        }
+        if (particular == null) {
+            throw new IllegalStateException("Block Lanczos did not converge after " + MAX_RUNS + " runs");
+        }
+
+        // seules les 'size' premières composantes forment la solution
+        int words = SolutionSpace.words(size);
+        List<long[]> kernel = new ArrayList<>();
+        List<Integer> kernelPivots = new ArrayList<>();
+        for (long[] vector : basis) {
+            insert(kernel, kernelPivots, truncate(vector, size, words));
+        }
+        return new SolutionSpace(this.startGrid.rows(), cols, truncate(particular, size, words),
+                kernel.toArray(new long[kernel.size()][]));
+    }
+
+    /**
+     * Ajoute un vecteur à une base échelonnée (chaque vecteur de la base a un
+     * bit pivot absent des vecteurs ajoutés après lui).
+     *
+     * @param basis  La base
+     * @param pivots Les bits pivots des vecteurs de la base
+     * @param vector Le vecteur à ajouter (modifié)
+     * @return Vrai si le vecteur était indépendant de la base
+     */
+    private static boolean insert(List<long[]> basis, List<Integer> pivots, long[] vector) {
+        for (int k = 0; k < basis.size(); k++) {
+            int pivot = pivots.get(k);
+            if ((vector[pivot >>> 6] >>> pivot & 1L) != 0) {
+                long[] other = basis.get(k);
+                for (int w = 0; w < vector.length; w++) {
+                    vector[w] ^= other[w];
+                }
+            }
+        }
+        for (int w = 0; w < vector.length; w++) {
+            if (vector[w] != 0) {
+                basis.add(vector);
+                pivots.add(w * Long.SIZE + Long.numberOfTrailingZeros(vector[w]));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Calcule le produit scalaire modulo 2 de deux vecteurs.
+     *
+     * @param a Le premier vecteur
+     * @param b Le second vecteur
+     * @return Vrai si le produit scalaire vaut 1
+     */
+    private static boolean dot(long[] a, long[] b) {
+        long parity = 0;
+        for (int w = 0; w < a.length; w++) {
+            parity ^= a[w] & b[w];
+        }
+        return (Long.bitCount(parity) & 1) == 1;
+    }
+
+    /**
+     * Conserve les 'size' premiers bits d'un vecteur.
+     *
+     * @param vector Le vecteur
+     * @param size   Le nombre de bits conservés
+     * @param words  Le nombre de mots du résultat
+     * @return Le vecteur tronqué
+     */
+    private static long[] truncate(long[] vector, int size, int words) {
+        long[] res = Arrays.copyOf(vector, words);
+        if (size % Long.SIZE != 0) {
+            res[words - 1] &= (1L << size) - 1;
+        }
+        return res;
+    }
+}
@@ -0,0 +1,131 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
+import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.Optional;
+
+/**
+ * Choix de la méthode de résolution la plus rapide d'après les estimations
+ * (cf : SolveCostEstimator), parmi celles dont la mémoire tient dans le
+ * budget du tas. La méthode de Lanczos n'est retenue que pour une seule
+ * solution : la base du noyau qu'elle calcule n'est complète qu'avec une
+ * grande probabilité, le nombre de solutions n'est donc pas garanti.
+ *
+ * @author MOLLIN Florian
+ */
+public class StrategySelector {
+    /**
+     * Mémoire du tas utilisable par une résolution (en octets)
+     */
+    private final long heapBudget;
+    /**
+     * Répertoire des fichiers temporaires de la triangularisation hors du
+     * tas
+     */
+    private final Path offHeapDirectory;
+
+    /**
+     * Constructeur du sélecteur.
+     *
+     * @param heapBudget       La mémoire du tas utilisable par une
+     *                         résolution (en octets)
+     * @param offHeapDirectory Le répertoire des fichiers temporaires (null
+     *                         pour ne pas triangulariser hors du tas)
+     */
+    public StrategySelector(long heapBudget, Path offHeapDirectory) {
+        this.heapBudget = heapBudget;
+        this.offHeapDirectory = offHeapDirectory;
+    }
+
+    /**
+     * Constructeur du sélecteur : la moitié de la taille maximale du tas et
+     * le répertoire temporaire du système.
+     */
+    public StrategySelector() {
+        this(Runtime.getRuntime().maxMemory() / 2, Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Choisit la méthode de résolution la plus rapide.
+     *
+     * @param rows         Le nombre de lignes de la grille
+     * @param columns      Le nombre de colonnes de la grille
+     * @param stencilSize  La taille du pattern (cf :
+     *                     SolveCostEstimator.stencilSize)
+     * @param maxSolutions Le nombre maximum de solutions demandées
+     * @return L'estimation de la méthode choisie (l'optionnel sera vide si
+     * aucune méthode ne tient dans le budget du tas)
+     */
+    public Optional<SolveEstimate> select(int rows, int columns, int stencilSize, long maxSolutions) {
+        return SolveCostEstimator.estimateAll(rows, columns, stencilSize, maxSolutions).stream()
+                .filter(estimate -> estimate.getStrategy() != SolveStrategy.LANCZOS || maxSolutions == 1)
+                .filter(estimate -> estimate.getStrategy() != SolveStrategy.OFF_HEAP || this.offHeapDirectory != null)
+                .filter(estimate -> estimate.getHeapBytes() <= this.heapBudget)
+                .min(Comparator.comparingLong(SolveEstimate::getTotalNanos));
+    }
+
+    /**
+     * Résout une grille avec la méthode la plus rapide.
+     *
+     * @param startGrid    Grille de départ
+     * @param endGrid      Grille à atteindre
+     * @param pattern      Pattern utilisé dans la grille
+     * @param maxSolutions Le nombre maximum de solutions à trouver (si
+     *                     négatif, renvoit toutes les solutions)
+     * @return L'ensemble des solutions
+     * @throws IllegalStateException Si aucune méthode ne tient dans le budget
+     *                               du tas
+     */
+    public Solutions solve(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern,
+                           int maxSolutions) {
+        maxSolutions = (maxSolutions < 0) ? Integer.MAX_VALUE : maxSolutions;
+        int rows = startGrid.rows();
+        int columns = startGrid.columns();
+        SolveEstimate estimate = select(rows, columns, SolveCostEstimator.stencilSize(pattern), maxSolutions)
+                .orElseThrow(() -> new IllegalStateException("No strategy fits in " + this.heapBudget
+                        + " bytes for a " + rows + "x" + columns + " grid"));
+        switch (estimate.getStrategy()) {
+            case DENSE:
+                return new Solver(startGrid, endGrid, pattern, null).solve(maxSolutions);
+            case OFF_HEAP:
+                return new Solver(startGrid, endGrid, pattern, this.offHeapDirectory).solve(maxSolutions);
+            case SPARSE:
+                Solver solver = new Solver(startGrid, endGrid, pattern, null);
+                solver.setSparseElimination(true);
+                return solver.solve(maxSolutions);
+            case DISSECTION:
+                return toSolutions(new DissectionSolver(startGrid, endGrid, pattern).getSolutionSpace(),
+                        maxSolutions);
+            default:
+                return toSolutions(new SparseSolver(startGrid, endGrid, pattern).getSolutionSpace(), maxSolutions);
+        }
+    }
+
+    /**
+     * Calcule les premières solutions d'un espace de solutions.
+     *
+     * @param space        L'espace des solutions (vide si le système est
+     *                     impossible)
+     * @param maxSolutions Le nombre maximum de solutions
+     * @return L'ensemble des solutions
+     */
+    private static Solutions toSolutions(Optional<SolutionSpace> space, int maxSolutions) {
+        if (!space.isPresent()) {
+            return new Solutions(0);
+        }
+        BigInteger nbSolutions = space.get().getNbSolutions();
+        Solutions solutions = new Solutions(nbSolutions);
+        long end = nbSolutions.min(BigInteger.valueOf(maxSolutions)).longValue();
+        for (long index = 0; index < end; index++) {
+            solutions.addSolution(space.get().solutionAt(index));
+        }
+        return solutions;
+    }
+}
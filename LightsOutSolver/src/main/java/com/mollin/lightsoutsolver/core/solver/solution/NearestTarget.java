@@ -0,0 +1,113 @@
+package com.mollin.lightsoutsolver.core.solver.solution;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Grille atteignable la plus proche d'une grille à atteindre impossible (en
+ * nombre de cases différentes), avec une solution permettant de l'atteindre.
+ * Si la grille demandée est atteignable, il s'agit de cette grille (aucune
+ * case différente).
+ *
+ * @author MOLLIN Florian
+ */
+public class NearestTarget {
+    /**
+     * Grille atteignable
+     */
+    private final GridInterface endGrid;
+    /**
+     * Cases dont l'état diffère de la grille demandée
+     */
+    private final Set<Coord> changedCells;
+    /**
+     * Solution permettant d'atteindre la grille
+     */
+    private final Solution solution;
+    /**
+     * Nombre de solutions permettant d'atteindre la grille
+     */
+    private final BigInteger nbSolutions;
+    /**
+     * Vrai si aucune grille atteignable n'est plus proche
+     */
+    private final boolean optimal;
+
+    /**
+     * Constructeur de la grille atteignable.
+     *
+     * @param endGrid      La grille atteignable
+     * @param changedCells Les cases dont l'état diffère de la grille demandée
+     * @param solution     Une solution permettant d'atteindre la grille
+     * @param nbSolutions  Le nombre de solutions permettant de l'atteindre
+     * @param optimal      Vrai si aucune grille atteignable n'est plus proche
+     */
+    public NearestTarget(GridInterface endGrid, Set<Coord> changedCells, Solution solution, BigInteger nbSolutions,
+                         boolean optimal) {
+        this.endGrid = endGrid;
+        this.changedCells = Collections.unmodifiableSet(changedCells);
+        this.solution = solution;
+        this.nbSolutions = nbSolutions;
+        this.optimal = optimal;
+    }
+
+    /**
+     * Renvoie la grille atteignable.
+     *
+     * @return La grille
+     */
+    public GridInterface getEndGrid() {
+        return this.endGrid;
+    }
+
+    /**
+     * Renvoie les cases dont l'état diffère de la grille demandée.
+     *
+     * @return Les cases (non modifiable)
+     */
+    public Set<Coord> getChangedCells() {
+        return this.changedCells;
+    }
+
+    /**
+     * Renvoie le nombre de cases dont l'état diffère de la grille demandée.
+     *
+     * @return La distance à la grille demandée
+     */
+    public int getDistance() {
+        return this.changedCells.size();
+    }
+
+    /**
+     * Renvoie une solution permettant d'atteindre la grille.
+     *
+     * @return La solution
+     */
+    public Solution getSolution() {
+        return this.solution;
+    }
+
+    /**
+     * Renvoie le nombre de solutions permettant d'atteindre la grille.
+     *
+     * @return Le nombre de solutions
+     */
+    public BigInteger getNbSolutions() {
+        return this.nbSolutions;
+    }
+
+    /**
+     * Renvoie vrai si aucune grille atteignable n'est plus proche de la
+     * grille demandée (recherche exhaustive). Sinon la grille a été trouvée
+     * par une recherche heuristique bornée.
+     *
+     * @return Vrai si la distance est minimale
+     */
+    public boolean isOptimal() {
+        return this.optimal;
+    }
+}
@@ -1,5 +1,6 @@
 package com.mollin.lightsoutsolver.core.solver.solution;
 
+import com.mollin.lightsoutsolver.core.render.TextRenderer;
 import com.mollin.lightsoutsolver.core.utils.Coord;
 
 import java.util.Arrays;
@@ -41,27 +42,44 @@ public class Solution extends HashSet<Coord> {
         super(Arrays.asList(coords));
     }
 
+    /**
+     * Constructeur d'une solution à partir de bits compactés (la case (r, c)
+     * correspond au bit r * columns + c). Les bits au delà de la grille sont
+     * ignorés.
+     *
+     * @param words   Les bits des cases sur lesquelles appliquer le pattern
+     * @param rows    Le nombre de lignes de la grille
+     * @param columns Le nombre de colonnes de la grille
+     */
+    public Solution(long[] words, int rows, int columns) {
+        super();
+        int size = rows * columns;
+        for (int w = 0; w < words.length && w * Long.SIZE < size; w++) {
+            long word = words[w];
+            while (word != 0) {
+                int index = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                if (index >= size) {
+                    break;
+                }
+                this.add(Coord.of(index / columns, index % columns));
+                word &= word - 1;
+            }
+        }
+    }
+
     @Override
     public String toString() {
         if (this.isEmpty()) {
             return "[]";
         }
-        StringBuilder res = new StringBuilder();
         int maxRow = 0;
         int maxCol = 0;
         for (Coord coord : this) {
             maxRow = Integer.max(maxRow, coord.getRow());
             maxCol = Integer.max(maxCol, coord.getColumn());
         }
-        for (int r = 0; r <= maxRow; r++) {
-            for (int c = 0; c <= maxCol; c++) {
-                Coord coord = Coord.of(r, c);
-                res.append(this.contains(coord) ? "X " : "_ ");
-            }
-            if (r != maxRow) {
-                res.append("\n");
-            }
-        }
+        StringBuilder res = new StringBuilder((maxRow + 1) * (2 * maxCol + 3));
+        TextRenderer.render(this, maxRow + 1, maxCol + 1, res);
         return res.toString();
     }
 }
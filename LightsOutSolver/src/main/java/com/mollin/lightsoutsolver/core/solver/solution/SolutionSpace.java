@@ -0,0 +1,228 @@
+package com.mollin.lightsoutsolver.core.solver.solution;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+/**
+ * Représentation compacte de l'ensemble des solutions d'une grille : une
+ * solution particulière et une base du noyau du système. Toute solution
+ * s'écrit comme la solution particulière combinée (xor) avec une partie des
+ * vecteurs de la base. Le bit i de l'indice d'une solution indique si le
+ * i-ème vecteur de la base est utilisé.
+ * <p>
+ * Les vecteurs sont des bits compactés dans des tableaux de 'long', la case
+ * (r, c) correspondant au bit r * columns + c.
+ *
+ * @author MOLLIN Florian
+ */
+public class SolutionSpace implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /**
+     * Nombre de lignes de la grille
+     */
+    private final int rows;
+    /**
+     * Nombre de colonnes de la grille
+     */
+    private final int columns;
+    /**
+     * Solution particulière (solution d'indice 0)
+     */
+    private final long[] particular;
+    /**
+     * Base du noyau du système (un vecteur par inconnue non fixée)
+     */
+    private final long[][] kernel;
+
+    /**
+     * Constructeur de l'espace des solutions.
+     *
+     * @param rows       Le nombre de lignes de la grille
+     * @param columns    Le nombre de colonnes de la grille
+     * @param particular La solution particulière (bits compactés)
+     * @param kernel     La base du noyau (bits compactés)
+     */
+    public SolutionSpace(int rows, int columns, long[] particular, long[][] kernel) {
+        this.rows = rows;
+        this.columns = columns;
+        this.particular = particular;
+        this.kernel = kernel;
+    }
+
+    /**
+     * Renvoie le nombre de mots (long) nécessaires pour représenter une
+     * solution d'une grille de 'size' cases.
+     *
+     * @param size Le nombre de cases de la grille
+     * @return Le nombre de mots
+     */
+    public static int words(int size) {
+        return (size + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Renvoie le nombre de lignes de la grille.
+     *
+     * @return Le nombre de lignes
+     */
+    public int rows() {
+        return this.rows;
+    }
+
+    /**
+     * Renvoie le nombre de colonnes de la grille.
+     *
+     * @return Le nombre de colonnes
+     */
+    public int columns() {
+        return this.columns;
+    }
+
+    /**
+     * Renvoie la dimension du noyau (nombre d'inconnues non fixées).
+     *
+     * @return La dimension du noyau
+     */
+    public int getNullity() {
+        return this.kernel.length;
+    }
+
+    /**
+     * Renvoie le nombre exact de solutions (2^dimension du noyau).
+     *
+     * @return Le nombre exact de solutions
+     */
+    public BigInteger getNbSolutions() {
+        return BigInteger.ONE.shiftLeft(this.kernel.length);
+    }
+
+    /**
+     * Renvoie la solution particulière (bits compactés). Le tableau renvoyé
+     * est une copie.
+     *
+     * @return La solution particulière
+     */
+    public long[] getParticular() {
+        return this.particular.clone();
+    }
+
+    /**
+     * Renvoie le i-ème vecteur de la base du noyau (bits compactés). Le
+     * tableau renvoyé est une copie.
+     *
+     * @param i L'indice du vecteur
+     * @return Le vecteur de la base
+     */
+    public long[] getKernelVector(int i) {
+        return this.kernel[i].clone();
+    }
+
+    /**
+     * Calcule la solution d'indice donné en O(n * nullité / 64).
+     *
+     * @param index L'indice de la solution (entre 0 et 2^nullité exclu)
+     * @return La solution correspondante
+     */
+    public Solution solutionAt(BigInteger index) {
+        checkIndex(index);
+        long[] words = this.particular.clone();
+        for (int i = 0; i < this.kernel.length; i++) {
+            if (index.testBit(i)) {
+                xor(words, this.kernel[i]);
+            }
+        }
+        return new Solution(words, this.rows, this.columns);
+    }
+
+    /**
+     * Calcule la solution d'indice donné en O(n * nullité / 64).
+     *
+     * @param index L'indice de la solution (entre 0 et 2^nullité exclu)
+     * @return La solution correspondante
+     */
+    public Solution solutionAt(long index) {
+        return solutionAt(BigInteger.valueOf(index));
+    }
+
+    /**
+     * Cherche une solution utilisant le moins de cases possible. Si la
+     * dimension du noyau est inférieure ou égale à 'maxExhaustiveNullity',
+     * toutes les solutions sont parcourues (code de Gray : un seul xor par
+     * solution). Sinon, une recherche locale ajoute les vecteurs du noyau tant
+     * que cela diminue le nombre de cases : la solution obtenue n'est alors
+     * pas forcément minimale.
+     *
+     * @param maxExhaustiveNullity La dimension maximale du noyau pour une
+     *                             recherche exhaustive
+     * @return Une solution de poids minimal (ou approché)
+     */
+    public Solution getMinimalSolution(int maxExhaustiveNullity) {
+        long[] current = this.particular.clone();
+        long[] best = current.clone();
+        int bestWeight = weight(best);
+        if (this.kernel.length <= maxExhaustiveNullity) {
+            long count = 1L << this.kernel.length;
+            for (long step = 1; step < count; step++) {
+                xor(current, this.kernel[Long.numberOfTrailingZeros(step)]);
+                int currentWeight = weight(current);
+                if (currentWeight < bestWeight) {
+                    bestWeight = currentWeight;
+                    System.arraycopy(current, 0, best, 0, current.length);
+                }
+            }
+        } else {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                for (long[] vector : this.kernel) {
+                    xor(best, vector);
+                    int candidateWeight = weight(best);
+                    if (candidateWeight < bestWeight) {
+                        bestWeight = candidateWeight;
+                        improved = true;
+                    } else {
+                        xor(best, vector);
+                    }
+                }
+            }
+        }
+        return new Solution(best, this.rows, this.columns);
+    }
+
+    /**
+     * Renvoie le nombre de bits à 1 d'un vecteur.
+     *
+     * @param words Le vecteur de bits
+     * @return Le nombre de bits à 1
+     */
+    private static int weight(long[] words) {
+        int weight = 0;
+        for (long word : words) {
+            weight += Long.bitCount(word);
+        }
+        return weight;
+    }
+
+    /**
+     * Vérifie qu'un indice de solution est valide.
+     *
+     * @param index L'indice à vérifier
+     */
+    private void checkIndex(BigInteger index) {
+        if (index.signum() < 0 || index.bitLength() > this.kernel.length) {
+            throw new IllegalArgumentException("Invalid solution index " + index + " (nullity " + this.kernel.length + ")");
+        }
+    }
+
+    /**
+     * Effectue un xor mot à mot du vecteur 'source' dans le vecteur 'target'.
+     *
+     * @param target Le vecteur modifié
+     * @param source Le vecteur à combiner
+     */
+    private static void xor(long[] target, long[] source) {
+        for (int w = 0; w < target.length; w++) {
+            target[w] ^= source[w];
+        }
+    }
+}
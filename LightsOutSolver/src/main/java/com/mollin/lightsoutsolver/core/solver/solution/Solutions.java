@@ -1,5 +1,6 @@
 package com.mollin.lightsoutsolver.core.solver.solution;
 
+import java.math.BigInteger;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -13,7 +14,7 @@ public class Solutions {
      * Le nombre total de solutions différentes pour résoudre la grille. (Peut
      * etre différent du nombre de solutions calculées)
      */
-    private final long nbSolutions;
+    private final BigInteger nbSolutions;
     /**
      * Ensemble des solutions calculées (la taille de cet ensemble est inférieur
      * ou égal au nombre de solutions différentes total)
@@ -28,6 +29,17 @@ public class Solutions {
      *                    grille
      */
     public Solutions(long nbSolutions) {
+        this(BigInteger.valueOf(nbSolutions));
+    }
+
+    /**
+     * Constructeur d'un ensemble de solutions. L'ensemble de solutions ne
+     * contiendra pas de solution calculée (qui seront à ajouter par la suite)
+     *
+     * @param nbSolutions Le nombre exact de solutions différentes pour
+     *                    résoudre la grille
+     */
+    public Solutions(BigInteger nbSolutions) {
         this.nbSolutions = nbSolutions;
         this.computedSolutions = new HashSet<>();
     }
@@ -35,11 +47,21 @@ public class Solutions {
     /**
      * Renvoie le nombre total de solutions de la grille. Ce nombre peut etre
      * différent du nombre de solutions calculées. Il s'agit du nombre réél de
-     * solutions
+     * solutions. Le nombre est saturé à Long.MAX_VALUE s'il ne tient pas sur
+     * un 'long' (cf : getExactNbSolutions).
      *
      * @return Le nombre total de solutions
      */
     public long getNbSolutions() {
+        return (this.nbSolutions.bitLength() < Long.SIZE) ? this.nbSolutions.longValue() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Renvoie le nombre exact de solutions de la grille.
+     *
+     * @return Le nombre exact de solutions
+     */
+    public BigInteger getExactNbSolutions() {
         return this.nbSolutions;
     }
 
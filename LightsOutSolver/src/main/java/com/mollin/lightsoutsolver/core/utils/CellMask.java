@@ -0,0 +1,233 @@
+package com.mollin.lightsoutsolver.core.utils;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Forme d'une grille : cases existantes (vivantes) parmi les cases du
+ * rectangle englobant, pour les grilles non rectangulaires ou trouées. Les
+ * cases vivantes sont numérotées de manière compacte (dans l'ordre des
+ * lignes), ce qui permet au solveur de ne créer qu'une inconnue et une
+ * équation par case vivante.
+ *
+ * @author MOLLIN Florian
+ */
+public class CellMask {
+    /**
+     * Nombre de lignes du rectangle englobant
+     */
+    private final int rows;
+    /**
+     * Nombre de colonnes du rectangle englobant
+     */
+    private final int columns;
+    /**
+     * Indice compact de chaque case du rectangle (r * columns + c), -1 pour
+     * une case morte (null si toutes les cases sont vivantes)
+     */
+    private final int[] compactIndex;
+    /**
+     * Case du rectangle (r * columns + c) de chaque indice compact (null si
+     * toutes les cases sont vivantes)
+     */
+    private final int[] cells;
+
+    /**
+     * Constructeur de la forme.
+     *
+     * @param rows         Le nombre de lignes du rectangle englobant
+     * @param columns      Le nombre de colonnes du rectangle englobant
+     * @param compactIndex L'indice compact de chaque case (ou null)
+     * @param cells        La case de chaque indice compact (ou null)
+     */
+    private CellMask(int rows, int columns, int[] compactIndex, int[] cells) {
+        this.rows = rows;
+        this.columns = columns;
+        this.compactIndex = compactIndex;
+        this.cells = cells;
+    }
+
+    /**
+     * Retourne la forme rectangulaire (toutes les cases vivantes).
+     *
+     * @param rows    Le nombre de lignes de la grille
+     * @param columns Le nombre de colonnes de la grille
+     * @return La forme rectangulaire
+     */
+    public static CellMask full(int rows, int columns) {
+        return new CellMask(rows, columns, null, null);
+    }
+
+    /**
+     * Retourne la forme dont les cases vivantes sont données.
+     *
+     * @param rows      Le nombre de lignes du rectangle englobant
+     * @param columns   Le nombre de colonnes du rectangle englobant
+     * @param liveCells Les cases vivantes (le bit r * columns + c correspond
+     *                  à la case (r, c))
+     * @return La forme
+     */
+    public static CellMask of(int rows, int columns, BitSet liveCells) {
+        int size = rows * columns;
+        int nbLive = liveCells.get(0, size).cardinality();
+        if (nbLive == size) {
+            return full(rows, columns);
+        }
+        int[] compactIndex = new int[size];
+        int[] cells = new int[nbLive];
+        Arrays.fill(compactIndex, -1);
+        int index = 0;
+        for (int i = liveCells.nextSetBit(0); i >= 0 && i < size; i = liveCells.nextSetBit(i + 1)) {
+            compactIndex[i] = index;
+            cells[index++] = i;
+        }
+        return new CellMask(rows, columns, compactIndex, cells);
+    }
+
+    /**
+     * Retourne la forme rectangulaire privée des cases données (trous).
+     *
+     * @param rows    Le nombre de lignes du rectangle englobant
+     * @param columns Le nombre de colonnes du rectangle englobant
+     * @param holes   Les cases mortes
+     * @return La forme
+     */
+    public static CellMask withHoles(int rows, int columns, Coord... holes) {
+        BitSet liveCells = new BitSet(rows * columns);
+        liveCells.set(0, rows * columns);
+        Coord maxCoord = Coord.of(rows - 1, columns - 1);
+        for (Coord hole : holes) {
+            if (hole.isBetween(Coord.of(0, 0), maxCoord)) {
+                liveCells.clear(hole.getRow() * columns + hole.getColumn());
+            }
+        }
+        return of(rows, columns, liveCells);
+    }
+
+    /**
+     * Retourne la forme décrite par une chaîne de '0' (case morte) et de '1'
+     * (case vivante), une par case du rectangle, ligne après ligne.
+     *
+     * @param rows    Le nombre de lignes du rectangle englobant
+     * @param columns Le nombre de colonnes du rectangle englobant
+     * @param bits    La chaîne décrivant la forme
+     * @return La forme
+     * @throws IllegalArgumentException Si la chaîne n'est pas valide
+     */
+    public static CellMask parse(int rows, int columns, String bits) {
+        if (bits.length() != rows * columns) {
+            throw new IllegalArgumentException("Expected " + rows * columns + " cells, got " + bits.length());
+        }
+        BitSet liveCells = new BitSet(bits.length());
+        for (int i = 0; i < bits.length(); i++) {
+            char ch = bits.charAt(i);
+            if (ch != '0' && ch != '1') {
+                throw new IllegalArgumentException("Invalid cell '" + ch + "'");
+            }
+            liveCells.set(i, ch == '1');
+        }
+        return of(rows, columns, liveCells);
+    }
+
+    /**
+     * Nombre de lignes du rectangle englobant
+     *
+     * @return Le nombre de lignes
+     */
+    public int rows() {
+        return this.rows;
+    }
+
+    /**
+     * Nombre de colonnes du rectangle englobant
+     *
+     * @return Le nombre de colonnes
+     */
+    public int columns() {
+        return this.columns;
+    }
+
+    /**
+     * Renvoie le nombre de cases vivantes.
+     *
+     * @return Le nombre de cases vivantes
+     */
+    public int size() {
+        return (this.cells == null) ? this.rows * this.columns : this.cells.length;
+    }
+
+    /**
+     * Renvoie vrai si toutes les cases du rectangle sont vivantes.
+     *
+     * @return Vrai si la forme est rectangulaire
+     */
+    public boolean isFull() {
+        return this.cells == null;
+    }
+
+    /**
+     * Renvoie l'indice compact d'une case.
+     *
+     * @param coord La coordonnée de la case
+     * @return L'indice compact (-1 si la case est morte ou hors du rectangle)
+     */
+    public int indexOf(Coord coord) {
+        int row = coord.getRow();
+        int col = coord.getColumn();
+        if (row < 0 || row >= this.rows || col < 0 || col >= this.columns) {
+            return -1;
+        }
+        int cell = row * this.columns + col;
+        return (this.compactIndex == null) ? cell : this.compactIndex[cell];
+    }
+
+    /**
+     * Renvoie la case d'indice compact donné.
+     *
+     * @param index L'indice compact
+     * @return La coordonnée de la case
+     */
+    public Coord coordOf(int index) {
+        int cell = (this.cells == null) ? index : this.cells[index];
+        return Coord.of(cell / this.columns, cell % this.columns);
+    }
+
+    /**
+     * Test si une case est vivante.
+     *
+     * @param coord La coordonnée de la case
+     * @return Vrai si la case est vivante
+     */
+    public boolean isLive(Coord coord) {
+        return indexOf(coord) >= 0;
+    }
+
+    /**
+     * Convertit un vecteur de bits compactés indicé par les cases vivantes en
+     * vecteur indicé par les cases du rectangle (bit r * columns + c). Les
+     * bits au delà des cases vivantes sont ignorés. Pour une forme
+     * rectangulaire, le vecteur est renvoyé tel quel.
+     *
+     * @param compact Le vecteur indicé par les cases vivantes
+     * @return Le vecteur indicé par les cases du rectangle
+     */
+    public long[] toGridWords(long[] compact) {
+        if (this.cells == null) {
+            return compact;
+        }
+        long[] words = new long[(this.rows * this.columns + Long.SIZE - 1) / Long.SIZE];
+        for (int w = 0; w < compact.length && w * Long.SIZE < this.cells.length; w++) {
+            long word = compact[w];
+            while (word != 0) {
+                int index = w * Long.SIZE + Long.numberOfTrailingZeros(word);
+                if (index >= this.cells.length) {
+                    break;
+                }
+                int cell = this.cells[index];
+                words[cell >>> 6] |= 1L << cell;
+                word &= word - 1;
+            }
+        }
+        return words;
+    }
+}
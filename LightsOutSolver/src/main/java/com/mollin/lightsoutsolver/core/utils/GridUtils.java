@@ -3,6 +3,7 @@ package com.mollin.lightsoutsolver.core.utils;
 import com.mollin.lightsoutsolver.core.base.GridInterface;
 
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 
 /**
@@ -106,4 +107,34 @@ public class GridUtils {
             }
         };
     }
+
+    /**
+     * Retourne une grille de taille définie dont les cases actives sont
+     * données par un ensemble de bits (la case (r, c) correspond au bit
+     * r * columns + c).
+     *
+     * @param rows    Le nombre le lignes de la grille
+     * @param columns Le nombre de colonnes de la grille
+     * @param bits    Les bits des cases actives
+     * @return La grille avec certaines cases actives
+     */
+    public static GridInterface getGridWithActivatedBits(int rows, int columns, BitSet bits) {
+        return new GridInterface() {
+            @Override
+            public int rows() {
+                return rows;
+            }
+
+            @Override
+            public int columns() {
+                return columns;
+            }
+
+            @Override
+            public boolean isActivated(Coord coord) {
+                return coord.isBetween(Coord.of(0, 0), Coord.of(rows - 1, columns - 1))
+                        && bits.get(coord.getRow() * columns + coord.getColumn());
+            }
+        };
+    }
 }
@@ -3,7 +3,10 @@ package com.mollin.lightsoutsolver.core.utils;
 import com.mollin.lightsoutsolver.core.base.PatternInterface;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 
 /**
  * Classe utilitaire pour les patterns
@@ -36,4 +39,16 @@ public class PatternUtils {
     public static PatternInterface getClassicPattern() {
         return CLASSIC_PATTERN;
     }
+
+    /**
+     * Retourne les patterns connus, indexés par leur identifiant (utilisé
+     * pour désigner un pattern dans une requête ou un fichier de grilles).
+     *
+     * @return La table (non modifiable) des patterns par identifiant
+     */
+    public static Map<String, PatternInterface> getPatterns() {
+        Map<String, PatternInterface> patterns = new HashMap<>();
+        patterns.put("classic", CLASSIC_PATTERN);
+        return Collections.unmodifiableMap(patterns);
+    }
 }
@@ -0,0 +1,73 @@
+package com.mollin.lightsoutsolver.corpus;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+
+/**
+ * Vue sur une grille d'un corpus projeté en mémoire. Les cases sont lues
+ * directement dans le fichier, sans copie.
+ *
+ * @author MOLLIN Florian
+ */
+public class CorpusGrid implements GridInterface {
+    /**
+     * Corpus contenant la grille
+     */
+    private final PuzzleCorpus corpus;
+    /**
+     * Nombre de lignes de la grille
+     */
+    private final int rows;
+    /**
+     * Nombre de colonnes de la grille
+     */
+    private final int columns;
+    /**
+     * Position des bits de la grille dans le fichier
+     */
+    private final long position;
+
+    /**
+     * Constructeur de la vue.
+     *
+     * @param corpus   Le corpus contenant la grille
+     * @param rows     Le nombre de lignes
+     * @param columns  Le nombre de colonnes
+     * @param position La position des bits de la grille dans le fichier
+     */
+    CorpusGrid(PuzzleCorpus corpus, int rows, int columns, long position) {
+        this.corpus = corpus;
+        this.rows = rows;
+        this.columns = columns;
+        this.position = position;
+    }
+
+    @Override
+    public int rows() {
+        return this.rows;
+    }
+
+    @Override
+    public int columns() {
+        return this.columns;
+    }
+
+    @Override
+    public boolean isActivated(Coord coord) {
+        if (coord.getRow() < 0 || coord.getRow() >= this.rows || coord.getColumn() < 0 || coord.getColumn() >= this.columns) {
+            return false;
+        }
+        int index = coord.getRow() * this.columns + coord.getColumn();
+        return (this.corpus.getLong(this.position + (index >>> 6) * 8L) >>> index & 1L) == 1L;
+    }
+
+    /**
+     * Renvoie le w-ième mot (64 cases) de la grille.
+     *
+     * @param w L'indice du mot
+     * @return Le mot
+     */
+    public long getWord(int w) {
+        return this.corpus.getLong(this.position + w * 8L);
+    }
+}
@@ -0,0 +1,256 @@
+package com.mollin.lightsoutsolver.corpus;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Corpus de grilles au format binaire, lu par projection mémoire
+ * (FileChannel.map). Les grilles ne sont pas désérialisées : chaque grille
+ * est une vue (GridInterface) lisant directement les bits du fichier.
+ * <p>
+ * Format (entiers en little-endian) :
+ * <ul>
+ * <li>en-tête de HEADER_SIZE octets : MAGIC (int), VERSION (int), nombre de
+ * grilles (long), position de la table des patterns (long), nombre de
+ * patterns (int), 0 (int)</li>
+ * <li>table des dimensions : ENTRY_SIZE octets par grille : lignes (int),
+ * colonnes (int), indice du pattern (int), 0 (int), position des données
+ * (long)</li>
+ * <li>données : pour chaque grille, la grille de départ puis la grille
+ * d'arrivée en bits compactés dans ceil(n / 64) longs (la case (r, c)
+ * correspond au bit r * colonnes + c)</li>
+ * <li>table des patterns : pour chaque pattern, longueur (short) et
+ * identifiant (UTF-8)</li>
+ * </ul>
+ * Toutes les positions sont alignées sur 8 octets, ce qui permet de projeter
+ * les fichiers de plusieurs gigaoctets par segments sans qu'une lecture ne
+ * soit à cheval sur deux segments.
+ *
+ * @author MOLLIN Florian
+ */
+public class PuzzleCorpus implements Closeable {
+    /**
+     * Entier d'en-tête du format ("LOC1")
+     */
+    public static final int MAGIC = 0x4C4F4331;
+    /**
+     * Version du format
+     */
+    public static final int VERSION = 1;
+    /**
+     * Taille de l'en-tête (en octets)
+     */
+    public static final int HEADER_SIZE = 32;
+    /**
+     * Taille d'une entrée de la table des dimensions (en octets)
+     */
+    public static final int ENTRY_SIZE = 24;
+    /**
+     * Ordre des octets du format
+     */
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    /**
+     * Taille (puissance de 2) des segments projetés en mémoire
+     */
+    private static final int SEGMENT_SHIFT = 30;
+    /**
+     * Canal du fichier
+     */
+    private final FileChannel channel;
+    /**
+     * Segments projetés en mémoire
+     */
+    private final MappedByteBuffer[] segments;
+    /**
+     * Nombre de grilles du corpus
+     */
+    private final long size;
+    /**
+     * Identifiants des patterns
+     */
+    private final String[] patternIds;
+
+    /**
+     * Ouvre un corpus de grilles.
+     *
+     * @param path Le chemin du fichier
+     * @throws IOException Si le fichier ne peut pas être lu ou n'est pas un
+     *                     corpus valide
+     */
+    public PuzzleCorpus(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long fileSize = this.channel.size();
+            int nbSegments = (int) ((fileSize + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+            this.segments = new MappedByteBuffer[nbSegments];
+            for (int s = 0; s < nbSegments; s++) {
+                long position = (long) s << SEGMENT_SHIFT;
+                long length = Math.min(1L << SEGMENT_SHIFT, fileSize - position);
+                this.segments[s] = this.channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                this.segments[s].order(ORDER);
+            }
+            if (fileSize < HEADER_SIZE || getInt(0) != MAGIC) {
+                throw new IOException("Not a puzzle corpus : " + path);
+            }
+            if (getInt(4) != VERSION) {
+                throw new IOException("Unsupported puzzle corpus version " + getInt(4));
+            }
+            this.size = getLong(8);
+            this.patternIds = readPatternIds(getLong(16), getInt(24));
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lit la table des patterns.
+     *
+     * @param position La position de la table
+     * @param count    Le nombre de patterns
+     * @return Les identifiants des patterns
+     */
+    private String[] readPatternIds(long position, int count) {
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = getByte(position) & 0xFF | (getByte(position + 1) & 0xFF) << 8;
+            byte[] bytes = new byte[length];
+            for (int b = 0; b < length; b++) {
+                bytes[b] = getByte(position + 2 + b);
+            }
+            ids[i] = new String(bytes, StandardCharsets.UTF_8);
+            position += 2 + length;
+        }
+        return ids;
+    }
+
+    /**
+     * Renvoie le nombre de grilles du corpus.
+     *
+     * @return Le nombre de grilles
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Renvoie le nombre de lignes d'une grille.
+     *
+     * @param index Le numéro de la grille
+     * @return Le nombre de lignes
+     */
+    public int getRows(long index) {
+        return getInt(entry(index));
+    }
+
+    /**
+     * Renvoie le nombre de colonnes d'une grille.
+     *
+     * @param index Le numéro de la grille
+     * @return Le nombre de colonnes
+     */
+    public int getColumns(long index) {
+        return getInt(entry(index) + 4);
+    }
+
+    /**
+     * Renvoie l'identifiant du pattern d'une grille.
+     *
+     * @param index Le numéro de la grille
+     * @return L'identifiant du pattern
+     */
+    public String getPatternId(long index) {
+        return this.patternIds[getInt(entry(index) + 8)];
+    }
+
+    /**
+     * Renvoie une vue sur la grille de départ (aucune copie).
+     *
+     * @param index Le numéro de la grille
+     * @return La grille de départ
+     */
+    public GridInterface getStartGrid(long index) {
+        long entry = entry(index);
+        return new CorpusGrid(this, getInt(entry), getInt(entry + 4), getLong(entry + 16));
+    }
+
+    /**
+     * Renvoie une vue sur la grille d'arrivée (aucune copie).
+     *
+     * @param index Le numéro de la grille
+     * @return La grille d'arrivée
+     */
+    public GridInterface getEndGrid(long index) {
+        long entry = entry(index);
+        int rows = getInt(entry);
+        int columns = getInt(entry + 4);
+        return new CorpusGrid(this, rows, columns, getLong(entry + 16) + words(rows * columns) * 8L);
+    }
+
+    /**
+     * Renvoie le nombre de longs nécessaires pour une grille de 'size' cases.
+     *
+     * @param size Le nombre de cases
+     * @return Le nombre de longs
+     */
+    static int words(int size) {
+        return (size + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Renvoie la position de l'entrée d'une grille dans la table des
+     * dimensions.
+     *
+     * @param index Le numéro de la grille
+     * @return La position de l'entrée
+     */
+    private long entry(long index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Puzzle " + index + " (corpus size " + this.size + ")");
+        }
+        return HEADER_SIZE + index * ENTRY_SIZE;
+    }
+
+    /**
+     * Lit un octet du fichier.
+     *
+     * @param position La position de l'octet
+     * @return L'octet
+     */
+    private byte getByte(long position) {
+        return this.segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & ((1L << SEGMENT_SHIFT) - 1)));
+    }
+
+    /**
+     * Lit un entier du fichier (position alignée sur 4 octets).
+     *
+     * @param position La position de l'entier
+     * @return L'entier
+     */
+    private int getInt(long position) {
+        return this.segments[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & ((1L << SEGMENT_SHIFT) - 1)));
+    }
+
+    /**
+     * Lit un long du fichier (position alignée sur 8 octets).
+     *
+     * @param position La position du long
+     * @return Le long
+     */
+    long getLong(long position) {
+        return this.segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & ((1L << SEGMENT_SHIFT) - 1)));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,160 @@
+package com.mollin.lightsoutsolver.corpus;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ecriture d'un corpus de grilles au format binaire (cf : PuzzleCorpus). Le
+ * nombre de grilles est connu à l'avance afin de réserver la table des
+ * dimensions ; les grilles sont écrites au fil de l'eau.
+ *
+ * @author MOLLIN Florian
+ */
+public class PuzzleCorpusWriter implements Closeable {
+    /**
+     * Canal du fichier
+     */
+    private final FileChannel channel;
+    /**
+     * Nombre de grilles du corpus
+     */
+    private final long size;
+    /**
+     * Indice des patterns, par identifiant
+     */
+    private final Map<String, Integer> patternIndexes = new LinkedHashMap<>();
+    /**
+     * Nombre de grilles écrites
+     */
+    private long count;
+    /**
+     * Position des données de la prochaine grille
+     */
+    private long dataPosition;
+
+    /**
+     * Crée un corpus de grilles.
+     *
+     * @param path Le chemin du fichier (remplacé s'il existe)
+     * @param size Le nombre de grilles du corpus
+     * @throws IOException Si le fichier ne peut pas être créé
+     */
+    public PuzzleCorpusWriter(Path path, long size) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.size = size;
+        this.dataPosition = PuzzleCorpus.HEADER_SIZE + size * PuzzleCorpus.ENTRY_SIZE;
+    }
+
+    /**
+     * Ajoute une grille au corpus.
+     *
+     * @param patternId L'identifiant du pattern
+     * @param startGrid La grille de départ
+     * @param endGrid   La grille d'arrivée (de mêmes dimensions)
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    public void add(String patternId, GridInterface startGrid, GridInterface endGrid) throws IOException {
+        if (this.count >= this.size) {
+            throw new IllegalStateException("Corpus already contains " + this.size + " puzzles");
+        }
+        int rows = startGrid.rows();
+        int columns = startGrid.columns();
+        int words = PuzzleCorpus.words(rows * columns);
+        Integer patternIndex = this.patternIndexes.computeIfAbsent(patternId, id -> this.patternIndexes.size());
+
+        ByteBuffer entry = ByteBuffer.allocate(PuzzleCorpus.ENTRY_SIZE).order(PuzzleCorpus.ORDER);
+        entry.putInt(rows).putInt(columns).putInt(patternIndex).putInt(0).putLong(this.dataPosition);
+        entry.flip();
+        writeFully(entry, PuzzleCorpus.HEADER_SIZE + this.count * PuzzleCorpus.ENTRY_SIZE);
+
+        ByteBuffer data = ByteBuffer.allocate(2 * words * 8).order(PuzzleCorpus.ORDER);
+        putGrid(data, startGrid, words);
+        putGrid(data, endGrid, words);
+        data.flip();
+        writeFully(data, this.dataPosition);
+        this.dataPosition += data.capacity();
+        this.count++;
+    }
+
+    /**
+     * Ecrit les bits compactés d'une grille.
+     *
+     * @param data  Le tampon de destination
+     * @param grid  La grille
+     * @param words Le nombre de longs de la grille
+     */
+    private static void putGrid(ByteBuffer data, GridInterface grid, int words) {
+        int columns = grid.columns();
+        long[] bits = new long[words];
+        for (int r = 0; r < grid.rows(); r++) {
+            for (int c = 0; c < columns; c++) {
+                if (grid.isActivated(Coord.of(r, c))) {
+                    int index = r * columns + c;
+                    bits[index >>> 6] |= 1L << index;
+                }
+            }
+        }
+        for (long word : bits) {
+            data.putLong(word);
+        }
+    }
+
+    /**
+     * Ecrit entièrement un tampon à une position donnée.
+     *
+     * @param buffer   Le tampon
+     * @param position La position dans le fichier
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += this.channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Termine le corpus (table des patterns et en-tête) et ferme le fichier.
+     *
+     * @throws IOException En cas d'erreur d'écriture, ou si le nombre de
+     *                     grilles écrites ne correspond pas à celui annoncé
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (this.count != this.size) {
+                throw new IOException("Corpus declared " + this.size + " puzzles but " + this.count + " were written");
+            }
+            int tableSize = 0;
+            for (String id : this.patternIndexes.keySet()) {
+                tableSize += 2 + id.getBytes(StandardCharsets.UTF_8).length;
+            }
+            ByteBuffer table = ByteBuffer.allocate(tableSize).order(PuzzleCorpus.ORDER);
+            for (String id : this.patternIndexes.keySet()) {
+                byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+                table.putShort((short) bytes.length).put(bytes);
+            }
+            table.flip();
+            writeFully(table, this.dataPosition);
+
+            ByteBuffer header = ByteBuffer.allocate(PuzzleCorpus.HEADER_SIZE).order(PuzzleCorpus.ORDER);
+            header.putInt(PuzzleCorpus.MAGIC).putInt(PuzzleCorpus.VERSION)
+                    .putLong(this.size).putLong(this.dataPosition)
+                    .putInt(this.patternIndexes.size()).putInt(0);
+            header.flip();
+            writeFully(header, 0);
+        } finally {
+            this.channel.close();
+        }
+    }
+}
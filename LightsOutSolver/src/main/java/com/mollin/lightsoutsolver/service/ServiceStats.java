@@ -0,0 +1,154 @@
+package com.mollin.lightsoutsolver.service;
+
+import com.mollin.lightsoutsolver.core.solver.ReductionCache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistiques du service de résolution : nombre de requêtes, latences,
+ * requêtes regroupées, profondeur de la file d'attente des grandes grilles et
+ * utilisation du cache des triangularisations.
+ *
+ * @author MOLLIN Florian
+ */
+public class ServiceStats {
+    /**
+     * Nombre de requêtes traitées
+     */
+    private final LongAdder requests = new LongAdder();
+    /**
+     * Nombre de requêtes en erreur
+     */
+    private final LongAdder errors = new LongAdder();
+    /**
+     * Nombre de requêtes ayant réutilisé un calcul en cours
+     */
+    private final LongAdder coalesced = new LongAdder();
+    /**
+     * Somme des latences (en nanosecondes)
+     */
+    private final LongAdder totalLatency = new LongAdder();
+    /**
+     * Latence maximale (en nanosecondes)
+     */
+    private final AtomicLong maxLatency = new AtomicLong();
+    /**
+     * Nombre de calculs en cours
+     */
+    private final AtomicLong inFlight = new AtomicLong();
+    /**
+     * Nombre de requêtes en attente d'une place pour une grande grille
+     */
+    private final AtomicLong queued = new AtomicLong();
+    /**
+     * Profondeur maximale atteinte par la file d'attente
+     */
+    private final AtomicLong maxQueued = new AtomicLong();
+    /**
+     * Cache des triangularisations du service
+     */
+    private final ReductionCache reductionCache;
+
+    /**
+     * Constructeur des statistiques.
+     *
+     * @param reductionCache Le cache des triangularisations du service
+     */
+    ServiceStats(ReductionCache reductionCache) {
+        this.reductionCache = reductionCache;
+    }
+
+    /**
+     * Enregistre une requête terminée.
+     *
+     * @param latencyNanos La latence de la requête (en nanosecondes)
+     * @param error        Vrai si la requête a échoué
+     */
+    void recordRequest(long latencyNanos, boolean error) {
+        this.requests.increment();
+        if (error) {
+            this.errors.increment();
+        }
+        this.totalLatency.add(latencyNanos);
+        this.maxLatency.accumulateAndGet(latencyNanos, Math::max);
+    }
+
+    /**
+     * Enregistre une requête ayant réutilisé un calcul en cours.
+     */
+    void recordCoalesced() {
+        this.coalesced.increment();
+    }
+
+    /**
+     * Met à jour le nombre de calculs en cours.
+     *
+     * @param delta La variation (+1 ou -1)
+     */
+    void addInFlight(int delta) {
+        this.inFlight.addAndGet(delta);
+    }
+
+    /**
+     * Met à jour le nombre de requêtes en attente.
+     *
+     * @param delta La variation (+1 ou -1)
+     */
+    void addQueued(int delta) {
+        long depth = this.queued.addAndGet(delta);
+        this.maxQueued.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * Renvoie le nombre de requêtes traitées.
+     *
+     * @return Le nombre de requêtes
+     */
+    public long getRequests() {
+        return this.requests.sum();
+    }
+
+    /**
+     * Renvoie le nombre de requêtes ayant réutilisé un calcul en cours.
+     *
+     * @return Le nombre de requêtes regroupées
+     */
+    public long getCoalesced() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * Renvoie le nombre de requêtes en attente d'une place pour une grande
+     * grille.
+     *
+     * @return La profondeur de la file d'attente
+     */
+    public long getQueueDepth() {
+        return this.queued.get();
+    }
+
+    /**
+     * Renvoie les statistiques au format JSON.
+     *
+     * @return Les statistiques
+     */
+    public String toJson() {
+        long nbRequests = this.requests.sum();
+        long meanLatency = (nbRequests == 0) ? 0 : this.totalLatency.sum() / nbRequests;
+        return "{\"requests\":" + nbRequests
+                + ",\"errors\":" + this.errors.sum()
+                + ",\"coalesced\":" + this.coalesced.sum()
+                + ",\"inFlight\":" + this.inFlight.get()
+                + ",\"queueDepth\":" + this.queued.get()
+                + ",\"maxQueueDepth\":" + this.maxQueued.get()
+                + ",\"meanLatencyMicros\":" + TimeUnit.NANOSECONDS.toMicros(meanLatency)
+                + ",\"maxLatencyMicros\":" + TimeUnit.NANOSECONDS.toMicros(this.maxLatency.get())
+                + ",\"cacheHits\":" + this.reductionCache.getHits()
+                + ",\"cacheMisses\":" + this.reductionCache.getMisses()
+                + ",\"cacheEvictions\":" + this.reductionCache.getEvictions()
+                + ",\"cacheBytes\":" + this.reductionCache.getBytes()
+                + "}";
+    }
+}
@@ -0,0 +1,282 @@
+package com.mollin.lightsoutsolver.service;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Requête de résolution reçue par le service. Deux requêtes identiques
+ * (même opération, mêmes grilles, même pattern) sont égales, ce qui permet de
+ * regrouper les calculs en cours.
+ * <p>
+ * Les grilles sont données sous forme de chaînes de '0' et de '1' (une
+ * par case, ligne après ligne). Sans grille de départ, la grille est vide ;
+ * sans grille d'arrivée, la grille est pleine.
+ *
+ * @author MOLLIN Florian
+ */
+class SolveRequest {
+    /**
+     * Nombre maximum de cases d'une grille
+     */
+    static final int MAX_CELLS = 1 << 20;
+    /**
+     * Nombre maximum de solutions pouvant être demandées
+     */
+    static final int MAX_SOLUTIONS = 1 << 12;
+    /**
+     * Opération demandée (solve, count, first)
+     */
+    private final String operation;
+    /**
+     * Nombre de lignes de la grille
+     */
+    private final int rows;
+    /**
+     * Nombre de colonnes de la grille
+     */
+    private final int columns;
+    /**
+     * Identifiant du pattern
+     */
+    private final String patternId;
+    /**
+     * Grille de départ (chaîne de '0' et de '1')
+     */
+    private final String start;
+    /**
+     * Grille d'arrivée (chaîne de '0' et de '1')
+     */
+    private final String end;
+    /**
+     * Nombre maximum de solutions à renvoyer
+     */
+    private final int maxSolutions;
+
+    /**
+     * Constructeur d'une requête.
+     *
+     * @param operation    L'opération demandée
+     * @param rows         Le nombre de lignes
+     * @param columns      Le nombre de colonnes
+     * @param patternId    L'identifiant du pattern
+     * @param start        La grille de départ
+     * @param end          La grille d'arrivée
+     * @param maxSolutions Le nombre maximum de solutions à renvoyer
+     */
+    private SolveRequest(String operation, int rows, int columns, String patternId, String start, String end, int maxSolutions) {
+        this.operation = operation;
+        this.rows = rows;
+        this.columns = columns;
+        this.patternId = patternId;
+        this.start = start;
+        this.end = end;
+        this.maxSolutions = maxSolutions;
+    }
+
+    /**
+     * Construit une requête à partir des paramètres d'une URL
+     * (rows, columns, pattern, start, end, max).
+     *
+     * @param operation L'opération demandée
+     * @param query     La partie 'query' de l'URL (peut être null)
+     * @return La requête
+     * @throws IllegalArgumentException Si un paramètre est absent ou
+     *                                  invalide, si la grille a plus de
+     *                                  MAX_CELLS cases ou si plus de
+     *                                  MAX_SOLUTIONS solutions sont demandées
+     */
+    static SolveRequest parse(String operation, String query) {
+        Map<String, String> params = parseQuery(query);
+        int rows = parseInt(params, "rows", -1);
+        int columns = parseInt(params, "columns", -1);
+        if (!params.containsKey("rows") || !params.containsKey("columns")) {
+            throw new IllegalArgumentException("Parameters 'rows' and 'columns' are required");
+        }
+        if (rows <= 0 || columns <= 0 || (long) rows * columns > MAX_CELLS) {
+            throw new IllegalArgumentException("Invalid grid size " + rows + "x" + columns
+                    + " (at most " + MAX_CELLS + " cells)");
+        }
+        String start = checkGrid(params.get("start"), rows * columns, "start");
+        String end = checkGrid(params.get("end"), rows * columns, "end");
+        int maxSolutions = parseInt(params, "max", 1);
+        if (maxSolutions < 0 || maxSolutions > MAX_SOLUTIONS) {
+            throw new IllegalArgumentException("Parameter 'max' must be between 0 and " + MAX_SOLUTIONS);
+        }
+        return new SolveRequest(operation, rows, columns, params.getOrDefault("pattern", "classic"),
+                start, end, maxSolutions);
+    }
+
+    /**
+     * Découpe la partie 'query' d'une URL en paramètres.
+     *
+     * @param query La partie 'query' de l'URL (peut être null)
+     * @return La table des paramètres
+     */
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+        try {
+            for (String param : query.split("&")) {
+                int sep = param.indexOf('=');
+                if (sep > 0) {
+                    params.put(URLDecoder.decode(param.substring(0, sep), "UTF-8"),
+                            URLDecoder.decode(param.substring(sep + 1), "UTF-8"));
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return params;
+    }
+
+    /**
+     * Lit un paramètre entier.
+     *
+     * @param params       La table des paramètres
+     * @param name         Le nom du paramètre
+     * @param defaultValue La valeur par défaut
+     * @return La valeur du paramètre
+     */
+    private static int parseInt(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer parameter '" + name + "' : " + value);
+        }
+    }
+
+    /**
+     * Vérifie une grille donnée sous forme de chaîne de '0' et de '1'.
+     *
+     * @param grid La grille (peut être null)
+     * @param size Le nombre de cases attendu
+     * @param name Le nom du paramètre
+     * @return La grille vérifiée
+     */
+    private static String checkGrid(String grid, int size, String name) {
+        if (grid == null) {
+            return null;
+        }
+        if (grid.length() != size || !grid.chars().allMatch(ch -> ch == '0' || ch == '1')) {
+            throw new IllegalArgumentException("Parameter '" + name + "' must contain " + size + " '0'/'1' characters");
+        }
+        return grid;
+    }
+
+    /**
+     * Renvoie la grille correspondant à une chaîne de '0' et de '1'.
+     *
+     * @param grid          La grille sous forme de chaîne (peut être null)
+     * @param defaultActive L'état des cases si la grille n'est pas donnée
+     * @return La grille
+     */
+    private GridInterface toGrid(String grid, boolean defaultActive) {
+        if (grid == null) {
+            return defaultActive ? GridUtils.getFullGrid(this.rows, this.columns) : GridUtils.getEmptyGrid(this.rows, this.columns);
+        }
+        BitSet bits = new BitSet(grid.length());
+        for (int i = 0; i < grid.length(); i++) {
+            bits.set(i, grid.charAt(i) == '1');
+        }
+        return GridUtils.getGridWithActivatedBits(this.rows, this.columns, bits);
+    }
+
+    /**
+     * Renvoie l'opération demandée.
+     *
+     * @return L'opération
+     */
+    String getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Renvoie le nombre de lignes de la grille.
+     *
+     * @return Le nombre de lignes
+     */
+    int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Renvoie le nombre de colonnes de la grille.
+     *
+     * @return Le nombre de colonnes
+     */
+    int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Renvoie l'identifiant du pattern.
+     *
+     * @return L'identifiant du pattern
+     */
+    String getPatternId() {
+        return this.patternId;
+    }
+
+    /**
+     * Renvoie le nombre maximum de solutions à renvoyer.
+     *
+     * @return Le nombre maximum de solutions
+     */
+    int getMaxSolutions() {
+        return this.maxSolutions;
+    }
+
+    /**
+     * Renvoie la grille de départ.
+     *
+     * @return La grille de départ
+     */
+    GridInterface getStartGrid() {
+        return toGrid(this.start, false);
+    }
+
+    /**
+     * Renvoie la grille d'arrivée.
+     *
+     * @return La grille d'arrivée
+     */
+    GridInterface getEndGrid() {
+        return toGrid(this.end, true);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        SolveRequest other = (SolveRequest) obj;
+        return this.rows == other.rows
+                && this.columns == other.columns
+                && this.maxSolutions == other.maxSolutions
+                && this.operation.equals(other.operation)
+                && this.patternId.equals(other.patternId)
+                && Objects.equals(this.start, other.start)
+                && Objects.equals(this.end, other.end);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.operation, this.rows, this.columns, this.patternId, this.start, this.end, this.maxSolutions);
+    }
+}
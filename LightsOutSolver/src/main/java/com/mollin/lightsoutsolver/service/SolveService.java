@@ -0,0 +1,470 @@
+package com.mollin.lightsoutsolver.service;
+
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.solver.ReductionCache;
+import com.mollin.lightsoutsolver.core.solver.SolveCostEstimator;
+import com.mollin.lightsoutsolver.core.solver.SolveEstimate;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.StrategySelector;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+/**
+ * Service de résolution local, exposé via le serveur HTTP du JDK (aucune
+ * dépendance ni service externe). Les points d'accès sont :
+ * <ul>
+ * <li>/solve : nombre de solutions et au plus 'max' solutions</li>
+ * <li>/count : nombre de solutions</li>
+ * <li>/first : première solution</li>
+ * <li>/stats : statistiques du service</li>
+ * </ul>
+ * Les paramètres sont rows, columns, pattern, start, end et max (cf :
+ * SolveRequest).
+ * <p>
+ * Chaque requête est traitée sur son propre thread (thread virtuel si le JDK
+ * le permet). Les requêtes identiques en cours de calcul sont regroupées en un
+ * seul calcul, et le nombre de résolutions simultanées de grandes grilles est
+ * borné. Les triangularisations des autres grilles sont conservées dans un
+ * cache partagé par toutes les requêtes. Le coût de chaque requête est
+ * estimé avant sa résolution (cf : SolveCostEstimator) : les requêtes dont
+ * la durée estimée dépasse la limite du service sont refusées sans être
+ * mises en attente (limite par défaut : DEFAULT_MAX_ESTIMATED_NANOS). La
+ * taille des grilles et le nombre de solutions demandées sont bornés (cf :
+ * SolveRequest.MAX_CELLS et SolveRequest.MAX_SOLUTIONS).
+ *
+ * @author MOLLIN Florian
+ */
+public class SolveService {
+    /**
+     * Nombre de cases à partir duquel une grille est considérée comme grande
+     */
+    public static final int DEFAULT_LARGE_BOARD_CELLS = 50 * 50;
+    /**
+     * Durée estimée maximale par défaut d'une résolution (en nanosecondes)
+     */
+    public static final long DEFAULT_MAX_ESTIMATED_NANOS = TimeUnit.SECONDS.toNanos(10);
+    /**
+     * Serveur HTTP
+     */
+    private final HttpServer server;
+    /**
+     * Exécuteur des requêtes (un thread par requête)
+     */
+    private final ExecutorService executor;
+    /**
+     * Patterns disponibles, par identifiant
+     */
+    private final Map<String, PatternInterface> patterns;
+    /**
+     * Nombre de cases à partir duquel une grille est considérée comme grande
+     */
+    private final int largeBoardCells;
+    /**
+     * Limite du nombre de résolutions simultanées de grandes grilles
+     */
+    private final Semaphore largeBoardPermits;
+    /**
+     * Calculs en cours, par requête
+     */
+    private final ConcurrentMap<SolveRequest, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+    /**
+     * Cache des triangularisations des grilles qui ne sont pas grandes
+     */
+    private final ReductionCache reductionCache = new ReductionCache();
+    /**
+     * Statistiques du service
+     */
+    private final ServiceStats stats = new ServiceStats(this.reductionCache);
+    /**
+     * Choix de la méthode de résolution (pour l'estimation du coût)
+     */
+    private final StrategySelector selector = new StrategySelector();
+    /**
+     * Durée estimée maximale d'une résolution (en nanosecondes)
+     */
+    private volatile long maxEstimatedNanos = DEFAULT_MAX_ESTIMATED_NANOS;
+
+    /**
+     * Constructeur du service.
+     *
+     * @param port                Le port d'écoute (0 pour un port libre)
+     * @param patterns            Les patterns disponibles, par identifiant
+     * @param largeBoardCells     Le nombre de cases à partir duquel une
+     *                            grille est considérée comme grande
+     * @param maxLargeBoardSolves Le nombre maximum de résolutions simultanées
+     *                            de grandes grilles
+     * @throws IOException Si le serveur ne peut pas être créé
+     */
+    public SolveService(int port, Map<String, PatternInterface> patterns, int largeBoardCells, int maxLargeBoardSolves) throws IOException {
+        this.patterns = new HashMap<>(patterns);
+        this.largeBoardCells = largeBoardCells;
+        this.largeBoardPermits = new Semaphore(maxLargeBoardSolves, true);
+        this.executor = newPerRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/solve", exchange -> handle(exchange, "solve"));
+        this.server.createContext("/count", exchange -> handle(exchange, "count"));
+        this.server.createContext("/first", exchange -> handle(exchange, "first"));
+        this.server.createContext("/stats", exchange -> respond(exchange, 200, this.stats.toJson()));
+    }
+
+    /**
+     * Constructeur du service avec les patterns connus et les limites par
+     * défaut.
+     *
+     * @param port Le port d'écoute (0 pour un port libre)
+     * @throws IOException Si le serveur ne peut pas être créé
+     */
+    public SolveService(int port) throws IOException {
+        this(port, PatternUtils.getPatterns(), DEFAULT_LARGE_BOARD_CELLS, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Crée l'exécuteur des requêtes : un thread virtuel par requête si le JDK
+     * le permet (Java 21+), sinon un pool de threads sans limite.
+     *
+     * @return L'exécuteur
+     */
+    private static ExecutorService newPerRequestExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Démarre le service.
+     */
+    public void start() {
+        this.server.start();
+    }
+
+    /**
+     * Arrête le service.
+     */
+    public void stop() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Renvoie le port d'écoute du service.
+     *
+     * @return Le port
+     */
+    public int getPort() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * Limite la durée estimée des résolutions : les requêtes plus coûteuses
+     * (ou dont aucune méthode ne tient en mémoire) sont refusées avant
+     * d'être résolues. La limite par défaut est DEFAULT_MAX_ESTIMATED_NANOS,
+     * Long.MAX_VALUE désactive la vérification.
+     *
+     * @param maxEstimatedNanos La durée estimée maximale (en nanosecondes)
+     */
+    public void setMaxEstimatedNanos(long maxEstimatedNanos) {
+        this.maxEstimatedNanos = maxEstimatedNanos;
+    }
+
+    /**
+     * Renvoie les statistiques du service.
+     *
+     * @return Les statistiques
+     */
+    public ServiceStats getStats() {
+        return this.stats;
+    }
+
+    /**
+     * Traite une requête de résolution.
+     *
+     * @param exchange  L'échange HTTP
+     * @param operation L'opération demandée
+     * @throws IOException En cas d'erreur d'écriture de la réponse
+     */
+    private void handle(HttpExchange exchange, String operation) throws IOException {
+        long startTime = System.nanoTime();
+        int status = 200;
+        String body;
+        try {
+            body = coalesce(SolveRequest.parse(operation, exchange.getRequestURI().getRawQuery()));
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(String.valueOf(e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = 503;
+            body = error("Interrupted");
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(String.valueOf(e.getMessage()));
+        } catch (Error e) {
+            // réponse d'erreur avant de propager l'erreur (mémoire
+            // insuffisante, ...)
+            this.stats.recordRequest(System.nanoTime() - startTime, true);
+            respond(exchange, 500, error(String.valueOf(e)));
+            throw e;
+        }
+        this.stats.recordRequest(System.nanoTime() - startTime, status != 200);
+        respond(exchange, status, body);
+    }
+
+    /**
+     * Calcule la réponse à une requête, en réutilisant le calcul d'une
+     * requête identique en cours s'il existe.
+     *
+     * @param request La requête
+     * @return La réponse (JSON)
+     * @throws InterruptedException Si l'attente est interrompue
+     */
+    private String coalesce(SolveRequest request) throws InterruptedException {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = this.inFlight.putIfAbsent(request, future);
+        if (existing != null) {
+            this.stats.recordCoalesced();
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            }
+        }
+        try {
+            future.complete(compute(request));
+        } catch (Throwable e) {
+            // toute erreur (y compris Error) termine le calcul regroupé,
+            // sinon les requêtes identiques en attente ne reviendraient pas
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(request, future);
+        }
+        return future.getNow(null);
+    }
+
+    /**
+     * Renvoie l'exception d'origine d'un calcul regroupé (une Error est
+     * propagée telle quelle).
+     *
+     * @param e L'exception levée par le calcul
+     * @return L'exception à propager
+     */
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return (cause instanceof RuntimeException) ? (RuntimeException) cause : new IllegalStateException(cause);
+    }
+
+    /**
+     * Vérifie que le coût estimé d'une requête ne dépasse pas la limite du
+     * service.
+     *
+     * @param request La requête
+     * @param pattern Le pattern de la requête
+     * @throws IllegalArgumentException Si la requête est trop coûteuse
+     */
+    private void checkEstimate(SolveRequest request, PatternInterface pattern) {
+        long maxSolutions;
+        switch (request.getOperation()) {
+            case "count":
+                maxSolutions = 0;
+                break;
+            case "first":
+                maxSolutions = 1;
+                break;
+            default:
+                maxSolutions = request.getMaxSolutions();
+                break;
+        }
+        Optional<SolveEstimate> estimate = this.selector.select(request.getRows(), request.getColumns(),
+                SolveCostEstimator.stencilSize(pattern), maxSolutions);
+        if (!estimate.isPresent() || estimate.get().getTotalNanos() > this.maxEstimatedNanos) {
+            throw new IllegalArgumentException("Request too expensive"
+                    + (estimate.isPresent() ? " (estimated " + estimate.get() + ")" : ""));
+        }
+    }
+
+    /**
+     * Résout une requête. Les requêtes trop coûteuses sont refusées, les
+     * grandes grilles attendent une place libre avant d'être résolues.
+     *
+     * @param request La requête
+     * @return La réponse (JSON)
+     * @throws InterruptedException Si l'attente d'une place est interrompue
+     */
+    private String compute(SolveRequest request) throws InterruptedException {
+        PatternInterface pattern = this.patterns.get(request.getPatternId());
+        if (pattern == null) {
+            throw new IllegalArgumentException("Unknown pattern '" + request.getPatternId() + "'");
+        }
+        if (this.maxEstimatedNanos != Long.MAX_VALUE) {
+            checkEstimate(request, pattern);
+        }
+        boolean large = (long) request.getRows() * request.getColumns() >= this.largeBoardCells;
+        if (large) {
+            this.stats.addQueued(1);
+            try {
+                this.largeBoardPermits.acquire();
+            } finally {
+                this.stats.addQueued(-1);
+            }
+        }
+        this.stats.addInFlight(1);
+        try {
+            Solver solver = new Solver(request.getStartGrid(), request.getEndGrid(), pattern);
+            if (!large) {
+                solver.setReductionCache(this.reductionCache);
+            }
+            switch (request.getOperation()) {
+                case "count":
+                    return "{\"nbSolutions\":\"" + solver.solve(0).getExactNbSolutions() + "\"}";
+                case "first":
+                    Optional<Solution> first = solver.findFirstSolution();
+                    return "{\"solvable\":" + first.isPresent()
+                            + (first.isPresent() ? ",\"solution\":\"" + toBits(first.get(), request) + "\"" : "")
+                            + "}";
+                default:
+                    Solutions solutions = solver.solve(request.getMaxSolutions());
+                    StringBuilder res = new StringBuilder("{\"nbSolutions\":\"")
+                            .append(solutions.getExactNbSolutions())
+                            .append("\",\"solutions\":[");
+                    String sep = "";
+                    for (Solution solution : solutions.getComputedSolutions()) {
+                        res.append(sep).append('"').append(toBits(solution, request)).append('"');
+                        sep = ",";
+                    }
+                    return res.append("]}").toString();
+            }
+        } finally {
+            this.stats.addInFlight(-1);
+            if (large) {
+                this.largeBoardPermits.release();
+            }
+        }
+    }
+
+    /**
+     * Convertit une solution en chaîne de '0' et de '1' (une par case, ligne
+     * après ligne).
+     *
+     * @param solution La solution
+     * @param request  La requête (pour les dimensions de la grille)
+     * @return La solution sous forme de chaîne
+     */
+    private static String toBits(Solution solution, SolveRequest request) {
+        char[] bits = new char[request.getRows() * request.getColumns()];
+        Arrays.fill(bits, '0');
+        for (Coord coord : solution) {
+            bits[coord.getRow() * request.getColumns() + coord.getColumn()] = '1';
+        }
+        return new String(bits);
+    }
+
+    /**
+     * Renvoie un message d'erreur au format JSON.
+     *
+     * @param message Le message
+     * @return L'erreur (JSON)
+     */
+    private static String error(String message) {
+        return "{\"error\":\"" + escape(message) + "\"}";
+    }
+
+    /**
+     * Echappe une chaîne pour l'écrire entre guillemets dans une réponse
+     * JSON : guillemets, barres obliques inverses et caractères de contrôle
+     * (U+0000 à U+001F), le message pouvant reprendre les paramètres de la
+     * requête.
+     *
+     * @param value La chaîne
+     * @return La chaîne échappée
+     */
+    private static String escape(String value) {
+        StringBuilder res = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    res.append("\\\"");
+                    break;
+                case '\\':
+                    res.append("\\\\");
+                    break;
+                case '\n':
+                    res.append("\\n");
+                    break;
+                case '\r':
+                    res.append("\\r");
+                    break;
+                case '\t':
+                    res.append("\\t");
+                    break;
+                case '\b':
+                    res.append("\\b");
+                    break;
+                case '\f':
+                    res.append("\\f");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        res.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        res.append(c);
+                    }
+                    break;
+            }
+        }
+        return res.toString();
+    }
+
+    /**
+     * Ecrit la réponse d'un échange HTTP.
+     *
+     * @param exchange L'échange HTTP
+     * @param status   Le code de retour
+     * @param body     Le corps de la réponse (JSON)
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Démarre le service en local.
+     *
+     * @param args Le port d'écoute (8080 par défaut)
+     * @throws IOException Si le serveur ne peut pas être créé
+     */
+    public static void main(String[] args) throws IOException {
+        int port = (args.length > 0) ? Integer.parseInt(args[0]) : 8080;
+        SolveService service = new SolveService(port);
+        service.start();
+        System.out.println("Lights Out solve service listening on http://localhost:" + service.getPort());
+    }
+}
@@ -0,0 +1,104 @@
+package com.mollin.lightsoutsolver.core.solver;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Opérations sur les lignes de bits compactés utilisant l'API vectorielle du
+ * JDK (module 'jdk.incubator.vector', Java 16+) : les mots sont traités par
+ * vecteurs de la taille préférée du processeur (4 mots en AVX2, 8 en
+ * AVX-512), les derniers mots de façon scalaire. Chargée par RowOperations
+ * si le module est disponible.
+ *
+ * @author MOLLIN Florian
+ */
+final class VectorRowOperations extends RowOperations {
+    /**
+     * Taille de vecteur préférée du processeur
+     */
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * Constructeur des opérations vectorielles.
+     *
+     * @throws UnsupportedOperationException Si le processeur ne traite pas
+     *                                       plusieurs mots à la fois
+     */
+    VectorRowOperations() {
+        if (SPECIES.length() < 2) {
+            throw new UnsupportedOperationException("No vector support for " + SPECIES);
+        }
+    }
+
+    @Override
+    boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    void xor(long[] target, long[] source, int from, int to) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, target, i)
+                    .lanewise(VectorOperators.XOR, LongVector.fromArray(SPECIES, source, i))
+                    .intoArray(target, i);
+        }
+        for (; i < to; i++) {
+            target[i] ^= source[i];
+        }
+    }
+
+    @Override
+    long dot(long[] a, long[] b, int from, int to) {
+        int i = from;
+        long parity = 0;
+        int bound = from + SPECIES.loopBound(to - from);
+        if (i < bound) {
+            LongVector sum = LongVector.zero(SPECIES);
+            for (; i < bound; i += SPECIES.length()) {
+                sum = sum.lanewise(VectorOperators.XOR,
+                        LongVector.fromArray(SPECIES, a, i).and(LongVector.fromArray(SPECIES, b, i)));
+            }
+            parity = sum.reduceLanes(VectorOperators.XOR);
+        }
+        for (; i < to; i++) {
+            parity ^= a[i] & b[i];
+        }
+        return parity;
+    }
+
+    @Override
+    int find(long[] words, int from, int to, long mask) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            VectorMask<Long> found = LongVector.fromArray(SPECIES, words, i).and(mask)
+                    .compare(VectorOperators.NE, 0L);
+            if (found.anyTrue()) {
+                return i + found.firstTrue();
+            }
+        }
+        for (; i < to; i++) {
+            if ((words[i] & mask) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    void xorIf(long[] words, int from, int to, long mask, long value) {
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            LongVector vector = LongVector.fromArray(SPECIES, words, i);
+            vector.lanewise(VectorOperators.XOR, value, vector.and(mask).compare(VectorOperators.NE, 0L))
+                    .intoArray(words, i);
+        }
+        for (; i < to; i++) {
+            if ((words[i] & mask) != 0) {
+                words[i] ^= value;
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.mollin.lizzle.cli;
+
+import com.mollin.lightsoutsolver.cli.BatchSolver;
+import com.mollin.lightsoutsolver.cli.BinaryPuzzleReader;
+import com.mollin.lightsoutsolver.cli.Puzzle;
+import com.mollin.lightsoutsolver.cli.PuzzleReader;
+import com.mollin.lightsoutsolver.cli.TextPuzzleReader;
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Classe de test pour la résolution en lot et les lecteurs de grilles
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class BatchSolverTest {
+    /**
+     * Fichier de grilles au format texte
+     */
+    private static final String TEXT_PUZZLES = "# grilles de test\n"
+            + "5 5 classic - -\n"
+            + "\n"
+            + "2 2 classic 1000 0000\n"
+            + "5 5 classic - 1000000000000000000000000\n"
+            + "1 3 unknown - -\n";
+
+    /**
+     * Test vérifiant qu'une grille lue au format texte, écrite puis relue au
+     * format binaire, est identique.
+     *
+     * @throws IOException En cas d'erreur de lecture
+     */
+    @Test
+    public void textAndBinaryRoundTrip() throws IOException {
+        List<Puzzle> puzzles = readAll(new TextPuzzleReader(new StringReader(TEXT_PUZZLES)));
+        assertThat(puzzles).hasSize(4);
+        assertThat(puzzles.get(1).getRows()).isEqualTo(2);
+        assertThat(toBits(puzzles.get(1).getStartGrid()))
+                .isEqualTo(toBits(GridUtils.getGridWithSomeActivatedCoords(2, 2, Coord.of(0, 0))));
+        assertThat(toBits(puzzles.get(1).getEndGrid())).isEqualTo("0000");
+        assertThat(toBits(puzzles.get(0).getEndGrid())).isEqualTo(toBits(GridUtils.getFullGrid(5, 5)));
+
+        List<Puzzle> read = readAll(new BinaryPuzzleReader(new ByteArrayInputStream(toBinary(puzzles))));
+        assertThat(read).hasSameSizeAs(puzzles);
+        for (int i = 0; i < puzzles.size(); i++) {
+            assertThat(read.get(i).getIndex()).isEqualTo(puzzles.get(i).getIndex());
+            assertThat(read.get(i).getRows()).isEqualTo(puzzles.get(i).getRows());
+            assertThat(read.get(i).getColumns()).isEqualTo(puzzles.get(i).getColumns());
+            assertThat(read.get(i).getPatternId()).isEqualTo(puzzles.get(i).getPatternId());
+            assertThat(toBits(read.get(i).getStartGrid())).isEqualTo(toBits(puzzles.get(i).getStartGrid()));
+            assertThat(toBits(read.get(i).getEndGrid())).isEqualTo(toBits(puzzles.get(i).getEndGrid()));
+        }
+    }
+
+    /**
+     * Paramètres pour le test des lignes invalides au format texte.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForInvalidTextLine() {
+        return new Object[][]{
+                {"5 5 classic -"},
+                {"five 5 classic - -"},
+                {"0 5 classic - -"},
+                {"-3 5 classic - -"},
+                {"65536 65536 classic - -"},
+                {"2 2 classic 101 -"},
+                {"2 2 classic 1012 -"}
+        };
+    }
+
+    /**
+     * Test vérifiant qu'une ligne invalide au format texte produit une
+     * erreur de lecture indiquant le numéro de la ligne.
+     *
+     * @param line La ligne invalide
+     */
+    @Test
+    @Parameters
+    public void invalidTextLine(String line) {
+        TextPuzzleReader reader = new TextPuzzleReader(new StringReader("1 1 classic - -\n" + line + "\n"));
+        assertThatThrownBy(() -> readAll(reader))
+                .isInstanceOf(IOException.class)
+                .hasMessageStartingWith("Line 2 : ");
+    }
+
+    /**
+     * Paramètres pour le test des dimensions invalides au format binaire.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForInvalidBinarySize() {
+        return new Object[][]{
+                {-1, 5},
+                {5, -1},
+                {0, 5},
+                {65536, 65536},
+                {Integer.MAX_VALUE, Integer.MAX_VALUE}
+        };
+    }
+
+    /**
+     * Test vérifiant que des dimensions invalides au format binaire
+     * produisent une erreur de lecture (sans allocation).
+     *
+     * @param rows    Le nombre de lignes lu
+     * @param columns Le nombre de colonnes lu
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    @Test
+    @Parameters
+    public void invalidBinarySize(int rows, int columns) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(BinaryPuzzleReader.MAGIC);
+        out.writeInt(rows);
+        out.writeInt(columns);
+        out.writeUTF("classic");
+        BinaryPuzzleReader reader = new BinaryPuzzleReader(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThatThrownBy(reader::next)
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("invalid grid size");
+    }
+
+    /**
+     * Test vérifiant qu'un fichier sans en-tête binaire est refusé.
+     */
+    @Test
+    public void invalidBinaryHeader() {
+        assertThatThrownBy(() -> new BinaryPuzzleReader(new ByteArrayInputStream(new byte[]{1, 2, 3, 4})))
+                .isInstanceOf(IOException.class);
+    }
+
+    /**
+     * Paramètres pour le test de résolution en lot.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForBatch() {
+        return new Object[][]{
+                {BatchSolver.Mode.FIRST, 1},
+                {BatchSolver.Mode.FIRST, 4},
+                {BatchSolver.Mode.MIN, 3}
+        };
+    }
+
+    /**
+     * Test de la résolution en lot : les résultats sont écrits dans l'ordre
+     * du fichier, et une grille invalide (pattern inconnu, grilles de
+     * dimensions différentes de celles annoncées, grille trop grande pour le
+     * tas) produit une ligne d'erreur sans interrompre le traitement.
+     *
+     * @param mode    Le résultat à calculer
+     * @param threads Le nombre de threads de résolution
+     * @throws Exception En cas d'erreur de traitement
+     */
+    @Test
+    @Parameters
+    public void batch(BatchSolver.Mode mode, int threads) throws Exception {
+        List<Puzzle> puzzles = readAll(new TextPuzzleReader(new StringReader(TEXT_PUZZLES)));
+        puzzles.add(new Puzzle(4, 3, 3, "classic", GridUtils.getEmptyGrid(4, 4), GridUtils.getFullGrid(4, 4)));
+        puzzles.add(new Puzzle(5, 3, 3, "classic", GridUtils.getEmptyGrid(3, 3), GridUtils.getFullGrid(3, 3)));
+        puzzles.add(new Puzzle(6, 4096, 4096, "classic", GridUtils.getEmptyGrid(4096, 4096),
+                GridUtils.getFullGrid(4096, 4096)));
+        puzzles.add(new Puzzle(7, 1, 1, "classic", GridUtils.getEmptyGrid(1, 1), GridUtils.getFullGrid(1, 1)));
+        StringWriter out = new StringWriter();
+        long count = new BatchSolver(PatternUtils.getPatterns(), mode, threads).run(reader(puzzles), out);
+
+        assertThat(count).isEqualTo(8);
+        String[] lines = out.toString().split("\n");
+        assertThat(lines).hasSize(8);
+        assertThat(lines[0]).startsWith("0 1 4 ");
+        assertThat(lines[1]).isEqualTo("1 1 1 1110");
+        assertThat(lines[2]).isEqualTo("2 0 0 -");
+        assertThat(lines[3]).isEqualTo("3 error unknown pattern 'unknown'");
+        assertThat(lines[4]).startsWith("4 error ");
+        assertThat(lines[5]).isEqualTo("5 1 1 101010101");
+        assertThat(lines[6]).startsWith("6 error board too large");
+        assertThat(lines[7]).isEqualTo("7 1 1 1");
+    }
+
+    /**
+     * Lit toutes les grilles d'un lecteur.
+     *
+     * @param reader Le lecteur
+     * @return Les grilles lues
+     * @throws IOException En cas d'erreur de lecture
+     */
+    private static List<Puzzle> readAll(PuzzleReader reader) throws IOException {
+        List<Puzzle> puzzles = new ArrayList<>();
+        try (PuzzleReader acReader = reader) {
+            Puzzle puzzle;
+            while ((puzzle = acReader.next()) != null) {
+                puzzles.add(puzzle);
+            }
+        }
+        return puzzles;
+    }
+
+    /**
+     * Convertit une grille en chaîne de '0' et de '1' (une par case, ligne
+     * après ligne).
+     *
+     * @param grid La grille
+     * @return La grille sous forme de chaîne
+     */
+    private static String toBits(GridInterface grid) {
+        StringBuilder res = new StringBuilder();
+        for (int r = 0; r < grid.rows(); r++) {
+            for (int c = 0; c < grid.columns(); c++) {
+                res.append(grid.isActivated(Coord.of(r, c)) ? '1' : '0');
+            }
+        }
+        return res.toString();
+    }
+
+    /**
+     * Ecrit des grilles au format binaire.
+     *
+     * @param puzzles Les grilles
+     * @return Le fichier binaire
+     * @throws IOException En cas d'erreur d'écriture
+     */
+    private static byte[] toBinary(List<Puzzle> puzzles) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(BinaryPuzzleReader.MAGIC);
+        for (Puzzle puzzle : puzzles) {
+            puzzle.writeTo(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Renvoie un lecteur fournissant des grilles déjà construites.
+     *
+     * @param puzzles Les grilles
+     * @return Le lecteur
+     */
+    private static PuzzleReader reader(List<Puzzle> puzzles) {
+        Iterator<Puzzle> it = puzzles.iterator();
+        return new PuzzleReader() {
+            @Override
+            public Puzzle next() {
+                return it.hasNext() ? it.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.mollin.lizzle.core.generator;
+
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.generator.GeneratedPuzzle;
+import com.mollin.lightsoutsolver.core.generator.PuzzleGenerator;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de test pour le générateur de grilles
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class PuzzleGeneratorTest {
+
+    /**
+     * Paramètres pour le test de grilles résolubles.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForSolvablePuzzles() {
+        PatternInterface asymmetricPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        // pattern dépendant de la case (non invariant par translation)
+        PatternInterface irregularPattern = (coord) -> (coord.getRow() + coord.getColumn()) % 2 == 0
+                ? PatternUtils.getClassicPattern().getSwitchedCoords(coord)
+                : new HashSet<>(Arrays.asList(coord, coord.add(Coord.of(1, 1))));
+        return new Object[][]{
+                {5, 5, PatternUtils.getClassicPattern()},
+                {9, 13, PatternUtils.getClassicPattern()},
+                {4, 7, asymmetricPattern},
+                {6, 5, irregularPattern}
+        };
+    }
+
+    /**
+     * Test vérifiant que les grilles générées sont résolubles et que la
+     * solution fournie fait partie des solutions trouvées par le solveur.
+     *
+     * @param rows    Le nombre de lignes
+     * @param columns Le nombre de colonnes
+     * @param pattern Le pattern
+     */
+    @Test
+    @Parameters
+    public void solvablePuzzles(int rows, int columns, PatternInterface pattern) {
+        PuzzleGenerator generator = new PuzzleGenerator(rows, columns, pattern);
+        for (long index = 0; index < 20; index++) {
+            GeneratedPuzzle puzzle = generator.generate(42, index);
+            Set<Solution> solutions = new Solver(puzzle.getStartGrid(), puzzle.getEndGrid(), pattern)
+                    .solve(0, 1 << 16).getComputedSolutions();
+            assertThat(solutions)
+                    .as("Solutions of puzzle " + index)
+                    .contains(puzzle.getSolution());
+        }
+    }
+
+    /**
+     * Test vérifiant que les grilles générées ne dépendent que de la graine et
+     * de leur indice (stream séquentiel ou parallèle).
+     */
+    @Test
+    public void reproducible() {
+        PuzzleGenerator generator = new PuzzleGenerator(7, 7, PatternUtils.getClassicPattern());
+        List<Solution> sequential = generator.stream(7, 0, 200)
+                .map(GeneratedPuzzle::getSolution)
+                .collect(Collectors.toList());
+        List<Solution> parallel = generator.stream(7, 0, 200).parallel()
+                .map(GeneratedPuzzle::getSolution)
+                .collect(Collectors.toList());
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(new HashSet<>(sequential)).as("Distinct puzzles").hasSize(200);
+        assertThat(generator.generate(8, 0).getSolution()).isNotEqualTo(sequential.get(0));
+    }
+
+    /**
+     * Test des contraintes de difficulté : la solution fournie est minimale,
+     * sa taille est dans l'intervalle demandé et elle est l'unique solution
+     * optimale.
+     */
+    @Test
+    public void difficulty() {
+        PatternInterface pattern = PatternUtils.getClassicPattern();
+        PuzzleGenerator generator = new PuzzleGenerator(5, 5, pattern);
+        generator.setPressRange(6, 9);
+        generator.setMaxOptimalSolutions(1);
+        assertThat(generator.getNbSolutions().intValue()).isEqualTo(4);
+        for (long index = 0; index < 50; index++) {
+            GeneratedPuzzle puzzle = generator.generate(1, index);
+            assertThat(puzzle.getNbPresses()).isBetween(6, 9);
+            List<Integer> sizes = new Solver(puzzle.getStartGrid(), puzzle.getEndGrid(), pattern).solve()
+                    .getComputedSolutions().stream()
+                    .map(Solution::size)
+                    .sorted()
+                    .collect(Collectors.toList());
+            assertThat(sizes.get(0)).as("Minimal solution").isEqualTo(puzzle.getNbPresses());
+            assertThat(sizes.get(1)).as("Unique minimal solution").isGreaterThan(sizes.get(0));
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.mollin.lizzle.core.graph;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.graph.PressGraph;
+import com.mollin.lightsoutsolver.core.graph.PressGraphLoader;
+import com.mollin.lightsoutsolver.core.simulator.PressSimulator;
+import com.mollin.lightsoutsolver.core.solver.GraphSolver;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+import com.mollin.lightsoutsolver.core.utils.CellMask;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Classe de test pour les Lights Out sur graphe (graphe, chargement et
+ * solveur)
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class PressGraphTest {
+
+    /**
+     * Paramètres pour le test de la grille vue comme un graphe.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForSameSolutionsAsSolver() {
+        PatternInterface asymmetricPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5), PatternUtils.getClassicPattern()},
+                {GridUtils.getGridWithSomeActivatedCoords(9, 9, Coord.of(4, 4)), GridUtils.getFullGrid(9, 9), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(7, 3), GridUtils.getFullGrid(7, 3), asymmetricPattern},
+                {GridUtils.getEmptyGrid(4, 17), GridUtils.getGridWithSomeActivatedCoords(4, 17, Coord.of(0, 3)), PatternUtils.getClassicPattern()}
+        };
+    }
+
+    /**
+     * Test vérifiant que le solveur de graphe donne, pour le graphe d'une
+     * grille, les mêmes solutions que le solveur de grille.
+     *
+     * @param startGrid Grille de départ
+     * @param endGrid   Grille d'arrivée
+     * @param pattern   Le pattern
+     */
+    @Test
+    @Parameters
+    public void sameSolutionsAsSolver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        Solutions expected = new Solver(startGrid, endGrid, pattern, null).solve();
+        PressGraph graph = PressGraph.of(CellMask.full(startGrid.rows(), startGrid.columns()), pattern);
+        PressSimulator simulator = new PressSimulator(startGrid.rows(), startGrid.columns(), pattern);
+        Solutions solutions = new GraphSolver(graph, simulator.toWords(startGrid), simulator.toWords(endGrid)).solve();
+        assertThat(solutions.getExactNbSolutions())
+                .as("Number of solutions")
+                .isEqualTo(expected.getExactNbSolutions());
+        assertThat(solutions.getComputedSolutions())
+                .as("Solutions")
+                .isEqualTo(expected.getComputedSolutions());
+    }
+
+    /**
+     * Test vérifiant les solutions d'un plateau hexagonal : appliquer les
+     * voisinages des nœuds cliqués allume tous les nœuds.
+     */
+    @Test
+    public void hexagonalSolutions() {
+        int rows = 13;
+        int columns = 11;
+        PressGraph graph = PressGraph.hexagonal(rows, columns);
+        assertThat(graph.neighbourStart(1 * columns + 5 + 1) - graph.neighbourStart(1 * columns + 5))
+                .as("Inner neighbourhood")
+                .isEqualTo(7);
+        Solutions solutions = new GraphSolver(graph, new long[3]).solve(16);
+        assertThat(solutions.getComputedSolutions())
+                .as("Solutions")
+                .isNotEmpty();
+        for (Solution solution : solutions.getComputedSolutions()) {
+            boolean[] lit = new boolean[graph.size()];
+            for (Coord coord : solution) {
+                int node = graph.nodeOf(coord);
+                for (int k = graph.neighbourStart(node); k < graph.neighbourStart(node + 1); k++) {
+                    lit[graph.neighbourAt(k)] ^= true;
+                }
+            }
+            for (int node = 0; node < graph.size(); node++) {
+                assertThat(lit[node])
+                        .as("Node " + node + " of " + solution)
+                        .isTrue();
+            }
+        }
+    }
+
+    /**
+     * Test vérifiant qu'un graphe écrit puis relu est identique, et que le
+     * graphe relu donne les mêmes solutions.
+     *
+     * @throws IOException En cas d'erreur de lecture
+     */
+    @Test
+    public void writeAndLoad() throws IOException {
+        PressGraph graph = PressGraph.hexagonal(6, 7);
+        StringWriter writer = new StringWriter();
+        PressGraphLoader.write(graph, writer);
+        PressGraph loaded = PressGraphLoader.load(new StringReader("# plateau hexagonal\n\n" + writer));
+        assertThat(loaded.size()).isEqualTo(graph.size());
+        assertThat(loaded.layout().columns()).isEqualTo(7);
+        for (int node = 0; node <= graph.size(); node++) {
+            assertThat(loaded.neighbourStart(node))
+                    .as("Offset " + node)
+                    .isEqualTo(graph.neighbourStart(node));
+        }
+        for (int k = 0; k < graph.nonZeros(); k++) {
+            assertThat(loaded.neighbourAt(k))
+                    .as("Neighbour " + k)
+                    .isEqualTo(graph.neighbourAt(k));
+        }
+        assertThat(new GraphSolver(loaded, new long[1]).solve().getComputedSolutions())
+                .as("Solutions")
+                .isEqualTo(new GraphSolver(graph, new long[1]).solve().getComputedSolutions());
+    }
+
+    /**
+     * Paramètres pour le test des fichiers invalides.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForInvalidFile() {
+        return new Object[][]{
+                {""},
+                {"3\n0: 0 1\n0: 2\n"},
+                {"3\n0: 3\n"},
+                {"3\n0 1\n"},
+                {"3\n1: 1 1\n"},
+                {"2 x\n"}
+        };
+    }
+
+    /**
+     * Test vérifiant qu'un fichier invalide est refusé.
+     *
+     * @param content Le contenu du fichier
+     */
+    @Test
+    @Parameters
+    public void invalidFile(String content) {
+        assertThatThrownBy(() -> PressGraphLoader.load(new StringReader(content)))
+                .isInstanceOf(IOException.class);
+    }
+
+    /**
+     * Test vérifiant qu'un graphe dont un nœud liste deux fois le même voisin
+     * est refusé.
+     */
+    @Test
+    public void duplicateNeighbour() {
+        assertThatThrownBy(() -> new PressGraph(new int[]{0, 2, 2}, new int[]{1, 1}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,162 @@
+package com.mollin.lizzle.core.render;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.render.PngRenderer;
+import com.mollin.lightsoutsolver.core.render.TextRenderer;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de test pour les rendus texte et PNG
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class RenderTest {
+
+    /**
+     * Paramètres pour le test du rendu texte.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForTextRendering() {
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(2, 3), "_ _ _ \n_ _ _ "},
+                {GridUtils.getFullGrid(1, 2), "X X "},
+                {GridUtils.getGridWithSomeActivatedCoords(3, 2, Coord.of(0, 1), Coord.of(2, 0)), "_ X \n_ _ \nX _ "}
+        };
+    }
+
+    /**
+     * Test vérifiant le rendu texte d'une grille, et d'une solution
+     * contenant les mêmes cases.
+     *
+     * @param grid     La grille
+     * @param expected Le texte attendu
+     */
+    @Test
+    @Parameters
+    public void textRendering(GridInterface grid, String expected) {
+        StringWriter writer = new StringWriter();
+        TextRenderer.render(grid, writer);
+        assertThat(writer.toString())
+                .as("Grid rendering")
+                .isEqualTo(expected);
+        Solution solution = new Solution();
+        for (int r = 0; r < grid.rows(); r++) {
+            for (int c = 0; c < grid.columns(); c++) {
+                if (grid.isActivated(Coord.of(r, c))) {
+                    solution.add(Coord.of(r, c));
+                }
+            }
+        }
+        StringBuilder builder = new StringBuilder();
+        TextRenderer.render(solution, grid.rows(), grid.columns(), builder);
+        assertThat(builder.toString())
+                .as("Solution rendering")
+                .isEqualTo(expected);
+    }
+
+    /**
+     * Test vérifiant que l'affichage d'une solution est inchangé (plus petit
+     * rectangle contenant ses cases) et que le rendu d'un ensemble de
+     * solutions reprend l'en-tête de Solutions.toString.
+     */
+    @Test
+    public void solutionsRendering() {
+        assertThat(new Solution().toString()).isEqualTo("[]");
+        assertThat(new Solution(Coord.of(1, 2), Coord.of(0, 0)).toString())
+                .isEqualTo("X _ _ \n_ _ X ");
+        Solutions solutions = new Solutions(2);
+        solutions.addSolution(new Solution(Coord.of(1, 1)));
+        StringBuilder builder = new StringBuilder();
+        TextRenderer.render(solutions, 2, 3, builder);
+        assertThat(builder.toString()).isEqualTo("===== Solutions =====\n"
+                + "Nb solutions : 2\n"
+                + "Nb computed solutions : 1\n"
+                + "Computed solutions :\n"
+                + "(1/1)\n"
+                + "_ _ _ \n_ X _ \n");
+    }
+
+    /**
+     * Test vérifiant l'image PNG d'une grille : dimensions, couleurs des
+     * cases et séparateurs transparents.
+     *
+     * @throws IOException En cas d'erreur de lecture de l'image
+     */
+    @Test
+    public void pngRendering() throws IOException {
+        GridInterface grid = GridUtils.getGridWithSomeActivatedCoords(3, 4, Coord.of(0, 0), Coord.of(2, 3));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PngRenderer().write(grid, out);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        int size = PngRenderer.DEFAULT_CELL_SIZE;
+        assertThat(image.getWidth()).isEqualTo(4 * size);
+        assertThat(image.getHeight()).isEqualTo(3 * size);
+        for (int r = 0; r < grid.rows(); r++) {
+            for (int c = 0; c < grid.columns(); c++) {
+                int expected = grid.isActivated(Coord.of(r, c)) ? 0xFF2980B9 : 0xFFD0D3D4;
+                assertThat(image.getRGB(c * size, r * size))
+                        .as("Cell " + r + "," + c)
+                        .isEqualTo(expected);
+                assertThat(image.getRGB(c * size + size - 2, r * size + size - 2))
+                        .as("Cell " + r + "," + c)
+                        .isEqualTo(expected);
+                assertThat(image.getRGB(c * size + size - 1, r * size) >>> 24)
+                        .as("Vertical separator " + r + "," + c)
+                        .isZero();
+                assertThat(image.getRGB(c * size, r * size + size - 1) >>> 24)
+                        .as("Horizontal separator " + r + "," + c)
+                        .isZero();
+            }
+        }
+    }
+
+    /**
+     * Test vérifiant que l'image d'une grande solution, découpée en
+     * plusieurs blocs, est lisible et identique à celle de la grille
+     * correspondante.
+     *
+     * @throws IOException En cas d'erreur de lecture de l'image
+     */
+    @Test
+    public void largePngRendering() throws IOException {
+        int size = 250;
+        Solution solution = new Solution();
+        for (int i = 0; i < size; i++) {
+            solution.add(Coord.of(i, (7 * i) % size));
+        }
+        PngRenderer renderer = new PngRenderer(3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderer.write(solution, size, size, out);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertThat(image.getWidth()).isEqualTo(3 * size);
+        for (int i = 0; i < size; i++) {
+            assertThat(image.getRGB(3 * ((7 * i) % size) + 1, 3 * i + 1))
+                    .as("Pressed cell " + i)
+                    .isEqualTo(0xFF2980B9);
+        }
+        renderer.write(solution, size, size, new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+        });
+    }
+}
@@ -0,0 +1,236 @@
+package com.mollin.lizzle.core.simulator;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.simulator.PressSimulator;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.utils.CellMask;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Classe de test pour le simulateur de clics
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class PressSimulatorTest {
+    /**
+     * Pattern non symétrique
+     */
+    private static final PatternInterface ASYMMETRIC_PATTERN = (coord) -> new HashSet<>(Arrays.asList(
+            coord.add(Coord.of(0, 0)),
+            coord.add(Coord.of(-1, 0)),
+            coord.add(Coord.of(-1, 1)),
+            coord.add(Coord.of(0, -1))
+    ));
+    /**
+     * Pattern dépendant de la case (non invariant par translation)
+     */
+    private static final PatternInterface IRREGULAR_PATTERN = (coord) -> (coord.getRow() + coord.getColumn()) % 2 == 0
+            ? PatternUtils.getClassicPattern().getSwitchedCoords(coord)
+            : new HashSet<>(Arrays.asList(coord, coord.add(Coord.of(1, 1))));
+
+    /**
+     * Paramètres pour le test comparant le simulateur aux ensembles de
+     * cases.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForSameAsSets() {
+        return new Object[][]{
+                {CellMask.full(5, 5), PatternUtils.getClassicPattern(), true},
+                {CellMask.full(9, 13), PatternUtils.getClassicPattern(), true},
+                {CellMask.full(1, 70), PatternUtils.getClassicPattern(), true},
+                {CellMask.full(70, 3), ASYMMETRIC_PATTERN, true},
+                {CellMask.full(12, 11), IRREGULAR_PATTERN, false},
+                {CellMask.withHoles(6, 7, Coord.of(0, 0), Coord.of(3, 3), Coord.of(5, 6)), PatternUtils.getClassicPattern(), true},
+                {CellMask.withHoles(6, 7, Coord.of(2, 4)), ASYMMETRIC_PATTERN, true},
+                {CellMask.withHoles(8, 9, Coord.of(1, 1), Coord.of(4, 0)), IRREGULAR_PATTERN, false}
+        };
+    }
+
+    /**
+     * Test vérifiant que le simulateur (clics groupés ou un par un) donne la
+     * même grille que l'application du pattern case par case.
+     *
+     * @param mask       La forme de la grille
+     * @param pattern    Le pattern
+     * @param shiftBased Vrai si le pattern doit être appliqué par décalages
+     */
+    @Test
+    @Parameters
+    public void sameAsSets(CellMask mask, PatternInterface pattern, boolean shiftBased) {
+        int rows = mask.rows();
+        int columns = mask.columns();
+        PressSimulator simulator = new PressSimulator(mask, pattern);
+        assertThat(simulator.isShiftBased())
+                .as("Shift based")
+                .isEqualTo(shiftBased);
+        Random random = new Random(rows * 31 + columns);
+        for (int attempt = 0; attempt < 20; attempt++) {
+            Set<Coord> start = new HashSet<>();
+            Set<Coord> presses = new HashSet<>();
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    Coord coord = Coord.of(r, c);
+                    if (random.nextBoolean()) {
+                        start.add(coord);
+                    }
+                    if (random.nextInt(4) == 0) {
+                        presses.add(coord);
+                    }
+                }
+            }
+            Set<Coord> expected = new HashSet<>(start);
+            for (Coord press : presses) {
+                if (mask.isLive(press)) {
+                    for (Coord coord : pattern.getSwitchedCoords(press)) {
+                        if (mask.isLive(coord) && !expected.remove(coord)) {
+                            expected.add(coord);
+                        }
+                    }
+                }
+            }
+            GridInterface startGrid = GridUtils.getGridWithSomeActivatedCoords(rows, columns, start);
+            GridInterface expectedGrid = GridUtils.getGridWithSomeActivatedCoords(rows, columns, expected);
+            assertThat(simulator.toWords(simulator.press(startGrid, presses)))
+                    .as("Batched presses")
+                    .isEqualTo(simulator.toWords(expectedGrid));
+            long[] board = simulator.toWords(startGrid);
+            for (Coord press : presses) {
+                simulator.press(board, press);
+            }
+            assertThat(board)
+                    .as("Single presses")
+                    .isEqualTo(simulator.toWords(expectedGrid));
+            assertThat(simulator.verify(startGrid, expectedGrid, presses))
+                    .as("Verify")
+                    .isTrue();
+        }
+    }
+
+    /**
+     * Paramètres pour le test de vérification des solutions du solveur.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForVerifySolutions() {
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(4, 5), GridUtils.getFullGrid(4, 5), ASYMMETRIC_PATTERN},
+                {GridUtils.getFullGrid(6, 5), GridUtils.getGridWithSomeActivatedCoords(6, 5, Coord.of(2, 2)), IRREGULAR_PATTERN}
+        };
+    }
+
+    /**
+     * Test vérifiant que les solutions du solveur sont acceptées et que les
+     * solutions modifiées (une case cliquée en plus ou en moins) sont
+     * refusées.
+     *
+     * @param startGrid La grille de départ
+     * @param endGrid   La grille d'arrivée
+     * @param pattern   Le pattern
+     */
+    @Test
+    @Parameters
+    public void verifySolutions(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        PressSimulator simulator = new PressSimulator(startGrid.rows(), startGrid.columns(), pattern);
+        Set<Solution> solutions = new Solver(startGrid, endGrid, pattern).solve().getComputedSolutions();
+        assertThat(solutions)
+                .as("Solutions")
+                .isNotEmpty();
+        for (Solution solution : solutions) {
+            assertThat(simulator.verify(startGrid, endGrid, solution))
+                    .as("Solution " + solution)
+                    .isTrue();
+            Set<Coord> altered = new HashSet<>(solution);
+            Coord coord = Coord.of(startGrid.rows() / 2, startGrid.columns() / 2);
+            if (!altered.remove(coord)) {
+                altered.add(coord);
+            }
+            assertThat(simulator.verify(startGrid, endGrid, altered))
+                    .as("Altered solution " + altered)
+                    .isFalse();
+        }
+    }
+
+    /**
+     * Paramètres pour le test de vérification des solutions sur une grille
+     * non rectangulaire.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForVerifyMaskedSolutions() {
+        return new Object[][]{
+                {CellMask.withHoles(5, 5, Coord.of(2, 2)), PatternUtils.getClassicPattern()},
+                {CellMask.withHoles(6, 7, Coord.of(0, 0), Coord.of(3, 3), Coord.of(5, 6)), ASYMMETRIC_PATTERN},
+                {CellMask.withHoles(8, 9, Coord.of(1, 1), Coord.of(4, 0)), IRREGULAR_PATTERN}
+        };
+    }
+
+    /**
+     * Test vérifiant que les solutions du solveur sur une grille non
+     * rectangulaire sont acceptées lorsque les grilles de départ et
+     * d'arrivée diffèrent sur les cases mortes (ignorées), et que les
+     * solutions modifiées sont refusées.
+     *
+     * @param mask    La forme de la grille
+     * @param pattern Le pattern
+     */
+    @Test
+    @Parameters
+    public void verifyMaskedSolutions(CellMask mask, PatternInterface pattern) {
+        Set<Coord> dead = new HashSet<>();
+        Set<Coord> live = new HashSet<>();
+        for (int r = 0; r < mask.rows(); r++) {
+            for (int c = 0; c < mask.columns(); c++) {
+                (mask.isLive(Coord.of(r, c)) ? live : dead).add(Coord.of(r, c));
+            }
+        }
+        GridInterface startGrid = GridUtils.getGridWithSomeActivatedCoords(mask.rows(), mask.columns(), dead);
+        GridInterface endGrid = GridUtils.getGridWithSomeActivatedCoords(mask.rows(), mask.columns(), live);
+        PressSimulator simulator = new PressSimulator(mask, pattern);
+        Set<Solution> solutions = new Solver(startGrid, endGrid, pattern, mask, null).solve().getComputedSolutions();
+        assertThat(solutions)
+                .as("Solutions")
+                .isNotEmpty();
+        for (Solution solution : solutions) {
+            assertThat(simulator.verify(startGrid, endGrid, solution))
+                    .as("Solution " + solution)
+                    .isTrue();
+            Set<Coord> altered = new HashSet<>(solution);
+            Coord coord = mask.coordOf(mask.size() / 2);
+            if (!altered.remove(coord)) {
+                altered.add(coord);
+            }
+            assertThat(simulator.verify(startGrid, endGrid, altered))
+                    .as("Altered solution " + altered)
+                    .isFalse();
+        }
+    }
+
+    /**
+     * Test vérifiant qu'une grille de dimension différente est refusée.
+     */
+    @Test
+    public void dimensionMismatch() {
+        PressSimulator simulator = new PressSimulator(4, 4, PatternUtils.getClassicPattern());
+        assertThatThrownBy(() -> simulator.toWords(GridUtils.getEmptyGrid(4, 5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
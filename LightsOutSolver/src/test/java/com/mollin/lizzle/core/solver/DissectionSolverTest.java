@@ -0,0 +1,129 @@
+package com.mollin.lizzle.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.simulator.PressSimulator;
+import com.mollin.lightsoutsolver.core.solver.DissectionSolver;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de test pour le solveur par dissection emboîtée (comparaison avec
+ * le solveur dense)
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class DissectionSolverTest {
+
+    /**
+     * Paramètres pour le test de comparaison avec le solveur dense.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForSameSolutionsAsSolver() {
+        PatternInterface asymmetricPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        PatternInterface impossiblePattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        // pattern de l'exemple 4 (les 8 cases voisines)
+        PatternInterface neighboursPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(1, 1)), coord.add(Coord.of(-1, -1)),
+                coord.add(Coord.of(-1, 1)), coord.add(Coord.of(1, -1)),
+                coord.add(Coord.of(1, 0)), coord.add(Coord.of(0, 1)),
+                coord.add(Coord.of(-1, 0)), coord.add(Coord.of(0, -1))
+        ));
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(19, 19), GridUtils.getFullGrid(19, 19), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(34, 23), GridUtils.getFullGrid(34, 23), PatternUtils.getClassicPattern()},
+                {GridUtils.getGridWithSomeActivatedCoords(30, 30, Coord.of(4, 7)), GridUtils.getFullGrid(30, 30), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(17, 41), GridUtils.getFullGrid(17, 41), neighboursPattern},
+                {GridUtils.getEmptyGrid(42, 42), GridUtils.getFullGrid(42, 42), neighboursPattern},
+                {GridUtils.getEmptyGrid(29, 20), GridUtils.getFullGrid(29, 20), asymmetricPattern},
+                {GridUtils.getEmptyGrid(5, 4), GridUtils.getFullGrid(5, 4), impossiblePattern},
+                {GridUtils.getEmptyGrid(25, 24), GridUtils.getFullGrid(25, 24), impossiblePattern},
+                {GridUtils.getFullGrid(6, 6), GridUtils.getFullGrid(6, 6), PatternUtils.getClassicPattern()}
+        };
+    }
+
+    /**
+     * Test vérifiant que le solveur par dissection trouve le même espace de
+     * solutions que le solveur dense : même existence, même dimension du
+     * noyau, la solution particulière résout la grille et chaque vecteur de
+     * la base du noyau laisse la grille inchangée.
+     *
+     * @param startGrid Grille de départ
+     * @param endGrid   Grille d'arrivée
+     * @param pattern   Le pattern
+     */
+    @Test
+    @Parameters
+    public void sameSolutionsAsSolver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        Optional<SolutionSpace> expected = new Solver(startGrid, endGrid, pattern, null).getSolutionSpace();
+        Optional<SolutionSpace> space = new DissectionSolver(startGrid, endGrid, pattern).getSolutionSpace();
+        assertThat(space.isPresent())
+                .as("Has solution")
+                .isEqualTo(expected.isPresent());
+        if (!space.isPresent()) {
+            return;
+        }
+        assertThat(space.get().getNullity())
+                .as("Nullity")
+                .isEqualTo(expected.get().getNullity());
+        PressSimulator simulator = new PressSimulator(startGrid.rows(), startGrid.columns(), pattern);
+        assertThat(simulator.verify(startGrid, endGrid, space.get().solutionAt(0)))
+                .as("Particular solution")
+                .isTrue();
+        long[] start = simulator.toWords(startGrid);
+        for (int i = 0; i < space.get().getNullity(); i++) {
+            assertThat(simulator.verify(start, start, space.get().getKernelVector(i)))
+                    .as("Kernel vector " + i)
+                    .isTrue();
+        }
+    }
+
+    /**
+     * Test vérifiant que le résultat ne dépend pas du nombre de threads.
+     */
+    @Test
+    public void sameSolutionsWithAnyPool() {
+        GridInterface startGrid = GridUtils.getEmptyGrid(40, 40);
+        GridInterface endGrid = GridUtils.getFullGrid(40, 40);
+        ForkJoinPool singlePool = new ForkJoinPool(1);
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            SolutionSpace expected = new DissectionSolver(startGrid, endGrid, PatternUtils.getClassicPattern(),
+                    singlePool).getSolutionSpace().get();
+            SolutionSpace space = new DissectionSolver(startGrid, endGrid, PatternUtils.getClassicPattern(), pool)
+                    .getSolutionSpace().get();
+            assertThat(space.solutionAt(0))
+                    .as("Particular solution")
+                    .isEqualTo(expected.solutionAt(0));
+        } finally {
+            singlePool.shutdown();
+            pool.shutdown();
+        }
+    }
+}
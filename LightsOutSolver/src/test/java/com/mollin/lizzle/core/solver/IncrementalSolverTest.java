@@ -0,0 +1,138 @@
+package com.mollin.lizzle.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.solver.IncrementalSolver;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
+import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Classe de test pour le solveur d'une grille grandissant ligne par ligne
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class IncrementalSolverTest {
+
+    /**
+     * Paramètres pour le test de balayage des tailles de grille.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForSweep() {
+        PatternInterface asymmetricPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        PatternInterface knightPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-2, -1)),
+                coord.add(Coord.of(-2, 1)),
+                coord.add(Coord.of(2, -1)),
+                coord.add(Coord.of(2, 1)),
+                coord.add(Coord.of(-1, -2)),
+                coord.add(Coord.of(-1, 2)),
+                coord.add(Coord.of(1, -2)),
+                coord.add(Coord.of(1, 2))
+        ));
+        return new Object[][]{
+                {5, PatternUtils.getClassicPattern(), 14},
+                {4, PatternUtils.getClassicPattern(), 12},
+                {9, PatternUtils.getClassicPattern(), 10},
+                {3, asymmetricPattern, 12},
+                {4, knightPattern, 10}
+        };
+    }
+
+    /**
+     * Test vérifiant, pour chaque taille d'un balayage, que le solveur
+     * incrémental donne le même nombre de solutions, les mêmes solutions et
+     * le même espace des solutions (mêmes indices) qu'un nouveau solveur
+     * triangularisant le système complet.
+     *
+     * @param columns Le nombre de colonnes
+     * @param pattern Le pattern
+     * @param maxRows Le nombre de lignes final
+     */
+    @Test
+    @Parameters
+    public void sweep(int columns, PatternInterface pattern, int maxRows) {
+        IncrementalSolver incremental = new IncrementalSolver(columns, pattern);
+        for (int rows = 1; rows <= maxRows; rows++) {
+            incremental.addRows(1);
+            assertThat(incremental.rows()).isEqualTo(rows);
+            BitSet bits = new BitSet();
+            for (int i = 0; i < rows * columns; i += 3) {
+                bits.set(i);
+            }
+            GridInterface[][] cases = {
+                    {GridUtils.getEmptyGrid(rows, columns), GridUtils.getFullGrid(rows, columns)},
+                    {GridUtils.getGridWithActivatedBits(rows, columns, bits), GridUtils.getEmptyGrid(rows, columns)}
+            };
+            for (GridInterface[] grids : cases) {
+                Solver solver = new Solver(grids[0], grids[1], pattern, null);
+                solver.setSparseElimination(true);
+                Solutions expected = solver.solve(64);
+                Solutions solutions = incremental.solve(grids[0], grids[1], 64);
+                assertThat(solutions.getExactNbSolutions())
+                        .as("Number of solutions for " + rows + " rows")
+                        .isEqualTo(expected.getExactNbSolutions());
+                assertThat(solutions.getComputedSolutions())
+                        .as("Solutions for " + rows + " rows")
+                        .isEqualTo(expected.getComputedSolutions());
+                Optional<SolutionSpace> expectedSpace = solver.getSolutionSpace();
+                Optional<SolutionSpace> space = incremental.getSolutionSpace(grids[0], grids[1]);
+                assertThat(space.isPresent())
+                        .as("Solution space for " + rows + " rows")
+                        .isEqualTo(expectedSpace.isPresent());
+                if (space.isPresent()) {
+                    assertThat(space.get().getParticular())
+                            .as("Particular solution for " + rows + " rows")
+                            .isEqualTo(expectedSpace.get().getParticular());
+                    for (int i = 0; i < space.get().getNbSolutions().bitLength() - 1; i++) {
+                        assertThat(space.get().getKernelVector(i))
+                                .as("Kernel vector " + i + " for " + rows + " rows")
+                                .isEqualTo(expectedSpace.get().getKernelVector(i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test vérifiant l'ajout de plusieurs lignes à la fois et les erreurs.
+     */
+    @Test
+    public void addSeveralRows() {
+        IncrementalSolver incremental = new IncrementalSolver(5, PatternUtils.getClassicPattern());
+        incremental.addRows(5);
+        assertThat(incremental.getNullity()).isEqualTo(2);
+        assertThat(incremental.solve(GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5), -1)
+                .getComputedSolutions())
+                .hasSize(4);
+        assertThatThrownBy(() -> incremental.solve(GridUtils.getEmptyGrid(4, 5), GridUtils.getFullGrid(4, 5), 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> incremental.addRows(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new IncrementalSolver(0, PatternUtils.getClassicPattern()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
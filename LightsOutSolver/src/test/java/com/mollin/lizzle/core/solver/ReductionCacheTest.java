@@ -0,0 +1,250 @@
+package com.mollin.lizzle.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.solver.ReductionCache;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+import com.mollin.lightsoutsolver.core.utils.CellMask;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de test pour le cache des systèmes triangularisés
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class ReductionCacheTest {
+
+    /**
+     * Paramètres pour le test de comparaison avec le solveur sans cache.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForSameSolutionsAsSolver() {
+        PatternInterface asymmetricPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        PatternInterface impossiblePattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getGridWithSomeActivatedCoords(5, 5, Coord.of(0, 0)), PatternUtils.getClassicPattern()},
+                {GridUtils.getGridWithSomeActivatedCoords(5, 5, Coord.of(2, 2), Coord.of(4, 1)), GridUtils.getFullGrid(5, 5), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(9, 9), GridUtils.getFullGrid(9, 9), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(7, 3), GridUtils.getFullGrid(7, 3), asymmetricPattern},
+                {GridUtils.getEmptyGrid(5, 4), GridUtils.getFullGrid(5, 4), impossiblePattern},
+                {GridUtils.getEmptyGrid(5, 4), GridUtils.getGridWithSomeActivatedCoords(5, 4, Coord.of(0, 3)), impossiblePattern},
+                {GridUtils.getFullGrid(6, 6), GridUtils.getFullGrid(6, 6), PatternUtils.getClassicPattern()}
+        };
+    }
+
+    /**
+     * Test vérifiant qu'un solveur utilisant le cache trouve les mêmes
+     * solutions, dans le même ordre, qu'un solveur sans cache (avant et
+     * après la mise en cache du système).
+     *
+     * @param startGrid Grille de départ
+     * @param endGrid   Grille d'arrivée
+     * @param pattern   Le pattern
+     */
+    @Test
+    @Parameters
+    public void sameSolutionsAsSolver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        ReductionCache cache = new ReductionCache();
+        Solutions expected = new Solver(startGrid, endGrid, pattern).solve(0, 256);
+        for (int i = 0; i < 2; i++) {
+            Solver solver = new Solver(startGrid, endGrid, pattern);
+            solver.setReductionCache(cache);
+            Solutions solutions = solver.solve(0, 256);
+            assertThat(solutions.getExactNbSolutions())
+                    .as("Number of solutions")
+                    .isEqualTo(expected.getExactNbSolutions());
+            assertThat(solutions.getComputedSolutions())
+                    .as("Solutions")
+                    .containsExactlyElementsOf(expected.getComputedSolutions());
+        }
+        assertThat(cache.getLoads()).as("Loads").isEqualTo(1);
+        assertThat(cache.getHits()).as("Hits").isEqualTo(1);
+    }
+
+    /**
+     * Test des statistiques et de l'éviction : un pattern équivalent (autre
+     * instance) partage l'entrée du cache, un autre pattern ou une autre
+     * taille de grille non, et les entrées les moins récemment utilisées sont
+     * supprimées lorsque la taille maximale est dépassée.
+     */
+    @Test
+    public void statistics() {
+        PatternInterface classicPattern = PatternUtils.getClassicPattern();
+        PatternInterface samePattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord, coord.add(Coord.of(-1, 0)), coord.add(Coord.of(1, 0)),
+                coord.add(Coord.of(0, -1)), coord.add(Coord.of(0, 1))));
+        PatternInterface crossPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord, coord.add(Coord.of(-1, -1)), coord.add(Coord.of(1, 1)),
+                coord.add(Coord.of(-1, 1)), coord.add(Coord.of(1, -1))));
+        PatternInterface linePattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord, coord.add(Coord.of(0, -1)), coord.add(Coord.of(0, 1)), coord.add(Coord.of(1, 0))));
+        ReductionCache cache = new ReductionCache();
+        solveFirst(cache, 6, 6, classicPattern);
+        solveFirst(cache, 6, 6, samePattern);
+        solveFirst(cache, 6, 7, classicPattern);
+        solveFirst(cache, 6, 6, crossPattern);
+        assertThat(cache.getHits()).as("Hits").isEqualTo(1);
+        assertThat(cache.getMisses()).as("Misses").isEqualTo(3);
+        assertThat(cache.size()).as("Size").isEqualTo(3);
+        assertThat(cache.getEvictions()).as("Evictions").isEqualTo(0);
+
+        // taille suffisante pour deux systèmes de grilles 6x6
+        long twoEntries = cache.getBytes() * 2 / 3 + 1;
+        ReductionCache smallCache = new ReductionCache(twoEntries);
+        solveFirst(smallCache, 6, 6, classicPattern);
+        solveFirst(smallCache, 6, 6, crossPattern);
+        solveFirst(smallCache, 6, 6, classicPattern);
+        solveFirst(smallCache, 6, 6, linePattern);
+        assertThat(smallCache.getEvictions()).as("Evictions").isEqualTo(1);
+        assertThat(smallCache.getBytes()).as("Bytes").isLessThanOrEqualTo(twoEntries);
+        // le pattern classique, utilisé récemment, est resté dans le cache
+        solveFirst(smallCache, 6, 6, classicPattern);
+        assertThat(smallCache.getHits()).as("Hits").isEqualTo(2);
+        assertThat(smallCache.getLoads()).as("Loads").isEqualTo(3);
+    }
+
+    /**
+     * Test de non-régression : une grille 1x1 (pattern classique) et une
+     * grille 1x1 sans case vivante avaient la même empreinte et partageaient
+     * la même entrée du cache. Chaque système doit être triangularisé
+     * séparément et donner ses propres solutions.
+     */
+    @Test
+    public void emptyMaskDoesNotCollide() {
+        ReductionCache cache = new ReductionCache();
+        GridInterface empty = GridUtils.getEmptyGrid(1, 1);
+        GridInterface full = GridUtils.getFullGrid(1, 1);
+        Solver solver = new Solver(empty, full, PatternUtils.getClassicPattern());
+        solver.setReductionCache(cache);
+        assertThat(solver.solve(0).getExactNbSolutions()).isEqualTo(BigInteger.ONE);
+
+        CellMask deadMask = CellMask.of(1, 1, new BitSet());
+        Solver maskedSolver = new Solver(empty, empty, PatternUtils.getClassicPattern(), deadMask, null);
+        maskedSolver.setReductionCache(cache);
+        assertThat(maskedSolver.solve(0).getExactNbSolutions()).isEqualTo(BigInteger.ONE);
+        assertThat(cache.getLoads()).as("Loads").isEqualTo(2);
+        assertThat(cache.size()).as("Size").isEqualTo(2);
+    }
+
+    /**
+     * Test d'une grille avec trous et de la grille complète de mêmes
+     * dimensions résolues avec le même cache : chaque système a sa propre
+     * entrée et donne les mêmes solutions que sans cache. Deux formes
+     * différentes dont les matrices compactes sont égales (une seule case
+     * vivante) partagent une entrée, les solutions restant placées sur les
+     * cases vivantes de chaque forme.
+     */
+    @Test
+    public void maskedAndFullBoards() {
+        ReductionCache cache = new ReductionCache();
+        PatternInterface pattern = PatternUtils.getClassicPattern();
+        CellMask full = CellMask.full(5, 5);
+        CellMask holes = CellMask.withHoles(5, 5, Coord.of(0, 0), Coord.of(2, 2), Coord.of(4, 3));
+        BitSet topLeftCell = new BitSet();
+        topLeftCell.set(0);
+        CellMask topLeft = CellMask.of(5, 5, topLeftCell);
+        BitSet centerCell = new BitSet();
+        centerCell.set(12);
+        CellMask center = CellMask.of(5, 5, centerCell);
+        for (CellMask mask : Arrays.asList(holes, full, holes, full, topLeft, center)) {
+            GridInterface startGrid = GridUtils.getEmptyGrid(5, 5);
+            GridInterface endGrid = GridUtils.getGridWithSomeActivatedCoords(5, 5,
+                    mask.coordOf(0), mask.coordOf(mask.size() - 1));
+            Solutions expected = new Solver(startGrid, endGrid, pattern, mask, null).solve(0, 256);
+            Solver solver = new Solver(startGrid, endGrid, pattern, mask, null);
+            solver.setReductionCache(cache);
+            Solutions solutions = solver.solve(0, 256);
+            assertThat(solutions.getExactNbSolutions())
+                    .as("Number of solutions")
+                    .isEqualTo(expected.getExactNbSolutions());
+            assertThat(solutions.getComputedSolutions())
+                    .as("Solutions")
+                    .containsExactlyElementsOf(expected.getComputedSolutions());
+        }
+        assertThat(cache.getLoads()).as("Loads").isEqualTo(3);
+        assertThat(cache.getHits()).as("Hits").isEqualTo(3);
+    }
+
+    /**
+     * Test vérifiant que des demandes simultanées d'un même système ne
+     * provoquent qu'une seule triangularisation.
+     *
+     * @throws InterruptedException Si l'attente des threads est interrompue
+     */
+    @Test
+    public void singleFlight() throws InterruptedException {
+        ReductionCache cache = new ReductionCache();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Long> nbSolutions = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            GridInterface startGrid = GridUtils.getGridWithSomeActivatedCoords(40, 40, Coord.of(t, t));
+            Thread thread = new Thread(() -> {
+                Solver solver = new Solver(startGrid, PatternUtils.getClassicPattern());
+                solver.setReductionCache(cache);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long count = solver.solve(0).getExactNbSolutions().longValue();
+                synchronized (nbSolutions) {
+                    nbSolutions.add(count);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(nbSolutions).hasSize(8);
+        assertThat(cache.getLoads()).as("Loads").isEqualTo(1);
+        assertThat(cache.getHits() + cache.getMisses()).as("Requests").isEqualTo(8);
+    }
+
+    /**
+     * Cherche la première solution d'une grille vide en utilisant le cache.
+     *
+     * @param cache   Le cache
+     * @param rows    Le nombre de lignes
+     * @param columns Le nombre de colonnes
+     * @param pattern Le pattern
+     */
+    private static void solveFirst(ReductionCache cache, int rows, int columns, PatternInterface pattern) {
+        Solver solver = new Solver(GridUtils.getEmptyGrid(rows, columns), pattern);
+        solver.setReductionCache(cache);
+        solver.findFirstSolution();
+    }
+}
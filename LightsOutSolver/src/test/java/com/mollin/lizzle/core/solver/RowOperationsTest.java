@@ -0,0 +1,140 @@
+package com.mollin.lizzle.core.solver;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de test pour les opérations sur les lignes : l'implémentation
+ * vectorielle doit donner les mêmes résultats que l'implémentation scalaire.
+ * Le test est ignoré si l'implémentation vectorielle n'est pas disponible
+ * (JDK sans le module 'jdk.incubator.vector').
+ *
+ * @author MOLLIN Florian
+ */
+public class RowOperationsTest {
+    /**
+     * Paquetage des opérations (classes non publiques)
+     */
+    private static final String PACKAGE = "com.mollin.lightsoutsolver.core.solver.";
+    /**
+     * Nombre de cas aléatoires
+     */
+    private static final int NB_CASES = 20_000;
+
+    /**
+     * Test comparant les opérations scalaires et vectorielles sur des lignes
+     * et des intervalles de mots aléatoires (dont les intervalles vides et
+     * ceux qui ne sont pas multiples de la taille des vecteurs).
+     *
+     * @throws ReflectiveOperationException Si les opérations ne peuvent pas
+     *                                      être appelées
+     */
+    @Test
+    public void vectorMatchesScalar() throws ReflectiveOperationException {
+        Object scalar = newInstance(PACKAGE + "RowOperations");
+        Object vector;
+        try {
+            vector = newInstance(PACKAGE + "VectorRowOperations");
+        } catch (ReflectiveOperationException | LinkageError | UnsupportedOperationException e) {
+            vector = null;
+        }
+        Assume.assumeTrue("Vector operations not available", vector != null);
+        Class<?> type = scalar.getClass();
+        Method xor = method(type, "xor", long[].class, long[].class, int.class, int.class);
+        Method dot = method(type, "dot", long[].class, long[].class, int.class, int.class);
+        Method find = method(type, "find", long[].class, int.class, int.class, long.class);
+        Method xorIf = method(type, "xorIf", long[].class, int.class, int.class, long.class, long.class);
+
+        Random random = new Random(0);
+        for (int i = 0; i < NB_CASES; i++) {
+            int length = random.nextInt(70);
+            int from = (length == 0) ? 0 : random.nextInt(length + 1);
+            int to = from + random.nextInt(length - from + 1);
+            long[] a = randomWords(random, length);
+            long[] b = randomWords(random, length);
+            // masque d'un seul bit (recherche du pivot) ou quelconque
+            long mask = random.nextBoolean() ? 1L << random.nextInt(Long.SIZE) : random.nextLong();
+            long value = random.nextLong();
+            String description = "Case " + i + " [" + from + ", " + to + "[ of " + length;
+
+            long[] scalarTarget = a.clone();
+            long[] vectorTarget = a.clone();
+            xor.invoke(scalar, scalarTarget, b, from, to);
+            xor.invoke(vector, vectorTarget, b, from, to);
+            assertThat(vectorTarget).as("xor " + description).isEqualTo(scalarTarget);
+
+            assertThat(dot.invoke(vector, a, b, from, to))
+                    .as("dot " + description)
+                    .isEqualTo(dot.invoke(scalar, a, b, from, to));
+
+            assertThat(find.invoke(vector, a, from, to, mask))
+                    .as("find " + description)
+                    .isEqualTo(find.invoke(scalar, a, from, to, mask));
+
+            scalarTarget = a.clone();
+            vectorTarget = a.clone();
+            xorIf.invoke(scalar, scalarTarget, from, to, mask, value);
+            xorIf.invoke(vector, vectorTarget, from, to, mask, value);
+            assertThat(vectorTarget).as("xorIf " + description).isEqualTo(scalarTarget);
+        }
+    }
+
+    /**
+     * Crée une instance d'une classe non publique par son constructeur sans
+     * paramètre.
+     *
+     * @param name Le nom de la classe
+     * @return L'instance
+     * @throws ReflectiveOperationException Si la classe ne peut pas être
+     *                                      instanciée
+     */
+    private static Object newInstance(String name) throws ReflectiveOperationException {
+        Constructor<?> constructor = Class.forName(name).getDeclaredConstructor();
+        constructor.setAccessible(true);
+        try {
+            return constructor.newInstance();
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof UnsupportedOperationException) {
+                throw (UnsupportedOperationException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Renvoie une méthode non publique, rendue accessible.
+     *
+     * @param type       La classe déclarant la méthode
+     * @param name       Le nom de la méthode
+     * @param parameters Les types des paramètres
+     * @return La méthode
+     * @throws NoSuchMethodException Si la méthode n'existe pas
+     */
+    private static Method method(Class<?> type, String name, Class<?>... parameters) throws NoSuchMethodException {
+        Method method = type.getDeclaredMethod(name, parameters);
+        method.setAccessible(true);
+        return method;
+    }
+
+    /**
+     * Renvoie des mots aléatoires, certains nuls (pour la recherche).
+     *
+     * @param random Le générateur
+     * @param length Le nombre de mots
+     * @return Les mots
+     */
+    private static long[] randomWords(Random random, int length) {
+        long[] words = new long[length];
+        for (int i = 0; i < length; i++) {
+            words[i] = (random.nextInt(4) == 0) ? random.nextLong() : 0L;
+        }
+        return words;
+    }
+}
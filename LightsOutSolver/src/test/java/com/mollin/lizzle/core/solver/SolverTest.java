@@ -2,23 +2,41 @@ package com.mollin.lizzle.core.solver;
 
 import com.mollin.lightsoutsolver.core.base.GridInterface;
 import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.simulator.PressSimulator;
+import com.mollin.lightsoutsolver.core.solver.EliminationCheckpoint;
+import com.mollin.lightsoutsolver.core.solver.PressConstraints;
+import com.mollin.lightsoutsolver.core.solver.ReductionCache;
 import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.solution.NearestTarget;
 import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
 import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+import com.mollin.lightsoutsolver.core.utils.CellMask;
 import com.mollin.lightsoutsolver.core.utils.Coord;
 import com.mollin.lightsoutsolver.core.utils.GridUtils;
 import com.mollin.lightsoutsolver.core.utils.PatternUtils;
 import junitparams.JUnitParamsRunner;
 import junitparams.Parameters;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Classe de test pour le solveur
@@ -27,6 +45,11 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 @RunWith(JUnitParamsRunner.class)
 public class SolverTest {
+    /**
+     * Répertoire temporaire (triangularisation hors du tas)
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
     /**
      * Pattern 'vide'
      */
@@ -250,6 +273,17 @@ public class SolverTest {
                 });
             }
         }
+        // pattern non symétrique : cliquer sur p change l'état de pattern(p)
+        PatternInterface asymmetricPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        parameters.add(new Object[]{GridUtils.getEmptyGrid(4, 5), GridUtils.getFullGrid(4, 5), asymmetricPattern});
+        parameters.add(new Object[]{GridUtils.getEmptyGrid(6, 6), GridUtils.getFullGrid(6, 6), asymmetricPattern});
+        parameters.add(new Object[]{GridUtils.getFullGrid(3, 7),
+                GridUtils.getGridWithSomeActivatedCoords(3, 7, Coord.of(0, 0), Coord.of(2, 6)), asymmetricPattern});
         return parameters.toArray();
     }
 
@@ -323,4 +357,771 @@ public class SolverTest {
         assertThat(solutions.getComputedSolutions()).hasSize(expectedNbComputedSolutions);
     }
 
+    /**
+     * Parametres pour le test de calcul des solutions par intervalles.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForRangeSolutions() {
+        return new Object[][]{
+                {4, 4, 0, 16},
+                {4, 4, 3, 11},
+                {5, 5, 0, 4},
+                {9, 9, 100, 300},
+                {23, 47, 1000, 1100}
+        };
+    }
+
+    /**
+     * Test du calcul des solutions par intervalles d'indices : les solutions
+     * d'un intervalle découpé en deux sont les mêmes que celles de
+     * l'intervalle complet, et le stream parallèle produit les mêmes solutions
+     * que le calcul séquentiel.
+     *
+     * @param rows      Le nombre de lignes des grilles
+     * @param columns   Le nombre de colonnes des grilles
+     * @param fromIndex L'indice de début de l'intervalle
+     * @param toIndex   L'indice de fin de l'intervalle
+     */
+    @Test
+    @Parameters
+    public void rangeSolutions(int rows, int columns, long fromIndex, long toIndex) {
+        GridInterface startGrid = GridUtils.getEmptyGrid(rows, columns);
+        GridInterface endGrid = GridUtils.getFullGrid(rows, columns);
+        Solver solver = new Solver(startGrid, endGrid, PatternUtils.getClassicPattern());
+        Solutions solutions = solver.solve(fromIndex, toIndex);
+        long expectedSize = Math.max(0, Math.min(toIndex, solutions.getNbSolutions()) - fromIndex);
+        long mid = (fromIndex + toIndex) / 2;
+        Set<Solution> splitSolutions = new HashSet<>(solver.solve(fromIndex, mid).getComputedSolutions());
+        splitSolutions.addAll(new Solver(startGrid, endGrid, PatternUtils.getClassicPattern())
+                .solve(mid, toIndex).getComputedSolutions());
+        Set<Solution> parallelSolutions = solver.stream(fromIndex, toIndex)
+                .parallel()
+                .collect(Collectors.toSet());
+        assertThat(solutions.getComputedSolutions())
+                .as("Computed solutions")
+                .hasSize((int) expectedSize)
+                .isEqualTo(splitSolutions)
+                .isEqualTo(parallelSolutions);
+    }
+
+    /**
+     * Test de l'espace des solutions : chaque solution obtenue par son indice
+     * est identique à celle calculée par le solveur, y compris après
+     * sérialisation de l'espace des solutions.
+     *
+     * @throws Exception En cas d'erreur de sérialisation
+     */
+    @Test
+    public void solutionSpace() throws Exception {
+        GridInterface startGrid = GridUtils.getEmptyGrid(9, 9);
+        GridInterface endGrid = GridUtils.getFullGrid(9, 9);
+        Solver solver = new Solver(startGrid, endGrid, PatternUtils.getClassicPattern());
+        SolutionSpace space = solver.getSolutionSpace().orElseThrow(IllegalStateException::new);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(space);
+        }
+        SolutionSpace copy;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            copy = (SolutionSpace) in.readObject();
+        }
+        Solutions solutions = solver.solve(0, 300);
+        assertThat(space.getNbSolutions()).isEqualTo(solutions.getExactNbSolutions());
+        for (long index = 0; index < solutions.getComputedSolutions().size(); index++) {
+            assertThat(solutions.getComputedSolutions())
+                    .as("Solution " + index)
+                    .contains(space.solutionAt(index));
+            assertThat(copy.solutionAt(BigInteger.valueOf(index)))
+                    .as("Deserialized solution " + index)
+                    .isEqualTo(space.solutionAt(index));
+        }
+    }
+
+    /**
+     * Test du nombre exact de solutions lorsque celui-ci dépasse la capacité
+     * d'un 'long'.
+     */
+    @Test
+    public void exactNbSolutions() {
+        GridInterface grid = GridUtils.getEmptyGrid(8, 9);
+        Solver solver = new Solver(grid, grid, EMPTY_PATTERN);
+        Solutions solutions = solver.solve(2);
+        assertThat(solutions.getExactNbSolutions()).isEqualTo(BigInteger.ONE.shiftLeft(72));
+        assertThat(solutions.getNbSolutions()).isEqualTo(Long.MAX_VALUE);
+        SolutionSpace space = solver.getSolutionSpace().orElseThrow(IllegalStateException::new);
+        assertThat(space.getNullity()).isEqualTo(72);
+        assertThat(space.solutionAt(BigInteger.ONE.shiftLeft(71))).containsExactly(Coord.of(7, 8));
+    }
+
+    /**
+     * Paramètres pour le test de triangularisation hors du tas.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForOffHeapSolutions() {
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5)},
+                {GridUtils.getEmptyGrid(9, 9), GridUtils.getFullGrid(9, 9)},
+                {GridUtils.getEmptyGrid(4, 20), GridUtils.getFullGrid(4, 20)},
+                {GridUtils.getEmptyGrid(16, 16), GridUtils.getFullGrid(16, 16)},
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getGridWithSomeActivatedCoords(5, 5, Coord.of(0, 0))}
+        };
+    }
+
+    /**
+     * Test vérifiant que la triangularisation hors du tas (fichier projeté en
+     * mémoire) donne les mêmes solutions que la
+     * triangularisation dans le tas.
+     *
+     * @param startGrid Grille de départ
+     * @param endGrid   Grille d'arrivée
+     * @throws Exception En cas d'erreur de création du répertoire temporaire
+     */
+    @Test
+    @Parameters
+    public void offHeapSolutions(GridInterface startGrid, GridInterface endGrid) throws Exception {
+        PatternInterface pattern = PatternUtils.getClassicPattern();
+        Solutions expected = new Solver(startGrid, endGrid, pattern, null).solve();
+        Solutions solutions = new Solver(startGrid, endGrid, pattern, this.folder.newFolder().toPath()).solve();
+        assertThat(solutions.getExactNbSolutions())
+                .as("Nb solutions")
+                .isEqualTo(expected.getExactNbSolutions());
+        assertThat(solutions.getComputedSolutions())
+                .as("Computed solutions")
+                .isEqualTo(expected.getComputedSolutions());
+    }
+
+    /**
+     * Test du répertoire par défaut de la triangularisation hors du tas : les
+     * petites grilles sont triangularisées dans le tas, le nombre de cases
+     * des très grandes grilles ne dépasse pas la capacité d'un int.
+     */
+    @Test
+    public void defaultOffHeapDirectory() {
+        assertThat(Solver.defaultOffHeapDirectory(5, 5)).isNull();
+        assertThat(Solver.defaultOffHeapDirectory(100_000, 100_000))
+                .isEqualTo(Paths.get(System.getProperty("java.io.tmpdir")));
+        assertThat(Solver.defaultOffHeapDirectory(Integer.MAX_VALUE, Integer.MAX_VALUE)).isNotNull();
+    }
+
+    /**
+     * Test de reprise d'une triangularisation sauvegardée : la sauvegarde
+     * d'une triangularisation (dans le tas ou hors du tas) est reprise par un
+     * nouveau solveur (dans le tas ou hors du tas) qui produit les mêmes
+     * solutions. Une sauvegarde d'un autre système est ignorée.
+     *
+     * @throws Exception En cas d'erreur d'entrée/sortie
+     */
+    @Test
+    public void checkpointResume() throws Exception {
+        GridInterface startGrid = GridUtils.getEmptyGrid(16, 16);
+        GridInterface endGrid = GridUtils.getFullGrid(16, 16);
+        PatternInterface pattern = PatternUtils.getClassicPattern();
+        Solutions expected = new Solver(startGrid, endGrid, pattern, null).solve();
+        for (boolean offHeapSave : new boolean[]{false, true}) {
+            for (boolean offHeapResume : new boolean[]{false, true}) {
+                File file = new File(this.folder.newFolder(), "elimination.checkpoint");
+                EliminationCheckpoint checkpoint = new EliminationCheckpoint(file.toPath(), 0, 1);
+                Solver solver = new Solver(startGrid, endGrid, pattern, offHeapSave ? this.folder.newFolder().toPath() : null);
+                solver.setCheckpoint(checkpoint);
+                assertThat(solver.solve().getComputedSolutions()).isEqualTo(expected.getComputedSolutions());
+                assertThat(checkpoint.getNbSaves()).as("Nb saves").isGreaterThan(1);
+                assertThat(file).exists();
+
+                Solver resumed = new Solver(startGrid, endGrid, pattern, offHeapResume ? this.folder.newFolder().toPath() : null);
+                resumed.setCheckpoint(new EliminationCheckpoint(file.toPath(), Long.MAX_VALUE));
+                Solutions solutions = resumed.solve();
+                assertThat(solutions.getExactNbSolutions())
+                        .as("Nb solutions")
+                        .isEqualTo(expected.getExactNbSolutions());
+                assertThat(solutions.getComputedSolutions())
+                        .as("Resumed solutions (" + offHeapSave + ", " + offHeapResume + ")")
+                        .isEqualTo(expected.getComputedSolutions());
+
+                GridInterface otherGrid = GridUtils.getGridWithSomeActivatedCoords(16, 16, Coord.of(3, 3));
+                Solver other = new Solver(otherGrid, endGrid, pattern, null);
+                other.setCheckpoint(new EliminationCheckpoint(file.toPath(), Long.MAX_VALUE));
+                assertThat(other.solve().getComputedSolutions())
+                        .as("Other system")
+                        .isEqualTo(new Solver(otherGrid, endGrid, pattern, null).solve().getComputedSolutions());
+            }
+        }
+    }
+
+    /**
+     * Test vérifiant qu'une sauvegarde tronquée ou altérée est ignorée sans
+     * modifier les équations : la triangularisation reprend depuis le début
+     * (dans le tas ou hors du tas) et donne les bonnes solutions.
+     *
+     * @throws Exception En cas d'erreur d'entrée/sortie
+     */
+    @Test
+    public void corruptedCheckpoint() throws Exception {
+        GridInterface startGrid = GridUtils.getEmptyGrid(17, 17);
+        GridInterface endGrid = GridUtils.getFullGrid(17, 17);
+        PatternInterface pattern = PatternUtils.getClassicPattern();
+        Solutions expected = new Solver(startGrid, endGrid, pattern, null).solve();
+        File file = new File(this.folder.newFolder(), "elimination.checkpoint");
+        Solver solver = new Solver(startGrid, endGrid, pattern, null);
+        solver.setCheckpoint(new EliminationCheckpoint(file.toPath(), 0, 1));
+        solver.solve();
+        byte[] saved = Files.readAllBytes(file.toPath());
+
+        List<byte[]> corrupted = new ArrayList<>();
+        for (int length : new int[]{saved.length - 1, saved.length - 9, saved.length / 2, 100}) {
+            corrupted.add(Arrays.copyOf(saved, length));
+        }
+        byte[] altered = saved.clone();
+        altered[saved.length - 20] ^= 1;
+        corrupted.add(altered);
+        for (byte[] content : corrupted) {
+            for (boolean offHeap : new boolean[]{false, true}) {
+                Files.write(file.toPath(), content);
+                Solver resumed = new Solver(startGrid, endGrid, pattern, offHeap ? this.folder.newFolder().toPath() : null);
+                resumed.setCheckpoint(new EliminationCheckpoint(file.toPath(), Long.MAX_VALUE));
+                assertThat(resumed.solve().getComputedSolutions())
+                        .as("Solutions (" + content.length + " bytes, " + offHeap + ")")
+                        .isEqualTo(expected.getComputedSolutions());
+            }
+        }
+    }
+
+    /**
+     * Paramètres pour le test des grilles non rectangulaires.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForMaskedSolutions() {
+        return new Object[][]{
+                {CellMask.withHoles(5, 5, Coord.of(2, 2)), GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5)},
+                {CellMask.withHoles(6, 6, Coord.of(0, 0), Coord.of(0, 5), Coord.of(5, 0), Coord.of(5, 5)),
+                        GridUtils.getEmptyGrid(6, 6), GridUtils.getFullGrid(6, 6)},
+                {CellMask.parse(4, 7, "0011100" + "0111110" + "1111111" + "0001000"),
+                        GridUtils.getGridWithSomeActivatedCoords(4, 7, Coord.of(2, 0), Coord.of(0, 0)), GridUtils.getFullGrid(4, 7)},
+                {CellMask.parse(5, 5, "11111" + "10001" + "10101" + "10001" + "11111"),
+                        GridUtils.getEmptyGrid(5, 5), GridUtils.getGridWithSomeActivatedCoords(5, 5, Coord.of(2, 2), Coord.of(1, 1))},
+                {CellMask.full(4, 4), GridUtils.getEmptyGrid(4, 4), GridUtils.getFullGrid(4, 4)}
+        };
+    }
+
+    /**
+     * Test des grilles non rectangulaires : les solutions (dans le tas, hors
+     * du tas, avec le cache et sous forme creuse) sont celles de la grille rectangulaire dont le
+     * pattern ignore les cases mortes, restreintes aux solutions sans case
+     * morte.
+     *
+     * @param mask      La forme de la grille
+     * @param startGrid Grille de départ
+     * @param endGrid   Grille d'arrivée
+     * @throws Exception En cas d'erreur de création du répertoire temporaire
+     */
+    @Test
+    @Parameters
+    public void maskedSolutions(CellMask mask, GridInterface startGrid, GridInterface endGrid) throws Exception {
+        PatternInterface classicPattern = PatternUtils.getClassicPattern();
+        PatternInterface rectanglePattern = (coord) -> mask.isLive(coord)
+                ? classicPattern.getSwitchedCoords(coord).stream().filter(mask::isLive).collect(Collectors.toSet())
+                : new HashSet<>();
+        // les cases mortes de la grille rectangulaire sont dans le même état
+        // au départ et à l'arrivée
+        GridInterface rectangleEnd = GridUtils.getGridWithSomeActivatedCoords(mask.rows(), mask.columns(),
+                Stream.iterate(0, i -> i + 1).limit(mask.rows() * mask.columns())
+                        .map(i -> Coord.of(i / mask.columns(), i % mask.columns()))
+                        .filter(coord -> mask.isLive(coord) ? endGrid.isActivated(coord) : startGrid.isActivated(coord))
+                        .collect(Collectors.toList()));
+        Solutions rectangle = new Solver(startGrid, rectangleEnd, rectanglePattern, null).solve();
+        int nbDead = mask.rows() * mask.columns() - mask.size();
+        Set<Solution> expected = rectangle.getComputedSolutions().stream()
+                .filter(solution -> solution.stream().allMatch(mask::isLive))
+                .collect(Collectors.toSet());
+
+        ReductionCache cache = new ReductionCache();
+        for (int variant = 0; variant < 4; variant++) {
+            Solver solver = new Solver(startGrid, endGrid, classicPattern, mask,
+                    (variant == 1) ? this.folder.newFolder().toPath() : null);
+            if (variant == 2) {
+                solver.setReductionCache(cache);
+            }
+            solver.setSparseElimination(variant == 3);
+            Solutions solutions = solver.solve();
+            assertThat(solutions.getExactNbSolutions().shiftLeft(nbDead))
+                    .as("Nb solutions (variant " + variant + ")")
+                    .isEqualTo(rectangle.getExactNbSolutions());
+            assertThat(solutions.getComputedSolutions())
+                    .as("Computed solutions (variant " + variant + ")")
+                    .isEqualTo(expected);
+            assertThat(solver.stream().collect(Collectors.toSet()))
+                    .as("Streamed solutions (variant " + variant + ")")
+                    .isEqualTo(expected);
+            if (!expected.isEmpty()) {
+                assertThat(expected)
+                        .as("Solution space (variant " + variant + ")")
+                        .contains(solver.getSolutionSpace().get().solutionAt(0));
+            }
+        }
+    }
+
+    /**
+     * Paramètres pour le test de la triangularisation creuse.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForSparseElimination() {
+        PatternInterface asymmetricPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        PatternInterface impossiblePattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5), PatternUtils.getClassicPattern()},
+                {GridUtils.getGridWithSomeActivatedCoords(9, 9, Coord.of(4, 4)), GridUtils.getFullGrid(9, 9), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(16, 11), GridUtils.getFullGrid(16, 11), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(7, 3), GridUtils.getFullGrid(7, 3), asymmetricPattern},
+                {GridUtils.getEmptyGrid(5, 4), GridUtils.getFullGrid(5, 4), impossiblePattern},
+                {GridUtils.getEmptyGrid(5, 4), GridUtils.getGridWithSomeActivatedCoords(5, 4, Coord.of(0, 3)), impossiblePattern},
+                {GridUtils.getEmptyGrid(0, 0), GridUtils.getEmptyGrid(0, 0), PatternUtils.getClassicPattern()}
+        };
+    }
+
+    /**
+     * Test vérifiant que la triangularisation creuse donne les mêmes
+     * solutions, avec les mêmes indices, que la triangularisation dense.
+     *
+     * @param startGrid Grille de départ
+     * @param endGrid   Grille d'arrivée
+     * @param pattern   Le pattern
+     */
+    @Test
+    @Parameters
+    public void sparseElimination(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        Solutions expected = new Solver(startGrid, endGrid, pattern, null).solve(0, 256);
+        Solver solver = new Solver(startGrid, endGrid, pattern, null);
+        solver.setSparseElimination(true);
+        Solutions solutions = solver.solve(0, 256);
+        assertThat(solutions.getExactNbSolutions())
+                .as("Number of solutions")
+                .isEqualTo(expected.getExactNbSolutions());
+        assertThat(solutions.getComputedSolutions())
+                .as("Solutions")
+                .isEqualTo(expected.getComputedSolutions());
+        Optional<SolutionSpace> expectedSpace = new Solver(startGrid, endGrid, pattern, null).getSolutionSpace();
+        Optional<SolutionSpace> space = solver.getSolutionSpace();
+        assertThat(space.isPresent())
+                .as("Solution space")
+                .isEqualTo(expectedSpace.isPresent());
+        for (long index = 0; space.isPresent() && index < 256 && index < expected.getNbSolutions(); index++) {
+            assertThat(space.get().solutionAt(index))
+                    .as("Solution " + index)
+                    .isEqualTo(expectedSpace.get().solutionAt(index));
+        }
+    }
+
+    /**
+     * Paramètres pour le test des solutions contraintes.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForConstrainedSolutions() {
+        Set<Coord> none = Collections.emptySet();
+        Set<Coord> corner = new HashSet<>(Arrays.asList(Coord.of(0, 0), Coord.of(0, 1), Coord.of(1, 0), Coord.of(1, 1)));
+        Set<Coord> firstRow = new HashSet<>();
+        for (int c = 0; c < 9; c++) {
+            firstRow.add(Coord.of(0, c));
+        }
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(4, 4), GridUtils.getFullGrid(4, 4), Collections.singleton(Coord.of(0, 0)), none, none, -1},
+                {GridUtils.getEmptyGrid(4, 4), GridUtils.getFullGrid(4, 4), none, new HashSet<>(Arrays.asList(Coord.of(0, 0), Coord.of(3, 3))), none, -1},
+                {GridUtils.getEmptyGrid(4, 4), GridUtils.getFullGrid(4, 4), Collections.singleton(Coord.of(1, 2)), Collections.singleton(Coord.of(0, 0)), corner, 2},
+                {GridUtils.getEmptyGrid(4, 4), GridUtils.getFullGrid(4, 4), none, none, corner, 0},
+                {GridUtils.getEmptyGrid(9, 9), GridUtils.getFullGrid(9, 9), Collections.singleton(Coord.of(4, 4)), Collections.singleton(Coord.of(8, 8)), firstRow, 3},
+                {GridUtils.getEmptyGrid(9, 9), GridUtils.getFullGrid(9, 9), none, none, firstRow, 0},
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5), none, Collections.singleton(Coord.of(2, 2)), none, -1}
+        };
+    }
+
+    /**
+     * Test vérifiant que les solutions contraintes (cases imposées,
+     * interdites, nombre maximal de clics dans une région) sont exactement
+     * les solutions non contraintes respectant les contraintes.
+     *
+     * @param startGrid  Grille de départ
+     * @param endGrid    Grille d'arrivée
+     * @param forced     Les cases imposées
+     * @param forbidden  Les cases interdites
+     * @param region     La région limitée
+     * @param maxPresses Le nombre maximal de clics dans la région (négatif
+     *                   pour ne pas limiter)
+     */
+    @Test
+    @Parameters
+    public void constrainedSolutions(GridInterface startGrid, GridInterface endGrid, Set<Coord> forced,
+                                     Set<Coord> forbidden, Set<Coord> region, int maxPresses) {
+        Set<Solution> expected = new Solver(startGrid, endGrid, PatternUtils.getClassicPattern(), null).solve()
+                .getComputedSolutions().stream()
+                .filter(solution -> solution.containsAll(forced))
+                .filter(solution -> forbidden.stream().noneMatch(solution::contains))
+                .filter(solution -> maxPresses < 0 || region.stream().filter(solution::contains).count() <= maxPresses)
+                .collect(Collectors.toSet());
+        PressConstraints constraints = new PressConstraints();
+        constraints.force(forced.toArray(new Coord[0]));
+        constraints.forbid(forbidden.toArray(new Coord[0]));
+        if (maxPresses >= 0) {
+            constraints.limit(region, maxPresses);
+        }
+        for (boolean offHeap : new boolean[]{false, true}) {
+            Solver solver = new Solver(startGrid, endGrid, PatternUtils.getClassicPattern(),
+                    offHeap ? folder.getRoot().toPath() : null);
+            solver.setConstraints(constraints);
+            Solutions solutions = solver.solve();
+            assertThat(solutions.getExactNbSolutions())
+                    .as("Number of solutions (off heap: " + offHeap + ")")
+                    .isEqualTo(BigInteger.valueOf(expected.size()));
+            assertThat(solutions.getComputedSolutions())
+                    .as("Solutions (off heap: " + offHeap + ")")
+                    .isEqualTo(expected);
+            assertThat(solver.stream().parallel().collect(Collectors.toSet()))
+                    .as("Stream (off heap: " + offHeap + ")")
+                    .isEqualTo(expected);
+        }
+        Solver solver = new Solver(startGrid, endGrid, PatternUtils.getClassicPattern(), null);
+        solver.setConstraints(constraints);
+        if (maxPresses >= 0) {
+            assertThatThrownBy(solver::getSolutionSpace)
+                    .isInstanceOf(IllegalStateException.class);
+        } else if (!expected.isEmpty()) {
+            SolutionSpace space = solver.getSolutionSpace().get();
+            for (long index = 0; index < expected.size(); index++) {
+                assertThat(expected)
+                        .as("Solution space " + index)
+                        .contains(space.solutionAt(index));
+            }
+        }
+    }
+
+    /**
+     * Test vérifiant qu'une case ne peut pas être à la fois imposée et
+     * interdite.
+     */
+    @Test
+    public void conflictingConstraints() {
+        PressConstraints constraints = new PressConstraints();
+        constraints.force(Coord.of(1, 1));
+        assertThatThrownBy(() -> constraints.forbid(Coord.of(1, 1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> constraints.limit(Collections.singleton(Coord.of(0, 0)), -1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Paramètres pour le test des cases indifférentes.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForDontCareSolutions() {
+        Set<Coord> interior = new HashSet<>(Arrays.asList(Coord.of(1, 1), Coord.of(1, 2), Coord.of(2, 1), Coord.of(2, 2)));
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(4, 4), GridUtils.getFullGrid(4, 4), interior},
+                {GridUtils.getEmptyGrid(3, 4), GridUtils.getFullGrid(3, 4), Collections.singleton(Coord.of(0, 0))},
+                {GridUtils.getGridWithSomeActivatedCoords(3, 3, Coord.of(1, 1)), GridUtils.getEmptyGrid(3, 3), Collections.singleton(Coord.of(2, 0))},
+                {GridUtils.getEmptyGrid(2, 5), GridUtils.getFullGrid(2, 5), Collections.<Coord>emptySet()}
+        };
+    }
+
+    /**
+     * Test vérifiant que les solutions avec des cases indifférentes sont
+     * exactement les ensembles de clics atteignant la grille d'arrivée sur
+     * les autres cases (recherche exhaustive).
+     *
+     * @param startGrid     Grille de départ
+     * @param endGrid       Grille d'arrivée
+     * @param dontCareCells Les cases indifférentes
+     */
+    @Test
+    @Parameters
+    public void dontCareSolutions(GridInterface startGrid, GridInterface endGrid, Set<Coord> dontCareCells) {
+        int rows = startGrid.rows();
+        int columns = startGrid.columns();
+        PressSimulator simulator = new PressSimulator(rows, columns, PatternUtils.getClassicPattern());
+        Set<Solution> expected = new HashSet<>();
+        for (int presses = 0; presses < 1 << (rows * columns); presses++) {
+            Set<Coord> coords = new HashSet<>();
+            for (int cell = 0; cell < rows * columns; cell++) {
+                if ((presses >>> cell & 1) == 1) {
+                    coords.add(Coord.of(cell / columns, cell % columns));
+                }
+            }
+            GridInterface grid = simulator.press(startGrid, coords);
+            boolean reached = true;
+            for (int cell = 0; cell < rows * columns && reached; cell++) {
+                Coord coord = Coord.of(cell / columns, cell % columns);
+                reached = dontCareCells.contains(coord) || grid.isActivated(coord) == endGrid.isActivated(coord);
+            }
+            if (reached) {
+                expected.add(new Solution(coords.toArray(new Coord[0])));
+            }
+        }
+        for (boolean offHeap : new boolean[]{false, true}) {
+            Solver solver = new Solver(startGrid, endGrid, PatternUtils.getClassicPattern(),
+                    offHeap ? folder.getRoot().toPath() : null);
+            solver.setDontCareCells(dontCareCells);
+            Solutions solutions = solver.solve();
+            assertThat(solutions.getExactNbSolutions())
+                    .as("Number of solutions (off heap: " + offHeap + ")")
+                    .isEqualTo(BigInteger.valueOf(expected.size()));
+            assertThat(solutions.getComputedSolutions())
+                    .as("Solutions (off heap: " + offHeap + ")")
+                    .isEqualTo(expected);
+        }
+    }
+
+    /**
+     * Paramètres pour le test de la grille atteignable la plus proche.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForNearestReachableTarget() {
+        PatternInterface asymmetricPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        PatternInterface crossPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(1, 0)),
+                coord.add(Coord.of(0, -1)),
+                coord.add(Coord.of(0, 1))
+        ));
+        return new Object[][]{
+                {GridUtils.getGridWithSomeActivatedCoords(4, 4, Coord.of(0, 0)), GridUtils.getFullGrid(4, 4), PatternUtils.getClassicPattern()},
+                {GridUtils.getGridWithSomeActivatedCoords(4, 4, Coord.of(1, 2), Coord.of(3, 3)), GridUtils.getEmptyGrid(4, 4), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(4, 4), GridUtils.getFullGrid(4, 4), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(3, 5), GridUtils.getGridWithSomeActivatedCoords(3, 5, Coord.of(1, 1)), asymmetricPattern},
+                {GridUtils.getEmptyGrid(4, 4), GridUtils.getGridWithSomeActivatedCoords(4, 4, Coord.of(0, 0), Coord.of(2, 1)), crossPattern}
+        };
+    }
+
+    /**
+     * Test vérifiant que la grille atteignable la plus proche est à la
+     * distance minimale (recherche exhaustive parmi toutes les grilles
+     * atteignables) et que sa solution l'atteint, avec et sans cache.
+     *
+     * @param startGrid Grille de départ
+     * @param endGrid   Grille à atteindre
+     * @param pattern   Le pattern
+     */
+    @Test
+    @Parameters
+    public void nearestReachableTarget(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        int rows = startGrid.rows();
+        int columns = startGrid.columns();
+        PressSimulator simulator = new PressSimulator(rows, columns, pattern);
+        long[] goal = simulator.toWords(startGrid);
+        long[] end = simulator.toWords(endGrid);
+        for (int w = 0; w < goal.length; w++) {
+            goal[w] ^= end[w];
+        }
+        int expected = Integer.MAX_VALUE;
+        for (long presses = 0; presses < 1L << (rows * columns); presses++) {
+            long[] board = new long[simulator.words()];
+            simulator.apply(new long[]{presses}, board);
+            int distance = 0;
+            for (int w = 0; w < board.length; w++) {
+                distance += Long.bitCount(board[w] ^ goal[w]);
+            }
+            expected = Math.min(expected, distance);
+        }
+        for (boolean cached : new boolean[]{false, true}) {
+            Solver solver = new Solver(startGrid, endGrid, pattern, null);
+            if (cached) {
+                solver.setReductionCache(new ReductionCache());
+            }
+            NearestTarget nearest = solver.findNearestReachableTarget();
+            assertThat(nearest.getDistance())
+                    .as("Distance (cached: " + cached + ")")
+                    .isEqualTo(expected);
+            assertThat(nearest.isOptimal())
+                    .as("Optimal (cached: " + cached + ")")
+                    .isTrue();
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    Coord coord = Coord.of(r, c);
+                    assertThat(nearest.getEndGrid().isActivated(coord))
+                            .as("Cell " + coord)
+                            .isEqualTo(endGrid.isActivated(coord) ^ nearest.getChangedCells().contains(coord));
+                }
+            }
+            assertThat(simulator.verify(startGrid, nearest.getEndGrid(), nearest.getSolution()))
+                    .as("Solution " + nearest.getSolution())
+                    .isTrue();
+            assertThat(nearest.getNbSolutions())
+                    .as("Number of solutions")
+                    .isEqualTo(new Solver(startGrid, nearest.getEndGrid(), pattern, null).solve(0).getExactNbSolutions());
+        }
+    }
+
+    /**
+     * Test vérifiant la recherche heuristique, pour un orthogonal de grande
+     * dimension : le pattern ne change que la case de droite, la première
+     * colonne ne peut donc pas changer d'état.
+     */
+    @Test
+    public void heuristicNearestReachableTarget() {
+        PatternInterface rightPattern = (coord) -> Collections.singleton(coord.add(Coord.of(0, 1)));
+        GridInterface startGrid = GridUtils.getEmptyGrid(30, 3);
+        GridInterface endGrid = GridUtils.getFullGrid(30, 3);
+        NearestTarget nearest = new Solver(startGrid, endGrid, rightPattern, null).findNearestReachableTarget(8);
+        assertThat(nearest.isOptimal()).isFalse();
+        assertThat(nearest.getDistance()).isEqualTo(30);
+        for (Coord coord : nearest.getChangedCells()) {
+            assertThat(coord.getColumn()).isZero();
+        }
+        PressSimulator simulator = new PressSimulator(30, 3, rightPattern);
+        assertThat(simulator.verify(startGrid, nearest.getEndGrid(), nearest.getSolution())).isTrue();
+
+        Solver constrained = new Solver(startGrid, endGrid, rightPattern, null);
+        constrained.setDontCareCells(Collections.singleton(Coord.of(0, 0)));
+        assertThatThrownBy(constrained::findNearestReachableTarget)
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Paramètres pour le test des patterns séparant la grille en composantes
+     * indépendantes.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForComponentSolutions() {
+        PatternInterface diagonalPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-1, -1)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(1, -1)),
+                coord.add(Coord.of(1, 1))
+        ));
+        PatternInterface knightPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-2, -1)),
+                coord.add(Coord.of(-2, 1)),
+                coord.add(Coord.of(2, -1)),
+                coord.add(Coord.of(2, 1)),
+                coord.add(Coord.of(-1, -2)),
+                coord.add(Coord.of(-1, 2)),
+                coord.add(Coord.of(1, -2)),
+                coord.add(Coord.of(1, 2))
+        ));
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5), diagonalPattern},
+                {GridUtils.getGridWithSomeActivatedCoords(6, 7, Coord.of(2, 3)), GridUtils.getFullGrid(6, 7), diagonalPattern},
+                {GridUtils.getEmptyGrid(4, 4), GridUtils.getGridWithSomeActivatedCoords(4, 4, Coord.of(0, 0)), diagonalPattern},
+                {GridUtils.getEmptyGrid(3, 3), GridUtils.getFullGrid(3, 3), knightPattern},
+                {GridUtils.getEmptyGrid(2, 9), GridUtils.getFullGrid(2, 9), knightPattern},
+                {GridUtils.getEmptyGrid(70, 70), GridUtils.getFullGrid(70, 70), diagonalPattern}
+        };
+    }
+
+    /**
+     * Test vérifiant que la résolution par composantes indépendantes donne
+     * le même nombre de solutions et les mêmes solutions que la résolution du
+     * système complet (triangularisation creuse), et que l'espace des
+     * solutions est cohérent avec les solutions.
+     *
+     * @param startGrid Grille de départ
+     * @param endGrid   Grille d'arrivée
+     * @param pattern   Le pattern
+     */
+    @Test
+    @Parameters
+    public void componentSolutions(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        Solver coupled = new Solver(startGrid, endGrid, pattern, null);
+        coupled.setSparseElimination(true);
+        Solver solver = new Solver(startGrid, endGrid, pattern, null);
+        Solutions expected = coupled.solve(4096);
+        Solutions solutions = solver.solve(4096);
+        assertThat(solutions.getExactNbSolutions())
+                .as("Number of solutions")
+                .isEqualTo(expected.getExactNbSolutions());
+        if (expected.getExactNbSolutions().compareTo(BigInteger.valueOf(4096)) <= 0) {
+            assertThat(solutions.getComputedSolutions())
+                    .as("Solutions")
+                    .isEqualTo(expected.getComputedSolutions());
+        }
+        PressSimulator simulator = new PressSimulator(startGrid.rows(), startGrid.columns(), pattern);
+        for (Solution solution : solutions.getComputedSolutions()) {
+            assertThat(simulator.verify(startGrid, endGrid, solution))
+                    .as("Solution " + solution)
+                    .isTrue();
+        }
+        Optional<SolutionSpace> space = solver.getSolutionSpace();
+        assertThat(space.isPresent())
+                .as("Solution space")
+                .isEqualTo(!solutions.getComputedSolutions().isEmpty());
+        if (space.isPresent()) {
+            assertThat(space.get().getNbSolutions())
+                    .as("Solution space size")
+                    .isEqualTo(expected.getExactNbSolutions());
+            long last = space.get().getNbSolutions().min(BigInteger.valueOf(Long.MAX_VALUE)).longValue() - 1;
+            assertThat(space.get().solutionAt(last))
+                    .as("Last solution")
+                    .isEqualTo(solver.solve(last, last + 1).getComputedSolutions().iterator().next());
+        }
+    }
+
+    /**
+     * Test vérifiant que l'indice d'une solution désigne la même solution
+     * quelle que soit la configuration du solveur (dans le tas, par
+     * composantes, sous forme creuse, avec le cache, hors du tas, avec une
+     * sauvegarde) : des solveurs configurés différemment peuvent se partager
+     * les intervalles d'indices.
+     *
+     * @param startGrid Grille de départ
+     * @param endGrid   Grille d'arrivée
+     * @param pattern   Le pattern
+     * @throws Exception En cas d'erreur de création du répertoire temporaire
+     */
+    @Test
+    @Parameters(method = "parametersForComponentSolutions")
+    public void solutionIndexAcrossConfigurations(GridInterface startGrid, GridInterface endGrid,
+                                                  PatternInterface pattern) throws Exception {
+        Solver reference = new Solver(startGrid, endGrid, pattern, null);
+        BigInteger nbSolutions = reference.solve(0).getExactNbSolutions();
+        List<Long> indexes = new ArrayList<>();
+        if (nbSolutions.signum() > 0) {
+            indexes.add(0L);
+        }
+        for (int bit = 0; bit < Long.SIZE - 1 && BigInteger.ONE.shiftLeft(bit).compareTo(nbSolutions) < 0; bit++) {
+            indexes.add(1L << bit);
+            indexes.add((1L << (bit + 1)) - 1);
+        }
+        for (int variant = 1; variant < 5; variant++) {
+            Solver solver = new Solver(startGrid, endGrid, pattern,
+                    (variant == 3) ? this.folder.newFolder().toPath() : null);
+            solver.setSparseElimination(variant == 1);
+            if (variant == 2) {
+                solver.setReductionCache(new ReductionCache());
+            }
+            if (variant == 4) {
+                solver.setCheckpoint(new EliminationCheckpoint(
+                        new File(this.folder.newFolder(), "elimination.checkpoint").toPath(), Long.MAX_VALUE));
+            }
+            assertThat(solver.solve(0).getExactNbSolutions())
+                    .as("Nb solutions (variant " + variant + ")")
+                    .isEqualTo(nbSolutions);
+            for (long index : indexes) {
+                assertThat(solver.solve(index, index + 1).getComputedSolutions())
+                        .as("Solution " + index + " (variant " + variant + ")")
+                        .isEqualTo(reference.solve(index, index + 1).getComputedSolutions());
+                assertThat(solver.getSolutionSpace().get().solutionAt(index))
+                        .as("Solution space " + index + " (variant " + variant + ")")
+                        .isEqualTo(reference.getSolutionSpace().get().solutionAt(index));
+            }
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package com.mollin.lizzle.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.SparseSolver;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.SolutionSpace;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de test pour le solveur creux (comparaison avec le solveur dense)
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class SparseSolverTest {
+
+    /**
+     * Paramètres pour le test de comparaison avec le solveur dense.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForSameSolutionsAsSolver() {
+        PatternInterface asymmetricPattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(0, 0)),
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        PatternInterface impossiblePattern = (coord) -> new HashSet<>(Arrays.asList(
+                coord.add(Coord.of(-1, 0)),
+                coord.add(Coord.of(-1, 1)),
+                coord.add(Coord.of(0, -1))
+        ));
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(4, 4), GridUtils.getFullGrid(4, 4), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(9, 9), GridUtils.getFullGrid(9, 9), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(17, 17), GridUtils.getFullGrid(17, 17), PatternUtils.getClassicPattern()},
+                {GridUtils.getEmptyGrid(7, 3), GridUtils.getFullGrid(7, 3), asymmetricPattern},
+                {GridUtils.getEmptyGrid(5, 4), GridUtils.getFullGrid(5, 4), impossiblePattern},
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getGridWithSomeActivatedCoords(5, 5, Coord.of(0, 0)), PatternUtils.getClassicPattern()},
+                {GridUtils.getFullGrid(6, 6), GridUtils.getFullGrid(6, 6), PatternUtils.getClassicPattern()}
+        };
+    }
+
+    /**
+     * Test vérifiant que le solveur creux trouve le même espace de solutions
+     * que le solveur dense : même existence, même dimension du noyau, et
+     * chaque solution de la base est une solution du système.
+     *
+     * @param startGrid Grille de départ
+     * @param endGrid   Grille d'arrivée
+     * @param pattern   Le pattern
+     */
+    @Test
+    @Parameters
+    public void sameSolutionsAsSolver(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern) {
+        Optional<SolutionSpace> expected = new Solver(startGrid, endGrid, pattern).getSolutionSpace();
+        Optional<SolutionSpace> space = new SparseSolver(startGrid, endGrid, pattern).getSolutionSpace();
+        assertThat(space.isPresent())
+                .as("Has solution")
+                .isEqualTo(expected.isPresent());
+        if (!space.isPresent()) {
+            return;
+        }
+        assertThat(space.get().getNullity())
+                .as("Nullity")
+                .isEqualTo(expected.get().getNullity());
+        Set<Solution> allSolutions = new HashSet<>(new Solver(startGrid, endGrid, pattern).solve().getComputedSolutions());
+        assertThat(allSolutions)
+                .as("Particular solution")
+                .contains(space.get().solutionAt(0));
+        for (int i = 0; i < space.get().getNullity(); i++) {
+            assertThat(allSolutions)
+                    .as("Solution " + (1L << i))
+                    .contains(space.get().solutionAt(1L << i));
+        }
+    }
+}
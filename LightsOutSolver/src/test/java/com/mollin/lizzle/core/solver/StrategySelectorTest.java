@@ -0,0 +1,152 @@
+package com.mollin.lizzle.core.solver;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.simulator.PressSimulator;
+import com.mollin.lightsoutsolver.core.solver.SolveCostEstimator;
+import com.mollin.lightsoutsolver.core.solver.SolveEstimate;
+import com.mollin.lightsoutsolver.core.solver.SolveStrategy;
+import com.mollin.lightsoutsolver.core.solver.Solver;
+import com.mollin.lightsoutsolver.core.solver.StrategySelector;
+import com.mollin.lightsoutsolver.core.solver.solution.Solution;
+import com.mollin.lightsoutsolver.core.solver.solution.Solutions;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Classe de test pour l'estimation du coût des résolutions et le choix de la
+ * méthode de résolution
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class StrategySelectorTest {
+
+    /**
+     * Test vérifiant que les estimations croissent avec la taille de la
+     * grille et le nombre de solutions demandées.
+     */
+    @Test
+    public void estimatesGrowWithSize() {
+        for (SolveStrategy strategy : SolveStrategy.values()) {
+            SolveEstimate small = SolveCostEstimator.estimate(strategy, 20, 20, 5, 1);
+            SolveEstimate large = SolveCostEstimator.estimate(strategy, 200, 200, 5, 1);
+            SolveEstimate many = SolveCostEstimator.estimate(strategy, 200, 200, 5, 1000);
+            assertThat(large.getEliminationNanos())
+                    .as("Elimination " + strategy)
+                    .isGreaterThan(small.getEliminationNanos());
+            assertThat(large.getHeapBytes() + large.getDiskBytes())
+                    .as("Memory " + strategy)
+                    .isGreaterThan(small.getHeapBytes() + small.getDiskBytes());
+            assertThat(many.getEnumerationNanos())
+                    .as("Enumeration " + strategy)
+                    .isGreaterThan(large.getEnumerationNanos());
+            assertThat(many.getEliminationNanos())
+                    .as("Elimination independent of solutions " + strategy)
+                    .isEqualTo(large.getEliminationNanos());
+        }
+    }
+
+    /**
+     * Test vérifiant que le nombre de solutions estimé est borné par la
+     * dimension maximale du noyau, et que la durée est saturée au lieu de
+     * déborder.
+     */
+    @Test
+    public void boundedEnumeration() {
+        SolveEstimate bounded = SolveCostEstimator.estimate(SolveStrategy.DENSE, 5, 5, 5, Long.MAX_VALUE);
+        SolveEstimate thirtyTwo = SolveCostEstimator.estimate(SolveStrategy.DENSE, 5, 5, 5, 32);
+        assertThat(bounded.getEnumerationNanos())
+                .as("Enumeration")
+                .isEqualTo(thirtyTwo.getEnumerationNanos());
+        SolveEstimate huge = SolveCostEstimator.estimate(SolveStrategy.DENSE, 100000, 100000, 5, Long.MAX_VALUE);
+        assertThat(huge.getTotalNanos())
+                .as("Saturated duration")
+                .isEqualTo(Long.MAX_VALUE);
+        assertThatThrownBy(() -> SolveCostEstimator.estimate(SolveStrategy.DENSE, -1, 5, 5, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Test vérifiant le choix de la méthode : la méthode de Lanczos n'est
+     * choisie que pour une seule solution et aucune méthode n'est choisie si
+     * le budget du tas est trop petit.
+     */
+    @Test
+    public void selection() {
+        StrategySelector selector = new StrategySelector(1L << 30, null);
+        for (int size : new int[]{5, 50, 300}) {
+            Optional<SolveEstimate> estimate = selector.select(size, size, 5, 10);
+            assertThat(estimate.isPresent())
+                    .as("Strategy for " + size)
+                    .isTrue();
+            assertThat(estimate.get().getStrategy())
+                    .as("Strategy for " + size)
+                    .isNotIn(SolveStrategy.LANCZOS, SolveStrategy.OFF_HEAP);
+            for (SolveEstimate other : SolveCostEstimator.estimateAll(size, size, 5, 10)) {
+                if (other.getStrategy() != SolveStrategy.LANCZOS && other.getStrategy() != SolveStrategy.OFF_HEAP
+                        && other.getHeapBytes() <= 1L << 30) {
+                    assertThat(estimate.get().getTotalNanos())
+                            .as("Fastest for " + size)
+                            .isLessThanOrEqualTo(other.getTotalNanos());
+                }
+            }
+        }
+        assertThat(new StrategySelector(1024, null).select(100, 100, 5, 1).isPresent())
+                .as("Tiny heap budget")
+                .isFalse();
+    }
+
+    /**
+     * Paramètres pour le test de résolution avec la méthode choisie.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForSolveWithSelectedStrategy() {
+        return new Object[][]{
+                {GridUtils.getEmptyGrid(5, 5), GridUtils.getFullGrid(5, 5), PatternUtils.getClassicPattern(), 10},
+                {GridUtils.getGridWithSomeActivatedCoords(16, 16, Coord.of(3, 3)), GridUtils.getFullGrid(16, 16), PatternUtils.getClassicPattern(), 1},
+                {GridUtils.getEmptyGrid(60, 60), GridUtils.getFullGrid(60, 60), PatternUtils.getClassicPattern(), 1},
+                {GridUtils.getEmptyGrid(5, 4), GridUtils.getFullGrid(5, 4), PatternUtils.getClassicPattern(), -1}
+        };
+    }
+
+    /**
+     * Test vérifiant que la résolution avec la méthode choisie donne le même
+     * nombre de solutions que le solveur, et des solutions valides.
+     *
+     * @param startGrid    Grille de départ
+     * @param endGrid      Grille d'arrivée
+     * @param pattern      Le pattern
+     * @param maxSolutions Le nombre maximum de solutions
+     */
+    @Test
+    @Parameters
+    public void solveWithSelectedStrategy(GridInterface startGrid, GridInterface endGrid, PatternInterface pattern,
+                                          int maxSolutions) {
+        Solutions expected = new Solver(startGrid, endGrid, pattern, null).solve(maxSolutions);
+        Solutions solutions = new StrategySelector().solve(startGrid, endGrid, pattern, maxSolutions);
+        assertThat(solutions.getExactNbSolutions())
+                .as("Number of solutions")
+                .isEqualTo(expected.getExactNbSolutions());
+        assertThat(solutions.getComputedSolutions().size())
+                .as("Computed solutions")
+                .isEqualTo(expected.getComputedSolutions().size());
+        PressSimulator simulator = new PressSimulator(startGrid.rows(), startGrid.columns(), pattern);
+        for (Solution solution : solutions.getComputedSolutions()) {
+            assertThat(simulator.verify(startGrid, endGrid, solution))
+                    .as("Solution " + solution)
+                    .isTrue();
+        }
+    }
+}
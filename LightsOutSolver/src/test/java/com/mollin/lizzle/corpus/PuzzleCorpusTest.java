@@ -0,0 +1,99 @@
+package com.mollin.lizzle.corpus;
+
+import com.mollin.lightsoutsolver.core.base.GridInterface;
+import com.mollin.lightsoutsolver.core.utils.Coord;
+import com.mollin.lightsoutsolver.core.utils.GridUtils;
+import com.mollin.lightsoutsolver.corpus.PuzzleCorpus;
+import com.mollin.lightsoutsolver.corpus.PuzzleCorpusWriter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de test pour le corpus de grilles
+ *
+ * @author MOLLIN Florian
+ */
+public class PuzzleCorpusTest {
+    /**
+     * Dossier temporaire du test
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test vérifiant que les grilles relues depuis un corpus sont identiques
+     * aux grilles écrites (dimensions, pattern et cases actives).
+     *
+     * @throws Exception En cas d'erreur de lecture ou d'écriture
+     */
+    @Test
+    public void writeAndRead() throws Exception {
+        Path path = this.folder.newFile("corpus.bin").toPath();
+        Random random = new Random(42);
+        List<GridInterface[]> grids = new ArrayList<>();
+        try (PuzzleCorpusWriter writer = new PuzzleCorpusWriter(path, 50)) {
+            for (int i = 0; i < 50; i++) {
+                int rows = 1 + random.nextInt(12);
+                int columns = 1 + random.nextInt(12);
+                GridInterface start = randomGrid(random, rows, columns);
+                GridInterface end = randomGrid(random, rows, columns);
+                writer.add(i % 3 == 0 ? "classic" : "other", start, end);
+                grids.add(new GridInterface[]{start, end});
+            }
+        }
+        try (PuzzleCorpus corpus = new PuzzleCorpus(path)) {
+            assertThat(corpus.size()).isEqualTo(50);
+            for (int i = 0; i < 50; i++) {
+                GridInterface start = grids.get(i)[0];
+                assertThat(corpus.getRows(i)).isEqualTo(start.rows());
+                assertThat(corpus.getColumns(i)).isEqualTo(start.columns());
+                assertThat(corpus.getPatternId(i)).isEqualTo(i % 3 == 0 ? "classic" : "other");
+                assertSameCells(corpus.getStartGrid(i), start);
+                assertSameCells(corpus.getEndGrid(i), grids.get(i)[1]);
+            }
+        }
+    }
+
+    /**
+     * Retourne une grille aléatoire.
+     *
+     * @param random  Le générateur aléatoire
+     * @param rows    Le nombre de lignes
+     * @param columns Le nombre de colonnes
+     * @return La grille
+     */
+    private static GridInterface randomGrid(Random random, int rows, int columns) {
+        List<Coord> coords = new ArrayList<>();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (random.nextBoolean()) {
+                    coords.add(Coord.of(r, c));
+                }
+            }
+        }
+        return GridUtils.getGridWithSomeActivatedCoords(rows, columns, coords);
+    }
+
+    /**
+     * Vérifie que deux grilles ont les mêmes cases actives.
+     *
+     * @param actual   La grille lue
+     * @param expected La grille attendue
+     */
+    private static void assertSameCells(GridInterface actual, GridInterface expected) {
+        for (int r = 0; r < expected.rows(); r++) {
+            for (int c = 0; c < expected.columns(); c++) {
+                Coord coord = Coord.of(r, c);
+                assertThat(actual.isActivated(coord)).as("Cell " + coord).isEqualTo(expected.isActivated(coord));
+            }
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.mollin.lizzle.service;
+
+import com.mollin.lightsoutsolver.core.base.PatternInterface;
+import com.mollin.lightsoutsolver.core.utils.PatternUtils;
+import com.mollin.lightsoutsolver.service.SolveService;
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Classe de test pour le service de résolution local
+ *
+ * @author MOLLIN Florian
+ */
+@RunWith(JUnitParamsRunner.class)
+public class SolveServiceTest {
+    /**
+     * Service testé (arrêté après chaque test)
+     */
+    private SolveService service;
+
+    /**
+     * Arrête le service démarré par le test.
+     */
+    @After
+    public void stopService() {
+        if (this.service != null) {
+            this.service.stop();
+        }
+    }
+
+    /**
+     * Paramètres pour le test des réponses du service.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForResponses() {
+        return new Object[][]{
+                {"/count?rows=5&columns=5", "{\"nbSolutions\":\"4\"}"},
+                {"/count?rows=4&columns=4", "{\"nbSolutions\":\"16\"}"},
+                {"/first?rows=1&columns=1", "{\"solvable\":true,\"solution\":\"1\"}"},
+                {"/first?rows=2&columns=2&end=0000", "{\"solvable\":true,\"solution\":\"0000\"}"},
+                {"/first?rows=5&columns=5&start=0000000000000000000000000&end=1000000000000000000000000",
+                        "{\"solvable\":false}"},
+                {"/solve?rows=2&columns=2&start=1000&end=0000&max=4",
+                        "{\"nbSolutions\":\"1\",\"solutions\":[\"1110\"]}"},
+                {"/solve?rows=5&columns=5&max=0", "{\"nbSolutions\":\"4\",\"solutions\":[]}"}
+        };
+    }
+
+    /**
+     * Test des réponses du service à des requêtes valides.
+     *
+     * @param path     Le chemin et les paramètres de la requête
+     * @param expected La réponse attendue
+     * @throws IOException En cas d'erreur de communication
+     */
+    @Test
+    @Parameters
+    public void responses(String path, String expected) throws IOException {
+        this.service = start(PatternUtils.getPatterns());
+        Response response = get(path);
+        assertThat(response.status).as("Status").isEqualTo(200);
+        assertThat(response.body).isEqualTo(expected);
+    }
+
+    /**
+     * Paramètres pour le test des requêtes refusées.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForRejected() {
+        return new Object[][]{
+                {"/count"},
+                {"/count?rows=5"},
+                {"/count?rows=five&columns=5"},
+                {"/count?rows=0&columns=5"},
+                {"/count?rows=-1&columns=5"},
+                {"/count?rows=65536&columns=65537"},
+                {"/count?rows=2000&columns=2000"},
+                {"/count?rows=5&columns=5&pattern=unknown"},
+                {"/count?rows=2&columns=2&start=010"},
+                {"/count?rows=2&columns=2&end=01x0"},
+                {"/solve?rows=5&columns=5&max=-1"},
+                {"/solve?rows=5&columns=5&max=2147483647"},
+                {"/solve?rows=200&columns=200&max=1000"},
+                {"/count?rows=1000&columns=1000"}
+        };
+    }
+
+    /**
+     * Test vérifiant que les requêtes invalides (paramètres manquants ou
+     * invalides, grille ou nombre de solutions trop grands, coût estimé
+     * dépassant la limite par défaut) sont refusées.
+     *
+     * @param path Le chemin et les paramètres de la requête
+     * @throws IOException En cas d'erreur de communication
+     */
+    @Test
+    @Parameters
+    public void rejected(String path) throws IOException {
+        this.service = start(PatternUtils.getPatterns());
+        Response response = get(path);
+        assertThat(response.status).as("Status").isEqualTo(400);
+        assertThat(response.body).startsWith("{\"error\":");
+    }
+
+    /**
+     * Paramètres pour le test de l'échappement des messages d'erreur.
+     *
+     * @return Les paramètres du test
+     */
+    private Object[] parametersForEscapedError() {
+        return new Object[][]{
+                {"/count?rows=1%0A2%09x&columns=5", "{\"error\":\"Invalid integer parameter 'rows' : 1\\n2\\tx\"}"},
+                {"/count?rows=%22a%5C%0D%01&columns=5",
+                        "{\"error\":\"Invalid integer parameter 'rows' : \\\"a\\\\\\r\\u0001\"}"}
+        };
+    }
+
+    /**
+     * Test vérifiant qu'un message d'erreur reprenant la requête (sur
+     * plusieurs lignes, avec des caractères de contrôle) donne une réponse
+     * JSON valide.
+     *
+     * @param path     Le chemin et les paramètres de la requête
+     * @param expected La réponse attendue
+     * @throws IOException En cas d'erreur de communication
+     */
+    @Test
+    @Parameters
+    public void escapedError(String path, String expected) throws IOException {
+        this.service = start(PatternUtils.getPatterns());
+        Response response = get(path);
+        assertThat(response.status).as("Status").isEqualTo(400);
+        assertThat(response.body).isEqualTo(expected);
+    }
+
+    /**
+     * Test vérifiant que des requêtes identiques simultanées ne donnent
+     * lieu qu'à un seul calcul, et que les requêtes regroupées reçoivent
+     * aussi une réponse si ce calcul échoue par une Error.
+     *
+     * @throws Exception En cas d'erreur de communication ou d'attente
+     */
+    @Test
+    public void coalescing() throws Exception {
+        for (boolean failing : new boolean[]{false, true}) {
+            CountDownLatch computing = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            AtomicInteger computations = new AtomicInteger();
+            PatternInterface classicPattern = PatternUtils.getClassicPattern();
+            PatternInterface blockingPattern = (coord) -> {
+                // la taille du pattern est sondée loin de la grille
+                if (coord.getRow() == 0 && coord.getColumn() == 0) {
+                    computations.incrementAndGet();
+                    computing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (failing) {
+                        throw new AssertionError("Simulated failure");
+                    }
+                }
+                return classicPattern.getSwitchedCoords(coord);
+            };
+            Map<String, PatternInterface> patterns = new HashMap<>();
+            patterns.put("blocking", blockingPattern);
+            this.service = start(patterns);
+            String path = "/count?rows=5&columns=5&pattern=blocking";
+            CompletableFuture<Response> first = CompletableFuture.supplyAsync(() -> get(path));
+            assertThat(computing.await(10, TimeUnit.SECONDS)).as("Computing").isTrue();
+            CompletableFuture<Response> second = CompletableFuture.supplyAsync(() -> get(path));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (this.service.getStats().getCoalesced() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            Response firstResponse = first.get(10, TimeUnit.SECONDS);
+            Response secondResponse = second.get(10, TimeUnit.SECONDS);
+
+            assertThat(this.service.getStats().getCoalesced()).as("Coalesced").isEqualTo(1);
+            assertThat(computations.get()).as("Computations").isEqualTo(1);
+            int expectedStatus = failing ? 500 : 200;
+            assertThat(firstResponse.status).as("First status").isEqualTo(expectedStatus);
+            assertThat(secondResponse.status).as("Second status").isEqualTo(expectedStatus);
+            if (!failing) {
+                assertThat(secondResponse.body).isEqualTo(firstResponse.body);
+            }
+            this.service.stop();
+            this.service = null;
+        }
+    }
+
+    /**
+     * Test des statistiques du service (requêtes, erreurs, cache).
+     *
+     * @throws IOException En cas d'erreur de communication
+     */
+    @Test
+    public void statistics() throws IOException {
+        this.service = start(PatternUtils.getPatterns());
+        get("/count?rows=5&columns=5");
+        get("/first?rows=5&columns=5");
+        get("/count?rows=-1&columns=5");
+        assertThat(this.service.getStats().getRequests()).as("Requests").isEqualTo(3);
+        assertThat(this.service.getStats().getQueueDepth()).as("Queue depth").isEqualTo(0);
+        Response stats = get("/stats");
+        assertThat(stats.status).as("Status").isEqualTo(200);
+        assertThat(stats.body)
+                .startsWith("{\"requests\":3,\"errors\":1,\"coalesced\":0,\"inFlight\":0,")
+                .contains("\"cacheHits\":1,\"cacheMisses\":1,");
+    }
+
+    /**
+     * Démarre un service sur un port libre.
+     *
+     * @param patterns Les patterns disponibles
+     * @return Le service démarré
+     * @throws IOException Si le serveur ne peut pas être créé
+     */
+    private static SolveService start(Map<String, PatternInterface> patterns) throws IOException {
+        SolveService service = new SolveService(0, patterns, SolveService.DEFAULT_LARGE_BOARD_CELLS, 2);
+        service.start();
+        return service;
+    }
+
+    /**
+     * Envoie une requête GET au service.
+     *
+     * @param path Le chemin et les paramètres de la requête
+     * @return La réponse
+     */
+    private Response get(String path) {
+        try {
+            URL url = new URL("http://localhost:" + this.service.getPort() + path);
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setReadTimeout(10_000);
+            int status = connection.getResponseCode();
+            InputStream in = (status < 400) ? connection.getInputStream() : connection.getErrorStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+                body.write(buffer, 0, n);
+            }
+            in.close();
+            return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Réponse du service.
+     */
+    private static final class Response {
+        /**
+         * Code de retour
+         */
+        private final int status;
+        /**
+         * Corps de la réponse
+         */
+        private final String body;
+
+        /**
+         * Constructeur de la réponse.
+         *
+         * @param status Le code de retour
+         * @param body   Le corps de la réponse
+         */
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}